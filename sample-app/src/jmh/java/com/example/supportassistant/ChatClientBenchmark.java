@@ -0,0 +1,72 @@
+package com.example.supportassistant;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end request path: the {@code chatClient} bean calling the in-process mock OpenAI service over HTTP.
+ * Simulated generation delays are disabled so the numbers reflect client, transport and mock overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ChatClientBenchmark {
+
+    @Param({"18080"})
+    public int port;
+
+    private ConfigurableApplicationContext context;
+    private ChatClient chatClient;
+    private EmbeddingModel embeddingModel;
+
+    @Setup
+    public void start() {
+        context = SpringApplication.run(SupportAssistantApplication.class,
+            "--spring.profiles.active=mock",
+            "--server.port=" + port,
+            "--spring.ai.openai.base-url=http://localhost:" + port + "/mock",
+            "--mock.simulation.enabled=true",
+            "--mock.simulation.inter-token-delay=0ms",
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.supportassistant=WARN");
+        chatClient = context.getBean(ChatClient.class);
+        embeddingModel = context.getBean(EmbeddingModel.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public String call() {
+        return chatClient.prompt()
+            .user("What is Tanzu Spring?")
+            .call()
+            .content();
+    }
+
+    @Benchmark
+    public List<String> stream() {
+        return chatClient.prompt()
+            .user("What is Tanzu Spring?")
+            .stream()
+            .content()
+            .collectList()
+            .block();
+    }
+
+    @Benchmark
+    public float[] embed() {
+        return embeddingModel.embed("Which Spring Boot versions have extended LTS support?");
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.supportassistant.mock;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt classification and embedding generation of the mock OpenAI service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockResponseRegistryBenchmark {
+
+    @Param({"short", "rag"})
+    public String prompt;
+
+    @Param({"1536"})
+    public int dimensions;
+
+    private MockResponseRegistry randomRegistry;
+    private MockResponseRegistry semanticRegistry;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        randomRegistry = new MockResponseRegistry(new HashEmbeddingEngine(), dimensions);
+        semanticRegistry = new MockResponseRegistry(new FeatureHashingEmbeddingEngine(), dimensions);
+        String question = "Which Spring Boot versions have extended LTS support?";
+        text = switch (prompt) {
+            case "short" -> question;
+            // A QuestionAnswerAdvisor style prompt: the knowledge base as context, question last
+            case "rag" -> question + "\n\nContext information is below.\n---------------------\n"
+                + read("data/tanzu-spring-faq.md") + "\n" + read("data/tanzu-spring-application-advisor.md");
+            default -> throw new IllegalArgumentException(prompt);
+        };
+    }
+
+    @Benchmark
+    public String findResponse() {
+        return randomRegistry.findResponse(text);
+    }
+
+    @Benchmark
+    public boolean isToolCall() {
+        return randomRegistry.isToolCall(text);
+    }
+
+    @Benchmark
+    public float[] generateEmbeddingRandom() {
+        return randomRegistry.generateEmbedding(text);
+    }
+
+    @Benchmark
+    public float[] generateEmbeddingSemantic() {
+        return semanticRegistry.generateEmbedding(text);
+    }
+
+    private static String read(String path) throws IOException {
+        return new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.supportassistant.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of the chat and embedding responses of the mock OpenAI service.
+ * The boxed Jackson variant of the embedding list is the encoding the endpoint used before
+ * {@link EmbeddingResponseWriter} and serves as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MockSerializationBenchmark {
+
+    private static final String MODEL = "mock-gpt-4";
+    private static final String EMBEDDING_MODEL = "mock-text-embedding-ada-002";
+
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockResponseRegistry registry;
+    private MockOpenAiController controller;
+    private ChatStreamEncoder streamEncoder;
+    private List<String> inputs;
+    private String reply;
+    private MockOpenAiController.Usage usage;
+
+    @Setup
+    public void setUp() {
+        registry = new MockResponseRegistry(new HashEmbeddingEngine(), 1536);
+        controller = new MockOpenAiController(registry, new ProviderSimulator(
+            Binder.get(new StandardEnvironment()).bindOrCreate("mock", MockProperties.class)), new MockTokenCounter(false),
+            new SimpleMeterRegistry());
+        streamEncoder = new ChatStreamEncoder(MODEL, registry.getResponses());
+        inputs = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            inputs.add("Chunk " + i + " of the Tanzu Spring knowledge base");
+        }
+        reply = registry.findResponse("What is the latest Spring Boot version?");
+        usage = new MockOpenAiController.Usage(50, reply.length() / 4);
+    }
+
+    @Benchmark
+    public byte[] chatCompletionJackson() throws IOException {
+        return objectMapper.writeValueAsBytes(controller.createCompletionResponse(reply, usage));
+    }
+
+    @Benchmark
+    public void chatCompletionStreamEvents(Blackhole blackhole) {
+        ChatStreamEncoder.PreparedReply prepared = streamEncoder.prepare(reply);
+        ChatStreamEncoder.Stream stream = streamEncoder.open(0);
+        blackhole.consume(stream.role());
+        for (int i = 0; i < prepared.tokenCount(); i++) {
+            blackhole.consume(stream.content(prepared, i));
+        }
+        blackhole.consume(stream.stop());
+        blackhole.consume(stream.done());
+    }
+
+    @Benchmark
+    public void embeddingsStreamingWriter() throws IOException {
+        EmbeddingResponseWriter.write(OutputStream.nullOutputStream(), EMBEDDING_MODEL, inputs,
+            registry::generateEmbedding);
+    }
+
+    @Benchmark
+    public void embeddingsBoxedJackson() throws IOException {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            List<Float> embedding = new ArrayList<>();
+            for (float f : registry.generateEmbedding(inputs.get(i))) {
+                embedding.add(f);
+            }
+            data.add(Map.of("object", "embedding", "index", i, "embedding", embedding));
+        }
+        int tokens = inputs.stream().mapToInt(String::length).sum() / 4;
+        objectMapper.writeValue(OutputStream.nullOutputStream(), Map.of(
+            "object", "list",
+            "data", data,
+            "model", EMBEDDING_MODEL,
+            "usage", Map.of("prompt_tokens", tokens, "total_tokens", tokens)
+        ));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.supportassistant.startup;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to first answer of a freshly started pod: from launching the JVM until the {@link StartupProbe}
+ * has answered a question with documents retrieved from the knowledge base.
+ * <ul>
+ *     <li>{@code boot}: today's startup, which ingests the knowledge base into an empty vector store,
+ *     re-splitting and re-embedding it, before the first RAG answer.</li>
+ *     <li>{@code fast-startup}: the AOT-processed application with the class data sharing archive of
+ *     the training run, loading the knowledge snapshot embedded at build time.</li>
+ * </ul>
+ * Both run the jar extracted by the {@code fast-startup} Maven profile, which must be built first, and
+ * bind port 8080 for the mock OpenAI service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"boot", "fast-startup"})
+    public String mode;
+
+    @Param({"target/fast-startup"})
+    public String directory;
+
+    private List<String> command;
+    private Path storeDirectory;
+
+    @Setup(Level.Trial)
+    public void locateApplication() throws IOException {
+        Path applicationDirectory = Path.of(directory).toAbsolutePath();
+        Path jar;
+        try (Stream<Path> files = Files.list(applicationDirectory)) {
+            jar = files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No application in " + applicationDirectory
+                    + ", build it with ./mvnw -Pfast-startup -DskipTests package"));
+        }
+        storeDirectory = Files.createTempDirectory("startup-benchmark");
+
+        command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        if (mode.equals("fast-startup")) {
+            command.add("-XX:SharedArchiveFile=" + applicationDirectory.resolve("application.jsa"));
+            command.add("-Xlog:cds=off");
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            // built and benchmarked with the simd profile
+            command.addAll(List.of("--add-modules", "jdk.incubator.vector"));
+        }
+        command.addAll(List.of("-jar", jar.toString()));
+        command.addAll(mode.equals("fast-startup")
+            ? List.of("--spring.profiles.active=mock,fast-startup")
+            : List.of("--spring.profiles.active=mock",
+                "--support-assistant.vector-store.type=mapped",
+                "--support-assistant.ingestion.enabled=true"));
+        command.addAll(List.of(
+            "--support-assistant.vector-store.directory=" + storeDirectory,
+            "--support-assistant.startup-probe.enabled=true",
+            "--logging.level.com.example.supportassistant.mock=WARN"));
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyStore() throws IOException {
+        // every pod starts with an empty store
+        FileSystemUtils.deleteRecursively(storeDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() throws IOException {
+        FileSystemUtils.deleteRecursively(storeDirectory);
+    }
+
+    @Benchmark
+    public String firstAnswer() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.contains(StartupProbe.FIRST_ANSWER_MESSAGE)) {
+                    return line;
+                }
+            }
+            throw new IllegalStateException("Application exited with " + process.waitFor() + " before answering");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+}
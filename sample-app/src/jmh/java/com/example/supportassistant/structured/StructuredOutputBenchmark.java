@@ -0,0 +1,71 @@
+package com.example.supportassistant.structured;
+
+import com.example.supportassistant.SupportAssistantApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of structured output from the in-process mock OpenAI service, which streams JSON replies at
+ * the simulated token rate: the blocking {@code entity()} call, which binds the object once the whole
+ * completion has arrived, against the first and the last {@link PartialOutput} of a stream converted
+ * by the {@link StreamingOutputConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StructuredOutputBenchmark {
+
+    public enum Category { ACCOUNT, BILLING, TECHNICAL }
+
+    public record Answer(Category category, String answer, List<String> nextSteps) {}
+
+    private static final String QUESTION = "How do I configure Spring Boot actuator endpoints?";
+
+    @Param({"18081"})
+    public int port;
+
+    private ConfigurableApplicationContext context;
+    private ChatClient chatClient;
+    private StreamingOutputConverter<Answer> converter;
+
+    @Setup
+    public void start() {
+        context = SpringApplication.run(SupportAssistantApplication.class,
+            "--spring.profiles.active=mock",
+            "--server.port=" + port,
+            "--spring.ai.openai.base-url=http://localhost:" + port + "/mock",
+            "--mock.simulation.enabled=true",
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.supportassistant=WARN");
+        chatClient = context.getBean(ChatClient.class);
+        converter = new StreamingOutputConverter<>(Answer.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Answer entity() {
+        return chatClient.prompt().user(QUESTION).call().entity(Answer.class);
+    }
+
+    @Benchmark
+    public PartialOutput<Answer> firstField() {
+        return converter.stream(chatClient.prompt().user(QUESTION)).blockFirst();
+    }
+
+    @Benchmark
+    public PartialOutput<Answer> stream() {
+        return converter.stream(chatClient.prompt().user(QUESTION)).blockLast();
+    }
+}
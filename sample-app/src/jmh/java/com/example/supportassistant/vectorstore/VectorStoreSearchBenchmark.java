@@ -0,0 +1,204 @@
+package com.example.supportassistant.vectorstore;
+
+import com.example.supportassistant.mock.FeatureHashingEmbeddingEngine;
+import com.example.supportassistant.mock.MockResponseRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Search latency of the exact scans ({@code SimpleVectorStore}, {@link MappedVectorStore}) against the
+ * approximate {@link HnswVectorStore}, over a synthetic knowledge base embedded with the mock's semantic
+ * embeddings. The recall@k of the HNSW store against the exact results is printed for every
+ * {@code efSearch} during setup.
+ * <p>
+ * Run only the HNSW searches with {@code -Djmh.args="VectorStoreSearchBenchmark.hnsw"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorStoreSearchBenchmark {
+
+    private static final int QUERIES = 256;
+    private static final int TOP_K = 10;
+
+    @Param({"10000"})
+    public int documents;
+
+    @Param({"384"})
+    public int dimensions;
+
+    @Param({"16", "64", "160", "256"})
+    public int efSearch;
+
+    private SimpleVectorStore simpleStore;
+    private MappedVectorStore mappedStore;
+    private HnswVectorStore hnswStore;
+    private Path directory;
+    private List<SearchRequest> requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        EmbeddingModel embeddingModel = new RegistryEmbeddingModel(
+            new MockResponseRegistry(new FeatureHashingEmbeddingEngine(), dimensions), dimensions);
+        Random random = new Random(42);
+        List<String> vocabulary = vocabulary();
+
+        List<Document> corpus = IntStream.range(0, documents)
+            .mapToObj(i -> new Document("article-" + i, sentence(vocabulary, random, 12 + random.nextInt(20)), Map.of()))
+            .toList();
+        requests = IntStream.range(0, QUERIES)
+            .mapToObj(i -> SearchRequest.builder().query(sentence(vocabulary, random, 4 + random.nextInt(6))).topK(TOP_K).build())
+            .toList();
+
+        simpleStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleStore.add(corpus);
+        directory = Files.createTempDirectory("vector-store-benchmark");
+        mappedStore = MappedVectorStore.builder(embeddingModel).directory(directory).build();
+        mappedStore.add(corpus);
+
+        hnswStore = HnswVectorStore.builder(embeddingModel).efSearch(efSearch).build();
+        long start = System.nanoTime();
+        // Insert concurrently, as an ingestion pipeline would
+        int threads = Runtime.getRuntime().availableProcessors();
+        IntStream.range(0, threads).parallel().forEach(thread -> {
+            int from = documents * thread / threads;
+            int to = documents * (thread + 1) / threads;
+            for (int i = from; i < to; i += 100) {
+                hnswStore.add(corpus.subList(i, Math.min(i + 100, to)));
+            }
+        });
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        double recall = 0;
+        for (SearchRequest request : requests) {
+            Set<String> exact = ids(simpleStore.similaritySearch(request));
+            Set<String> approximate = ids(hnswStore.similaritySearch(request));
+            approximate.retainAll(exact);
+            recall += (double) approximate.size() / exact.size();
+        }
+        System.out.printf("%nHNSW efSearch=%d: recall@%d %.3f, built from %d documents in %d ms%n",
+            efSearch, TOP_K, recall / requests.size(), documents, buildMillis);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mappedStore.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Document> simpleScan() {
+        return simpleStore.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> mappedScan() {
+        return mappedStore.similaritySearch(nextRequest());
+    }
+
+    @Benchmark
+    public List<Document> hnsw() {
+        return hnswStore.similaritySearch(nextRequest());
+    }
+
+    private SearchRequest nextRequest() {
+        return requests.get(next++ & (QUERIES - 1));
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        documents.forEach(document -> ids.add(document.getId()));
+        return ids;
+    }
+
+    private static String sentence(List<String> vocabulary, Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            sentence.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+        }
+        return sentence.toString().trim();
+    }
+
+    /**
+     * Distinct words of the bundled knowledge base, so documents share its vocabulary.
+     */
+    private static List<String> vocabulary() throws IOException {
+        Set<String> words = new HashSet<>();
+        for (String path : List.of("data/tanzu-spring-faq.md", "data/tanzu-spring-application-advisor.md")) {
+            String text = new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8);
+            for (String word : text.toLowerCase().split("[^a-z0-9]+")) {
+                if (word.length() > 2) {
+                    words.add(word);
+                }
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Embeds with the mock's {@link MockResponseRegistry#generateEmbedding(String, int)}, caching the
+     * vectors so searches measure the stores rather than the embedding.
+     */
+    private static final class RegistryEmbeddingModel implements EmbeddingModel {
+
+        private final MockResponseRegistry registry;
+        private final int dimensions;
+        private final Map<String, float[]> cache = new ConcurrentHashMap<>();
+
+        RegistryEmbeddingModel(MockResponseRegistry registry, int dimensions) {
+            this.registry = registry;
+            this.dimensions = dimensions;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(embed(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return cache.computeIfAbsent(text, key -> registry.generateEmbedding(key, dimensions));
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return dimensions;
+        }
+    }
+}
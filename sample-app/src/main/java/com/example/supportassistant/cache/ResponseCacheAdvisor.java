@@ -0,0 +1,373 @@
+package com.example.supportassistant.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers repeated questions from a cache instead of calling the chat model.
+ * <p>
+ * The exact tier is keyed on a hash of all prompt messages, normalized for case and whitespace,
+ * and the chat options. The optional semantic tier embeds the last user message and returns a
+ * cached answer whose user message is similar enough, provided everything else in the prompt and
+ * the options are identical. It only compares answers cached for that same remaining prompt, at
+ * most {@code semantic.max-candidates} of them, and skips embedding when there are none. Only
+ * complete answers are cached. Cached answers are replayed token by token to {@code stream()}
+ * callers.
+ * <p>
+ * Prompts offering tools bypass the cache: the chat model runs the tools while producing the
+ * answer, and a tool such as {@code createTicket} must run for every request rather than have its
+ * answer replayed.
+ * <p>
+ * Records {@code assistant.response.cache.requests} tagged with {@code result} (hit, miss, bypass),
+ * {@code tier} (exact, semantic, none) and {@code mode} (call, stream), and the
+ * {@code assistant.response.cache.size} gauge.
+ */
+public class ResponseCacheAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * Runs after chat memory and RAG advisors, so the key covers the final prompt sent to the model.
+     */
+    public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 1000;
+
+    private static final String METRIC_REQUESTS = "assistant.response.cache.requests";
+    private static final String FINISH_REASON_STOP = "STOP";
+
+    private final Cache<String, CachedAnswer> cache;
+    private final EmbeddingModel embeddingModel;
+    private final double similarityThreshold;
+    private final int maxCandidates;
+    /**
+     * Cached answers of the semantic tier by context key, the most recent last.
+     */
+    private final Map<String, Deque<CachedAnswer>> candidates = new ConcurrentHashMap<>();
+    private final Map<String, Counter> requests = new HashMap<>();
+    private final ChatClientMessageAggregator aggregator = new ChatClientMessageAggregator();
+
+    /**
+     * @param embeddingModel model for the semantic tier, or {@code null} to only use the exact tier
+     */
+    public ResponseCacheAdvisor(ResponseCacheProperties properties, EmbeddingModel embeddingModel,
+                                MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterWrite(properties.ttl())
+            .maximumSize(properties.maxSize())
+            .<String, CachedAnswer>removalListener((key, answer, cause) -> removeCandidate(answer))
+            .build();
+        this.embeddingModel = embeddingModel;
+        this.similarityThreshold = properties.semantic().similarityThreshold();
+        this.maxCandidates = properties.semantic().maxCandidates();
+        for (String mode : List.of("call", "stream")) {
+            register(meterRegistry, "hit", "exact", mode);
+            register(meterRegistry, "hit", "semantic", mode);
+            register(meterRegistry, "miss", "none", mode);
+            register(meterRegistry, "bypass", "none", mode);
+        }
+        Gauge.builder("assistant.response.cache.size", cache, Cache::estimatedSize)
+            .description("Number of cached chat answers")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (offersTools(request.prompt())) {
+            count("bypass", "none", "call");
+            return chain.nextCall(request);
+        }
+        CacheKey key = CacheKey.of(request.prompt());
+        Lookup lookup = lookup(key, "call");
+        if (lookup.answer() != null) {
+            return ChatClientResponse.builder()
+                .chatResponse(toChatResponse(lookup.answer().text()))
+                .context(request.context())
+                .build();
+        }
+        ChatClientResponse response = chain.nextCall(request);
+        store(key, lookup.embedding(), response);
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            if (offersTools(request.prompt())) {
+                count("bypass", "none", "stream");
+                return chain.nextStream(request);
+            }
+            CacheKey key = CacheKey.of(request.prompt());
+            Lookup lookup = lookup(key, "stream");
+            if (lookup.answer() != null) {
+                return replay(lookup.answer().text(), request);
+            }
+            return aggregator.aggregateChatClientResponse(chain.nextStream(request),
+                response -> store(key, lookup.embedding(), response));
+        });
+    }
+
+    @Override
+    public String getName() {
+        return ResponseCacheAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    private Lookup lookup(CacheKey key, String mode) {
+        CachedAnswer exact = cache.getIfPresent(key.exactKey());
+        if (exact != null) {
+            count("hit", "exact", mode);
+            return new Lookup(exact, null);
+        }
+        List<CachedAnswer> sameContext = embeddingModel != null && !key.userText().isEmpty()
+            ? candidates(key.contextKey())
+            : List.of();
+        if (sameContext.isEmpty()) {
+            count("miss", "none", mode);
+            return new Lookup(null, null);
+        }
+
+        float[] embedding = embeddingModel.embed(key.userText());
+        CachedAnswer best = null;
+        double bestSimilarity = similarityThreshold;
+        for (CachedAnswer candidate : sameContext) {
+            double similarity = cosineSimilarity(embedding, candidate.embedding());
+            if (similarity >= bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        if (best != null && cache.getIfPresent(best.exactKey()) != best) {
+            // expired, and not yet removed from the candidates
+            best = null;
+        }
+        count(best != null ? "hit" : "miss", best != null ? "semantic" : "none", mode);
+        return new Lookup(best, embedding);
+    }
+
+    private void store(CacheKey key, float[] embedding, ChatClientResponse response) {
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse == null || chatResponse.getResult() == null || chatResponse.hasToolCalls()) {
+            return;
+        }
+        Generation generation = chatResponse.getResult();
+        String finishReason = generation.getMetadata().getFinishReason();
+        String text = generation.getOutput().getText();
+        if (text == null || text.isEmpty()
+                || (finishReason != null && !FINISH_REASON_STOP.equalsIgnoreCase(finishReason))) {
+            return;
+        }
+        if (embeddingModel != null && embedding == null && !key.userText().isEmpty()) {
+            embedding = embeddingModel.embed(key.userText());
+        }
+        CachedAnswer answer = new CachedAnswer(key.exactKey(), key.contextKey(), embedding, text);
+        cache.put(key.exactKey(), answer);
+        if (embedding != null) {
+            addCandidate(answer);
+        }
+    }
+
+    private List<CachedAnswer> candidates(String contextKey) {
+        Deque<CachedAnswer> answers = candidates.get(contextKey);
+        if (answers == null) {
+            return List.of();
+        }
+        synchronized (answers) {
+            return List.copyOf(answers);
+        }
+    }
+
+    private void addCandidate(CachedAnswer answer) {
+        candidates.compute(answer.contextKey(), (contextKey, answers) -> {
+            Deque<CachedAnswer> updated = answers != null ? answers : new ArrayDeque<>();
+            synchronized (updated) {
+                updated.addLast(answer);
+                if (updated.size() > maxCandidates) {
+                    updated.removeFirst();
+                }
+            }
+            return updated;
+        });
+    }
+
+    private void removeCandidate(CachedAnswer answer) {
+        if (answer == null || answer.embedding() == null) {
+            return;
+        }
+        candidates.computeIfPresent(answer.contextKey(), (contextKey, answers) -> {
+            synchronized (answers) {
+                answers.remove(answer);
+                return answers.isEmpty() ? null : answers;
+            }
+        });
+    }
+
+    /**
+     * Whether the prompt offers the model tools, which it may run while answering.
+     */
+    private static boolean offersTools(Prompt prompt) {
+        return prompt.getOptions() instanceof ToolCallingChatOptions options
+            && (!options.getToolCallbacks().isEmpty() || !options.getToolNames().isEmpty());
+    }
+
+    private Flux<ChatClientResponse> replay(String text, ChatClientRequest request) {
+        List<String> tokens = tokenize(text);
+        return Flux.range(0, tokens.size())
+            .map(index -> ChatClientResponse.builder()
+                .chatResponse(index == tokens.size() - 1
+                    ? toChatResponse(tokens.get(index))
+                    : new ChatResponse(List.of(new Generation(new AssistantMessage(tokens.get(index))))))
+                .context(request.context())
+                .build());
+    }
+
+    private static ChatResponse toChatResponse(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text),
+            ChatGenerationMetadata.builder().finishReason(FINISH_REASON_STOP).build())));
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i)) && i + 1 < text.length()) {
+                tokens.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        tokens.add(text.substring(start));
+        return tokens;
+    }
+
+    private static double cosineSimilarity(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    private void register(MeterRegistry meterRegistry, String result, String tier, String mode) {
+        requests.put(result + '|' + tier + '|' + mode, Counter.builder(METRIC_REQUESTS)
+            .description("Chat requests seen by the response cache")
+            .tag("result", result)
+            .tag("tier", tier)
+            .tag("mode", mode)
+            .register(meterRegistry));
+    }
+
+    private void count(String result, String tier, String mode) {
+        requests.get(result + '|' + tier + '|' + mode).increment();
+    }
+
+    private record Lookup(CachedAnswer answer, float[] embedding) {}
+
+    private record CachedAnswer(String exactKey, String contextKey, float[] embedding, String text) {}
+
+    /**
+     * @param exactKey   hash of all messages and options
+     * @param contextKey hash of everything but the last user message
+     * @param userText   normalized last user message
+     */
+    private record CacheKey(String exactKey, String contextKey, String userText) {
+
+        static CacheKey of(Prompt prompt) {
+            List<Message> messages = prompt.getInstructions();
+            int lastUser = -1;
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                if (messages.get(i) instanceof UserMessage) {
+                    lastUser = i;
+                    break;
+                }
+            }
+
+            StringBuilder context = new StringBuilder();
+            appendOptions(context, prompt.getOptions());
+            for (int i = 0; i < messages.size(); i++) {
+                if (i != lastUser) {
+                    append(context, messages.get(i));
+                }
+            }
+            String userText = lastUser >= 0 ? normalize(messages.get(lastUser).getText()) : "";
+            String contextKey = sha256(context.toString());
+            return new CacheKey(sha256(contextKey + '\u0000' + userText), contextKey, userText);
+        }
+
+        private static void append(StringBuilder key, Message message) {
+            key.append(message.getMessageType()).append('\u0000')
+                .append(normalize(message.getText())).append('\u0000');
+        }
+
+        private static void appendOptions(StringBuilder key, ChatOptions options) {
+            if (options == null) {
+                return;
+            }
+            key.append(options.getModel()).append('|')
+                .append(options.getTemperature()).append('|')
+                .append(options.getTopP()).append('|')
+                .append(options.getTopK()).append('|')
+                .append(options.getMaxTokens()).append('|')
+                .append(options.getFrequencyPenalty()).append('|')
+                .append(options.getPresencePenalty()).append('|')
+                .append(options.getStopSequences()).append('\u0000');
+        }
+
+        private static String normalize(String text) {
+            if (text == null) {
+                return "";
+            }
+            return String.join(" ", text.trim().toLowerCase(Locale.ROOT).split("\\s+"));
+        }
+
+        private static String sha256(String text) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
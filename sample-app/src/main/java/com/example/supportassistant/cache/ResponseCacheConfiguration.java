@@ -0,0 +1,33 @@
+package com.example.supportassistant.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds the {@link ResponseCacheAdvisor} to the {@code ChatClient.Builder} used by the application's
+ * {@code chatClient} bean. Enabled with {@code support-assistant.response-cache.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.response-cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfiguration {
+
+    @Bean
+    public ResponseCacheAdvisor responseCacheAdvisor(ResponseCacheProperties properties,
+                                                     ObjectProvider<EmbeddingModel> embeddingModel,
+                                                     MeterRegistry meterRegistry) {
+        EmbeddingModel semanticModel = properties.semantic().enabled() ? embeddingModel.getObject() : null;
+        return new ResponseCacheAdvisor(properties, semanticModel, meterRegistry);
+    }
+
+    @Bean
+    public ChatClientCustomizer responseCacheChatClientCustomizer(ResponseCacheAdvisor responseCacheAdvisor) {
+        return builder -> builder.defaultAdvisors(responseCacheAdvisor);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.supportassistant.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the chat response cache.
+ *
+ * @param enabled  whether the cache advisor is added to the {@code ChatClient}
+ * @param ttl      time after which a cached answer expires
+ * @param maxSize  maximum number of cached answers
+ * @param semantic settings of the embedding-similarity tier
+ */
+@ConfigurationProperties("support-assistant.response-cache")
+public record ResponseCacheProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10m") Duration ttl,
+    @DefaultValue("10000") int maxSize,
+    @DefaultValue Semantic semantic
+) {
+
+    /**
+     * @param enabled             whether prompts missing the exact tier are matched by embedding similarity
+     * @param similarityThreshold minimum cosine similarity of the user messages for a hit
+     * @param maxCandidates       most recent answers per remaining prompt compared by similarity
+     */
+    public record Semantic(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0.95") double similarityThreshold,
+        @DefaultValue("256") int maxCandidates
+    ) {}
+}
@@ -0,0 +1,255 @@
+package com.example.supportassistant.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.content.Media;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.core.Ordered;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Merges identical chat requests that are in flight at the same time into one model call.
+ * <p>
+ * The first request for a prompt calls the model, requests for the same prompt arriving before it
+ * completes wait for its response instead. Streams are multicast: a request joining a stream that
+ * has already started receives the chunks emitted so far, then the remaining ones as they arrive.
+ * The upstream stream is cancelled once every participant has cancelled. Failures are shared like
+ * responses. Nothing is kept once the call completes, that is what the response cache is for.
+ * <p>
+ * Requests are identical when their messages, including media, and their chat options are equal.
+ * The options are compared with {@code equals}, which covers the model, sampling parameters, tools
+ * and tool context of providers that implement it, such as OpenAI; requests of providers whose
+ * options do not implement it are never merged.
+ * <p>
+ * Prompts offering tools are never merged either: the chat model runs the tools while producing the
+ * answer, and a tool with side effects, such as creating a ticket, has to run once for every request.
+ * <p>
+ * Records {@code assistant.coalescing.requests} tagged with {@code kind} (call, stream) and
+ * {@code result} (leader, joined, bypass).
+ */
+public class CoalescingAdvisor implements CallAdvisor, StreamAdvisor {
+
+    /**
+     * Runs after the response cache, so only cache misses are merged, and just before the model call.
+     */
+    public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 500;
+
+    private static final String METRIC_REQUESTS = "assistant.coalescing.requests";
+
+    private final Map<PromptKey, CompletableFuture<ChatClientResponse>> calls = new ConcurrentHashMap<>();
+    private final Map<PromptKey, InFlightStream> streams = new ConcurrentHashMap<>();
+    private final Counter callLeaders;
+    private final Counter callsJoined;
+    private final Counter callsBypassed;
+    private final Counter streamLeaders;
+    private final Counter streamsJoined;
+    private final Counter streamsBypassed;
+
+    public CoalescingAdvisor(MeterRegistry meterRegistry) {
+        this.callLeaders = requests(meterRegistry, "call", "leader");
+        this.callsJoined = requests(meterRegistry, "call", "joined");
+        this.callsBypassed = requests(meterRegistry, "call", "bypass");
+        this.streamLeaders = requests(meterRegistry, "stream", "leader");
+        this.streamsJoined = requests(meterRegistry, "stream", "joined");
+        this.streamsBypassed = requests(meterRegistry, "stream", "bypass");
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        if (offersTools(request.prompt())) {
+            callsBypassed.increment();
+            return chain.nextCall(request);
+        }
+        PromptKey key = PromptKey.of(request.prompt());
+        CompletableFuture<ChatClientResponse> flight = new CompletableFuture<>();
+        CompletableFuture<ChatClientResponse> existing = calls.putIfAbsent(key, flight);
+        if (existing != null) {
+            callsJoined.increment();
+            return withContext(await(existing), request);
+        }
+
+        callLeaders.increment();
+        try {
+            ChatClientResponse response = chain.nextCall(request);
+            flight.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, flight);
+        }
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.deferContextual(contextView -> {
+            if (offersTools(request.prompt())) {
+                streamsBypassed.increment();
+                return chain.nextStream(request);
+            }
+            PromptKey key = PromptKey.of(request.prompt());
+            InFlightStream[] created = new InFlightStream[1];
+            InFlightStream flight = streams.compute(key, (ignored, existing) ->
+                existing != null && existing.join() ? existing : (created[0] = new InFlightStream(key)));
+            if (created[0] != null) {
+                streamLeaders.increment();
+                // the upstream outlives the leader's subscription, so it gets the leader's context explicitly
+                flight.start(chain.nextStream(request).contextWrite(contextView));
+            } else {
+                streamsJoined.increment();
+            }
+            return flight.chunks()
+                .map(response -> withContext(response, request))
+                .doFinally(signal -> flight.leave());
+        });
+    }
+
+    @Override
+    public String getName() {
+        return CoalescingAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    static Counter requests(MeterRegistry meterRegistry, String kind, String result) {
+        return Counter.builder(METRIC_REQUESTS)
+            .description("Requests that called the model (leader), waited for an identical one (joined) or were not merged (bypass)")
+            .tag("kind", kind)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether the prompt offers the model tools, which it may run while answering.
+     */
+    private static boolean offersTools(Prompt prompt) {
+        return prompt.getOptions() instanceof ToolCallingChatOptions options
+            && (!options.getToolCallbacks().isEmpty() || !options.getToolNames().isEmpty());
+    }
+
+    /**
+     * A shared response carries the context of the request that made the call, each participant gets
+     * its own back.
+     */
+    private static ChatClientResponse withContext(ChatClientResponse response, ChatClientRequest request) {
+        return ChatClientResponse.builder()
+            .chatResponse(response.chatResponse())
+            .context(request.context())
+            .build();
+    }
+
+    private static ChatClientResponse await(CompletableFuture<ChatClientResponse> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an identical chat request", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * One upstream stream and the requests sharing it. Chunks are replayed from the start to every
+     * participant, so a late joiner sees the whole answer.
+     */
+    private final class InFlightStream {
+
+        private final PromptKey key;
+        private final Sinks.Many<ChatClientResponse> sink = Sinks.many().replay().all();
+        private final Disposable.Swap upstream = Disposables.swap();
+        private int participants = 1;
+        private boolean closed;
+
+        InFlightStream(PromptKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds a participant, unless the stream has completed or been cancelled.
+         */
+        synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            participants++;
+            return true;
+        }
+
+        void start(Flux<ChatClientResponse> source) {
+            upstream.update(source.subscribe(
+                sink::tryEmitNext,
+                error -> {
+                    close();
+                    sink.tryEmitError(error);
+                },
+                () -> {
+                    close();
+                    sink.tryEmitComplete();
+                }));
+        }
+
+        Flux<ChatClientResponse> chunks() {
+            return sink.asFlux();
+        }
+
+        void leave() {
+            boolean last;
+            synchronized (this) {
+                last = --participants == 0 && !closed;
+                closed |= last;
+            }
+            // removed outside the lock, since join() is called while the map holds its own lock
+            if (last) {
+                streams.remove(key, this);
+                upstream.dispose();
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            streams.remove(key, this);
+        }
+    }
+
+    /**
+     * @param messages the prompt messages, compared by type, text and metadata
+     * @param media    the media of each message, which message equality ignores
+     * @param options  the chat options
+     */
+    private record PromptKey(List<Message> messages, List<List<Media>> media, ChatOptions options) {
+
+        static PromptKey of(Prompt prompt) {
+            List<Message> messages = prompt.getInstructions();
+            List<List<Media>> media = messages.stream()
+                .map(message -> message instanceof UserMessage user ? user.getMedia() : List.<Media>of())
+                .toList();
+            return new PromptKey(List.copyOf(messages), media, prompt.getOptions());
+        }
+    }
+}
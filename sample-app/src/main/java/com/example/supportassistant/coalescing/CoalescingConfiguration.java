@@ -0,0 +1,46 @@
+package com.example.supportassistant.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds the {@link CoalescingAdvisor} to the {@code ChatClient.Builder} used by the application's
+ * {@code chatClient} bean and wraps the {@code EmbeddingModel} bean in a {@link CoalescingEmbeddingModel}.
+ * Enabled with {@code support-assistant.coalescing.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.coalescing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(CoalescingProperties.class)
+public class CoalescingConfiguration {
+
+    @Bean
+    public CoalescingAdvisor coalescingAdvisor(MeterRegistry meterRegistry) {
+        return new CoalescingAdvisor(meterRegistry);
+    }
+
+    @Bean
+    public ChatClientCustomizer coalescingChatClientCustomizer(CoalescingAdvisor coalescingAdvisor) {
+        return builder -> builder.defaultAdvisors(coalescingAdvisor);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "support-assistant.coalescing", name = "embeddings", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor coalescingEmbeddingModelPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel embeddingModel && !(bean instanceof CoalescingEmbeddingModel)) {
+                    return new CoalescingEmbeddingModel(embeddingModel, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.supportassistant.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * {@link EmbeddingModel} that embeds a text only once while it is in flight.
+ * <p>
+ * Every text of a request is looked up among the texts currently being embedded with the same
+ * model and dimensions. Texts found there, including repeats within the request, wait for that
+ * embedding; the others are sent to the delegate in one batch. Ingesting a document a second time
+ * while the first ingestion is still embedding it therefore costs nothing. Completed embeddings are
+ * not kept, that is what the embedding cache of the vector store is for.
+ * <p>
+ * Records {@code assistant.coalescing.requests} tagged with {@code kind} (embedding) and
+ * {@code result} (leader, joined), counting texts.
+ */
+public class CoalescingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Map<TextKey, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter joined;
+
+    public CoalescingEmbeddingModel(EmbeddingModel delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.leaders = CoalescingAdvisor.requests(meterRegistry, "embedding", "leader");
+        this.joined = CoalescingAdvisor.requests(meterRegistry, "embedding", "joined");
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        String options = optionsKey(request.getOptions());
+        List<String> texts = request.getInstructions();
+        List<CompletableFuture<float[]>> results = new ArrayList<>(texts.size());
+        List<TextKey> ownKeys = new ArrayList<>();
+        List<CompletableFuture<float[]>> ownFlights = new ArrayList<>();
+        for (String text : texts) {
+            TextKey key = new TextKey(text, options);
+            CompletableFuture<float[]> flight = new CompletableFuture<>();
+            CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                results.add(existing);
+            } else {
+                results.add(flight);
+                ownKeys.add(key);
+                ownFlights.add(flight);
+            }
+        }
+        leaders.increment(ownKeys.size());
+        joined.increment(texts.size() - ownKeys.size());
+
+        EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata();
+        if (!ownKeys.isEmpty()) {
+            try {
+                List<String> ownTexts = ownKeys.stream().map(TextKey::text).toList();
+                EmbeddingResponse response = delegate.call(new EmbeddingRequest(ownTexts, request.getOptions()));
+                for (Embedding embedding : response.getResults()) {
+                    ownFlights.get(embedding.getIndex()).complete(embedding.getOutput());
+                }
+                metadata = response.getMetadata();
+                IllegalStateException missing = new IllegalStateException("No embedding returned for a text");
+                ownFlights.forEach(flight -> flight.completeExceptionally(missing));
+            } catch (RuntimeException | Error e) {
+                ownFlights.forEach(flight -> flight.completeExceptionally(e));
+                throw e;
+            } finally {
+                for (int i = 0; i < ownKeys.size(); i++) {
+                    inFlight.remove(ownKeys.get(i), ownFlights.get(i));
+                }
+            }
+        }
+
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < results.size(); i++) {
+            embeddings.add(new Embedding(await(results.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings, metadata);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * The options that change the vectors: the same text embedded by another model or with other
+     * dimensions is a different request.
+     */
+    private static String optionsKey(EmbeddingOptions options) {
+        return options == null ? "" : options.getModel() + '|' + options.getDimensions();
+    }
+
+    private static float[] await(CompletableFuture<float[]> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an embedding", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record TextKey(String text, String options) {}
+}
@@ -0,0 +1,16 @@
+package com.example.supportassistant.coalescing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of request coalescing.
+ *
+ * @param enabled    whether {@link CoalescingAdvisor} is added to the {@code ChatClient}
+ * @param embeddings whether the {@code EmbeddingModel} bean is wrapped in a {@link CoalescingEmbeddingModel}
+ */
+@ConfigurationProperties("support-assistant.coalescing")
+public record CoalescingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("true") boolean embeddings
+) {}
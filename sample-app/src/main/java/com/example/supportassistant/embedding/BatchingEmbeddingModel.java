@@ -0,0 +1,199 @@
+package com.example.supportassistant.embedding;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.EmptyUsage;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.EmbeddingResponseMetadata;
+import org.springframework.ai.model.ModelOptionsUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EmbeddingModel} that sends concurrent single-text requests to the delegate in one batch.
+ * <p>
+ * A single-text request, such as {@code embed(String)} for a similarity search, opens a batch or
+ * joins the open one for equal options. The batch is sent when it holds
+ * {@code maxBatchSize} texts, by the caller completing it, or when the first text has waited for
+ * {@code linger}, on a virtual thread. Each caller then gets its own vector back. Requests of several
+ * texts are batched already and go straight to the delegate. Options are compared by their class and
+ * properties, since provider options such as {@code OpenAiEmbeddingOptions} do not implement
+ * {@code equals}, and the batch is sent with them, so every option a caller set reaches the model.
+ * <p>
+ * Records {@code assistant.embedding.batching.size} tagged with {@code trigger} (full, linger) and
+ * the {@code assistant.embedding.batching.wait} timer, the time a text waited for its batch to be sent.
+ */
+public class BatchingEmbeddingModel implements EmbeddingModel, AutoCloseable {
+
+    private final EmbeddingModel delegate;
+    private final int maxBatchSize;
+    private final Duration linger;
+    private final Map<OptionsKey, Batch> open = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("embedding-batcher").daemon().factory());
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("embedding-batch-", 0).factory());
+    private final DistributionSummary fullBatches;
+    private final DistributionSummary lingeredBatches;
+    private final Timer wait;
+
+    public BatchingEmbeddingModel(EmbeddingModel delegate, EmbeddingBatchingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxBatchSize = properties.maxBatchSize();
+        this.linger = properties.linger();
+        this.fullBatches = batchSize(meterRegistry, "full");
+        this.lingeredBatches = batchSize(meterRegistry, "linger");
+        this.wait = Timer.builder("assistant.embedding.batching.wait")
+            .description("Time a text waited for its embedding batch to be sent")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (request.getInstructions().size() != 1 || maxBatchSize <= 1) {
+            return delegate.call(request);
+        }
+
+        Pending pending = new Pending(request.getInstructions().getFirst(), System.nanoTime(), new CompletableFuture<>());
+        OptionsKey key = OptionsKey.of(request.getOptions());
+        Batch full = null;
+        synchronized (open) {
+            Batch batch = open.get(key);
+            if (batch == null) {
+                Batch created = new Batch(key, request.getOptions());
+                created.lingerTimer = scheduler.schedule(() -> linger(created), linger.toNanos(), TimeUnit.NANOSECONDS);
+                open.put(key, created);
+                batch = created;
+            }
+            batch.texts.add(pending);
+            if (batch.texts.size() >= maxBatchSize) {
+                open.remove(key);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            full.lingerTimer.cancel(false);
+            send(full, fullBatches);
+        }
+        return await(pending.result());
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void linger(Batch batch) {
+        synchronized (open) {
+            if (!open.remove(batch.key, batch)) {
+                // sent as a full batch in the meantime
+                return;
+            }
+        }
+        executor.execute(() -> send(batch, lingeredBatches));
+    }
+
+    private void send(Batch batch, DistributionSummary batchSize) {
+        long now = System.nanoTime();
+        for (Pending pending : batch.texts) {
+            wait.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(batch.texts.size());
+        try {
+            List<String> texts = batch.texts.stream().map(Pending::text).toList();
+            EmbeddingResponse response = delegate.call(new EmbeddingRequest(texts, batch.options));
+            EmbeddingResponseMetadata metadata = new EmbeddingResponseMetadata(response.getMetadata().getModel(), new EmptyUsage());
+            for (Embedding embedding : response.getResults()) {
+                batch.texts.get(embedding.getIndex()).result()
+                    .complete(new EmbeddingResponse(List.of(new Embedding(embedding.getOutput(), 0)), metadata));
+            }
+            IllegalStateException missing = new IllegalStateException("No embedding returned for a text");
+            batch.texts.forEach(pending -> pending.result().completeExceptionally(missing));
+        } catch (RuntimeException | Error e) {
+            batch.texts.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private static EmbeddingResponse await(CompletableFuture<EmbeddingResponse> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an embedding batch", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static DistributionSummary batchSize(MeterRegistry meterRegistry, String trigger) {
+        return DistributionSummary.builder("assistant.embedding.batching.size")
+            .description("Texts per batch sent by the embedding batcher")
+            .tag("trigger", trigger)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Texts can only share a request when all of their options are equal, not just those that change
+     * the vectors.
+     *
+     * @param type       the class of the options, {@code null} without options
+     * @param properties the options' properties as the provider serializes them
+     */
+    private record OptionsKey(Class<?> type, Map<String, Object> properties) {
+
+        static OptionsKey of(EmbeddingOptions options) {
+            return options == null
+                ? new OptionsKey(null, Map.of())
+                : new OptionsKey(options.getClass(), ModelOptionsUtils.objectToMap(options));
+        }
+    }
+
+    private record Pending(String text, long enqueuedNanos, CompletableFuture<EmbeddingResponse> result) {}
+
+    /**
+     * Texts waiting for the same request. Only modified while it is open, under the lock of the open
+     * batches.
+     */
+    private static final class Batch {
+
+        private final OptionsKey key;
+        private final EmbeddingOptions options;
+        private final List<Pending> texts = new ArrayList<>();
+        private ScheduledFuture<?> lingerTimer;
+
+        Batch(OptionsKey key, EmbeddingOptions options) {
+            this.key = key;
+            this.options = options;
+        }
+    }
+}
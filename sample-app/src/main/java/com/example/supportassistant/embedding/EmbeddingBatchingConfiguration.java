@@ -0,0 +1,50 @@
+package com.example.supportassistant.embedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wraps the {@code EmbeddingModel} bean in a {@link BatchingEmbeddingModel}. Enabled with
+ * {@code support-assistant.embedding-batching.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.embedding-batching", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(EmbeddingBatchingProperties.class)
+public class EmbeddingBatchingConfiguration {
+
+    @Bean
+    public static BatchingEmbeddingModelPostProcessor batchingEmbeddingModelPostProcessor(ObjectProvider<EmbeddingBatchingProperties> properties,
+                                                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BatchingEmbeddingModelPostProcessor(properties, meterRegistry);
+    }
+
+    /**
+     * Ordered, so it runs before unordered post-processors and request coalescing wraps the batching
+     * model: identical texts are merged before they take a place in a batch. The bean method returns
+     * this type, since the order is only considered when the bean type declares it.
+     */
+    public record BatchingEmbeddingModelPostProcessor(ObjectProvider<EmbeddingBatchingProperties> properties,
+                                                      ObjectProvider<MeterRegistry> meterRegistry)
+        implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof EmbeddingModel embeddingModel && !(bean instanceof BatchingEmbeddingModel)) {
+                return new BatchingEmbeddingModel(embeddingModel, properties.getObject(), meterRegistry.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.supportassistant.embedding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of client-side embedding micro-batching.
+ *
+ * @param enabled      whether the {@code EmbeddingModel} bean is wrapped in a {@link BatchingEmbeddingModel}
+ * @param maxBatchSize texts sent in one request at most; a full batch is sent without waiting any longer
+ * @param linger       time the first text of a batch waits for others to join it
+ */
+@ConfigurationProperties("support-assistant.embedding-batching")
+public record EmbeddingBatchingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("32") int maxBatchSize,
+    @DefaultValue("5ms") Duration linger
+) {}
@@ -0,0 +1,126 @@
+package com.example.supportassistant.evaluation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Retrieval results and case results of earlier evaluation runs, keyed by a hash of everything they
+ * were computed from, so a run only evaluates cases whose question, retrieved documents, prompts or
+ * model changed.
+ * <p>
+ * The cache is a single JSON file, read when the run starts and written when it ends. Only the
+ * entries used by the run are written back, so entries of removed cases or outdated documents do not
+ * pile up.
+ */
+final class EvaluationCache {
+
+    private static final String FILE_NAME = "evaluation-cache.json";
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<RetrievedDocument>> retrievals;
+    private final Map<String, EvaluationReport.CaseResult> results;
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    private EvaluationCache(Path file, ObjectMapper objectMapper, Contents contents) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.retrievals = new ConcurrentHashMap<>(contents.retrievals());
+        this.results = new ConcurrentHashMap<>(contents.results());
+    }
+
+    /**
+     * Read the cache in the given directory, or start an empty one.
+     */
+    static EvaluationCache load(Path directory, ObjectMapper objectMapper) {
+        Path file = directory.resolve(FILE_NAME);
+        Contents contents = new Contents(Map.of(), Map.of());
+        if (Files.isRegularFile(file)) {
+            try {
+                contents = objectMapper.readValue(file.toFile(), Contents.class);
+            } catch (IOException e) {
+                // an unreadable cache only costs a full run
+                contents = new Contents(Map.of(), Map.of());
+            }
+        }
+        return new EvaluationCache(file, objectMapper, contents);
+    }
+
+    /**
+     * The cached retrieval result for the key, or the one computed by {@code retrieval}.
+     */
+    List<RetrievedDocument> retrieval(String key, Supplier<List<RetrievedDocument>> retrieval) {
+        used.add(key);
+        List<RetrievedDocument> documents = retrievals.get(key);
+        if (documents == null) {
+            documents = retrieval.get();
+            retrievals.put(key, documents);
+        }
+        return documents;
+    }
+
+    Optional<EvaluationReport.CaseResult> result(String key) {
+        used.add(key);
+        return Optional.ofNullable(results.get(key));
+    }
+
+    void putResult(String key, EvaluationReport.CaseResult result) {
+        used.add(key);
+        results.put(key, result);
+    }
+
+    /**
+     * Write the entries used by this run, replacing the cache file atomically.
+     */
+    void save() {
+        retrievals.keySet().retainAll(used);
+        results.keySet().retainAll(used);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+            objectMapper.writeValue(temporary.toFile(), new Contents(retrievals, results));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write evaluation cache " + file, e);
+        }
+    }
+
+    /**
+     * Hash of the given parts, which are separated so that moving text between parts changes it.
+     */
+    static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A document retrieved for a question.
+     */
+    record RetrievedDocument(String id, String text, Double score) {}
+
+    record Contents(Map<String, List<RetrievedDocument>> retrievals,
+                            Map<String, EvaluationReport.CaseResult> results) {}
+}
@@ -0,0 +1,9 @@
+package com.example.supportassistant.evaluation;
+
+/**
+ * A golden question of the evaluation dataset.
+ *
+ * @param id       stable identifier of the case in reports
+ * @param question question answered with the knowledge base
+ */
+public record EvaluationCase(String id, String question) {}
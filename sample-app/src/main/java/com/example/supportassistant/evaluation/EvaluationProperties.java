@@ -0,0 +1,36 @@
+package com.example.supportassistant.evaluation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the RAG evaluation runner.
+ *
+ * @param dataset          golden questions, one JSON object with an {@code id} and a {@code question} per line
+ * @param parallelism      cases evaluated at once
+ * @param topK             documents retrieved for a question
+ * @param answerPrompt     template of the RAG prompt, with {@code question} and {@code context} placeholders
+ * @param judgePrompt      template of the relevancy judge, with {@code query}, {@code response} and
+ *                         {@code context} placeholders; Spring AI's {@code RelevancyEvaluator} default if unset
+ * @param modelId          identifies the chat model; cached verdicts of another model are not reused
+ * @param cacheDirectory   directory retrieval results and verdicts are cached in between runs
+ * @param reportDirectory  directory the JSON report is written to
+ * @param minPassRate      share of cases that must pass, or the run exits with a failure
+ * @param exitOnCompletion whether to shut the application down after the run
+ */
+@ConfigurationProperties("evaluation")
+public record EvaluationProperties(
+    @DefaultValue("classpath:evaluation/golden-questions.jsonl") Resource dataset,
+    @DefaultValue("8") int parallelism,
+    @DefaultValue("4") int topK,
+    @DefaultValue("classpath:evaluation/rag-prompt.st") Resource answerPrompt,
+    Resource judgePrompt,
+    @DefaultValue("") String modelId,
+    @DefaultValue("target/evaluation/cache") Path cacheDirectory,
+    @DefaultValue("target/evaluation") Path reportDirectory,
+    @DefaultValue("0.8") double minPassRate,
+    @DefaultValue("true") boolean exitOnCompletion
+) {}
@@ -0,0 +1,69 @@
+package com.example.supportassistant.evaluation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of an evaluation run, serialized as the JSON report.
+ * <p>
+ * Cached cases keep the latency and token usage of the run that evaluated them; {@code tokens} only
+ * counts the tokens spent by this run.
+ */
+public record EvaluationReport(
+    Instant startedAt,
+    String dataset,
+    Duration duration,
+    int parallelism,
+    int cases,
+    int evaluated,
+    int cached,
+    int passed,
+    int failed,
+    int errors,
+    double passRate,
+    double meanScore,
+    Tokens tokens,
+    List<CaseResult> results
+) {
+
+    /**
+     * Outcome of one case.
+     *
+     * @param id        case identifier from the dataset
+     * @param question  question of the case
+     * @param pass      whether the judge found the answer relevant to the retrieved context
+     * @param score     relevancy score given by the judge
+     * @param cached    whether the result was taken from an earlier run
+     * @param latency   time spent in each step, in milliseconds
+     * @param tokens    tokens used by the answer and the judge
+     * @param documents ids of the retrieved documents
+     * @param answer    answer of the chat model
+     * @param error     why the case could not be evaluated, {@code null} if it was
+     */
+    public record CaseResult(String id, String question, boolean pass, float score, boolean cached, Latency latency,
+                             Tokens tokens, List<String> documents, String answer, String error) {
+
+        CaseResult asCached() {
+            return new CaseResult(id, question, pass, score, true, latency, tokens, documents, answer, error);
+        }
+    }
+
+    /**
+     * Time spent in each step of a case, in milliseconds.
+     */
+    public record Latency(long retrieval, long answer, long judge, long total) {}
+
+    /**
+     * Tokens used by the answer and the judge.
+     */
+    public record Tokens(long answerPrompt, long answerCompletion, long judgePrompt, long judgeCompletion) {
+
+        static final Tokens NONE = new Tokens(0, 0, 0, 0);
+
+        Tokens plus(Tokens other) {
+            return new Tokens(answerPrompt + other.answerPrompt, answerCompletion + other.answerCompletion,
+                judgePrompt + other.judgePrompt, judgeCompletion + other.judgeCompletion);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.supportassistant.evaluation;
+
+import com.example.supportassistant.ingestion.IngestionPipeline;
+import com.example.supportassistant.vectorstore.VectorStoreProperties;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.EvaluationResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates the RAG answers of the {@code chatClient} bean over a dataset of golden questions, the
+ * way {@code RagEvaluationTest} does for one question: documents are retrieved from the vector store,
+ * the question is answered with them, and Spring AI's {@code RelevancyEvaluator} judges whether the
+ * answer is in line with them.
+ * <p>
+ * Run with {@code ./mvnw spring-boot:run -Dspring-boot.run.profiles=mock,evaluation}, or with a real
+ * provider profile instead of {@code mock}, tuned with {@code evaluation.*} properties. Cases run
+ * concurrently on {@code evaluation.parallelism} virtual threads. Retrieval results are cached by
+ * question and knowledge base content, case results by question, retrieved documents, prompts and
+ * model, so a second run only evaluates the cases a change affected. The report is written to
+ * {@code evaluation-report.json}, and the run exits with a failure if fewer than
+ * {@code evaluation.min-pass-rate} of the cases pass.
+ */
+@Profile("evaluation")
+@Component
+@EnableConfigurationProperties(EvaluationProperties.class)
+public class EvaluationRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationRunner.class);
+
+    private final EvaluationProperties properties;
+    private final ChatClient chatClient;
+    private final RelevancyEvaluator evaluator;
+    private final JudgeUsageAdvisor judgeUsage = new JudgeUsageAdvisor();
+    private final ObjectProvider<VectorStore> vectorStore;
+    private final ObjectProvider<IngestionPipeline> ingestionPipeline;
+    private final VectorStoreProperties vectorStoreProperties;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    public EvaluationRunner(EvaluationProperties properties, ChatClient chatClient, ChatClient.Builder chatClientBuilder,
+                            ObjectProvider<VectorStore> vectorStore, ObjectProvider<IngestionPipeline> ingestionPipeline,
+                            VectorStoreProperties vectorStoreProperties, ObjectMapper objectMapper,
+                            ConfigurableApplicationContext context) {
+        this.properties = properties;
+        this.chatClient = chatClient;
+        RelevancyEvaluator.Builder evaluator = RelevancyEvaluator.builder()
+            .chatClientBuilder(chatClientBuilder.defaultAdvisors(judgeUsage));
+        if (properties.judgePrompt() != null) {
+            evaluator.promptTemplate(new PromptTemplate(properties.judgePrompt()));
+        }
+        this.evaluator = evaluator.build();
+        this.vectorStore = vectorStore;
+        this.ingestionPipeline = ingestionPipeline;
+        this.vectorStoreProperties = vectorStoreProperties;
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        VectorStore store = vectorStore.getIfAvailable();
+        if (store == null) {
+            throw new IllegalStateException("The evaluation needs a vector store, set support-assistant.vector-store.type");
+        }
+        List<EvaluationCase> cases = readDataset();
+        // the ingestion started on startup holds the pipeline's lock, so this returns once it is done
+        ingestionPipeline.ifAvailable(IngestionPipeline::ingestAll);
+        String knowledgeBase = knowledgeBaseHash();
+        String prompts = EvaluationCache.key(read(properties.answerPrompt()),
+            properties.judgePrompt() != null
+                ? read(properties.judgePrompt())
+                : "RelevancyEvaluator " + RelevancyEvaluator.class.getPackage().getImplementationVersion());
+        EvaluationCache cache = EvaluationCache.load(properties.cacheDirectory(), objectMapper);
+        logger.info("Evaluation: {} cases from {}, parallelism {}", cases.size(), properties.dataset().getDescription(),
+            properties.parallelism());
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        List<EvaluationReport.CaseResult> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(properties.parallelism(),
+                Thread.ofVirtual().name("evaluation-", 0).factory())) {
+            List<Future<EvaluationReport.CaseResult>> futures = new ArrayList<>();
+            for (EvaluationCase evaluationCase : cases) {
+                futures.add(executor.submit(() -> evaluate(evaluationCase, store, knowledgeBase, prompts, cache)));
+            }
+            for (Future<EvaluationReport.CaseResult> future : futures) {
+                results.add(future.get());
+            }
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        cache.save();
+
+        EvaluationReport report = report(startedAt, duration, results);
+        writeReport(report);
+        logger.info("Evaluation: {} of {} cases passed ({}), {} evaluated, {} cached, {} errors, mean score {}, in {} ms",
+            report.passed(), report.cases(), String.format("%.2f", report.passRate()), report.evaluated(),
+            report.cached(), report.errors(), String.format("%.2f", report.meanScore()), duration.toMillis());
+        results.stream()
+            .filter(result -> !result.pass())
+            .forEach(result -> logger.info("Evaluation: case {} failed{}", result.id(),
+                result.error() != null ? ": " + result.error() : ""));
+
+        boolean passed = report.passRate() >= properties.minPassRate();
+        if (!passed) {
+            logger.error("Evaluation: pass rate {} is below the minimum of {}", String.format("%.2f", report.passRate()),
+                properties.minPassRate());
+        }
+        if (properties.exitOnCompletion()) {
+            System.exit(SpringApplication.exit(context, () -> passed ? 0 : 1));
+        }
+    }
+
+    private EvaluationReport.CaseResult evaluate(EvaluationCase evaluationCase, VectorStore store, String knowledgeBase,
+                                                 String prompts, EvaluationCache cache) {
+        long start = System.nanoTime();
+        try {
+            Supplier<List<EvaluationCache.RetrievedDocument>> retrieval = () -> retrieve(store, evaluationCase.question());
+            List<EvaluationCache.RetrievedDocument> documents = knowledgeBase != null
+                ? cache.retrieval(EvaluationCache.key("retrieval", knowledgeBase, vectorStoreProperties.embeddingModelId(),
+                    String.valueOf(properties.topK()), evaluationCase.question()), retrieval)
+                : retrieval.get();
+            long retrieved = System.nanoTime();
+
+            String key = EvaluationCache.key("case", prompts, properties.modelId(), evaluationCase.question(),
+                documents.stream().map(document -> document.id() + '\u0000' + document.text())
+                    .collect(Collectors.joining("\u0000")));
+            EvaluationReport.CaseResult cached = cache.result(key).orElse(null);
+            if (cached != null) {
+                return cached.asCached();
+            }
+
+            String context = documents.stream().map(EvaluationCache.RetrievedDocument::text)
+                .collect(Collectors.joining(System.lineSeparator()));
+            ChatResponse response = chatClient.prompt()
+                .user(new PromptTemplate(properties.answerPrompt())
+                    .render(Map.of("question", evaluationCase.question(), "context", context)))
+                .call()
+                .chatResponse();
+            String answer = response != null && response.getResult() != null
+                ? response.getResult().getOutput().getText()
+                : null;
+            long answered = System.nanoTime();
+
+            long[] judgeTokens = new long[2];
+            EvaluationResponse verdict = judgeUsage.record(judgeTokens, () -> evaluator.evaluate(new EvaluationRequest(
+                evaluationCase.question(),
+                documents.stream().map(document -> new Document(document.id(), document.text(), Map.of())).toList(),
+                answer != null ? answer : "")));
+            long judged = System.nanoTime();
+
+            Usage usage = response != null ? response.getMetadata().getUsage() : null;
+            EvaluationReport.CaseResult result = new EvaluationReport.CaseResult(
+                evaluationCase.id(),
+                evaluationCase.question(),
+                verdict.isPass(),
+                verdict.getScore(),
+                false,
+                new EvaluationReport.Latency(millis(retrieved - start), millis(answered - retrieved),
+                    millis(judged - answered), millis(judged - start)),
+                new EvaluationReport.Tokens(tokens(usage != null ? usage.getPromptTokens() : null),
+                    tokens(usage != null ? usage.getCompletionTokens() : null), judgeTokens[0], judgeTokens[1]),
+                documents.stream().map(EvaluationCache.RetrievedDocument::id).toList(),
+                answer,
+                null);
+            cache.putResult(key, result);
+            return result;
+        } catch (RuntimeException e) {
+            logger.debug("Evaluation: case {} failed", evaluationCase.id(), e);
+            return new EvaluationReport.CaseResult(evaluationCase.id(), evaluationCase.question(), false, 0, false,
+                new EvaluationReport.Latency(0, 0, 0, millis(System.nanoTime() - start)),
+                EvaluationReport.Tokens.NONE, List.of(), null, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private List<EvaluationCache.RetrievedDocument> retrieve(VectorStore store, String question) {
+        return store.similaritySearch(SearchRequest.builder().query(question).topK(properties.topK()).build())
+            .stream()
+            .map(document -> new EvaluationCache.RetrievedDocument(document.getId(), document.getText(), document.getScore()))
+            .toList();
+    }
+
+    /**
+     * Hash of the knowledge base files, or {@code null} if the documents in the vector store are not
+     * known because nothing is ingested, in which case retrieval results are not cached.
+     */
+    private String knowledgeBaseHash() {
+        IngestionPipeline pipeline = ingestionPipeline.getIfAvailable();
+        if (pipeline == null) {
+            logger.info("Evaluation: knowledge base ingestion is disabled, retrieval results are not cached");
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        for (IngestionPipeline.SourceFile file : pipeline.listFiles()) {
+            parts.add(file.id());
+            parts.add(read(file.resource()));
+        }
+        return EvaluationCache.key(parts.toArray(String[]::new));
+    }
+
+    private List<EvaluationCase> readDataset() throws IOException {
+        try (MappingIterator<EvaluationCase> lines = objectMapper.readerFor(EvaluationCase.class)
+                .readValues(properties.dataset().getInputStream())) {
+            return lines.readAll();
+        }
+    }
+
+    private static String read(Resource resource) {
+        try {
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + resource.getDescription(), e);
+        }
+    }
+
+    private EvaluationReport report(Instant startedAt, Duration duration, List<EvaluationReport.CaseResult> results) {
+        int cached = (int) results.stream().filter(EvaluationReport.CaseResult::cached).count();
+        int errors = (int) results.stream().filter(result -> result.error() != null).count();
+        int passed = (int) results.stream().filter(EvaluationReport.CaseResult::pass).count();
+        EvaluationReport.Tokens tokens = results.stream()
+            .filter(result -> !result.cached())
+            .map(EvaluationReport.CaseResult::tokens)
+            .reduce(EvaluationReport.Tokens.NONE, EvaluationReport.Tokens::plus);
+        return new EvaluationReport(
+            startedAt,
+            properties.dataset().getDescription(),
+            duration,
+            properties.parallelism(),
+            results.size(),
+            results.size() - cached,
+            cached,
+            passed,
+            results.size() - passed - errors,
+            errors,
+            results.isEmpty() ? 0 : (double) passed / results.size(),
+            results.stream().mapToDouble(EvaluationReport.CaseResult::score).average().orElse(0),
+            tokens,
+            results
+        );
+    }
+
+    private void writeReport(EvaluationReport report) throws IOException {
+        Path directory = properties.reportDirectory();
+        Files.createDirectories(directory);
+        objectMapper.writeValue(directory.resolve("evaluation-report.json").toFile(), report);
+        logger.info("Evaluation: report written to {}", directory.toAbsolutePath());
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long tokens(Integer tokens) {
+        return tokens != null ? tokens : 0;
+    }
+
+    /**
+     * Adds the token usage of the judge's calls to the counters of the case being judged on the
+     * calling thread, since the {@code RelevancyEvaluator} does not expose the judge's response.
+     */
+    private static final class JudgeUsageAdvisor implements CallAdvisor {
+
+        private final ThreadLocal<long[]> tokens = new ThreadLocal<>();
+
+        <T> T record(long[] counters, Supplier<T> call) {
+            tokens.set(counters);
+            try {
+                return call.get();
+            } finally {
+                tokens.remove();
+            }
+        }
+
+        @Override
+        public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+            ChatClientResponse response = chain.nextCall(request);
+            long[] counters = tokens.get();
+            if (counters != null && response.chatResponse() != null) {
+                Usage usage = response.chatResponse().getMetadata().getUsage();
+                counters[0] += tokens(usage.getPromptTokens());
+                counters[1] += tokens(usage.getCompletionTokens());
+            }
+            return response;
+        }
+
+        @Override
+        public String getName() {
+            return "JudgeUsageAdvisor";
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
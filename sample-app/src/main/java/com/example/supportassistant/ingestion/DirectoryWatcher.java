@@ -0,0 +1,109 @@
+package com.example.supportassistant.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Re-ingests the knowledge base directory when files in it change.
+ * <p>
+ * Changes are collected until the directory has been quiet for the configured period, so saving a
+ * file or copying in many files triggers one run. The run re-hashes all files but only re-embeds
+ * those whose content changed, and removes the chunks of deleted files.
+ */
+class DirectoryWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectoryWatcher.class);
+
+    private final Path directory;
+    private final Duration quietPeriod;
+    private final IngestionPipeline pipeline;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    DirectoryWatcher(Path directory, Duration quietPeriod, IngestionPipeline pipeline) {
+        this.directory = directory;
+        this.quietPeriod = quietPeriod;
+        this.pipeline = pipeline;
+        try {
+            this.watchService = directory.getFileSystem().newWatchService();
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.filter(Files::isDirectory).toList()) {
+                    register(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot watch " + directory, e);
+        }
+        this.thread = Thread.ofPlatform().daemon().name("knowledge-watcher").unstarted(this::run);
+    }
+
+    void start() {
+        thread.start();
+        log.info("Watching {} for knowledge base changes", directory);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                // Drain further events until the directory is quiet
+                while (key != null) {
+                    handle(key);
+                    key = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                try {
+                    pipeline.ingestAll();
+                } catch (RuntimeException e) {
+                    log.warn("Re-ingesting {} failed", directory, e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void handle(WatchKey key) {
+        Path parent = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == ENTRY_CREATE) {
+                Path created = parent.resolve((Path) event.context());
+                if (Files.isDirectory(created)) {
+                    try {
+                        register(created);
+                    } catch (IOException e) {
+                        log.warn("Cannot watch {}", created, e);
+                    }
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void register(Path path) throws IOException {
+        path.register(watchService, new WatchEvent.Kind<?>[] {ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE,
+            StandardWatchEventKinds.OVERFLOW});
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.supportassistant.ingestion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ingests the knowledge base into the vector store once the application is ready, so embedding
+ * requests can reach the mock OpenAI service of the same application, and then optionally watches
+ * the directory for changes. Enabled with {@code support-assistant.ingestion.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.ingestion", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionConfiguration.class);
+
+    @Bean
+    public IngestionPipeline ingestionPipeline(VectorStore vectorStore, IngestionProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new IngestionPipeline(vectorStore, properties, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "support-assistant.ingestion", name = "watch", havingValue = "true")
+    DirectoryWatcher knowledgeDirectoryWatcher(IngestionPipeline pipeline, IngestionProperties properties) {
+        if (properties.directory() == null) {
+            throw new IllegalStateException("support-assistant.ingestion.watch requires support-assistant.ingestion.directory");
+        }
+        return new DirectoryWatcher(properties.directory(), properties.watchQuietPeriod(), pipeline);
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> knowledgeBaseIngestion(IngestionPipeline pipeline,
+                                                                             ObjectProvider<DirectoryWatcher> watcher) {
+        return event -> Thread.ofVirtual().name("knowledge-ingestion").start(() -> {
+            try {
+                pipeline.ingestAll();
+            } catch (RuntimeException e) {
+                log.error("Ingesting the knowledge base failed", e);
+            }
+            watcher.ifAvailable(DirectoryWatcher::start);
+        });
+    }
+}
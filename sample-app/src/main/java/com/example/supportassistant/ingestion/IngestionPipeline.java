@@ -0,0 +1,514 @@
+package com.example.supportassistant.ingestion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.TextReader;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Loads the knowledge base into the {@link VectorStore} in parallel, in batches and incrementally.
+ * <p>
+ * Files are read, hashed and split into chunks on a fork-join pool. Files whose content hash is
+ * unchanged since they were last ingested are skipped. The chunks are grouped into batches bounded by
+ * {@code maxBatchSize} chunks and {@code maxBatchTokens} tokens, and each batch is written with one
+ * {@link VectorStore#add(List)} call, so it is embedded with one request and searchable as soon as
+ * that request returns. At most {@code maxConcurrentBatches} batches are in flight; when all are
+ * taken, batching waits, the bounded queue of split files fills up and splitting pauses.
+ * <p>
+ * Chunk ids are derived from the file, the chunk text and how often that text occurred before in the
+ * file, so unchanged chunks of a changed file keep their ids. Once all batches of a file are written,
+ * chunks it no longer contains are deleted.
+ * <p>
+ * Which files were ingested is known only in memory. A persistent store may still hold chunks of files
+ * deleted while the application was down, so the first run that finds files deletes all chunks whose
+ * {@code source} metadata names none of them.
+ * <p>
+ * Progress is published as {@code assistant.ingestion.*} metrics.
+ */
+public class IngestionPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    static final String SOURCE_METADATA = TextReader.SOURCE_METADATA;
+    private static final String CLASSPATH_LOCATION = "classpath:data/";
+
+    private final VectorStore vectorStore;
+    private final IngestionProperties properties;
+    private final TokenTextSplitter splitter;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final ForkJoinPool splitPool;
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore batchPermits;
+    private final ReentrantLock runLock = new ReentrantLock();
+    private boolean reconciled;
+
+    /**
+     * Content hash and chunk ids of every ingested file, by file id.
+     */
+    private final Map<String, FileState> ingested = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingFiles = new AtomicInteger();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final Counter chunks;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary batchTokens;
+    private final Timer batchTimer;
+    private final Map<String, Counter> fileResults = new HashMap<>();
+
+    public IngestionPipeline(VectorStore vectorStore, IngestionProperties properties, MeterRegistry meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.properties = properties;
+        this.splitter = TokenTextSplitter.builder().withChunkSize(properties.chunkSize()).build();
+        this.splitPool = new ForkJoinPool(properties.splitParallelism());
+        this.batchPermits = new Semaphore(properties.maxConcurrentBatches());
+
+        this.chunks = Counter.builder("assistant.ingestion.chunks")
+            .description("Chunks written to the vector store")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("assistant.ingestion.batch.size")
+            .description("Chunks per embedding batch")
+            .register(meterRegistry);
+        this.batchTokens = DistributionSummary.builder("assistant.ingestion.batch.tokens")
+            .description("Tokens per embedding batch")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("assistant.ingestion.batch")
+            .description("Time to embed and store a batch")
+            .register(meterRegistry);
+        for (String result : List.of("ingested", "unchanged", "deleted", "failed")) {
+            fileResults.put(result, Counter.builder("assistant.ingestion.files")
+                .description("Files processed by the ingestion pipeline")
+                .tag("result", result)
+                .register(meterRegistry));
+        }
+        Gauge.builder("assistant.ingestion.files.pending", pendingFiles, AtomicInteger::get)
+            .description("Files of the current run not yet fully written")
+            .register(meterRegistry);
+        Gauge.builder("assistant.ingestion.batches.in-flight", inFlightBatches, AtomicInteger::get)
+            .description("Embedding batches currently being written")
+            .register(meterRegistry);
+        Gauge.builder("assistant.ingestion.files.ingested", ingested, Map::size)
+            .description("Files currently in the vector store")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ingest all files of the configured location, skipping unchanged files and removing chunks of
+     * files that no longer exist.
+     */
+    public IngestionReport ingestAll() {
+        List<SourceFile> files = listFiles();
+        runLock.lock();
+        try {
+            Set<String> present = new HashSet<>();
+            files.forEach(file -> present.add(file.id()));
+            int deleted = 0;
+            for (String id : List.copyOf(ingested.keySet())) {
+                if (!present.contains(id)) {
+                    vectorStore.delete(ingested.remove(id).chunkIds());
+                    countFile("deleted");
+                    deleted++;
+                }
+            }
+            if (!reconciled && !present.isEmpty()) {
+                deleteOtherSources(present);
+                reconciled = true;
+            }
+            IngestionReport report = ingest(files);
+            return new IngestionReport(report.ingested(), report.unchanged(), deleted, report.failed(),
+                report.chunks(), report.batches(), report.elapsedMillis());
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Ingest the given files, skipping those unchanged since they were last ingested.
+     */
+    public IngestionReport ingest(Collection<SourceFile> files) {
+        runLock.lock();
+        try {
+            return new Run(files).execute();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * The files to ingest: those of the configured directory, or the bundled {@code classpath:data/} files.
+     */
+    public List<SourceFile> listFiles() {
+        try {
+            if (properties.directory() != null) {
+                Path directory = properties.directory();
+                try (Stream<Path> paths = Files.walk(directory)) {
+                    return paths.filter(Files::isRegularFile)
+                        .filter(path -> hasExtension(path.getFileName().toString()))
+                        .sorted()
+                        .map(path -> new SourceFile(directory.relativize(path).toString().replace('\\', '/'),
+                            new FileSystemResource(path)))
+                        .toList();
+                }
+            }
+            List<SourceFile> files = new ArrayList<>();
+            for (String extension : properties.extensions()) {
+                for (Resource resource : new PathMatchingResourcePatternResolver()
+                        .getResources(CLASSPATH_LOCATION + "**/*." + extension)) {
+                    files.add(new SourceFile(resource.getFilename(), resource));
+                }
+            }
+            return files;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list knowledge base files", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        splitPool.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Delete the chunks of all files but the given ones, left over from an earlier run of the application.
+     * Not called without files: a {@code nin} filter with an empty list would have to delete everything,
+     * which not every filter converter accepts.
+     */
+    private void deleteOtherSources(Set<String> present) {
+        try {
+            vectorStore.delete(new FilterExpressionBuilder().nin(SOURCE_METADATA, List.copyOf(present)).build());
+        } catch (UnsupportedOperationException e) {
+            // A store that cannot delete by filter, like SimpleVectorStore, is in-memory and starts empty
+            log.debug("{} cannot delete chunks of removed files", vectorStore.getName());
+        }
+    }
+
+    private boolean hasExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && properties.extensions().contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private void countFile(String result) {
+        fileResults.get(result).increment();
+    }
+
+    /**
+     * A file of the knowledge base.
+     *
+     * @param id       path relative to the ingested location, stored as the chunks' {@code source} metadata
+     * @param resource the file's content
+     */
+    public record SourceFile(String id, Resource resource) {}
+
+    /**
+     * Outcome of one ingestion run.
+     */
+    public record IngestionReport(int ingested, int unchanged, int deleted, int failed,
+                                  int chunks, int batches, long elapsedMillis) {}
+
+    private record FileState(String contentHash, List<String> chunkIds) {}
+
+    /**
+     * Chunks of one changed file, or the end of the split phase if {@code file} is null.
+     */
+    private record SplitFile(SourceFile file, String contentHash, List<Document> chunks) {
+
+        static final SplitFile END = new SplitFile(null, null, List.of());
+    }
+
+    /**
+     * Tracks the batches of one file, so its state is recorded once all of them have been written.
+     */
+    private final class FileProgress {
+
+        final SplitFile split;
+        final AtomicInteger remainingChunks;
+        volatile boolean failed;
+
+        final AtomicInteger settled;
+
+        FileProgress(SplitFile split, AtomicInteger settled) {
+            this.split = split;
+            this.remainingChunks = new AtomicInteger(split.chunks().size());
+            this.settled = settled;
+        }
+
+        void written(int count) {
+            if (remainingChunks.addAndGet(-count) == 0) {
+                complete();
+            }
+        }
+
+        void complete() {
+            settled.incrementAndGet();
+            pendingFiles.decrementAndGet();
+            if (failed) {
+                countFile("failed");
+                return;
+            }
+            List<String> ids = split.chunks().stream().map(Document::getId).toList();
+            FileState previous = ingested.put(split.file().id(), new FileState(split.contentHash(), ids));
+            if (previous != null) {
+                List<String> stale = new ArrayList<>(previous.chunkIds());
+                stale.removeAll(ids);
+                if (!stale.isEmpty()) {
+                    vectorStore.delete(stale);
+                }
+            }
+            countFile("ingested");
+        }
+    }
+
+    private record Chunk(Document document, int tokens, FileProgress progress) {}
+
+    /**
+     * One ingestion run: splitting on the fork-join pool feeds the calling thread, which batches the
+     * chunks and hands the batches to virtual threads. If batching fails, the splitter skips the
+     * remaining files and drops its output instead of blocking on the full queue, and the files not
+     * written by then count as failed.
+     */
+    private final class Run {
+
+        private final Collection<SourceFile> files;
+        private final BlockingQueue<SplitFile> splitFiles = new ArrayBlockingQueue<>(properties.queueCapacity());
+        private final List<FileProgress> progress = new ArrayList<>();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        /**
+         * Files of this run no longer pending: unchanged, failed to read or with all batches written.
+         */
+        private final AtomicInteger settled = new AtomicInteger();
+        private volatile boolean cancelled;
+        private int chunkCount;
+        private int batchCount;
+
+        Run(Collection<SourceFile> files) {
+            this.files = files;
+        }
+
+        IngestionReport execute() {
+            long start = System.nanoTime();
+            pendingFiles.addAndGet(files.size());
+            ForkJoinTask<?> splitting = splitPool.submit(() -> {
+                try {
+                    files.parallelStream().forEach(this::split);
+                } finally {
+                    put(SplitFile.END);
+                }
+            });
+            try {
+                batchSplitFiles();
+            } finally {
+                cancelled = true;
+                splitting.quietlyJoin();
+                // Wait for the batches still in flight
+                batchPermits.acquireUninterruptibly(properties.maxConcurrentBatches());
+                batchPermits.release(properties.maxConcurrentBatches());
+                int unsettled = files.size() - settled.get();
+                if (unsettled > 0) {
+                    pendingFiles.addAndGet(-unsettled);
+                    fileResults.get("failed").increment(unsettled);
+                }
+            }
+
+            int failedFiles = (int) progress.stream().filter(file -> file.failed).count();
+            IngestionReport report = new IngestionReport(progress.size() - failedFiles, unchanged.get(), 0,
+                failed.get() + failedFiles, chunkCount, batchCount, (System.nanoTime() - start) / 1_000_000);
+            log.info("Ingested {} files ({} unchanged, {} failed) as {} chunks in {} batches in {} ms",
+                report.ingested(), report.unchanged(), report.failed(), report.chunks(), report.batches(),
+                report.elapsedMillis());
+            return report;
+        }
+
+        private void batchSplitFiles() {
+            List<Chunk> batch = new ArrayList<>();
+            int tokens = 0;
+            for (SplitFile split = take(); split != SplitFile.END; split = take()) {
+                FileProgress file = new FileProgress(split, settled);
+                progress.add(file);
+                if (split.chunks().isEmpty()) {
+                    file.complete();
+                }
+                for (Document document : split.chunks()) {
+                    int chunkTokens = tokenCounter.estimate(document.getText());
+                    if (!batch.isEmpty() && (batch.size() == properties.maxBatchSize()
+                            || tokens + chunkTokens > properties.maxBatchTokens())) {
+                        submit(batch, tokens);
+                        batch = new ArrayList<>();
+                        tokens = 0;
+                    }
+                    batch.add(new Chunk(document, chunkTokens, file));
+                    tokens += chunkTokens;
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, tokens);
+            }
+        }
+
+        private void split(SourceFile file) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                String content = file.resource().getContentAsString(StandardCharsets.UTF_8);
+                String hash = sha256(content);
+                FileState state = ingested.get(file.id());
+                if (state != null && state.contentHash().equals(hash)) {
+                    unchanged.incrementAndGet();
+                    settled.incrementAndGet();
+                    pendingFiles.decrementAndGet();
+                    countFile("unchanged");
+                    return;
+                }
+                Document document = new Document(content, Map.of(SOURCE_METADATA, file.id()));
+                List<Document> chunks = new ArrayList<>();
+                Map<String, Integer> occurrences = new HashMap<>();
+                for (Document chunk : splitter.apply(List.of(document))) {
+                    int occurrence = occurrences.merge(chunk.getText(), 1, Integer::sum);
+                    chunks.add(Document.builder()
+                        .id(chunkId(file.id(), chunk.getText(), occurrence))
+                        .text(chunk.getText())
+                        .metadata(chunk.getMetadata())
+                        .build());
+                }
+                put(new SplitFile(file, hash, chunks));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot read {}", file.id(), e);
+                failed.incrementAndGet();
+                settled.incrementAndGet();
+                pendingFiles.decrementAndGet();
+                countFile("failed");
+            }
+        }
+
+        private void submit(List<Chunk> batch, int tokens) {
+            batchPermits.acquireUninterruptibly();
+            inFlightBatches.incrementAndGet();
+            batchCount++;
+            chunkCount += batch.size();
+            batchSizes.record(batch.size());
+            batchTokens.record(tokens);
+            batchExecutor.execute(() -> {
+                boolean written = false;
+                try {
+                    batchTimer.record(() -> vectorStore.add(batch.stream().map(Chunk::document).toList()));
+                    chunks.increment(batch.size());
+                    written = true;
+                } catch (RuntimeException e) {
+                    log.warn("Cannot write batch of {} chunks", batch.size(), e);
+                } finally {
+                    // Count down per file, in order of appearance in the batch
+                    FileProgress current = null;
+                    int count = 0;
+                    for (Chunk chunk : batch) {
+                        if (chunk.progress() != current) {
+                            if (current != null) {
+                                current.written(count);
+                            }
+                            current = chunk.progress();
+                            count = 0;
+                        }
+                        if (!written) {
+                            current.failed = true;
+                        }
+                        count++;
+                    }
+                    current.written(count);
+                    inFlightBatches.decrementAndGet();
+                    batchPermits.release();
+                }
+            });
+        }
+
+        private SplitFile take() {
+            try {
+                return splitFiles.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ingesting", e);
+            }
+        }
+
+        private void put(SplitFile split) {
+            try {
+                ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                    @Override
+                    public boolean block() throws InterruptedException {
+                        while (!cancelled && !splitFiles.offer(split, 10, TimeUnit.MILLISECONDS)) {
+                            // the queue is full, check again whether batching has given up
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isReleasable() {
+                        return false;
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ingesting", e);
+            }
+        }
+    }
+
+    /**
+     * @param occurrence 1 for the first chunk of the file with this text, 2 for the second and so on
+     */
+    private static String chunkId(String fileId, String text, int occurrence) {
+        return UUID.nameUUIDFromBytes((fileId + '\u0000' + occurrence + '\u0000' + text)
+            .getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
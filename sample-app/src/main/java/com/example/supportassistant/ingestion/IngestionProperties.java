@@ -0,0 +1,38 @@
+package com.example.supportassistant.ingestion;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of the knowledge base ingestion pipeline.
+ *
+ * @param enabled             whether documents are ingested into the vector store on startup
+ * @param directory           external directory to ingest, the bundled {@code classpath:data/} files if unset
+ * @param extensions          file extensions to ingest
+ * @param chunkSize           target size of a chunk in tokens
+ * @param splitParallelism    threads of the fork-join pool splitting documents
+ * @param maxBatchSize        maximum chunks per embedding request
+ * @param maxBatchTokens      maximum tokens per embedding request
+ * @param maxConcurrentBatches embedding requests in flight at once; splitting pauses while they are taken
+ * @param queueCapacity       split documents buffered ahead of batching
+ * @param watch               whether the directory is watched and changed files are re-ingested
+ * @param watchQuietPeriod    time without further changes before a re-ingestion starts
+ */
+@ConfigurationProperties("support-assistant.ingestion")
+public record IngestionProperties(
+    @DefaultValue("false") boolean enabled,
+    Path directory,
+    @DefaultValue({"md", "txt"}) List<String> extensions,
+    @DefaultValue("800") int chunkSize,
+    @DefaultValue("4") int splitParallelism,
+    @DefaultValue("64") int maxBatchSize,
+    @DefaultValue("8000") int maxBatchTokens,
+    @DefaultValue("4") int maxConcurrentBatches,
+    @DefaultValue("64") int queueCapacity,
+    @DefaultValue("false") boolean watch,
+    @DefaultValue("500ms") Duration watchQuietPeriod
+) {}
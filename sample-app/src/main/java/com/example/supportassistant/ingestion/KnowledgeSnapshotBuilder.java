@@ -0,0 +1,68 @@
+package com.example.supportassistant.ingestion;
+
+import com.example.supportassistant.SupportAssistantApplication;
+import com.example.supportassistant.vectorstore.MappedVectorStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build-time step that splits and embeds the knowledge base and writes the resulting vector store as
+ * a snapshot, which the application loads on startup instead of ingesting the knowledge base:
+ * <pre>
+ * java -cp ... KnowledgeSnapshotBuilder target/classes/knowledge-snapshot --spring.profiles.active=mock,fast-startup
+ * </pre>
+ * The application is started with the given arguments, so the embedding model and its id match the
+ * ones the snapshot is loaded with; with the mock profile, it serves the mock it embeds with itself, on
+ * the {@code server.port} that {@code spring.ai.openai.base-url} points to. See the {@code fast-startup}
+ * Maven profile.
+ */
+public final class KnowledgeSnapshotBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeSnapshotBuilder.class);
+
+    private KnowledgeSnapshotBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: KnowledgeSnapshotBuilder <snapshot directory> [application arguments]");
+        }
+        Path snapshot = Path.of(args[0]);
+        Path workDirectory = snapshot.resolveSibling(snapshot.getFileName() + "-work");
+        FileSystemUtils.deleteRecursively(workDirectory);
+
+        // command line arguments take precedence over the profiles, which may disable ingestion
+        List<String> applicationArgs = new ArrayList<>(List.of(args).subList(1, args.length));
+        applicationArgs.add("--support-assistant.vector-store.type=mapped");
+        applicationArgs.add("--support-assistant.vector-store.directory=" + workDirectory);
+        applicationArgs.add("--support-assistant.vector-store.snapshot=");
+        applicationArgs.add("--support-assistant.ingestion.enabled=true");
+        applicationArgs.add("--support-assistant.ingestion.watch=false");
+        applicationArgs.add("--support-assistant.startup-probe.enabled=false");
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(SupportAssistantApplication.class,
+                applicationArgs.toArray(String[]::new))) {
+            // waits for the ingestion started when the application became ready, if it is still running
+            IngestionPipeline.IngestionReport report = context.getBean(IngestionPipeline.class).ingestAll();
+            if (report.failed() > 0) {
+                throw new IllegalStateException(report.failed() + " files of the knowledge base could not be ingested");
+            }
+            if (!(context.getBean(VectorStore.class) instanceof MappedVectorStore store)) {
+                throw new IllegalStateException("Snapshots require the mapped vector store");
+            }
+            FileSystemUtils.deleteRecursively(snapshot);
+            store.writeSnapshot(snapshot);
+            log.info("Knowledge snapshot with {} chunks written to {}", store.size(), snapshot);
+        }
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.supportassistant.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection pool limit of the chat model's {@code RestClient} and {@code WebClient}, shared by both.
+ * <p>
+ * The JDK HTTP client the clients are built on opens a connection for every concurrent HTTP/1.1
+ * request and has no limit of its own. A request therefore holds a permit from sending until its
+ * response is closed or its body consumed, the way it would hold a connection leased from a bounded
+ * pool, and waits up to {@code acquireTimeout} for one. The waits are recorded for the report.
+ */
+public final class ConnectionLimit {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final int maxConnections;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final Scheduler acquireScheduler = Schedulers.fromExecutorService(
+        Executors.newVirtualThreadPerTaskExecutor(), "loadtest-connection-limit");
+    private volatile Histogram waits = newHistogram();
+
+    ConnectionLimit(int maxConnections, Duration acquireTimeout) {
+        this.maxConnections = maxConnections;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    int maxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Waits for a connection since the last reset.
+     */
+    Histogram waits() {
+        return waits;
+    }
+
+    void reset() {
+        waits = newHistogram();
+    }
+
+    ClientHttpRequestInterceptor interceptor() {
+        return this::intercept;
+    }
+
+    ExchangeFilterFunction filter() {
+        return this::filter;
+    }
+
+    private ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Runnable release = acquire();
+        try {
+            return new LimitedResponse(execution.execute(request, body), release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    private Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.fromCallable(this::acquire)
+            .subscribeOn(acquireScheduler)
+            .flatMap(release -> next.exchange(request)
+                .map(response -> response.mutate()
+                    .body(body -> body.doFinally(signal -> release.run()))
+                    .build())
+                .doOnError(error -> release.run())
+                .doOnCancel(release));
+    }
+
+    /**
+     * Wait for a permit.
+     *
+     * @return releases the permit, once however often it runs
+     */
+    private Runnable acquire() throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IOException("No connection available within " + acquireTimeout
+                    + ", all " + maxConnections + " in use");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+        waits.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+
+    /**
+     * A response that gives its connection back when closed.
+     */
+    private record LimitedResponse(ClientHttpResponse response, Runnable release) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
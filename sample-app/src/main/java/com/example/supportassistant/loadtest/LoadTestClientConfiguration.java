@@ -0,0 +1,33 @@
+package com.example.supportassistant.loadtest;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Applies {@code loadtest.max-connections} to the auto-configured {@code RestClient} and
+ * {@code WebClient} builders the OpenAI auto-configuration picks up, see {@link ConnectionLimit}.
+ */
+@Profile("loadtest")
+@Configuration
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestClientConfiguration {
+
+    @Bean
+    public ConnectionLimit loadTestConnectionLimit(LoadTestProperties properties) {
+        return new ConnectionLimit(properties.maxConnections(), properties.connectionAcquireTimeout());
+    }
+
+    @Bean
+    public RestClientCustomizer loadTestConnectionLimitRestClientCustomizer(ConnectionLimit connectionLimit) {
+        return builder -> builder.requestInterceptor(connectionLimit.interceptor());
+    }
+
+    @Bean
+    public WebClientCustomizer loadTestConnectionLimitWebClientCustomizer(ConnectionLimit connectionLimit) {
+        return builder -> builder.filter(connectionLimit.filter());
+    }
+}
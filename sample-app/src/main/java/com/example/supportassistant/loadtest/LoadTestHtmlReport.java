@@ -0,0 +1,70 @@
+package com.example.supportassistant.loadtest;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Map;
+
+/**
+ * Renders a {@link LoadTestReport} as a self-contained HTML page.
+ */
+final class LoadTestHtmlReport {
+
+    private LoadTestHtmlReport() {
+    }
+
+    static String render(LoadTestReport report) {
+        StringBuilder html = new StringBuilder();
+        html.append("""
+            <!DOCTYPE html>
+            <html>
+            <head>
+            <meta charset="utf-8">
+            <title>Support Assistant Load Test</title>
+            <style>
+              body { font-family: sans-serif; margin: 2em; }
+              table { border-collapse: collapse; margin-bottom: 2em; }
+              th, td { border: 1px solid #ccc; padding: 4px 12px; text-align: right; }
+              th:first-child, td:first-child { text-align: left; }
+            </style>
+            </head>
+            <body>
+            <h1>Support Assistant Load Test</h1>
+            """);
+        html.append("<table>\n");
+        row(html, "Started", report.startedAt());
+        row(html, "Users", report.users());
+        row(html, "Mode", report.mode());
+        row(html, "Max connections", report.maxConnections());
+        row(html, "Duration", report.duration());
+        row(html, "Requests", report.requests());
+        row(html, "Failures", report.failures());
+        row(html, "Retries", report.retries());
+        row(html, "Throughput (req/s)", String.format("%.1f", report.throughputPerSecond()));
+        for (Map.Entry<String, Long> failure : report.failuresByType().entrySet()) {
+            row(html, "Failures: " + failure.getKey(), failure.getValue());
+        }
+        html.append("</table>\n");
+
+        html.append("<table>\n<tr><th>Latency (ms)</th><th>count</th><th>min</th><th>mean</th><th>p50</th>")
+            .append("<th>p90</th><th>p99</th><th>p99.9</th><th>max</th></tr>\n");
+        latency(html, "Time to first token", report.timeToFirstToken());
+        latency(html, "Total duration", report.totalDuration());
+        latency(html, "Connection wait", report.connectionWait());
+        html.append("</table>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static void row(StringBuilder html, String name, Object value) {
+        html.append("<tr><th>").append(HtmlUtils.htmlEscape(name)).append("</th><td>")
+            .append(HtmlUtils.htmlEscape(String.valueOf(value))).append("</td></tr>\n");
+    }
+
+    private static void latency(StringBuilder html, String name, LoadTestReport.Latency latency) {
+        html.append("<tr><td>").append(name).append("</td>");
+        for (double value : new double[] {latency.count(), latency.min(), latency.mean(), latency.p50(), latency.p90(),
+                latency.p99(), latency.p999(), latency.max()}) {
+            html.append("<td>").append(String.format("%.2f", value)).append("</td>");
+        }
+        html.append("</tr>\n");
+    }
+}
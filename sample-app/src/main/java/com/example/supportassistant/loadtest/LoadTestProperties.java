@@ -0,0 +1,55 @@
+package com.example.supportassistant.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of the embedded load generator.
+ *
+ * @param users                    number of concurrent simulated users, each on its own virtual thread
+ * @param mode                     whether users call the blocking or the streaming API
+ * @param warmup                   duration of the unmeasured warmup phase
+ * @param duration                 duration of the measured phase
+ * @param thinkTime                pause of a user between two requests
+ * @param maxConnections           connections the chat model client may have open at once, see {@link ConnectionLimit}
+ * @param connectionAcquireTimeout how long a request waits for a connection before it fails
+ * @param prompts                  prompts sent in turn by every user
+ * @param reportDirectory          directory the JSON and HTML reports are written to
+ * @param exitOnCompletion         whether to shut the application down after the run
+ */
+@ConfigurationProperties("loadtest")
+public record LoadTestProperties(
+    @DefaultValue("50") int users,
+    @DefaultValue("call") Mode mode,
+    @DefaultValue("5s") Duration warmup,
+    @DefaultValue("30s") Duration duration,
+    @DefaultValue("0ms") Duration thinkTime,
+    @DefaultValue("100") int maxConnections,
+    @DefaultValue("30s") Duration connectionAcquireTimeout,
+    @DefaultValue({
+        "What is Tanzu Spring?",
+        "What's the latest Spring Boot version?",
+        "Which CVE patches are available?",
+        "I have a billing question"
+    }) List<String> prompts,
+    @DefaultValue("target/loadtest") Path reportDirectory,
+    @DefaultValue("true") boolean exitOnCompletion
+) {
+
+    public enum Mode {
+
+        /**
+         * Blocking {@code ChatClient.call()}, time to first token equals total duration.
+         */
+        CALL,
+
+        /**
+         * Streaming {@code ChatClient.stream()}, time to first token is measured at the first content chunk.
+         */
+        STREAM
+    }
+}
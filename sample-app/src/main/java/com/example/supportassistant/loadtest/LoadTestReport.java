@@ -0,0 +1,51 @@
+package com.example.supportassistant.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Result of a load test run, serialized as the JSON report.
+ */
+public record LoadTestReport(
+    Instant startedAt,
+    int users,
+    LoadTestProperties.Mode mode,
+    int maxConnections,
+    Duration duration,
+    long requests,
+    long failures,
+    long retries,
+    double throughputPerSecond,
+    Map<String, Long> failuresByType,
+    Latency timeToFirstToken,
+    Latency totalDuration,
+    Latency connectionWait
+) {
+
+    /**
+     * Latency distribution in milliseconds.
+     */
+    public record Latency(long count, double min, double mean, double p50, double p90, double p99, double p999,
+                          double max) {
+
+        static Latency of(Histogram histogram) {
+            return new Latency(
+                histogram.getTotalCount(),
+                millis(histogram.getMinValue()),
+                histogram.getMean() / 1000,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())
+            );
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.supportassistant.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives concurrent simulated users through the {@code chatClient} bean and reports latencies.
+ * <p>
+ * Run against the in-process mock with
+ * {@code ./mvnw spring-boot:run -Dspring-boot.run.profiles=mock,loadtest}, tuned with {@code loadtest.*}
+ * properties. Each user runs on a virtual thread, so the client side never limits concurrency;
+ * what does is the HTTP client's connection limit ({@code loadtest.max-connections}, see
+ * {@link ConnectionLimit}), Spring AI retries and the server. Latencies are recorded in
+ * HdrHistograms and written to {@code report.json} and {@code report.html}.
+ */
+@Profile("loadtest")
+@Component
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final ChatClient chatClient;
+    private final LoadTestProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final ConnectionLimit connectionLimit;
+    private final AtomicLong retries = new AtomicLong();
+
+    public LoadTestRunner(ChatClient chatClient, LoadTestProperties properties, ObjectMapper objectMapper,
+                          ObjectProvider<RetryTemplate> retryTemplate, ConfigurableApplicationContext context,
+                          ConnectionLimit connectionLimit) {
+        this.chatClient = chatClient;
+        this.properties = properties;
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.context = context;
+        this.connectionLimit = connectionLimit;
+        retryTemplate.ifAvailable(template -> template.registerListener(new RetryCounter()));
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        logger.info("Load test: {} users, mode {}, {} connections, warmup {}, duration {}",
+            properties.users(), properties.mode(), properties.maxConnections(), properties.warmup(), properties.duration());
+
+        runPhase(properties.warmup(), new Measurements());
+        retries.set(0);
+        connectionLimit.reset();
+
+        Measurements measurements = new Measurements();
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        runPhase(properties.duration(), measurements);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        LoadTestReport report = measurements.toReport(startedAt, elapsed);
+        writeReports(report);
+        logger.info("Load test: {} requests, {} failures, {} retries, {} req/s, TTFT p99 {} ms, total p99 {} ms",
+            report.requests(), report.failures(), report.retries(), String.format("%.1f", report.throughputPerSecond()),
+            report.timeToFirstToken().p99(), report.totalDuration().p99());
+
+        if (properties.exitOnCompletion()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void runPhase(Duration duration, Measurements measurements) throws InterruptedException {
+        if (duration.isZero()) {
+            return;
+        }
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < properties.users(); user++) {
+                int offset = user;
+                executor.submit(() -> runUser(offset, deadline, measurements));
+            }
+        }
+    }
+
+    private void runUser(int offset, long deadline, Measurements measurements) {
+        List<String> prompts = properties.prompts();
+        for (int i = offset; System.nanoTime() < deadline; i++) {
+            String prompt = prompts.get(i % prompts.size());
+            long start = System.nanoTime();
+            try {
+                long firstToken = switch (properties.mode()) {
+                    case CALL -> {
+                        chatClient.prompt().user(prompt).call().content();
+                        yield System.nanoTime();
+                    }
+                    case STREAM -> stream(prompt);
+                };
+                measurements.record(start, firstToken, System.nanoTime());
+            } catch (RuntimeException e) {
+                measurements.fail(e);
+            }
+            if (!properties.thinkTime().isZero()) {
+                try {
+                    Thread.sleep(properties.thinkTime());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private long stream(String prompt) {
+        AtomicLong firstToken = new AtomicLong();
+        chatClient.prompt().user(prompt).stream().content()
+            .doOnNext(content -> {
+                if (!content.isEmpty()) {
+                    firstToken.compareAndSet(0, System.nanoTime());
+                }
+            })
+            .blockLast();
+        return firstToken.get() != 0 ? firstToken.get() : System.nanoTime();
+    }
+
+    private void writeReports(LoadTestReport report) throws IOException {
+        Path directory = properties.reportDirectory();
+        Files.createDirectories(directory);
+        objectMapper.writeValue(directory.resolve("report.json").toFile(), report);
+        Files.writeString(directory.resolve("report.html"), LoadTestHtmlReport.render(report));
+        logger.info("Load test: reports written to {}", directory.toAbsolutePath());
+    }
+
+    private final class Measurements {
+
+        private final Histogram timeToFirstToken = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram totalDuration = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        void record(long start, long firstToken, long end) {
+            timeToFirstToken.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (firstToken - start) / 1000));
+            totalDuration.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (end - start) / 1000));
+        }
+
+        void fail(RuntimeException e) {
+            failures.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+        }
+
+        LoadTestReport toReport(Instant startedAt, Duration elapsed) {
+            Map<String, Long> failuresByType = new TreeMap<>();
+            failures.forEach((type, count) -> failuresByType.put(type, count.sum()));
+            long failed = failuresByType.values().stream().mapToLong(Long::longValue).sum();
+            long requests = totalDuration.getTotalCount() + failed;
+            return new LoadTestReport(
+                startedAt,
+                properties.users(),
+                properties.mode(),
+                connectionLimit.maxConnections(),
+                elapsed,
+                requests,
+                failed,
+                retries.get(),
+                requests * 1_000_000_000.0 / elapsed.toNanos(),
+                failuresByType,
+                LoadTestReport.Latency.of(timeToFirstToken),
+                LoadTestReport.Latency.of(totalDuration),
+                LoadTestReport.Latency.of(connectionLimit.waits())
+            );
+        }
+    }
+
+    /**
+     * Counts the attempts that failed and were retried: all failed attempts of a call that eventually
+     * succeeded, all but the last one of a call that failed.
+     */
+    private final class RetryCounter implements RetryListener {
+
+        @Override
+        public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                                   Throwable throwable) {
+            int failedAttempts = context.getRetryCount();
+            retries.addAndGet(throwable == null ? failedAttempts : Math.max(0, failedAttempts - 1));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.supportassistant.loadtest;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Tool of the MCP load test, an echo that takes {@code loadtest.mcp.tool-latency} to answer, so the
+ * test measures the server rather than a real tool.
+ */
+@Profile("mcp-loadtest")
+@Configuration
+@EnableConfigurationProperties(McpLoadTestProperties.class)
+public class McpLoadTestConfiguration {
+
+    static final String ECHO_TOOL = "loadtestEcho";
+
+    @Bean
+    public ToolCallback loadTestEchoTool(McpLoadTestProperties properties) {
+        return FunctionToolCallback.builder(ECHO_TOOL, (EchoRequest request) -> {
+                try {
+                    Thread.sleep(properties.toolLatency());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return request.text();
+            })
+            .description("Returns the given text")
+            .inputType(EchoRequest.class)
+            .build();
+    }
+
+    public record EchoRequest(String text) {}
+}
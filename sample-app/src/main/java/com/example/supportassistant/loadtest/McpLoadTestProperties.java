@@ -0,0 +1,32 @@
+package com.example.supportassistant.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the MCP load generator.
+ *
+ * @param sessions          number of MCP sessions opened at once, each with its own client
+ * @param callsPerSession   tool calls each session keeps in flight, on virtual threads
+ * @param duration          how long the sessions call the tool once they are open
+ * @param tool              name of the tool called, the built-in echo tool by default
+ * @param toolLatency       time the built-in echo tool takes to answer
+ * @param requestTimeout    time a client waits for a response
+ * @param reportDirectory   directory the JSON report is written to
+ * @param exitOnCompletion  whether to shut the application down after the run
+ */
+@ConfigurationProperties("loadtest.mcp")
+public record McpLoadTestProperties(
+    @DefaultValue("300") int sessions,
+    @DefaultValue("1") int callsPerSession,
+    @DefaultValue("30s") Duration duration,
+    @DefaultValue(McpLoadTestConfiguration.ECHO_TOOL) String tool,
+    @DefaultValue("20ms") Duration toolLatency,
+    @DefaultValue("30s") Duration requestTimeout,
+    @DefaultValue("target/loadtest") Path reportDirectory,
+    @DefaultValue("true") boolean exitOnCompletion
+) {
+}
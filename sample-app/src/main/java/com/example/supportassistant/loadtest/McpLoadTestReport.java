@@ -0,0 +1,24 @@
+package com.example.supportassistant.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Result of an MCP load test run, serialized as the JSON report.
+ */
+public record McpLoadTestReport(
+    Instant startedAt,
+    int sessions,
+    int callsPerSession,
+    String tool,
+    Duration duration,
+    long sessionsOpened,
+    long calls,
+    long failures,
+    double callsPerSecond,
+    Map<String, Long> failuresByType,
+    LoadTestReport.Latency initialize,
+    LoadTestReport.Latency toolCall
+) {
+}
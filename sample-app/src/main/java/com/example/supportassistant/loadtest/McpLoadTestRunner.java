@@ -0,0 +1,184 @@
+package com.example.supportassistant.loadtest;
+
+import com.example.supportassistant.mcp.McpServerModeProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens many MCP sessions against the application's own MCP server and calls a tool from all of
+ * them, like a fleet of agent hosts, then reports session setup and tool call latencies.
+ * <p>
+ * Run with {@code ./mvnw spring-boot:run -Dspring-boot.run.profiles=mock,mcp-loadtest}, tuned with
+ * {@code loadtest.mcp.*} properties. Every session has its own client and HTTP connection, and all
+ * sessions are opened at once before the calls start. Latencies are recorded in HdrHistograms and
+ * written to {@code mcp-report.json}; the server side shows in the {@code assistant.mcp.*} metrics.
+ */
+@Profile("mcp-loadtest")
+@Component
+public class McpLoadTestRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(McpLoadTestRunner.class);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final McpLoadTestProperties properties;
+    private final McpServerModeProperties serverProperties;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+    private final Histogram initialize = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram toolCalls = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public McpLoadTestRunner(McpLoadTestProperties properties, McpServerModeProperties serverProperties,
+                             ObjectMapper objectMapper, ConfigurableApplicationContext context) {
+        this.properties = properties;
+        this.serverProperties = serverProperties;
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String baseUrl = "http://localhost:" + port + context.getEnvironment().getProperty("server.servlet.context-path", "");
+        logger.info("MCP load test: {} sessions with {} calls in flight each, tool {}, duration {}",
+            properties.sessions(), properties.callsPerSession(), properties.tool(), properties.duration());
+
+        Instant startedAt = Instant.now();
+        CountDownLatch opened = new CountDownLatch(properties.sessions());
+        long start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int session = 0; session < properties.sessions(); session++) {
+                int number = session;
+                executor.submit(() -> runSession(baseUrl, number, opened));
+            }
+            opened.await();
+            start = System.nanoTime();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        McpLoadTestReport report = report(startedAt, elapsed);
+        writeReport(report);
+        logger.info("MCP load test: {} of {} sessions opened, {} calls, {} failures, {} calls/s, initialize p99 {} ms, call p99 {} ms",
+            report.sessionsOpened(), report.sessions(), report.calls(), report.failures(),
+            String.format("%.1f", report.callsPerSecond()), report.initialize().p99(), report.toolCall().p99());
+
+        if (properties.exitOnCompletion()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void runSession(String baseUrl, int number, CountDownLatch opened) {
+        McpSyncClient client = McpClient.sync(HttpClientStreamableHttpTransport.builder(baseUrl)
+                .endpoint(serverProperties.endpoint())
+                .build())
+            .requestTimeout(properties.requestTimeout())
+            .clientInfo(new McpSchema.Implementation("mcp-loadtest-" + number, "1.0.0"))
+            .build();
+        try {
+            long begin = System.nanoTime();
+            try {
+                client.initialize();
+                record(initialize, begin);
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            } finally {
+                opened.countDown();
+            }
+            // every session starts calling once all are open
+            opened.await();
+            long deadline = System.nanoTime() + properties.duration().toNanos();
+            try (ExecutorService calls = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < properties.callsPerSession(); i++) {
+                    calls.submit(() -> callTool(client, number, deadline));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            client.closeGracefully();
+        }
+    }
+
+    private void callTool(McpSyncClient client, int number, long deadline) {
+        McpSchema.CallToolRequest request = new McpSchema.CallToolRequest(properties.tool(),
+            Map.of("text", "session " + number));
+        while (System.nanoTime() < deadline) {
+            long begin = System.nanoTime();
+            try {
+                McpSchema.CallToolResult result = client.callTool(request);
+                if (Boolean.TRUE.equals(result.isError())) {
+                    failures.computeIfAbsent("ToolError", type -> new LongAdder()).increment();
+                } else {
+                    record(toolCalls, begin);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private static void record(Histogram histogram, long begin) {
+        histogram.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (System.nanoTime() - begin) / 1000));
+    }
+
+    private void fail(RuntimeException e) {
+        failures.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    private McpLoadTestReport report(Instant startedAt, Duration elapsed) {
+        Map<String, Long> failuresByType = new TreeMap<>();
+        failures.forEach((type, count) -> failuresByType.put(type, count.sum()));
+        long failed = failuresByType.values().stream().mapToLong(Long::longValue).sum();
+        long calls = toolCalls.getTotalCount();
+        return new McpLoadTestReport(
+            startedAt,
+            properties.sessions(),
+            properties.callsPerSession(),
+            properties.tool(),
+            elapsed,
+            initialize.getTotalCount(),
+            calls,
+            failed,
+            calls * 1_000_000_000.0 / elapsed.toNanos(),
+            failuresByType,
+            LoadTestReport.Latency.of(initialize),
+            LoadTestReport.Latency.of(toolCalls)
+        );
+    }
+
+    private void writeReport(McpLoadTestReport report) throws IOException {
+        Path directory = properties.reportDirectory();
+        Files.createDirectories(directory);
+        objectMapper.writeValue(directory.resolve("mcp-report.json").toFile(), report);
+        logger.info("MCP load test: report written to {}", directory.toAbsolutePath());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.supportassistant.mcp;
+
+import io.modelcontextprotocol.json.McpJsonMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.transport.WebMvcStreamableServerTransportProvider;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * The MCP server serving the {@link McpToolCatalog} over the Streamable-HTTP transport, with the
+ * {@link McpSessionManager} in front of it.
+ * <p>
+ * The server is asynchronous: the transport answers requests from Reactor and tool calls run on
+ * the session manager's virtual threads, so no request thread waits for a tool. Neither the server
+ * nor its transport are beans, so they do not meet the auto-configuration of Spring AI's MCP server
+ * starter; only one of the two can serve the endpoint though.
+ */
+public class McpServerMode implements AutoCloseable {
+
+    private final WebMvcStreamableServerTransportProvider transport;
+    private final McpAsyncServer server;
+    private final McpSessionManager sessions;
+
+    public McpServerMode(McpServerModeProperties properties, McpToolCatalog catalog, McpSessionManager sessions,
+                         McpJsonMapper jsonMapper) {
+        this.sessions = sessions;
+        this.transport = WebMvcStreamableServerTransportProvider.builder()
+            .jsonMapper(jsonMapper)
+            .mcpEndpoint(properties.endpoint())
+            .build();
+        this.server = McpServer.async(sessions.track(transport))
+            .serverInfo(properties.name(), properties.version())
+            .capabilities(McpSchema.ServerCapabilities.builder().tools(false).build())
+            .jsonMapper(jsonMapper)
+            .tools(catalog.specifications(sessions))
+            .build();
+    }
+
+    public RouterFunction<ServerResponse> routerFunction() {
+        return transport.getRouterFunction().filter(sessions);
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.supportassistant.mcp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.modelcontextprotocol.json.jackson.JacksonMcpJsonMapper;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves the application's tools, the {@code ToolCallbackProvider} and {@code ToolCallback} beans,
+ * over MCP with bounded sessions, see {@link McpServerMode}.
+ * Enabled with {@code support-assistant.mcp-server.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.mcp-server", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(McpServerModeProperties.class)
+public class McpServerModeConfiguration {
+
+    @Bean
+    public McpToolCatalog mcpToolCatalog(ObjectProvider<ToolCallbackProvider> toolCallbackProviders,
+                                         ObjectProvider<ToolCallback> toolCallbacks, ObjectMapper objectMapper) {
+        List<ToolCallback> callbacks = new ArrayList<>();
+        toolCallbackProviders.orderedStream().forEach(provider -> callbacks.addAll(List.of(provider.getToolCallbacks())));
+        toolCallbacks.orderedStream().forEach(callbacks::add);
+        return new McpToolCatalog(callbacks, new JacksonMcpJsonMapper(objectMapper));
+    }
+
+    @Bean
+    public McpSessionManager mcpSessionManager(McpServerModeProperties properties, MeterRegistry meterRegistry) {
+        return new McpSessionManager(properties, meterRegistry);
+    }
+
+    @Bean
+    public McpServerMode mcpServerMode(McpServerModeProperties properties, McpToolCatalog mcpToolCatalog,
+                                       McpSessionManager mcpSessionManager, ObjectMapper objectMapper) {
+        return new McpServerMode(properties, mcpToolCatalog, mcpSessionManager, new JacksonMcpJsonMapper(objectMapper));
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> mcpServerModeRouterFunction(McpServerMode mcpServerMode) {
+        return mcpServerMode.routerFunction();
+    }
+}
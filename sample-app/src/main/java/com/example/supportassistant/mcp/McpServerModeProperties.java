@@ -0,0 +1,33 @@
+package com.example.supportassistant.mcp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the MCP server mode.
+ *
+ * @param enabled                      whether the application's tools are served over MCP
+ * @param name                         server name reported to clients
+ * @param version                      server version reported to clients
+ * @param endpoint                     path of the Streamable-HTTP endpoint
+ * @param maxSessions                  open sessions beyond which new sessions are refused with 503
+ * @param maxConcurrentCallsPerSession tool calls of one session running at once, further calls queue
+ * @param queueTimeout                 time a tool call may queue for its session before it is rejected
+ * @param idleTimeout                  time without requests or running tool calls after which a session is closed
+ * @param reapInterval                 how often sessions are checked for idleness
+ */
+@ConfigurationProperties("support-assistant.mcp-server")
+public record McpServerModeProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("support-assistant") String name,
+    @DefaultValue("1.0.0") String version,
+    @DefaultValue("/mcp") String endpoint,
+    @DefaultValue("1000") int maxSessions,
+    @DefaultValue("4") int maxConcurrentCallsPerSession,
+    @DefaultValue("5s") Duration queueTimeout,
+    @DefaultValue("10m") Duration idleTimeout,
+    @DefaultValue("30s") Duration reapInterval
+) {
+}
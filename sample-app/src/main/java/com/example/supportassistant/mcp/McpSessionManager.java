@@ -0,0 +1,484 @@
+package com.example.supportassistant.mcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.modelcontextprotocol.server.transport.WebMvcStreamableServerTransportProvider;
+import io.modelcontextprotocol.spec.HttpHeaders;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpStreamableServerSession;
+import io.modelcontextprotocol.spec.McpStreamableServerTransportProvider;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.servlet.function.HandlerFilterFunction;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import org.springframework.web.util.ServletRequestPathUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps track of the MCP sessions and bounds the resources they hold.
+ * <p>
+ * As a filter in front of the Streamable-HTTP transport, it reserves one of {@code maxSessions} slots
+ * for every {@code initialize} request before the transport handles it, refusing the request with 503
+ * when none is left, and registers the session id the transport returns; a failed request gives its
+ * slot back. Every request of a session marks it active. A session that has been idle for
+ * {@code idleTimeout}, without requests or running tool calls, is closed by handing the transport a
+ * {@code DELETE} request for it in process, the only way to make the transport forget a session. The
+ * next request of its client is answered with 404, so the client has to start a new session. Sessions
+ * the transport started for an {@code initialize} request that did not succeed are closed the same way.
+ * <p>
+ * Tool calls run on virtual threads, not on the transport's threads. Each session runs at most
+ * {@code maxConcurrentCallsPerSession} calls at once, further calls queue for up to
+ * {@code queueTimeout} and are then rejected with an error result, so one busy client cannot take
+ * all the capacity.
+ * <p>
+ * Records the {@code assistant.mcp.sessions} gauge, {@code assistant.mcp.sessions.closed} tagged with
+ * {@code reason} (deleted, idle), {@code assistant.mcp.sessions.rejected}, the
+ * {@code assistant.mcp.tool.calls} timer tagged with {@code tool} and {@code result} (success, error,
+ * rejected) and the {@code assistant.mcp.tool.queue} timer, the time a call waited for its session.
+ */
+public class McpSessionManager implements HandlerFilterFunction<ServerResponse, ServerResponse>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(McpSessionManager.class);
+
+    private static final String METRIC_CALLS = "assistant.mcp.tool.calls";
+    private static final String METRIC_QUEUE = "assistant.mcp.tool.queue";
+
+    private final McpServerModeProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore sessionSlots;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Session> started = new ConcurrentHashMap<>();
+    private final Map<String, ToolMeters> toolMeters = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-tool-", 0).factory());
+    private final Scheduler scheduler = Schedulers.fromExecutorService(executor, "mcp-tool");
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("mcp-session-reaper").daemon().factory());
+    private final Counter idleClosed;
+    private final Counter deleted;
+    private final Counter rejected;
+    private volatile RouterFunction<ServerResponse> transportRoutes;
+
+    public McpSessionManager(McpServerModeProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.sessionSlots = new Semaphore(properties.maxSessions());
+        Gauge.builder("assistant.mcp.sessions", sessions, Map::size)
+            .description("Open MCP sessions")
+            .register(meterRegistry);
+        this.idleClosed = closed(meterRegistry, "idle");
+        this.deleted = closed(meterRegistry, "deleted");
+        this.rejected = Counter.builder("assistant.mcp.sessions.rejected")
+            .description("MCP sessions refused because the maximum number of sessions was open")
+            .register(meterRegistry);
+        long interval = properties.reapInterval().toNanos();
+        reaper.scheduleWithFixedDelay(this::reapIdleSessions, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The transport with its session factory wrapped, so the sessions it starts are known by id.
+     */
+    public McpStreamableServerTransportProvider track(WebMvcStreamableServerTransportProvider transport) {
+        this.transportRoutes = transport.getRouterFunction();
+        return new TrackingTransportProvider(transport);
+    }
+
+    @Override
+    public ServerResponse filter(ServerRequest request, HandlerFunction<ServerResponse> next) throws Exception {
+        String sessionId = request.headers().firstHeader(HttpHeaders.MCP_SESSION_ID);
+        if (sessionId == null) {
+            return request.method() == HttpMethod.POST ? initialize(request, next) : next.handle(request);
+        }
+
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch();
+        }
+        ServerResponse response = next.handle(request);
+        if (request.method() == HttpMethod.DELETE
+            && (response.statusCode().is2xxSuccessful() || response.statusCode() == HttpStatus.NOT_FOUND)
+            && session != null && sessions.remove(sessionId, session)) {
+            sessionSlots.release();
+            deleted.increment();
+        }
+        return response;
+    }
+
+    private ServerResponse initialize(ServerRequest request, HandlerFunction<ServerResponse> next) throws Exception {
+        if (!sessionSlots.tryAcquire()) {
+            rejected.increment();
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many open MCP sessions");
+        }
+        boolean registered = false;
+        try {
+            ServerResponse response = next.handle(request);
+            String created = response.headers().getFirst(HttpHeaders.MCP_SESSION_ID);
+            Session session = created != null && response.statusCode().is2xxSuccessful() ? started.remove(created) : null;
+            if (session != null) {
+                session.touch();
+                sessions.put(created, session);
+                registered = true;
+            }
+            return response;
+        } finally {
+            if (!registered) {
+                sessionSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Run a tool call of the session on a virtual thread once the session has a free slot.
+     */
+    Mono<McpSchema.CallToolResult> call(String sessionId, String toolName, Supplier<McpSchema.CallToolResult> call) {
+        return Mono.fromCallable(() -> execute(sessions.get(sessionId), toolName, call)).subscribeOn(scheduler);
+    }
+
+    private McpSchema.CallToolResult execute(Session session, String toolName, Supplier<McpSchema.CallToolResult> call)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        String result = "success";
+        try {
+            // a session closed in the meantime is no longer limited, its transport fails the response
+            Semaphore slots = session != null ? session.slots : new Semaphore(1);
+            if (!slots.tryAcquire(properties.queueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                result = "rejected";
+                return McpSchema.CallToolResult.builder()
+                    .addTextContent("Too many concurrent tool calls in this session, retry later")
+                    .isError(true)
+                    .build();
+            }
+            meters(toolName).queue.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            try {
+                McpSchema.CallToolResult callResult = call.get();
+                if (Boolean.TRUE.equals(callResult.isError())) {
+                    result = "error";
+                }
+                return callResult;
+            } finally {
+                slots.release();
+                if (session != null) {
+                    session.touch();
+                }
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            result = "error";
+            throw e;
+        } finally {
+            meters(toolName).calls(result).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void reapIdleSessions() {
+        long idleSince = System.nanoTime() - properties.idleTimeout().toNanos();
+        sessions.forEach((sessionId, session) -> {
+            if (session.idleSince(idleSince) && sessions.remove(sessionId, session)) {
+                forget(sessionId);
+                sessionSlots.release();
+                idleClosed.increment();
+            }
+        });
+        // started for an initialize request whose response carried no session id or an error
+        started.forEach((sessionId, session) -> {
+            if (session.idleSince(idleSince) && started.remove(sessionId, session)) {
+                forget(sessionId);
+            }
+        });
+    }
+
+    /**
+     * Have the transport delete the session, which closes its streams and removes it from the
+     * transport's sessions, by routing a {@code DELETE} request for it through the transport.
+     */
+    private void forget(String sessionId) {
+        try {
+            ServerRequest request = ServerRequest.create(new DeleteRequest(properties.endpoint(), sessionId), List.of());
+            Optional<HandlerFunction<ServerResponse>> handler = transportRoutes.route(request);
+            ServerResponse response = handler.isPresent() ? handler.get().handle(request) : null;
+            if (response == null || response.statusCode().isError() && response.statusCode() != HttpStatus.NOT_FOUND) {
+                log.warn("Closing MCP session {} failed with {}", sessionId,
+                    response != null ? response.statusCode() : "no route");
+            }
+        } catch (Exception e) {
+            log.warn("Closing MCP session {} failed: {}", sessionId, e.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        reaper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private ToolMeters meters(String toolName) {
+        ToolMeters meters = toolMeters.get(toolName);
+        return meters != null ? meters : toolMeters.computeIfAbsent(toolName, ToolMeters::new);
+    }
+
+    private static Counter closed(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("assistant.mcp.sessions.closed")
+            .description("MCP sessions closed by their client (deleted) or for idleness (idle)")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private final class ToolMeters {
+
+        private final Timer queue;
+        private final Timer success;
+        private final Timer error;
+        private final Timer rejected;
+
+        ToolMeters(String toolName) {
+            this.queue = Timer.builder(METRIC_QUEUE)
+                .description("Time an MCP tool call waited for a slot of its session")
+                .tag("tool", toolName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            this.success = calls(toolName, "success");
+            this.error = calls(toolName, "error");
+            this.rejected = calls(toolName, "rejected");
+        }
+
+        Timer calls(String result) {
+            return switch (result) {
+                case "success" -> success;
+                case "rejected" -> rejected;
+                default -> error;
+            };
+        }
+
+        private Timer calls(String toolName, String result) {
+            return Timer.builder(METRIC_CALLS)
+                .description("MCP tool call latency, including queueing for the session")
+                .tag("tool", toolName)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Hands the sessions the transport starts to the filter, which registers them once the
+     * {@code initialize} request has succeeded.
+     */
+    private final class TrackingTransportProvider implements McpStreamableServerTransportProvider {
+
+        private final McpStreamableServerTransportProvider delegate;
+
+        TrackingTransportProvider(McpStreamableServerTransportProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setSessionFactory(McpStreamableServerSession.Factory sessionFactory) {
+            delegate.setSessionFactory(initializeRequest -> {
+                McpStreamableServerSession.McpStreamableServerSessionInit init = sessionFactory.startSession(initializeRequest);
+                started.put(init.session().getId(), new Session(properties.maxConcurrentCallsPerSession()));
+                return init;
+            });
+        }
+
+        @Override
+        public Mono<Void> notifyClients(String method, Object params) {
+            return delegate.notifyClients(method, params);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return delegate.closeGracefully();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public List<String> protocolVersions() {
+            return delegate.protocolVersions();
+        }
+    }
+
+    private static final class Session {
+
+        private final Semaphore slots;
+        private final int maxConcurrentCalls;
+        private volatile long lastActive = System.nanoTime();
+
+        Session(int maxConcurrentCalls) {
+            this.slots = new Semaphore(maxConcurrentCalls);
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        void touch() {
+            lastActive = System.nanoTime();
+        }
+
+        boolean idleSince(long nanos) {
+            return lastActive - nanos < 0 && slots.availablePermits() == maxConcurrentCalls;
+        }
+    }
+
+    /**
+     * A {@code DELETE} request of a session that never went over the network: just what the transport's
+     * routes and delete handler read, anything else fails.
+     */
+    private static final class DeleteRequest extends HttpServletRequestWrapper {
+
+        private final String endpoint;
+        private final String sessionId;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        DeleteRequest(String endpoint, String sessionId) {
+            super((HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+            this.endpoint = endpoint;
+            this.sessionId = sessionId;
+            ServletRequestPathUtils.setParsedRequestPath(RequestPath.parse(endpoint, null), this);
+        }
+
+        @Override
+        public String getMethod() {
+            return HttpMethod.DELETE.name();
+        }
+
+        @Override
+        public String getRequestURI() {
+            return endpoint;
+        }
+
+        @Override
+        public String getContextPath() {
+            return "";
+        }
+
+        @Override
+        public String getServletPath() {
+            return endpoint;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getQueryString() {
+            return null;
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return null;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public DispatcherType getDispatcherType() {
+            return DispatcherType.REQUEST;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.MCP_SESSION_ID.equalsIgnoreCase(name) ? sessionId : null;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.MCP_SESSION_ID.equalsIgnoreCase(name)
+                ? Collections.enumeration(List.of(sessionId)) : Collections.emptyEnumeration();
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(List.of(HttpHeaders.MCP_SESSION_ID));
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            return Collections.enumeration(attributes.keySet());
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            if (value != null) {
+                attributes.put(name, value);
+            } else {
+                attributes.remove(name);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            return Map.of();
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            return Collections.emptyEnumeration();
+        }
+
+        @Override
+        public String getParameter(String name) {
+            return null;
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            return null;
+        }
+    }
+}
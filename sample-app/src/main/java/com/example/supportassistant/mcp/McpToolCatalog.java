@@ -0,0 +1,96 @@
+package com.example.supportassistant.mcp;
+
+import io.modelcontextprotocol.json.McpJsonMapper;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tools served over MCP, resolved once at startup.
+ * <p>
+ * {@code ToolCallbackProvider}s such as {@code MethodToolCallbackProvider} scan their tool objects and
+ * generate the JSON schemas of the parameters on every call. The catalog does this once and keeps the
+ * MCP tool definitions with their parsed input schemas, so listing the tools only hands out the shared
+ * definitions. The first callback of a name wins.
+ */
+public class McpToolCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(McpToolCatalog.class);
+
+    /**
+     * Tool context key of the {@link McpAsyncServerExchange}, the one Spring AI's MCP server uses.
+     */
+    public static final String EXCHANGE = "exchange";
+
+    private final List<Entry> entries;
+    private final McpJsonMapper jsonMapper;
+
+    public McpToolCatalog(List<ToolCallback> callbacks, McpJsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+        Map<String, Entry> byName = new LinkedHashMap<>();
+        for (ToolCallback callback : callbacks) {
+            ToolDefinition definition = callback.getToolDefinition();
+            if (byName.containsKey(definition.name())) {
+                log.warn("Tool {} is defined more than once, serving the first definition over MCP", definition.name());
+                continue;
+            }
+            McpSchema.Tool tool = McpSchema.Tool.builder()
+                .name(definition.name())
+                .description(definition.description())
+                .inputSchema(jsonMapper, definition.inputSchema())
+                .build();
+            byName.put(definition.name(), new Entry(tool, callback));
+        }
+        this.entries = List.copyOf(byName.values());
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * The tool specifications of the MCP server, whose calls run through the session manager.
+     */
+    List<McpServerFeatures.AsyncToolSpecification> specifications(McpSessionManager sessions) {
+        List<McpServerFeatures.AsyncToolSpecification> specifications = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            specifications.add(McpServerFeatures.AsyncToolSpecification.builder()
+                .tool(entry.tool())
+                .callHandler((exchange, request) -> sessions.call(exchange.sessionId(), entry.tool().name(),
+                    () -> call(entry.callback(), exchange, request.arguments())))
+                .build());
+        }
+        return specifications;
+    }
+
+    /**
+     * Call the tool, reporting its failures to the client as error results like Spring AI's MCP server.
+     */
+    private McpSchema.CallToolResult call(ToolCallback callback, McpAsyncServerExchange exchange,
+                                          Map<String, Object> arguments) {
+        try {
+            String input = jsonMapper.writeValueAsString(arguments != null ? arguments : Map.of());
+            String result = callback.call(input, new ToolContext(Map.of(EXCHANGE, exchange)));
+            return McpSchema.CallToolResult.builder().addTextContent(result).isError(false).build();
+        } catch (IOException | RuntimeException e) {
+            return McpSchema.CallToolResult.builder().addTextContent(String.valueOf(e.getMessage())).isError(true).build();
+        }
+    }
+
+    /**
+     * @param tool     the MCP definition of the tool, shared by every listing
+     * @param callback the callback running it
+     */
+    public record Entry(McpSchema.Tool tool, ToolCallback callback) {}
+}
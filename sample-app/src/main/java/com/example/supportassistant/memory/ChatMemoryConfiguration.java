@@ -0,0 +1,25 @@
+package com.example.supportassistant.memory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the auto-configured message window chat memory with {@link CompactingChatMemory}.
+ * Enabled with {@code support-assistant.chat-memory.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.chat-memory", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ChatMemoryProperties.class)
+public class ChatMemoryConfiguration {
+
+    @Bean
+    public ChatMemory compactingChatMemory(ChatModel chatModel, ChatMemoryProperties properties,
+                                           MeterRegistry meterRegistry) {
+        return new CompactingChatMemory(new ChatModelConversationSummarizer(chatModel), properties, meterRegistry);
+    }
+}
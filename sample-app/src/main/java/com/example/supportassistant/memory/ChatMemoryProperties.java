@@ -0,0 +1,40 @@
+package com.example.supportassistant.memory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of the compacting chat memory.
+ *
+ * @param enabled                whether {@link CompactingChatMemory} replaces the default {@code ChatMemory}
+ * @param tokenBudget            tokens of history, including the summary, returned for a prompt
+ * @param compactionThreshold    stored tokens of a conversation above which older turns are summarized
+ * @param maxConcurrentSummaries summarization requests in flight at once
+ * @param idleTimeout            time after which an unused conversation is evicted from the heap
+ * @param maxResidentTokens      tokens held on the heap across all conversations before the least
+ *                               recently used are evicted
+ * @param spill                  settings of the file-backed tier for evicted conversations
+ */
+@ConfigurationProperties("support-assistant.chat-memory")
+public record ChatMemoryProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("2000") int tokenBudget,
+    @DefaultValue("4000") int compactionThreshold,
+    @DefaultValue("4") int maxConcurrentSummaries,
+    @DefaultValue("30m") Duration idleTimeout,
+    @DefaultValue("20000000") long maxResidentTokens,
+    @DefaultValue Spill spill
+) {
+
+    /**
+     * @param enabled   whether evicted conversations are written to files instead of being dropped
+     * @param directory directory of the spilled conversations
+     */
+    public record Spill(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("target/chat-memory") Path directory
+    ) {}
+}
@@ -0,0 +1,42 @@
+package com.example.supportassistant.memory;
+
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Summarizes with the application's {@link ChatModel}, bypassing the {@code ChatClient} advisors so the
+ * summary request is neither remembered nor cached.
+ */
+class ChatModelConversationSummarizer implements ConversationSummarizer {
+
+    private static final String INSTRUCTIONS = """
+        Summarize the conversation between a user and the Tanzu Spring support assistant below.
+        Keep facts the assistant needs to continue the conversation: the user's environment, versions,
+        problems, decisions, ticket numbers and open questions. Be concise and write in the third person.""";
+
+    private final ChatModel chatModel;
+
+    ChatModelConversationSummarizer(ChatModel chatModel) {
+        this.chatModel = chatModel;
+    }
+
+    @Override
+    public String summarize(String previousSummary, List<Message> messages) {
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null) {
+            transcript.append("Summary so far: ").append(previousSummary).append("\n\n");
+        }
+        for (Message message : messages) {
+            transcript.append(message.getMessageType().getValue().toUpperCase(Locale.ROOT))
+                .append(": ").append(message.getText()).append('\n');
+        }
+        return chatModel.call(new Prompt(List.of(new SystemMessage(INSTRUCTIONS), new UserMessage(transcript.toString()))))
+            .getResult().getOutput().getText();
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.supportassistant.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link ChatMemory} that keeps the heap bounded across many concurrent conversations.
+ * <p>
+ * Each conversation is an immutable snapshot that is replaced atomically with
+ * {@code ConcurrentMap.compute}, so writers of the same conversation are serialized by the cache's
+ * per-entry locking while reads and other conversations never wait. Once a conversation holds more
+ * than the compaction threshold, its oldest turns are folded into a summary on a virtual thread and
+ * {@link #get(String)} returns that summary followed by the newest turns within the token budget.
+ * Conversations are weighed by their tokens and evicted when idle or when the resident tokens exceed
+ * the limit; evicted conversations are optionally spilled to files and restored on the next access.
+ * Spill files are read before and deleted after the cache entry is updated, and written by the cache's
+ * removal listener on its executor after the entry is gone, so that IO never holds the entry's lock.
+ * Until its file is written, an evicted conversation waits in a map of pending spills, which restores
+ * take it from, so an access right after the eviction does not miss it.
+ */
+public class CompactingChatMemory implements ChatMemory, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactingChatMemory.class);
+
+    private static final String METRIC_SUMMARIZATIONS = "assistant.chat.memory.summarizations";
+    private static final String METRIC_SPILLS = "assistant.chat.memory.spills";
+
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation: ";
+
+    private final Cache<String, Conversation> conversations;
+    private final ConversationSummarizer summarizer;
+    private final ChatMemoryProperties properties;
+    private final TokenCountEstimator tokenCounter = new JTokkitTokenCountEstimator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore summaryPermits;
+    private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+    /**
+     * Evicted conversations whose spill file is not written yet. Writing the file and taking the
+     * conversation out happen in one {@code compute}, serialized with {@link #restored(String)} and
+     * {@link #clear(String)}.
+     */
+    private final Map<String, Conversation> pendingSpills = new ConcurrentHashMap<>();
+    private final Counter summariesSucceeded;
+    private final Counter summariesStale;
+    private final Counter summariesDeferred;
+    private final Counter summariesFailed;
+    private final Counter spillWrites;
+    private final Counter spillReads;
+
+    public CompactingChatMemory(ConversationSummarizer summarizer, ChatMemoryProperties properties,
+                                MeterRegistry meterRegistry) {
+        Assert.isTrue(properties.tokenBudget() > 0, "tokenBudget must be positive");
+        Assert.isTrue(properties.compactionThreshold() > properties.tokenBudget(),
+            "compactionThreshold must be greater than tokenBudget");
+        this.summarizer = summarizer;
+        this.properties = properties;
+        this.summaryPermits = new Semaphore(properties.maxConcurrentSummaries());
+        this.conversations = Caffeine.newBuilder()
+            .maximumWeight(properties.maxResidentTokens())
+            .weigher((String id, Conversation conversation) -> Math.max(1, conversation.tokens()))
+            .expireAfterAccess(properties.idleTimeout())
+            .scheduler(Scheduler.systemScheduler())
+            .evictionListener(this::evicted)
+            .removalListener(this::removed)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, conversations, "chat-memory");
+        Gauge.builder("assistant.chat.memory.resident.tokens", conversations,
+                cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+            .description("Tokens of the conversations held on the heap")
+            .register(meterRegistry);
+        this.summariesSucceeded = counter(meterRegistry, METRIC_SUMMARIZATIONS, "result", "success");
+        this.summariesStale = counter(meterRegistry, METRIC_SUMMARIZATIONS, "result", "stale");
+        this.summariesDeferred = counter(meterRegistry, METRIC_SUMMARIZATIONS, "result", "deferred");
+        this.summariesFailed = counter(meterRegistry, METRIC_SUMMARIZATIONS, "result", "failure");
+        this.spillWrites = counter(meterRegistry, METRIC_SPILLS, "operation", "write");
+        this.spillReads = counter(meterRegistry, METRIC_SPILLS, "operation", "read");
+        if (properties.spill().enabled()) {
+            try {
+                Files.createDirectories(properties.spill().directory());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create chat memory spill directory " + properties.spill().directory(), e);
+            }
+        }
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        Assert.hasText(conversationId, "conversationId must not be empty");
+        Assert.notNull(messages, "messages must not be null");
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = messages.stream().map(message -> new Entry(message, count(message))).toList();
+        Conversation restored = conversations.asMap().containsKey(conversationId) ? null : restore(conversationId);
+        Conversation initial = restored != null ? restored : Conversation.EMPTY;
+        boolean[] restoredUsed = new boolean[1];
+        Conversation updated = conversations.asMap().compute(conversationId, (id, current) -> {
+            restoredUsed[0] = current == null && restored != null;
+            return (current != null ? current : initial).append(entries, hardLimit());
+        });
+        if (restoredUsed[0]) {
+            restored(conversationId);
+        }
+        if (updated.tokens() > properties.compactionThreshold()) {
+            scheduleSummary(conversationId);
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        Assert.hasText(conversationId, "conversationId must not be empty");
+        Conversation conversation = conversations.getIfPresent(conversationId);
+        if (conversation == null) {
+            Conversation restored = restore(conversationId);
+            if (restored == null) {
+                return List.of();
+            }
+            conversation = conversations.asMap().putIfAbsent(conversationId, restored);
+            if (conversation == null) {
+                conversation = restored;
+                restored(conversationId);
+            }
+        }
+        return conversation.window(properties.tokenBudget());
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        Assert.hasText(conversationId, "conversationId must not be empty");
+        conversations.invalidate(conversationId);
+        if (properties.spill().enabled()) {
+            pendingSpills.remove(conversationId);
+            try {
+                Files.deleteIfExists(spillFile(conversationId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Spills the resident conversations so they survive a restart when spilling is enabled.
+     */
+    @Override
+    public void close() {
+        if (properties.spill().enabled()) {
+            conversations.asMap().forEach(this::spill);
+            pendingSpills.forEach(this::spillPending);
+        }
+        conversations.invalidateAll();
+    }
+
+    /**
+     * Conversations growing faster than they can be summarized lose their oldest turns beyond
+     * this many tokens, which keeps a single conversation from growing without bound.
+     */
+    private int hardLimit() {
+        return properties.compactionThreshold() * 2;
+    }
+
+    private void scheduleSummary(String conversationId) {
+        if (!summarizing.add(conversationId)) {
+            return;
+        }
+        if (!summaryPermits.tryAcquire()) {
+            summarizing.remove(conversationId);
+            summariesDeferred.increment();
+            return;
+        }
+        Thread.ofVirtual().name("chat-memory-summary").start(() -> {
+            try {
+                summarize(conversationId);
+            } catch (RuntimeException e) {
+                summariesFailed.increment();
+                log.warn("Summarizing conversation {} failed", conversationId, e);
+            } finally {
+                summaryPermits.release();
+                summarizing.remove(conversationId);
+            }
+        });
+    }
+
+    private void summarize(String conversationId) {
+        Conversation snapshot = conversations.getIfPresent(conversationId);
+        if (snapshot == null) {
+            return;
+        }
+        int fold = snapshot.foldCount(properties.tokenBudget());
+        if (fold == 0) {
+            return;
+        }
+        List<Entry> folded = snapshot.entries().subList(0, fold);
+        String summary = summarizer.summarize(snapshot.summary(), folded.stream().map(Entry::message).toList());
+        Entry summaryEntry = new Entry(new SystemMessage(SUMMARY_PREFIX + summary), tokenCounter.estimate(summary));
+        // Messages are only ever appended, so the snapshot's prefix is still in place unless the
+        // conversation was cleared, evicted or trimmed meanwhile.
+        Conversation applied = conversations.asMap().computeIfPresent(conversationId,
+            (id, current) -> current.startsWith(snapshot.summaryEntry(), folded)
+                ? current.compact(summaryEntry, summary, fold)
+                : current);
+        boolean replaced = applied != null && applied.summaryEntry() == summaryEntry;
+        (replaced ? summariesSucceeded : summariesStale).increment();
+    }
+
+    private int count(Message message) {
+        int tokens = message.getText() != null ? tokenCounter.estimate(message.getText()) : 0;
+        if (message instanceof AssistantMessage assistant && assistant.hasToolCalls()) {
+            for (AssistantMessage.ToolCall call : assistant.getToolCalls()) {
+                tokens += tokenCounter.estimate(call.name() + call.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage toolResponse) {
+            for (ToolResponseMessage.ToolResponse response : toolResponse.getResponses()) {
+                tokens += tokenCounter.estimate(response.responseData());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Runs within the atomic removal, so it only hands the conversation to {@link #removed}.
+     */
+    private void evicted(String conversationId, Conversation conversation, RemovalCause cause) {
+        if (properties.spill().enabled() && conversationId != null && conversation != null) {
+            pendingSpills.put(conversationId, conversation);
+        }
+    }
+
+    private void removed(String conversationId, Conversation conversation, RemovalCause cause) {
+        if (cause.wasEvicted() && conversationId != null && conversation != null) {
+            spillPending(conversationId, conversation);
+        }
+    }
+
+    /**
+     * Spill a pending conversation unless it was restored, cleared or evicted again meanwhile.
+     */
+    private void spillPending(String conversationId, Conversation conversation) {
+        pendingSpills.computeIfPresent(conversationId, (id, pending) -> {
+            if (pending != conversation) {
+                return pending;
+            }
+            spill(id, conversation);
+            return null;
+        });
+    }
+
+    private void spill(String conversationId, Conversation conversation) {
+        List<SpilledMessage> messages = conversation.entries().stream().map(entry -> SpilledMessage.of(entry.message())).toList();
+        try {
+            objectMapper.writeValue(spillFile(conversationId).toFile(), new SpilledConversation(conversation.summary(), messages));
+            spillWrites.increment();
+        } catch (IOException e) {
+            log.warn("Spilling conversation {} failed, dropping it", conversationId, e);
+        }
+    }
+
+    /**
+     * The pending spill of a conversation, or the one read from its spill file, if any. Both are
+     * removed by {@link #restored(String)} once the conversation is back in the cache, so a concurrent
+     * access cannot miss it in between.
+     */
+    private Conversation restore(String conversationId) {
+        if (!properties.spill().enabled()) {
+            return null;
+        }
+        Conversation pending = pendingSpills.get(conversationId);
+        if (pending != null) {
+            return pending;
+        }
+        Path file = spillFile(conversationId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            SpilledConversation spilled = objectMapper.readValue(file.toFile(), SpilledConversation.class);
+            Entry summaryEntry = spilled.summary() != null
+                ? new Entry(new SystemMessage(SUMMARY_PREFIX + spilled.summary()), tokenCounter.estimate(spilled.summary()))
+                : null;
+            List<Entry> entries = spilled.messages().stream()
+                .map(SpilledMessage::toMessage)
+                .map(message -> new Entry(message, count(message)))
+                .toList();
+            return Conversation.EMPTY.compact(summaryEntry, spilled.summary(), 0).append(entries, hardLimit());
+        } catch (IOException e) {
+            log.warn("Restoring spilled conversation {} failed, starting afresh", conversationId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Drop the pending spill and the spill file of a conversation put back into the cache, unless it
+     * was evicted again meanwhile and they hold its latest state.
+     */
+    private void restored(String conversationId) {
+        spillReads.increment();
+        pendingSpills.compute(conversationId, (id, pending) -> {
+            if (!conversations.asMap().containsKey(id)) {
+                return pending;
+            }
+            try {
+                Files.deleteIfExists(spillFile(id));
+            } catch (IOException e) {
+                log.warn("Deleting the spill file of conversation {} failed", id, e);
+            }
+            return null;
+        });
+    }
+
+    private Path spillFile(String conversationId) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conversationId.getBytes(StandardCharsets.UTF_8));
+            return properties.spill().directory().resolve(HexFormat.of().formatHex(hash) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String tagKey, String tagValue) {
+        return Counter.builder(name).tag(tagKey, tagValue).register(meterRegistry);
+    }
+
+    record Entry(Message message, int tokens) {}
+
+    /**
+     * Immutable state of a conversation; every change produces a new instance.
+     *
+     * @param summary      summary of the folded turns, or {@code null}
+     * @param summaryEntry the summary as a system message with its token count, or {@code null}
+     * @param entries      turns that have not been folded into the summary, oldest first
+     * @param tokens       tokens of the summary and the entries
+     */
+    record Conversation(String summary, Entry summaryEntry, List<Entry> entries, int tokens) {
+
+        static final Conversation EMPTY = new Conversation(null, null, List.of(), 0);
+
+        Conversation append(List<Entry> added, int hardLimit) {
+            List<Entry> combined = new ArrayList<>(entries.size() + added.size());
+            combined.addAll(entries);
+            combined.addAll(added);
+            int total = sum(combined);
+            int first = 0;
+            while (total > hardLimit && first < combined.size() - 1) {
+                total -= combined.get(first++).tokens();
+            }
+            first = skipToolResponses(combined, first);
+            List<Entry> kept = List.copyOf(combined.subList(first, combined.size()));
+            return new Conversation(summary, summaryEntry, kept, summaryTokens() + sum(kept));
+        }
+
+        Conversation compact(Entry newSummaryEntry, String newSummary, int fold) {
+            List<Entry> kept = entries.subList(fold, entries.size());
+            int summaryTokens = newSummaryEntry != null ? newSummaryEntry.tokens() : 0;
+            return new Conversation(newSummary, newSummaryEntry, List.copyOf(kept), summaryTokens + sum(kept));
+        }
+
+        boolean startsWith(Entry expectedSummary, List<Entry> prefix) {
+            if (summaryEntry != expectedSummary || entries.size() < prefix.size()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.size(); i++) {
+                if (entries.get(i) != prefix.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Number of oldest entries to fold so the remaining ones fit the budget next to a summary.
+         */
+        int foldCount(int tokenBudget) {
+            int keptTokens = 0;
+            int kept = 0;
+            // reserve a quarter of the budget for the summary itself
+            int available = tokenBudget - tokenBudget / 4;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                if (keptTokens + entries.get(i).tokens() > available) {
+                    break;
+                }
+                keptTokens += entries.get(i).tokens();
+                kept++;
+            }
+            return skipToolResponses(entries, entries.size() - kept);
+        }
+
+        List<Message> window(int tokenBudget) {
+            int budget = tokenBudget - summaryTokens();
+            int first = entries.size();
+            while (first > 0 && budget - entries.get(first - 1).tokens() >= 0) {
+                budget -= entries.get(--first).tokens();
+            }
+            // always include the latest message, even when it alone exceeds the budget
+            first = skipToolResponses(entries, Math.min(first, Math.max(0, entries.size() - 1)));
+            List<Message> messages = new ArrayList<>(entries.size() - first + 1);
+            if (summaryEntry != null) {
+                messages.add(summaryEntry.message());
+            }
+            entries.subList(first, entries.size()).forEach(entry -> messages.add(entry.message()));
+            return messages;
+        }
+
+        private int summaryTokens() {
+            return summaryEntry != null ? summaryEntry.tokens() : 0;
+        }
+
+        private static int sum(List<Entry> entries) {
+            return entries.stream().mapToInt(Entry::tokens).sum();
+        }
+
+        /**
+         * A tool response is meaningless without the assistant message carrying the tool call, so a
+         * window never starts with one.
+         */
+        private static int skipToolResponses(List<Entry> entries, int first) {
+            while (first < entries.size() && entries.get(first).message().getMessageType() == MessageType.TOOL) {
+                first++;
+            }
+            return first;
+        }
+    }
+
+    record SpilledConversation(String summary, List<SpilledMessage> messages) {}
+
+    record SpilledMessage(MessageType type, String text, List<AssistantMessage.ToolCall> toolCalls,
+                          List<ToolResponseMessage.ToolResponse> toolResponses) {
+
+        static SpilledMessage of(Message message) {
+            return switch (message) {
+                case AssistantMessage assistant -> new SpilledMessage(MessageType.ASSISTANT, assistant.getText(),
+                    assistant.getToolCalls(), null);
+                case ToolResponseMessage toolResponse -> new SpilledMessage(MessageType.TOOL, null, null,
+                    toolResponse.getResponses());
+                default -> new SpilledMessage(message.getMessageType(), message.getText(), null, null);
+            };
+        }
+
+        Message toMessage() {
+            return switch (type) {
+                case USER -> new UserMessage(text);
+                case SYSTEM -> new SystemMessage(text);
+                case ASSISTANT -> AssistantMessage.builder().content(text)
+                    .toolCalls(toolCalls != null ? toolCalls : List.of()).build();
+                case TOOL -> ToolResponseMessage.builder().responses(toolResponses).build();
+            };
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.supportassistant.memory;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * Condenses the older turns of a conversation into a summary.
+ */
+@FunctionalInterface
+public interface ConversationSummarizer {
+
+    /**
+     * @param previousSummary summary of the turns before {@code messages}, or {@code null}
+     * @param messages        turns to fold into the summary, oldest first
+     * @return summary of the previous summary and the messages
+     */
+    String summarize(String previousSummary, List<Message> messages);
+}
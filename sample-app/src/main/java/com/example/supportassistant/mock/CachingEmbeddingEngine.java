@@ -0,0 +1,47 @@
+package com.example.supportassistant.mock;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache in front of another {@link MockEmbeddingEngine}.
+ * Re-embedding the same knowledge base documents in the same process returns the cached vectors;
+ * the cache lives on the heap only and starts empty after a restart.
+ */
+public class CachingEmbeddingEngine implements MockEmbeddingEngine {
+
+    private final MockEmbeddingEngine delegate;
+    private final Map<Key, float[]> cache;
+
+    public CachingEmbeddingEngine(MockEmbeddingEngine delegate, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.delegate = delegate;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, float[]> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public float[] embed(String text, int dimensions) {
+        Key key = new Key(text, dimensions);
+        synchronized (cache) {
+            float[] cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // Generate outside the lock; concurrent misses for the same text produce identical vectors
+        float[] embedding = delegate.embed(text, dimensions);
+        synchronized (cache) {
+            cache.put(key, embedding);
+        }
+        return embedding;
+    }
+
+    private record Key(String text, int dimensions) {}
+}
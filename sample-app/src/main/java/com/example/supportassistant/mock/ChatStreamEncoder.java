@@ -0,0 +1,213 @@
+package com.example.supportassistant.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Encodes chat completion streams as OpenAI-compatible server-sent events.
+ * <p>
+ * A reply is split into tokens and each token is JSON-escaped and UTF-8 encoded once, into the
+ * tail of its {@code chat.completion.chunk} event. Only the head carrying the per-request
+ * {@code id} and {@code created} fields is encoded per request. Replies known up front are
+ * prepared when the encoder is created; other content is prepared on demand. Tool calls are
+ * streamed as deltas, the function name first and then the arguments in fragments.
+ */
+final class ChatStreamEncoder {
+
+    private static final byte[] DONE = ascii("data: [DONE]\n\n");
+
+    private final String model;
+    private final Map<String, PreparedReply> preparedReplies;
+
+    ChatStreamEncoder(String model, Collection<String> knownReplies) {
+        this.model = model;
+        this.preparedReplies = knownReplies.stream()
+            .distinct()
+            .collect(Collectors.toUnmodifiableMap(Function.identity(), this::encode));
+    }
+
+    /**
+     * Return the pre-encoded chunks of the reply, encoding them now if the reply is not cached.
+     */
+    PreparedReply prepare(String content) {
+        PreparedReply prepared = preparedReplies.get(content);
+        return prepared != null ? prepared : encode(content);
+    }
+
+    /**
+     * Start a new stream with a fresh completion id.
+     */
+    Stream open(long created) {
+        String head = "data: {\"id\":\"" + newCompletionId() + "\",\"object\":\"chat.completion.chunk\",\"created\":"
+            + created + ",\"model\":\"" + model + "\"";
+        return new Stream(ascii(head));
+    }
+
+    static String newCompletionId() {
+        return "chatcmpl-mock-" + randomHex();
+    }
+
+    static String randomHex() {
+        return String.format("%08x", ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * Split content into tokens after every whitespace character, like {@code split("(?<=\\s)")}.
+     */
+    static List<String> tokenize(String content) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (isWhitespace(content.charAt(i)) && i + 1 < content.length()) {
+                tokens.add(content.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < content.length()) {
+            tokens.add(content.substring(start));
+        }
+        return tokens;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    static String escapeJson(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private PreparedReply encode(String content) {
+        List<String> tokens = tokenize(content);
+        byte[][] chunks = new byte[tokens.size()][];
+        for (int i = 0; i < tokens.size(); i++) {
+            chunks[i] = utf8(",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"" + escapeJson(tokens.get(i))
+                + "\"},\"finish_reason\":null}]}\n\n");
+        }
+        return new PreparedReply(chunks);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Pre-encoded content chunks of a reply, one per token.
+     */
+    record PreparedReply(byte[][] chunks) {
+
+        int tokenCount() {
+            return chunks.length;
+        }
+    }
+
+    /**
+     * The events of one stream, sharing its id and creation time.
+     */
+    static final class Stream {
+
+        private static final byte[] ROLE = ascii(
+            ",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"\"},\"finish_reason\":null}]}\n\n");
+        private static final byte[] STOP = ascii(
+            ",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}\n\n");
+        private static final byte[] TOOL_CALLS = ascii(
+            ",\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"tool_calls\"}]}\n\n");
+
+        private final byte[] head;
+
+        private Stream(byte[] head) {
+            this.head = head;
+        }
+
+        /**
+         * First event, announcing the assistant role.
+         */
+        byte[] role() {
+            return event(ROLE);
+        }
+
+        byte[] content(PreparedReply reply, int index) {
+            return event(reply.chunks()[index]);
+        }
+
+        /**
+         * Final event of the choice, with an empty delta and the finish reason.
+         */
+        byte[] stop() {
+            return event(STOP);
+        }
+
+        /**
+         * First delta of a tool call, carrying its id and function name but no arguments yet.
+         */
+        byte[] toolCallStart(int index, String id, String name) {
+            return event(utf8(",\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":" + index
+                + ",\"id\":\"" + escapeJson(id) + "\",\"type\":\"function\",\"function\":{\"name\":\""
+                + escapeJson(name) + "\",\"arguments\":\"\"}}]},\"finish_reason\":null}]}\n\n"));
+        }
+
+        /**
+         * Delta appending a fragment of the JSON arguments to the tool call at {@code index}.
+         */
+        byte[] toolCallArguments(int index, String fragment) {
+            return event(utf8(",\"choices\":[{\"index\":0,\"delta\":{\"tool_calls\":[{\"index\":" + index
+                + ",\"function\":{\"arguments\":\"" + escapeJson(fragment) + "\"}}]},\"finish_reason\":null}]}\n\n"));
+        }
+
+        /**
+         * Final event of a choice that requested tool calls.
+         */
+        byte[] toolCallsFinished() {
+            return event(TOOL_CALLS);
+        }
+
+        /**
+         * Usage event sent after the final choice event when the request asked for
+         * {@code stream_options.include_usage}.
+         */
+        byte[] usage(int promptTokens, int completionTokens) {
+            return event(ascii(",\"choices\":[],\"usage\":{\"prompt_tokens\":" + promptTokens
+                + ",\"completion_tokens\":" + completionTokens
+                + ",\"total_tokens\":" + (promptTokens + completionTokens) + "}}\n\n"));
+        }
+
+        byte[] done() {
+            return DONE;
+        }
+
+        private byte[] event(byte[] tail) {
+            byte[] event = new byte[head.length + tail.length];
+            System.arraycopy(head, 0, event, 0, head.length);
+            System.arraycopy(tail, 0, event, head.length, tail.length);
+            return event;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.supportassistant.mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Streams an OpenAI-compatible embedding list as JSON straight from primitive {@code float[]} vectors.
+ * <p>
+ * Vectors are generated one input at a time and written into a reusable per-thread byte buffer,
+ * so no boxed {@code Float}s, intermediate maps or per-number strings are created. Floats are written
+ * with nine significant digits, which is enough for every value to parse back to the identical float.
+ */
+final class EmbeddingResponseWriter {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_NUMBER_LENGTH = 32;
+    private static final int SIGNIFICANT_DIGITS = 9;
+
+    private static final int MIN_POWER = -60;
+    private static final int MAX_POWER = 60;
+    private static final double[] POWERS_OF_TEN = new double[MAX_POWER - MIN_POWER + 1];
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    static {
+        for (int power = MIN_POWER; power <= MAX_POWER; power++) {
+            POWERS_OF_TEN[power - MIN_POWER] = Double.parseDouble("1e" + power);
+        }
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+
+    private EmbeddingResponseWriter(OutputStream out) {
+        this.out = out;
+        this.buffer = BUFFERS.get();
+    }
+
+    /**
+     * Write the embedding list for the given inputs to the output stream.
+     * The stream is flushed but not closed.
+     */
+    static void write(OutputStream out, String model, List<String> inputs,
+                      Function<String, float[]> embeddings) throws IOException {
+        new EmbeddingResponseWriter(out).writeList(model, inputs, embeddings);
+    }
+
+    private void writeList(String model, List<String> inputs, Function<String, float[]> embeddings) throws IOException {
+        long characters = 0;
+        writeAscii("{\"object\":\"list\",\"data\":[");
+        for (int index = 0; index < inputs.size(); index++) {
+            String input = inputs.get(index);
+            characters += input.length();
+            if (index > 0) {
+                writeByte(',');
+            }
+            writeAscii("{\"object\":\"embedding\",\"index\":");
+            writeLong(index);
+            writeAscii(",\"embedding\":[");
+            float[] embedding = embeddings.apply(input);
+            for (int i = 0; i < embedding.length; i++) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                writeFloat(embedding[i]);
+            }
+            writeAscii("]}");
+        }
+        long tokens = characters / 4;
+        writeAscii("],\"model\":\"");
+        writeAscii(model);
+        writeAscii("\",\"usage\":{\"prompt_tokens\":");
+        writeLong(tokens);
+        writeAscii(",\"total_tokens\":");
+        writeLong(tokens);
+        writeAscii("}}");
+        flushBuffer();
+        out.flush();
+    }
+
+    private void writeFloat(float value) throws IOException {
+        if (!Float.isFinite(value)) {
+            throw new IllegalArgumentException("JSON cannot represent " + value);
+        }
+        ensureCapacity(MAX_NUMBER_LENGTH);
+        if (Float.floatToRawIntBits(value) < 0) {
+            buffer[position++] = '-';
+        }
+        if (value == 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return;
+        }
+
+        // Scale to exactly nine integer digits: 10^8 <= digits < 10^9
+        double magnitude = Math.abs((double) value);
+        int exponent = (int) Math.floor(Math.getExponent(value) * 0.30102999566398120);
+        long digits = Math.round(magnitude * powerOfTen(SIGNIFICANT_DIGITS - 1 - exponent));
+        while (digits >= 1_000_000_000L) {
+            exponent++;
+            digits = Math.round(magnitude * powerOfTen(SIGNIFICANT_DIGITS - 1 - exponent));
+        }
+        while (digits < 100_000_000L) {
+            exponent--;
+            digits = Math.round(magnitude * powerOfTen(SIGNIFICANT_DIGITS - 1 - exponent));
+        }
+        int length = SIGNIFICANT_DIGITS;
+        while (length > 1 && digits % 10 == 0) {
+            digits /= 10;
+            length--;
+        }
+
+        if (exponent >= -3 && exponent < 7) {
+            writePlain(digits, length, exponent);
+        } else {
+            writeScientific(digits, length, exponent);
+        }
+    }
+
+    private void writePlain(long digits, int length, int exponent) {
+        if (exponent < 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            for (int i = -1; i > exponent; i--) {
+                buffer[position++] = '0';
+            }
+            writeDigits(digits, length);
+            return;
+        }
+        int integerDigits = exponent + 1;
+        int start = position;
+        writeDigits(digits, length);
+        if (length <= integerDigits) {
+            for (int i = length; i < integerDigits; i++) {
+                buffer[position++] = '0';
+            }
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return;
+        }
+        int point = start + integerDigits;
+        System.arraycopy(buffer, point, buffer, point + 1, position - point);
+        buffer[point] = '.';
+        position++;
+    }
+
+    private void writeScientific(long digits, int length, int exponent) {
+        int start = position;
+        writeDigits(digits, length);
+        if (length == 1) {
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+        } else {
+            System.arraycopy(buffer, start + 1, buffer, start + 2, length - 1);
+            buffer[start + 1] = '.';
+            position++;
+        }
+        buffer[position++] = 'E';
+        if (exponent < 0) {
+            buffer[position++] = '-';
+            exponent = -exponent;
+        }
+        writeDigits(exponent, exponent >= 10 ? 2 : 1);
+    }
+
+    private void writeDigits(long value, int length) {
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    private void writeLong(long value) throws IOException {
+        ensureCapacity(MAX_NUMBER_LENGTH);
+        int length = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            length++;
+        }
+        writeDigits(value, length);
+    }
+
+    private void writeAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static double powerOfTen(int power) {
+        return POWERS_OF_TEN[power - MIN_POWER];
+    }
+}
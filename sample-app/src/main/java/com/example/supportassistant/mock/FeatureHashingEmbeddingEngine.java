@@ -0,0 +1,95 @@
+package com.example.supportassistant.mock;
+
+import java.util.Set;
+
+/**
+ * Generates embeddings in which similar texts map to nearby vectors, without a model or network.
+ * <p>
+ * Uses the hashing trick: every lower-cased word and every character trigram of a word (with
+ * word boundary markers) is hashed to a signed component of the vector, and the result is
+ * L2-normalized. Texts sharing vocabulary therefore have a high cosine similarity, while the
+ * trigrams make the vectors tolerant to inflections such as "patch" / "patches". Common English
+ * stop words are skipped so they do not dominate short queries.
+ */
+public class FeatureHashingEmbeddingEngine implements MockEmbeddingEngine {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+    private static final long WORD_SEED = 0x5bd1e995L;
+    private static final long TRIGRAM_SEED = 0x27d4eb2fL;
+    private static final int MAX_WORD_LENGTH = 64;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "how",
+        "i", "in", "is", "it", "its", "me", "my", "of", "on", "or", "that", "the", "this", "to", "was",
+        "we", "what", "which", "with", "you", "your"
+    );
+    /**
+     * Longer words are not looked up, which spares building a string for most words.
+     */
+    private static final int MAX_STOP_WORD_LENGTH = STOP_WORDS.stream().mapToInt(String::length).max().orElse(0);
+
+    @Override
+    public float[] embed(String text, int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Embedding dimensions must be positive: " + dimensions);
+        }
+        float[] embedding = new float[dimensions];
+        // Word with '^' and '$' boundary markers, reused for every word of the text
+        char[] word = new char[MAX_WORD_LENGTH + 2];
+
+        int length = 0;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length < MAX_WORD_LENGTH) {
+                    word[++length] = Character.toLowerCase(c);
+                }
+            } else if (length > 0) {
+                addWord(embedding, word, length);
+                length = 0;
+            }
+        }
+
+        float magnitude = 0;
+        for (float value : embedding) {
+            magnitude += value * value;
+        }
+        if (magnitude == 0) {
+            // No features, e.g. empty text: return a fixed unit vector rather than a zero vector
+            embedding[0] = 1;
+            return embedding;
+        }
+        float scale = (float) (1 / Math.sqrt(magnitude));
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] *= scale;
+        }
+        return embedding;
+    }
+
+    private static void addWord(float[] embedding, char[] word, int length) {
+        if (length <= MAX_STOP_WORD_LENGTH && STOP_WORDS.contains(new String(word, 1, length))) {
+            return;
+        }
+        add(embedding, hash(word, 1, length + 1, WORD_SEED), WORD_WEIGHT);
+
+        word[0] = '^';
+        word[length + 1] = '$';
+        for (int start = 0; start + 3 <= length + 2; start++) {
+            add(embedding, hash(word, start, start + 3, TRIGRAM_SEED), TRIGRAM_WEIGHT);
+        }
+    }
+
+    private static void add(float[] embedding, long hash, float weight) {
+        int index = (int) Long.remainderUnsigned(hash >>> 1, embedding.length);
+        embedding[index] += (hash & 1) == 0 ? weight : -weight;
+    }
+
+    private static long hash(char[] chars, int from, int to, long seed) {
+        long hash = seed;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ chars[i]) * 0x100000001b3L;
+        }
+        return HashEmbeddingEngine.mix64(hash);
+    }
+}
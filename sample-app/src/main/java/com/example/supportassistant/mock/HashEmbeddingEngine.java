@@ -0,0 +1,60 @@
+package com.example.supportassistant.mock;
+
+/**
+ * Generates reproducible pseudo-random unit vectors seeded from a 64-bit hash of the text.
+ * <p>
+ * Each component is derived from its index with the SplitMix64 mixing function, the same
+ * counter-based generator behind {@link java.util.SplittableRandom}. There is no shared or
+ * synchronized state and no dependency between components, so the loop is cheap and free
+ * for the JIT to unroll.
+ */
+public class HashEmbeddingEngine implements MockEmbeddingEngine {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final float UNIT = 0x1.0p-24f;
+
+    @Override
+    public float[] embed(String text, int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Embedding dimensions must be positive: " + dimensions);
+        }
+        long seed = contentHash(text);
+        float[] embedding = new float[dimensions];
+
+        float magnitude = 0;
+        for (int i = 0; i < dimensions; i++) {
+            long bits = mix64(seed + (i + 1) * GOLDEN_GAMMA);
+            float value = (bits >>> 40) * UNIT * 2 - 1; // Range: -1 to 1
+            embedding[i] = value;
+            magnitude += value * value;
+        }
+
+        // Normalize the vector
+        float scale = magnitude > 0 ? (float) (1 / Math.sqrt(magnitude)) : 0;
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] *= scale;
+        }
+        return embedding;
+    }
+
+    /**
+     * 64-bit FNV-1a hash over the UTF-16 code units, finished with a SplitMix64 avalanche.
+     */
+    static long contentHash(CharSequence text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return mix64(hash);
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.supportassistant.mock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Infrastructure beans of the mock OpenAI service. The embedding engine is chosen by
+ * {@code mock.embedding.mode}; with {@code custom}, the application defines its own
+ * {@link MockEmbeddingEngine} bean.
+ */
+@Profile("mock")
+@Configuration
+@EnableConfigurationProperties(MockProperties.class)
+public class MockConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mock.embedding", name = "mode", havingValue = "random", matchIfMissing = true)
+    public MockEmbeddingEngine randomEmbeddingEngine(MockProperties properties) {
+        return cached(new HashEmbeddingEngine(), properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "mock.embedding", name = "mode", havingValue = "semantic")
+    public MockEmbeddingEngine semanticEmbeddingEngine(MockProperties properties) {
+        return cached(new FeatureHashingEmbeddingEngine(), properties);
+    }
+
+    @Bean
+    public MockTokenCounter mockTokenCounter(MockProperties properties) {
+        return new MockTokenCounter(!properties.estimateUsage());
+    }
+
+    private static MockEmbeddingEngine cached(MockEmbeddingEngine engine, MockProperties properties) {
+        int cacheSize = properties.embedding().cacheSize();
+        return cacheSize > 0 ? new CachingEmbeddingEngine(engine, cacheSize) : engine;
+    }
+}
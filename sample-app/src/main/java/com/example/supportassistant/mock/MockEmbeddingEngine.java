@@ -0,0 +1,14 @@
+package com.example.supportassistant.mock;
+
+/**
+ * Strategy for generating the vectors returned by the mock embeddings endpoint.
+ * Implementations must be deterministic and thread-safe. Returned arrays may be shared
+ * between callers and must not be modified.
+ */
+public interface MockEmbeddingEngine {
+
+    /**
+     * Generate a normalized embedding vector for the given text.
+     */
+    float[] embed(String text, int dimensions);
+}
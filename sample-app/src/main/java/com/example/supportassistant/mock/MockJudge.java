@@ -0,0 +1,62 @@
+package com.example.supportassistant.mock;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Answers the LLM-as-judge prompts of Spring AI's {@code RelevancyEvaluator} and
+ * {@code FactCheckingEvaluator}.
+ * <p>
+ * The verdict is deterministic: the judged text passes if enough of its words occur in the context
+ * or document it is checked against. This is crude, but an answer built from the retrieved documents
+ * passes while an answer unrelated to them fails, which is what an evaluation run needs to tell
+ * apart in CI.
+ */
+final class MockJudge {
+
+    private static final Pattern RELEVANCY = Pattern.compile(
+        "in line with the context information.*Query:\\s*(.*?)\\s*Response:\\s*(.*?)\\s*Context:\\s*(.*?)\\s*Answer:\\s*$",
+        Pattern.DOTALL);
+    private static final Pattern FACT_CHECKING = Pattern.compile(
+        "claim is supported by the provided document.*Document:\\s*(.*?)\\s*Claim:\\s*(.*?)\\s*$",
+        Pattern.DOTALL);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MIN_WORD_LENGTH = 5;
+    private static final double MIN_OVERLAP = 0.3;
+
+    /**
+     * The verdict for a judge prompt, or empty if the prompt is not one.
+     */
+    Optional<String> verdict(String prompt) {
+        Matcher relevancy = RELEVANCY.matcher(prompt);
+        if (relevancy.find()) {
+            return Optional.of(supported(relevancy.group(2), relevancy.group(3)) ? "YES" : "NO");
+        }
+        Matcher factChecking = FACT_CHECKING.matcher(prompt);
+        if (factChecking.find()) {
+            return Optional.of(supported(factChecking.group(2), factChecking.group(1)) ? "yes" : "no");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean supported(String text, String context) {
+        Set<String> words = words(text);
+        if (words.isEmpty()) {
+            return false;
+        }
+        Set<String> contextWords = words(context);
+        long found = words.stream().filter(contextWords::contains).count();
+        return (double) found / words.size() >= MIN_OVERLAP;
+    }
+
+    private static Set<String> words(String text) {
+        return Arrays.stream(NON_WORD.split(text.toLowerCase(Locale.ROOT)))
+            .filter(word -> word.length() >= MIN_WORD_LENGTH)
+            .collect(Collectors.toSet());
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.supportassistant.mock;
 
+import com.example.supportassistant.prompt.TokenCounter;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Mock OpenAI-compatible API controller.
@@ -24,11 +40,51 @@ public class MockOpenAiController {
 
     private static final Logger logger = LoggerFactory.getLogger(MockOpenAiController.class);
     private static final String MODEL_ID = "mock-gpt-4";
+    private static final String EMBEDDING_MODEL_ID = "mock-text-embedding-ada-002";
 
-    private final MockResponseRegistry responseRegistry;
+    private static final long STREAM_NO_TIMEOUT = -1;
+    private static final int ARGUMENT_FRAGMENT_LENGTH = 8;
+
+    /**
+     * Format instructions appended to the prompt by {@code BeanOutputConverter}, ending with the schema.
+     */
+    private static final String FORMAT_INSTRUCTIONS_START = "Your response should be in JSON format.";
+    private static final Pattern FORMAT_INSTRUCTIONS = Pattern.compile(
+        Pattern.quote(FORMAT_INSTRUCTIONS_START) + ".*?JSON Schema instance your output must adhere to:\\s*```(?:json)?\\s*(\\{.*})\\s*```",
+        Pattern.DOTALL);
 
-    public MockOpenAiController(MockResponseRegistry responseRegistry) {
+    private final MockResponseRegistry responseRegistry;
+    private final ProviderSimulator simulator;
+    private final ChatStreamEncoder streamEncoder;
+    private final ToolArgumentGenerator argumentGenerator = new ToolArgumentGenerator();
+    private final MockJudge judge = new MockJudge();
+    private final MockTokenCounter tokenCounter;
+    private final Counter promptTokenCounter;
+    private final Counter completionTokenCounter;
+    private final DistributionSummary embeddingBatchSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public MockOpenAiController(MockResponseRegistry responseRegistry, ProviderSimulator simulator,
+                                MockTokenCounter tokenCounter, MeterRegistry meterRegistry) {
         this.responseRegistry = responseRegistry;
+        this.simulator = simulator;
+        this.tokenCounter = tokenCounter;
+        this.promptTokenCounter = tokenCounter(meterRegistry, "prompt");
+        this.completionTokenCounter = tokenCounter(meterRegistry, "completion");
+        this.embeddingBatchSize = DistributionSummary.builder("mock.openai.embedding.batch.size")
+            .description("Inputs per embedding request served by the mock")
+            .tag("model", EMBEDDING_MODEL_ID)
+            .register(meterRegistry);
+        this.streamEncoder = new ChatStreamEncoder(MODEL_ID, responseRegistry.getResponses());
+    }
+
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("mock.openai.tokens")
+            .description("Tokens billed by the mock chat completions endpoint")
+            .tag("type", type)
+            .tag("model", MODEL_ID)
+            .tag("endpoint", "chat.completions")
+            .register(meterRegistry);
     }
 
     /**
@@ -58,69 +114,61 @@ public class MockOpenAiController {
     public ResponseEntity<?> chatCompletions(@RequestBody ChatCompletionRequest request) {
         logger.info("Mock API: Chat completion request - stream={}", request.stream());
 
+        // Simulated rate limiting and server errors
+        Optional<ResponseEntity<Map<String, Object>>> error = simulator.injectError();
+        if (error.isPresent()) {
+            logger.info("Mock API: Simulated error {}", error.get().getStatusCode());
+            return error.get();
+        }
+
         // Extract the user message
         String userMessage = extractUserMessage(request.messages());
         logger.debug("Mock API: User message: {}", userMessage);
 
-        // Check for tool definitions and tool-related prompts
-        if (request.tools() != null && !request.tools().isEmpty()) {
-            String response = responseRegistry.findResponse(userMessage);
-            if (responseRegistry.isToolCall(userMessage)) {
-                return handleToolCall(request, response);
-            }
+        // Structured output asks for JSON, either in the response format or in format instructions appended to the prompt
+        Map<String, Object> outputSchema = outputSchema(request, userMessage);
+        if (outputSchema != null) {
+            userMessage = withoutFormatInstructions(userMessage);
         }
 
-        // Get the response
-        String responseContent = responseRegistry.findResponse(userMessage);
+        // LLM-as-judge prompts of the evaluators get a verdict rather than a canned reply
+        Optional<String> verdict = judge.verdict(userMessage);
+        if (verdict.isPresent()) {
+            return reply(request, verdict.get());
+        }
+
+        // Classify the prompt once and reuse the result for tool detection and the reply
+        MockResponseRegistry.Match match = responseRegistry.match(userMessage);
 
         // Handle tool call response format
-        if (responseContent.startsWith("TOOL_CALL:")) {
-            responseContent = responseRegistry.getDefaultResponse();
+        String responseContent = match.isToolCall() ? responseRegistry.getDefaultResponse() : match.response();
+
+        // Check for tool definitions and tool-related prompts, or results of earlier tool calls
+        boolean toolsOffered = request.tools() != null && !request.tools().isEmpty();
+        if (toolsOffered || !toolResults(request.messages()).isEmpty()) {
+            return handleToolCall(request, userMessage, responseContent);
         }
 
-        if (request.stream()) {
-            return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_EVENT_STREAM)
-                .body(streamResponse(responseContent));
-        } else {
-            return ResponseEntity.ok(createCompletionResponse(responseContent));
+        if (outputSchema != null) {
+            responseContent = argumentGenerator.generate(outputSchema, userMessage, responseContent);
         }
+        return reply(request, responseContent);
     }
 
     /**
      * Embeddings endpoint - OpenAI compatible.
-     * Returns deterministic embeddings based on text hash.
+     * Returns deterministic embeddings based on text hash, streamed straight to the response body.
      */
     @PostMapping("/embeddings")
-    public Map<String, Object> createEmbeddings(@RequestBody EmbeddingRequest request) {
+    public void createEmbeddings(@RequestBody EmbeddingRequest request, HttpServletResponse response) throws IOException {
         logger.info("Mock API: Embedding request for {} inputs", request.input().size());
+        embeddingBatchSize.record(request.input().size());
 
-        List<Map<String, Object>> data = new ArrayList<>();
-        int index = 0;
-
-        for (String input : request.input()) {
-            float[] embedding = responseRegistry.generateEmbedding(input);
-            List<Float> embeddingList = new ArrayList<>();
-            for (float f : embedding) {
-                embeddingList.add(f);
-            }
-
-            data.add(Map.of(
-                "object", "embedding",
-                "index", index++,
-                "embedding", embeddingList
-            ));
-        }
-
-        return Map.of(
-            "object", "list",
-            "data", data,
-            "model", "mock-text-embedding-ada-002",
-            "usage", Map.of(
-                "prompt_tokens", request.input().stream().mapToInt(String::length).sum() / 4,
-                "total_tokens", request.input().stream().mapToInt(String::length).sum() / 4
-            )
-        );
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        EmbeddingResponseWriter.write(response.getOutputStream(), EMBEDDING_MODEL_ID, request.input(),
+            request.dimensions() != null
+                ? input -> responseRegistry.generateEmbedding(input, request.dimensions())
+                : responseRegistry::generateEmbedding);
     }
 
     private String extractUserMessage(List<Message> messages) {
@@ -137,34 +185,191 @@ public class MockOpenAiController {
         return messages.get(messages.size() - 1).content();
     }
 
-    private ResponseEntity<?> handleToolCall(ChatCompletionRequest request, String response) {
-        String toolName = responseRegistry.getToolName(response);
+    /**
+     * The JSON schema the reply must follow: the one of a {@code json_schema} response format, the one
+     * embedded in the format instructions of a {@code BeanOutputConverter}, or any object for a
+     * {@code json_object} response format. {@code null} for a plain text reply.
+     */
+    private Map<String, Object> outputSchema(ChatCompletionRequest request, String userMessage) {
+        ResponseFormat format = request.responseFormat();
+        if (format != null && format.jsonSchema() != null && format.jsonSchema().schema() != null) {
+            return format.jsonSchema().schema();
+        }
+        Matcher instructions = FORMAT_INSTRUCTIONS.matcher(userMessage);
+        if (instructions.find()) {
+            try {
+                return objectMapper.readValue(instructions.group(1), new TypeReference<>() {});
+            } catch (JsonProcessingException e) {
+                logger.debug("Mock API: Ignoring format instructions with an invalid schema", e);
+            }
+        }
+        if (format != null && "json_object".equals(format.type())) {
+            return Map.of("type", "object", "properties", Map.of("answer", Map.of("type", "string")));
+        }
+        return null;
+    }
+
+    private static String withoutFormatInstructions(String userMessage) {
+        int start = userMessage.indexOf(FORMAT_INSTRUCTIONS_START);
+        return start >= 0 ? userMessage.substring(0, start).strip() : userMessage;
+    }
+
+    /**
+     * Drive the tool-calling loop like a real model: call the tools the prompt asks for that have not
+     * been called since the user's message, and once all results are in, answer with a completion
+     * built from them. Without parallel tool calls this takes one round trip per tool. Every tool the
+     * prompt mentions is called, even if a plain reply matches the prompt first.
+     */
+    private ResponseEntity<?> handleToolCall(ChatCompletionRequest request, String userMessage, String fallback) {
+        List<ToolResult> results = toolResults(request.messages());
+        Set<String> calledTools = new HashSet<>();
+        results.forEach(result -> calledTools.add(result.name()));
+
+        List<ToolCall> toolCalls = new ArrayList<>();
+        for (String toolName : responseRegistry.matchToolCalls(userMessage)) {
+            Map<String, Object> function = findTool(request.tools(), toolName);
+            if (function != null && calledTools.add((String) function.get("name"))) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> parameters = (Map<String, Object>) function.get("parameters");
+                toolCalls.add(new ToolCall("call_mock_" + ChatStreamEncoder.randomHex(), (String) function.get("name"),
+                    argumentGenerator.generate(parameters, userMessage)));
+                if (!request.allowsParallelToolCalls()) {
+                    break;
+                }
+            }
+        }
+
+        if (!toolCalls.isEmpty()) {
+            Usage usage = usage(request, toolCalls);
+            if (request.stream()) {
+                return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(streamToolCalls(toolCalls, request.includeUsage() ? usage : null));
+            }
+            return ResponseEntity.ok(afterGeneration(argumentChunks(toolCalls), () -> createToolCallResponse(toolCalls, usage)));
+        }
+
+        if (!results.isEmpty()) {
+            return reply(request, summarizeToolResults(results));
+        }
+
+        // Fall back to regular response if no offered tool fits the prompt
+        return reply(request, fallback);
+    }
+
+    private ResponseEntity<?> reply(ChatCompletionRequest request, String content) {
+        Usage usage = usage(request, content);
+        if (request.stream()) {
+            return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(streamResponse(content, request.includeUsage() ? usage : null));
+        }
+        return ResponseEntity.ok(afterGeneration(streamEncoder.prepare(content).tokenCount(),
+            () -> createCompletionResponse(content, usage)));
+    }
+
+    private Usage usage(ChatCompletionRequest request, String content) {
+        return recorded(new Usage(promptTokens(request), tokenCounter.count(content)));
+    }
+
+    private Usage usage(ChatCompletionRequest request, List<ToolCall> calls) {
+        int completionTokens = 0;
+        for (ToolCall call : calls) {
+            completionTokens += tokenCounter.count(call.name()) + tokenCounter.count(call.arguments());
+        }
+        return recorded(new Usage(promptTokens(request), completionTokens));
+    }
 
-        // Find the matching tool
-        Map<String, Object> tool = findTool(request.tools(), toolName);
+    private Usage recorded(Usage usage) {
+        promptTokenCounter.increment(usage.promptTokens());
+        completionTokenCounter.increment(usage.completionTokens());
+        return usage;
+    }
 
-        if (tool != null) {
-            return ResponseEntity.ok(createToolCallResponse(toolName, "{}"));
+    /**
+     * Count the prompt like the API bills it: the messages with their framing plus the tool definitions.
+     */
+    private int promptTokens(ChatCompletionRequest request) {
+        int tokens = TokenCounter.REPLY_PRIMING;
+        if (request.messages() != null) {
+            for (Message message : request.messages()) {
+                tokens += TokenCounter.MESSAGE_OVERHEAD + tokenCounter.count(message.role())
+                    + tokenCounter.count(message.content());
+                if (message.toolCalls() != null) {
+                    for (Map<String, Object> toolCall : message.toolCalls()) {
+                        if (toolCall.get("function") instanceof Map<?, ?> function) {
+                            tokens += tokenCounter.count((String) function.get("name"))
+                                + tokenCounter.count((String) function.get("arguments"));
+                        }
+                    }
+                }
+            }
+        }
+        if (request.tools() != null && !request.tools().isEmpty()) {
+            tokens += tokenCounter.countTools(request.tools());
+        }
+        return tokens;
+    }
+
+    /**
+     * Results of the tool calls made since the last user message.
+     */
+    private List<ToolResult> toolResults(List<Message> messages) {
+        if (messages == null) {
+            return List.of();
+        }
+        Map<String, Map<String, Object>> calls = new HashMap<>();
+        List<Message> results = new ArrayList<>();
+        for (int i = messages.size() - 1; i >= 0 && !"user".equals(messages.get(i).role()); i--) {
+            Message message = messages.get(i);
+            if ("tool".equals(message.role())) {
+                results.addFirst(message);
+            } else if (message.toolCalls() != null) {
+                for (Map<String, Object> call : message.toolCalls()) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> function = (Map<String, Object>) call.get("function");
+                    calls.put((String) call.get("id"), function);
+                }
+            }
         }
+        return results.stream()
+            .map(result -> {
+                Map<String, Object> function = calls.getOrDefault(result.toolCallId(), Map.of());
+                String name = (String) function.getOrDefault("name", "tool");
+                String content = result.content() != null && !result.content().isBlank()
+                    ? result.content()
+                    : responseRegistry.getToolResult(name, (String) function.get("arguments"));
+                return new ToolResult(name, content);
+            })
+            .toList();
+    }
 
-        // Fall back to regular response if tool not found
-        return ResponseEntity.ok(createCompletionResponse(responseRegistry.findResponse("")));
+    private static String summarizeToolResults(List<ToolResult> results) {
+        StringBuilder answer = new StringBuilder("Here is what I found:\n");
+        for (ToolResult result : results) {
+            answer.append("\n- **").append(result.name()).append("**: ").append(result.content().strip());
+        }
+        return answer.append("\n\nIs there anything else I can help you with?").toString();
     }
 
+    /**
+     * Find the function of the offered tool implementing the simulated tool.
+     */
     private Map<String, Object> findTool(List<Map<String, Object>> tools, String toolName) {
         if (tools == null) return null;
         for (Map<String, Object> tool : tools) {
             @SuppressWarnings("unchecked")
             Map<String, Object> function = (Map<String, Object>) tool.get("function");
-            if (function != null && toolName.equals(function.get("name"))) {
-                return tool;
+            if (function != null && function.get("name") instanceof String name
+                && MockResponseRegistry.implementsTool(name, toolName)) {
+                return function;
             }
         }
         return null;
     }
 
-    private Map<String, Object> createCompletionResponse(String content) {
-        String completionId = "chatcmpl-mock-" + UUID.randomUUID().toString().substring(0, 8);
+    Map<String, Object> createCompletionResponse(String content, Usage usage) {
+        String completionId = ChatStreamEncoder.newCompletionId();
 
         return Map.of(
             "id", completionId,
@@ -182,16 +387,33 @@ public class MockOpenAiController {
                 )
             ),
             "usage", Map.of(
-                "prompt_tokens", 50,
-                "completion_tokens", content.length() / 4,
-                "total_tokens", 50 + content.length() / 4
+                "prompt_tokens", usage.promptTokens(),
+                "completion_tokens", usage.completionTokens(),
+                "total_tokens", usage.promptTokens() + usage.completionTokens()
             )
         );
     }
 
-    private Map<String, Object> createToolCallResponse(String toolName, String arguments) {
-        String completionId = "chatcmpl-mock-" + UUID.randomUUID().toString().substring(0, 8);
-        String toolCallId = "call_mock_" + UUID.randomUUID().toString().substring(0, 8);
+    private Map<String, Object> createToolCallResponse(List<ToolCall> calls, Usage usage) {
+        String completionId = ChatStreamEncoder.newCompletionId();
+
+        List<Map<String, Object>> toolCalls = new ArrayList<>();
+        for (ToolCall call : calls) {
+            toolCalls.add(Map.of(
+                "id", call.id(),
+                "type", "function",
+                "function", Map.of(
+                    "name", call.name(),
+                    "arguments", call.arguments()
+                )
+            ));
+        }
+
+        // Map.of rejects null values, but the API sends "content": null next to tool calls
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", "assistant");
+        message.put("content", null);
+        message.put("tool_calls", toolCalls);
 
         return Map.of(
             "id", completionId,
@@ -201,61 +423,116 @@ public class MockOpenAiController {
             "choices", List.of(
                 Map.of(
                     "index", 0,
-                    "message", Map.of(
-                        "role", "assistant",
-                        "content", (Object) null,
-                        "tool_calls", List.of(
-                            Map.of(
-                                "id", toolCallId,
-                                "type", "function",
-                                "function", Map.of(
-                                    "name", toolName,
-                                    "arguments", arguments
-                                )
-                            )
-                        )
-                    ),
+                    "message", message,
                     "finish_reason", "tool_calls"
                 )
             ),
             "usage", Map.of(
-                "prompt_tokens", 50,
-                "completion_tokens", 25,
-                "total_tokens", 75
+                "prompt_tokens", usage.promptTokens(),
+                "completion_tokens", usage.completionTokens(),
+                "total_tokens", usage.promptTokens() + usage.completionTokens()
             )
         );
     }
 
-    private Flux<String> streamResponse(String content) {
-        // Split content into chunks for streaming simulation
-        String[] words = content.split("(?<=\\s)");
+    private static int argumentChunks(List<ToolCall> calls) {
+        return calls.stream().mapToInt(call -> argumentFragments(call.arguments()).size()).sum();
+    }
 
-        return Flux.fromArray(words)
-            .delayElements(Duration.ofMillis(50))
-            .map(this::createStreamChunk)
-            .concatWith(Flux.just(createStreamDoneChunk()));
+    /**
+     * Split tool call arguments into the small fragments a model streams them in.
+     */
+    private static List<String> argumentFragments(String arguments) {
+        List<String> fragments = new ArrayList<>();
+        for (int start = 0; start < arguments.length(); start += ARGUMENT_FRAGMENT_LENGTH) {
+            fragments.add(arguments.substring(start, Math.min(arguments.length(), start + ARGUMENT_FRAGMENT_LENGTH)));
+        }
+        return fragments;
     }
 
-    private String createStreamChunk(String content) {
-        String chunkId = "chatcmpl-mock-" + UUID.randomUUID().toString().substring(0, 8);
-        return String.format(
-            "{\"id\":\"%s\",\"object\":\"chat.completion.chunk\",\"created\":%d,\"model\":\"%s\"," +
-            "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"%s\"},\"finish_reason\":null}]}\n\n",
-            chunkId, Instant.now().getEpochSecond(), MODEL_ID, escapeJson(content)
-        );
+    /**
+     * Stream the reply as server-sent events from pre-encoded chunks, like the real API: a role event,
+     * one event per token, a final event with the finish reason, an optional usage event and [DONE].
+     */
+    private ResponseBodyEmitter streamResponse(String content, Usage usage) {
+        ChatStreamEncoder.PreparedReply reply = streamEncoder.prepare(content);
+        ChatStreamEncoder.Stream stream = streamEncoder.open(Instant.now().getEpochSecond());
+
+        Flux<byte[]> tokens = Flux.range(0, reply.tokenCount())
+            .concatMap(index -> delayed(Mono.fromSupplier(() -> stream.content(reply, index)),
+                index == 0 ? Duration.ZERO : simulator.nextTokenDelay()));
+
+        Flux<byte[]> events = delayed(Mono.fromSupplier(stream::role), simulator.firstTokenDelay())
+            .concatWith(tokens)
+            .concatWith(Mono.fromSupplier(stream::stop))
+            .concatWith(usage != null
+                ? Mono.fromSupplier(() -> stream.usage(usage.promptTokens(), usage.completionTokens()))
+                : Mono.empty())
+            .concatWith(Mono.fromSupplier(stream::done));
+
+        return emit(events);
     }
 
-    private String createStreamDoneChunk() {
-        return "[DONE]\n\n";
+    /**
+     * Stream tool calls as deltas, like the real API: a role event, per call an event with its id and
+     * name followed by its arguments in fragments, a final event with the finish reason, an optional
+     * usage event and [DONE].
+     */
+    private ResponseBodyEmitter streamToolCalls(List<ToolCall> calls, Usage usage) {
+        ChatStreamEncoder.Stream stream = streamEncoder.open(Instant.now().getEpochSecond());
+
+        Flux<byte[]> deltas = Flux.range(0, calls.size()).concatMap(index -> {
+            ToolCall call = calls.get(index);
+            return Mono.fromSupplier(() -> stream.toolCallStart(index, call.id(), call.name()))
+                .concatWith(Flux.fromIterable(argumentFragments(call.arguments()))
+                    .concatMap(fragment -> delayed(Mono.fromSupplier(() -> stream.toolCallArguments(index, fragment)),
+                        simulator.nextTokenDelay())));
+        });
+
+        Flux<byte[]> events = delayed(Mono.fromSupplier(stream::role), simulator.firstTokenDelay())
+            .concatWith(deltas)
+            .concatWith(Mono.fromSupplier(stream::toolCallsFinished))
+            .concatWith(usage != null
+                ? Mono.fromSupplier(() -> stream.usage(usage.promptTokens(), usage.completionTokens()))
+                : Mono.empty())
+            .concatWith(Mono.fromSupplier(stream::done));
+
+        return emit(events);
     }
 
-    private String escapeJson(String text) {
-        return text
-            .replace("\\", "\\\\")
-            .replace("\"", "\\\"")
-            .replace("\n", "\\n")
-            .replace("\r", "\\r")
-            .replace("\t", "\\t");
+    private static <T> Mono<T> delayed(Mono<T> mono, Duration delay) {
+        return delay.isZero() ? mono : mono.delaySubscription(delay);
+    }
+
+    /**
+     * Write already framed events to the response body as they are produced.
+     */
+    private static ResponseBodyEmitter emit(Flux<byte[]> events) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(STREAM_NO_TIMEOUT);
+        Disposable subscription = events.subscribe(
+            event -> {
+                try {
+                    emitter.send(event, MediaType.APPLICATION_OCTET_STREAM);
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
+            },
+            emitter::completeWithError,
+            emitter::complete
+        );
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+        return emitter;
+    }
+
+    /**
+     * Complete a blocking response once the simulated generation time has passed.
+     * The delay runs on a timer, so no request thread is held while the reply is "generated".
+     */
+    private Mono<Map<String, Object>> afterGeneration(int tokens, Supplier<Map<String, Object>> response) {
+        Duration generationTime = simulator.generationTime(tokens);
+        Mono<Map<String, Object>> body = Mono.fromSupplier(response);
+        return generationTime.isZero() ? body : body.delaySubscription(generationTime);
     }
 
     // Request/Response DTOs
@@ -264,13 +541,39 @@ public class MockOpenAiController {
         List<Message> messages,
         @JsonProperty("stream") Boolean stream,
         List<Map<String, Object>> tools,
-        @JsonProperty("tool_choice") Object toolChoice
+        @JsonProperty("tool_choice") Object toolChoice,
+        @JsonProperty("stream_options") StreamOptions streamOptions,
+        @JsonProperty("parallel_tool_calls") Boolean parallelToolCalls,
+        @JsonProperty("response_format") ResponseFormat responseFormat
     ) {
         public Boolean stream() {
             return stream != null && stream;
         }
+
+        public boolean allowsParallelToolCalls() {
+            return parallelToolCalls == null || parallelToolCalls;
+        }
+
+        public boolean includeUsage() {
+            return streamOptions != null && Boolean.TRUE.equals(streamOptions.includeUsage());
+        }
     }
 
+    public record StreamOptions(
+        @JsonProperty("include_usage") Boolean includeUsage
+    ) {}
+
+    public record ResponseFormat(
+        String type,
+        @JsonProperty("json_schema") JsonSchema jsonSchema
+    ) {}
+
+    public record JsonSchema(
+        String name,
+        Map<String, Object> schema,
+        Boolean strict
+    ) {}
+
     public record Message(
         String role,
         String content,
@@ -278,8 +581,18 @@ public class MockOpenAiController {
         @JsonProperty("tool_call_id") String toolCallId
     ) {}
 
+    private record ToolCall(String id, String name, String arguments) {}
+
+    private record ToolResult(String name, String content) {}
+
+    /**
+     * Token usage of a completion, counted with the {@code cl100k_base} encoding.
+     */
+    record Usage(int promptTokens, int completionTokens) {}
+
     public record EmbeddingRequest(
         String model,
-        List<String> input
+        List<String> input,
+        Integer dimensions
     ) {}
 }
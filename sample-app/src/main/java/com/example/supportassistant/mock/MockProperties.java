@@ -0,0 +1,95 @@
+package com.example.supportassistant.mock;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the mock OpenAI service.
+ *
+ * @param embedding  settings of the mock embeddings endpoint
+ * @param simulation latency and error injection of the mock chat endpoint
+ * @param estimateUsage whether reported usage is estimated from the text length rather than counted
+ *                      with the {@code cl100k_base} tokenizer, see {@link MockTokenCounter}
+ */
+@ConfigurationProperties("mock")
+public record MockProperties(@DefaultValue Embedding embedding, @DefaultValue Simulation simulation,
+                             @DefaultValue("false") boolean estimateUsage) {
+
+    /**
+     * @param mode      how vectors are generated
+     * @param cacheSize number of recently generated vectors to keep, 0 disables the cache
+     */
+    public record Embedding(@DefaultValue("random") EmbeddingMode mode, @DefaultValue("0") int cacheSize) {}
+
+    public enum EmbeddingMode {
+
+        /**
+         * Pseudo-random unit vectors: every pair of distinct texts is roughly orthogonal.
+         */
+        RANDOM,
+
+        /**
+         * Feature-hashed words and character trigrams: similar texts get similar vectors.
+         */
+        SEMANTIC,
+
+        /**
+         * No built-in engine: the application defines a {@link MockEmbeddingEngine} bean of its own,
+         * which is not cached.
+         */
+        CUSTOM
+    }
+
+    /**
+     * Provider behavior simulated by the chat completions endpoint, for blocking and streaming requests.
+     * When disabled, streams emit a word every 50ms and blocking requests return immediately.
+     *
+     * @param enabled                whether the settings below are applied
+     * @param timeToFirstToken       delay before the first token is produced
+     * @param interTokenDelay        mean delay between two tokens
+     * @param tokensPerSecond        generation speed, overrides {@code interTokenDelay} when positive
+     * @param interTokenDistribution shape of the inter-token delay around its mean
+     * @param jitter                 relative random variation applied to every delay, 0.2 means +/-20%
+     * @param rateLimitErrorRate     share of requests rejected with 429 Too Many Requests
+     * @param retryAfter             value of the {@code Retry-After} header of rate limited responses
+     * @param serverErrorRate        share of requests failing with {@code serverErrorStatus}
+     * @param serverErrorStatus      HTTP status of simulated server errors
+     * @param stallRate              share of requests whose first token is held back by {@code stallDuration},
+     *                               for a latency tail such as a provider's overloaded replicas cause
+     * @param stallDuration          extra delay before the first token of a stalled request
+     */
+    public record Simulation(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0ms") Duration timeToFirstToken,
+        @DefaultValue("50ms") Duration interTokenDelay,
+        @DefaultValue("0") double tokensPerSecond,
+        @DefaultValue("fixed") DelayDistribution interTokenDistribution,
+        @DefaultValue("0") double jitter,
+        @DefaultValue("0") double rateLimitErrorRate,
+        @DefaultValue("1s") Duration retryAfter,
+        @DefaultValue("0") double serverErrorRate,
+        @DefaultValue("503") int serverErrorStatus,
+        @DefaultValue("0") double stallRate,
+        @DefaultValue("0ms") Duration stallDuration
+    ) {}
+
+    public enum DelayDistribution {
+
+        /**
+         * Every delay equals the mean.
+         */
+        FIXED,
+
+        /**
+         * Exponentially distributed delays, many short gaps and occasional long ones.
+         */
+        EXPONENTIAL,
+
+        /**
+         * Log-normally distributed delays with the configured mean, a typical heavy-tailed latency shape.
+         */
+        LOG_NORMAL
+    }
+}
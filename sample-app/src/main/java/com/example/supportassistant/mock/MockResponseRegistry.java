@@ -1,12 +1,14 @@
 package com.example.supportassistant.mock;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Pattern;
+
+import com.example.supportassistant.mock.PromptMatcher.Rule;
 
 /**
  * Registry of predefined responses for the mock OpenAI service.
@@ -16,16 +18,27 @@ import java.util.regex.Pattern;
 @Component
 public class MockResponseRegistry {
 
-    private final List<ResponsePattern> patterns = new ArrayList<>();
+    private static final String TOOL_CALL_PREFIX = "TOOL_CALL:";
 
-    public MockResponseRegistry() {
+    private final List<ResponsePattern> patterns = new ArrayList<>();
+    private final List<Match> matches;
+    private final PromptMatcher matcher;
+    private final MockEmbeddingEngine embeddingEngine;
+    private final int embeddingDimensions;
+
+    public MockResponseRegistry(MockEmbeddingEngine embeddingEngine,
+                                @Value("${spring.ai.openai.embedding.options.dimensions:1536}") int embeddingDimensions) {
+        this.embeddingEngine = embeddingEngine;
+        this.embeddingDimensions = embeddingDimensions;
         initializePatterns();
+        this.matches = patterns.stream().map(pattern -> Match.of(pattern.response())).toList();
+        this.matcher = PromptMatcher.compile(patterns.stream().map(ResponsePattern::rule).toList());
     }
 
     private void initializePatterns() {
         // Tanzu Spring - General
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(what is|about|tell me).*tanzu.*spring.*(enterprise|runtime).*"),
+            Rule.of(anyOf("what is", "about", "tell me"), anyOf("tanzu"), anyOf("spring"), anyOf("enterprise", "runtime")),
             """
             Tanzu Spring is Broadcom's commercial offering that provides enterprise-grade support \
             for Spring applications. It includes:
@@ -42,7 +55,7 @@ public class MockResponseRegistry {
 
         // Support offerings
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(support|help|assistance).*tanzu.*spring.*"),
+            Rule.of(anyOf("support", "help", "assistance"), anyOf("tanzu"), anyOf("spring")),
             """
             Tanzu Spring support includes:
 
@@ -61,7 +74,7 @@ public class MockResponseRegistry {
 
         // Billing questions
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(billing|invoice|payment|cost|price|subscription).*"),
+            Rule.of(anyOf("billing", "invoice", "payment", "cost", "price", "subscription")),
             """
             I understand you have a billing-related question. Here's what I can help with:
 
@@ -76,7 +89,7 @@ public class MockResponseRegistry {
 
         // CVE / Security
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(cve|security|vulnerabilit|patch).*"),
+            Rule.of(anyOf("cve", "security", "vulnerabilit", "patch")),
             """
             Tanzu Spring provides comprehensive CVE (Common Vulnerabilities and Exposures) coverage:
 
@@ -95,7 +108,7 @@ public class MockResponseRegistry {
 
         // Spring Boot versions
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(latest|current|version|release).*spring.*boot.*"),
+            Rule.of(anyOf("latest", "current", "version", "release"), anyOf("spring"), anyOf("boot")),
             """
             Here are the current Spring Boot versions:
 
@@ -114,7 +127,7 @@ public class MockResponseRegistry {
 
         // Technical - Spring Cloud
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*spring.*cloud.*"),
+            Rule.of(anyOf("spring"), anyOf("cloud")),
             """
             Spring Cloud provides tools for building distributed systems and microservices:
 
@@ -131,9 +144,7 @@ public class MockResponseRegistry {
         ));
 
         // Greeting / Who are you
-        patterns.add(new ResponsePattern(
-            Pattern.compile("(?i)^(hi|hello|hey|greetings).*|.*(who are you|introduce yourself).*"),
-            """
+        String greeting = """
             Hello! I'm the Support Assistant, an AI-powered helper for Broadcom Tanzu Spring customers.
 
             I can help you with:
@@ -143,70 +154,122 @@ public class MockResponseRegistry {
             - Support ticket creation and management
             - Subscription and billing inquiries
 
-            How can I assist you today?"""
-        ));
+            How can I assist you today?""";
+        patterns.add(new ResponsePattern(Rule.startingWith(anyOf("hi", "hello", "hey", "greetings")), greeting));
+        patterns.add(new ResponsePattern(Rule.of(anyOf("who are you", "introduce yourself")), greeting));
 
         // Tool calling simulation - Weather (demo)
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(weather|temperature|forecast).*"),
+            Rule.of(anyOf("weather", "temperature", "forecast")),
             "TOOL_CALL:get_weather"
         ));
 
         // Tool calling simulation - Time
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(what time|current time|what's the time|time is it).*"),
+            Rule.of(anyOf("what time", "current time", "what's the time", "time is it")),
             "TOOL_CALL:get_current_time"
         ));
 
         // Tool calling simulation - Create ticket
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(create|open|submit|file).*(ticket|case|issue).*"),
+            Rule.of(anyOf("create", "open", "submit", "file"), anyOf("ticket", "case", "issue")),
             "TOOL_CALL:create_ticket"
         ));
 
         // Tool calling simulation - Search/Latest info
         patterns.add(new ResponsePattern(
-            Pattern.compile("(?i).*(search|look up|find|latest news|recent).*"),
+            Rule.of(anyOf("search", "look up", "find", "latest news", "recent")),
             "TOOL_CALL:web_search"
         ));
     }
 
+    /**
+     * Classify the prompt in a single pass and return the first matching response.
+     * The result carries everything the controller needs: reply text, tool call flag and tool name.
+     */
+    public Match match(String prompt) {
+        int index = matcher.match(prompt);
+        return index == PromptMatcher.NO_MATCH ? Match.of(getDefaultResponse()) : matches.get(index);
+    }
+
+    /**
+     * Names of all tools the prompt asks for, in rule order, so a prompt such as
+     * "what time is it? Please also open a ticket" yields parallel tool calls.
+     */
+    public List<String> matchToolCalls(String prompt) {
+        List<String> toolNames = new ArrayList<>();
+        matcher.matchAll(prompt).stream()
+            .mapToObj(matches::get)
+            .filter(Match::isToolCall)
+            .forEach(match -> toolNames.add(match.toolName()));
+        return toolNames;
+    }
+
+    /**
+     * Whether a tool offered by the client implements one of the simulated tools: every word of the
+     * simulated tool's name occurs in the offered name, so {@code get_current_time} is implemented by
+     * {@code getCurrentDateTime} and {@code create_ticket} by {@code createTicket}.
+     */
+    public static boolean implementsTool(String offeredName, String toolName) {
+        Set<String> offeredWords = new HashSet<>(words(offeredName));
+        return offeredWords.containsAll(words(toolName));
+    }
+
+    private static List<String> words(String name) {
+        return Arrays.stream(name.split("[_\\-\\s]+|(?<=[a-z0-9])(?=[A-Z])"))
+            .filter(word -> !word.isEmpty())
+            .map(word -> word.toLowerCase(Locale.ROOT))
+            .toList();
+    }
+
     /**
      * Find the best matching response for the given prompt.
      */
     public String findResponse(String prompt) {
-        for (ResponsePattern pattern : patterns) {
-            if (pattern.pattern().matcher(prompt).find()) {
-                return pattern.response();
-            }
-        }
-        // Default fallback response
-        return getDefaultResponse();
+        return match(prompt).response();
     }
 
     /**
      * Check if the prompt should trigger a tool call.
      */
     public boolean isToolCall(String prompt) {
-        String response = findResponse(prompt);
-        return response.startsWith("TOOL_CALL:");
+        return match(prompt).isToolCall();
     }
 
     /**
      * Get the tool name for a tool call response.
      */
     public String getToolName(String response) {
-        if (response.startsWith("TOOL_CALL:")) {
-            return response.substring("TOOL_CALL:".length());
+        if (response.startsWith(TOOL_CALL_PREFIX)) {
+            return response.substring(TOOL_CALL_PREFIX.length());
         }
         return null;
     }
 
     /**
-     * Get a simulated tool result.
+     * All plain replies this registry can return, including the default response.
+     */
+    public List<String> getResponses() {
+        List<String> responses = new ArrayList<>();
+        for (Match match : matches) {
+            if (!match.isToolCall()) {
+                responses.add(match.response());
+            }
+        }
+        responses.add(getDefaultResponse());
+        return responses;
+    }
+
+    /**
+     * Get a simulated tool result, used when the client reports a tool call without a result.
      */
     public String getToolResult(String toolName, String arguments) {
-        return switch (toolName) {
+        String simulatedTool = matches.stream()
+            .filter(match -> match.isToolCall() && implementsTool(toolName, match.toolName()))
+            .map(Match::toolName)
+            .findFirst()
+            .orElse(toolName);
+        return switch (simulatedTool) {
             case "get_weather" -> """
                 {"location": "San Francisco", "temperature": "18°C", "condition": "Partly cloudy", "humidity": "65%"}""";
             case "get_current_time" -> String.format(
@@ -239,31 +302,44 @@ public class MockResponseRegistry {
     }
 
     /**
-     * Generate deterministic embedding vector based on text hash.
-     * Uses the text's hash to create a reproducible 1536-dimensional vector.
+     * Generate deterministic embedding vector for the text.
+     * Uses the configured embedding dimensions, 1536 unless set in
+     * {@code spring.ai.openai.embedding.options.dimensions}.
      */
     public float[] generateEmbedding(String text) {
-        float[] embedding = new float[1536];
-        int hash = text.hashCode();
-        Random random = new Random(hash);
+        return generateEmbedding(text, embeddingDimensions);
+    }
 
-        for (int i = 0; i < embedding.length; i++) {
-            embedding[i] = (random.nextFloat() * 2) - 1; // Range: -1 to 1
-        }
+    /**
+     * Generate deterministic embedding vector with the given number of dimensions.
+     */
+    public float[] generateEmbedding(String text, int dimensions) {
+        return embeddingEngine.embed(text, dimensions);
+    }
 
-        // Normalize the vector
-        float magnitude = 0;
-        for (float v : embedding) {
-            magnitude += v * v;
-        }
-        magnitude = (float) Math.sqrt(magnitude);
+    private static List<String> anyOf(String... keywords) {
+        return List.of(keywords);
+    }
+
+    private record ResponsePattern(Rule rule, String response) {}
 
-        for (int i = 0; i < embedding.length; i++) {
-            embedding[i] /= magnitude;
+    /**
+     * Result of classifying a prompt.
+     *
+     * @param response the reply text, or the raw {@code TOOL_CALL:} marker for tool calls
+     * @param toolName the tool to call, or {@code null} for a plain reply
+     */
+    public record Match(String response, String toolName) {
+
+        static Match of(String response) {
+            String toolName = response.startsWith(TOOL_CALL_PREFIX)
+                ? response.substring(TOOL_CALL_PREFIX.length())
+                : null;
+            return new Match(response, toolName);
         }
 
-        return embedding;
+        public boolean isToolCall() {
+            return toolName != null;
+        }
     }
-
-    private record ResponsePattern(Pattern pattern, String response) {}
 }
@@ -0,0 +1,76 @@
+package com.example.supportassistant.mock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the tokens the mock reports as usage.
+ * <p>
+ * Texts are encoded with {@code cl100k_base}, so usage matches what the OpenAI API would bill. With
+ * {@code mock.estimate-usage} a token is estimated as four characters instead, which costs next to
+ * nothing per request, for benchmarks of the mock's own overhead rather than of the token metrics.
+ */
+public class MockTokenCounter {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final Encoding encoding;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public MockTokenCounter(boolean exact) {
+        this.encoding = exact ? Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE) : null;
+    }
+
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding != null ? encoding.countTokensOrdinary(text) : estimate(text.length());
+    }
+
+    /**
+     * Tokens of the tool definitions of a request. Estimates count the characters of their keys and
+     * values in place rather than serializing them.
+     */
+    int countTools(List<Map<String, Object>> tools) {
+        if (encoding == null) {
+            return estimate(characters(tools));
+        }
+        try {
+            return encoding.countTokensOrdinary(objectMapper.writeValueAsString(tools));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int estimate(int characters) {
+        return (characters + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static int characters(Object value) {
+        return switch (value) {
+            case Map<?, ?> map -> {
+                int characters = 0;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    characters += characters(entry.getKey()) + characters(entry.getValue());
+                }
+                yield characters;
+            }
+            case List<?> list -> {
+                int characters = 0;
+                for (Object element : list) {
+                    characters += characters(element);
+                }
+                yield characters;
+            }
+            case null -> 0;
+            default -> String.valueOf(value).length();
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.supportassistant.mock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Compiled prompt classifier for the mock OpenAI service.
+ * <p>
+ * Each rule is an ordered sequence of keyword groups ("what is|about" then "tanzu" then "spring"),
+ * which is what the former {@code (?i).*(a|b).*c.*} regular expressions expressed. All keywords are
+ * compiled once into a single Aho-Corasick automaton, so a prompt is classified in one linear pass
+ * without backtracking. Semantics follow the regular expressions it replaces: keywords are matched
+ * ASCII case-insensitively, groups of one rule must appear in order on the same line, and the rule
+ * with the lowest index wins.
+ */
+final class PromptMatcher {
+
+    static final int NO_MATCH = -1;
+
+    private static final int ALPHABET = 128;
+
+    private final int[][] transitions;
+    private final int[][] outputs;
+    private final int[] keywordLengths;
+    private final int[][] keywordSteps;
+    private final int[] stepCounts;
+    private final boolean[] anchored;
+
+    private PromptMatcher(int[][] transitions, int[][] outputs, int[] keywordLengths,
+                          int[][] keywordSteps, int[] stepCounts, boolean[] anchored) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.keywordLengths = keywordLengths;
+        this.keywordSteps = keywordSteps;
+        this.stepCounts = stepCounts;
+        this.anchored = anchored;
+    }
+
+    /**
+     * Compile the given rules, in priority order, into a matcher.
+     */
+    static PromptMatcher compile(List<Rule> rules) {
+        Map<String, Integer> keywordIds = new HashMap<>();
+        List<String> keywords = new ArrayList<>();
+        List<List<int[]>> steps = new ArrayList<>();
+
+        int[] stepCounts = new int[rules.size()];
+        boolean[] anchored = new boolean[rules.size()];
+        for (int rule = 0; rule < rules.size(); rule++) {
+            List<List<String>> groups = rules.get(rule).groups();
+            stepCounts[rule] = groups.size();
+            anchored[rule] = rules.get(rule).anchored();
+            for (int step = 0; step < groups.size(); step++) {
+                for (String keyword : groups.get(step)) {
+                    String normalized = toLowerAscii(keyword);
+                    Integer id = keywordIds.get(normalized);
+                    if (id == null) {
+                        id = keywords.size();
+                        keywordIds.put(normalized, id);
+                        keywords.add(normalized);
+                        steps.add(new ArrayList<>());
+                    }
+                    steps.get(id).add(new int[] {rule, step});
+                }
+            }
+        }
+
+        // Build the keyword trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> terminals = new ArrayList<>();
+        trie.add(newState());
+        terminals.add(new ArrayList<>());
+        for (int id = 0; id < keywords.size(); id++) {
+            int state = 0;
+            for (char c : keywords.get(id).toCharArray()) {
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Only ASCII keywords are supported: " + keywords.get(id));
+                }
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    terminals.add(new ArrayList<>());
+                }
+                state = trie.get(state)[c];
+            }
+            terminals.get(state).add(id);
+        }
+
+        // Resolve failure links breadth-first into a complete transition table
+        int[][] transitions = trie.toArray(new int[0][]);
+        int[] failure = new int[transitions.length];
+        int[][] outputs = new int[transitions.length][];
+        outputs[0] = toArray(terminals.get(0));
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (transitions[0][c] < 0) {
+                transitions[0][c] = 0;
+            } else {
+                queue.add(transitions[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> output = new ArrayList<>(terminals.get(state));
+            for (int id : outputs[failure[state]]) {
+                output.add(id);
+            }
+            outputs[state] = toArray(output);
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        int[] keywordLengths = keywords.stream().mapToInt(String::length).toArray();
+        int[][] keywordSteps = new int[keywords.size()][];
+        for (int id = 0; id < keywords.size(); id++) {
+            keywordSteps[id] = steps.get(id).stream().flatMapToInt(Arrays::stream).toArray();
+        }
+        return new PromptMatcher(transitions, outputs, keywordLengths, keywordSteps, stepCounts, anchored);
+    }
+
+    /**
+     * Return the index of the first rule matching the prompt, or {@link #NO_MATCH}.
+     */
+    int match(CharSequence prompt) {
+        return scan(prompt, null);
+    }
+
+    /**
+     * Return the indexes of all rules matching the prompt, in rule order.
+     */
+    BitSet matchAll(CharSequence prompt) {
+        BitSet matched = new BitSet(stepCounts.length);
+        scan(prompt, matched);
+        return matched;
+    }
+
+    /**
+     * Run the automaton over the prompt. Without {@code matched} the scan stops at the first rule
+     * that cannot be beaten and returns it; otherwise every matching rule is recorded in {@code matched}.
+     */
+    private int scan(CharSequence prompt, BitSet matched) {
+        int ruleCount = stepCounts.length;
+        int[] progress = new int[ruleCount];
+        int[] nextStart = new int[ruleCount];
+        int best = NO_MATCH;
+        int state = 0;
+
+        for (int i = 0, length = prompt.length(); i < length && (matched != null || best != 0); i++) {
+            char c = prompt.charAt(i);
+            if (isLineTerminator(c)) {
+                // '.' does not cross line terminators, so partial progress is lost
+                for (int rule = 0; rule < ruleCount; rule++) {
+                    if (progress[rule] < stepCounts[rule]) {
+                        progress[rule] = 0;
+                    }
+                }
+                state = 0;
+                continue;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            for (int id : outputs[state]) {
+                int start = i - keywordLengths[id] + 1;
+                int[] ruleSteps = keywordSteps[id];
+                for (int k = 0; k < ruleSteps.length; k += 2) {
+                    int rule = ruleSteps[k];
+                    int step = ruleSteps[k + 1];
+                    if (progress[rule] != step || (matched == null && best != NO_MATCH && rule >= best)) {
+                        continue;
+                    }
+                    if (step == 0 ? anchored[rule] && start != 0 : start < nextStart[rule]) {
+                        continue;
+                    }
+                    progress[rule] = step + 1;
+                    nextStart[rule] = i + 1;
+                    if (progress[rule] == stepCounts[rule]) {
+                        if (matched != null) {
+                            matched.set(rule);
+                        }
+                        best = best == NO_MATCH ? rule : Math.min(best, rule);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static String toLowerAscii(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * An ordered sequence of keyword groups. Each group matches if any of its keywords occurs
+     * after the previous group. An anchored rule must match its first group at the start of the prompt.
+     */
+    record Rule(boolean anchored, List<List<String>> groups) {
+
+        @SafeVarargs
+        static Rule of(List<String>... groups) {
+            return new Rule(false, List.of(groups));
+        }
+
+        @SafeVarargs
+        static Rule startingWith(List<String>... groups) {
+            return new Rule(true, List.of(groups));
+        }
+    }
+}
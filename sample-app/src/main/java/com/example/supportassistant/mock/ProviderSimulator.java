@@ -0,0 +1,116 @@
+package com.example.supportassistant.mock;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulates the latency and failure behavior of a real model provider for the mock OpenAI service.
+ * Configured through {@code mock.simulation.*}, see {@link MockProperties.Simulation}.
+ */
+@Profile("mock")
+@Component
+public class ProviderSimulator {
+
+    private static final Duration DEFAULT_TOKEN_DELAY = Duration.ofMillis(50);
+    private static final double LOG_NORMAL_SIGMA = 0.5;
+
+    private final MockProperties.Simulation simulation;
+    private final long meanTokenDelayNanos;
+
+    public ProviderSimulator(MockProperties properties) {
+        this.simulation = properties.simulation();
+        this.meanTokenDelayNanos = simulation.tokensPerSecond() > 0
+            ? (long) (1_000_000_000L / simulation.tokensPerSecond())
+            : simulation.interTokenDelay().toNanos();
+    }
+
+    /**
+     * Return a simulated rate limit or server error response for this request, if one should be injected.
+     */
+    public Optional<ResponseEntity<Map<String, Object>>> injectError() {
+        if (!simulation.enabled()) {
+            return Optional.empty();
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < simulation.rateLimitErrorRate()) {
+            long retryAfterSeconds = Math.max(1, (simulation.retryAfter().toMillis() + 999) / 1000);
+            return Optional.of(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .header("retry-after-ms", String.valueOf(simulation.retryAfter().toMillis()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error("Rate limit reached (simulated)", "requests", "rate_limit_exceeded")));
+        }
+        if (roll < simulation.rateLimitErrorRate() + simulation.serverErrorRate()) {
+            return Optional.of(ResponseEntity.status(simulation.serverErrorStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(error("The server had an error while processing your request (simulated)",
+                    "server_error", "server_error")));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Delay before the first streamed token.
+     */
+    public Duration firstTokenDelay() {
+        if (!simulation.enabled()) {
+            return DEFAULT_TOKEN_DELAY;
+        }
+        Duration delay = jittered(simulation.timeToFirstToken().toNanos());
+        return ThreadLocalRandom.current().nextDouble() < simulation.stallRate()
+            ? delay.plus(simulation.stallDuration())
+            : delay;
+    }
+
+    /**
+     * Delay before each subsequent streamed token.
+     */
+    public Duration nextTokenDelay() {
+        return simulation.enabled() ? jittered(sampleTokenDelayNanos()) : DEFAULT_TOKEN_DELAY;
+    }
+
+    /**
+     * Total time a blocking request takes to generate the given number of tokens.
+     */
+    public Duration generationTime(int tokens) {
+        if (!simulation.enabled()) {
+            return Duration.ZERO;
+        }
+        Duration total = firstTokenDelay();
+        for (int i = 1; i < tokens; i++) {
+            total = total.plus(nextTokenDelay());
+        }
+        return total;
+    }
+
+    private long sampleTokenDelayNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (simulation.interTokenDistribution()) {
+            case FIXED -> meanTokenDelayNanos;
+            case EXPONENTIAL -> (long) (-meanTokenDelayNanos * Math.log(1 - random.nextDouble()));
+            case LOG_NORMAL -> (long) (meanTokenDelayNanos
+                * Math.exp(LOG_NORMAL_SIGMA * random.nextGaussian() - LOG_NORMAL_SIGMA * LOG_NORMAL_SIGMA / 2));
+        };
+    }
+
+    private Duration jittered(long nanos) {
+        if (simulation.jitter() > 0) {
+            double factor = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * simulation.jitter();
+            nanos = (long) (nanos * Math.max(0, factor));
+        }
+        return Duration.ofNanos(nanos);
+    }
+
+    private static Map<String, Object> error(String message, String type, String code) {
+        return Map.of("error", Map.of("message", message, "type", type, "code", code));
+    }
+}
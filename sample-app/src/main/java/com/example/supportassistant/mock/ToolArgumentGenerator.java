@@ -0,0 +1,158 @@
+package com.example.supportassistant.mock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates plausible tool call arguments from the JSON schema of a tool's parameters.
+ * <p>
+ * Values are derived from the schema and the user's prompt, so they are deterministic: enums take
+ * the value mentioned in the prompt or their first value, strings take the first example given in
+ * their description ("e.g., 'Europe/London'"), one of the constants it lists or the prompt itself,
+ * numbers take their minimum. The same values make up the JSON replies to structured output
+ * requests, whose free text fields take the reply instead of the prompt.
+ */
+final class ToolArgumentGenerator {
+
+    private static final Pattern EXAMPLE = Pattern.compile("e\\.g\\.,?\\s*['\"]([^'\"]+)['\"]");
+    private static final Pattern CONSTANT = Pattern.compile("\\b[A-Z][A-Z_]{2,}\\b");
+    private static final int MAX_TEXT_LENGTH = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Return the arguments as a JSON object for the given {@code parameters} schema, which may be
+     * {@code null} for tools without parameters.
+     */
+    String generate(Map<String, Object> parameters, String prompt) {
+        String text = prompt.strip();
+        Object arguments = parameters != null
+            ? value("arguments", parameters, prompt, text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text)
+            : Map.of();
+        return json(arguments instanceof Map ? arguments : Map.of());
+    }
+
+    /**
+     * Return a JSON value for the given response {@code schema}, with {@code text} in its free text fields.
+     */
+    String generate(Map<String, Object> schema, String prompt, String text) {
+        return json(value("response", schema, prompt, text));
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object value(String name, Map<String, Object> schema, String prompt, String text) {
+        if (schema.get("enum") instanceof List<?> values && !values.isEmpty()) {
+            return enumValue(values, prompt);
+        }
+        Object type = schema.get("type");
+        if (type instanceof List<?> types) {
+            // nullable types are written as ["string", "null"]
+            type = types.stream()
+                .filter(candidate -> !"null".equals(candidate))
+                .findFirst()
+                .map(Object::toString)
+                .orElse("null");
+        }
+        return switch (String.valueOf(type)) {
+            case "object" -> {
+                Map<String, Object> object = new LinkedHashMap<>();
+                if (schema.get("properties") instanceof Map<?, ?> properties) {
+                    properties.forEach((property, propertySchema) -> object.put((String) property,
+                        value((String) property, (Map<String, Object>) propertySchema, prompt, text)));
+                }
+                yield object;
+            }
+            case "array" -> schema.get("items") instanceof Map<?, ?> items
+                ? List.of(value(name, (Map<String, Object>) items, prompt, text))
+                : List.of();
+            case "integer" -> schema.get("minimum") instanceof Number minimum ? minimum.longValue() : 1;
+            case "number" -> schema.get("minimum") instanceof Number minimum ? minimum.doubleValue() : 1.0;
+            case "boolean" -> true;
+            case "null" -> null;
+            default -> stringValue(name, schema, prompt, text);
+        };
+    }
+
+    private static Object enumValue(List<?> values, String prompt) {
+        for (Object value : values) {
+            if (value instanceof String text && mentions(prompt, text)) {
+                return value;
+            }
+        }
+        return values.getFirst();
+    }
+
+    /**
+     * Whether the prompt contains the word, ignoring case, between word boundaries.
+     */
+    private static boolean mentions(String prompt, String word) {
+        if (word.isEmpty()) {
+            return false;
+        }
+        for (int start = 0; start + word.length() <= prompt.length(); start++) {
+            if (prompt.regionMatches(true, start, word, 0, word.length())
+                && isBoundary(prompt, start - 1, word.charAt(0))
+                && isBoundary(prompt, start + word.length(), word.charAt(word.length() - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the character at {@code index}, next to {@code inside}, ends a word like {@code \b} does.
+     */
+    private static boolean isBoundary(String text, int index, char inside) {
+        boolean outsideIsWord = index >= 0 && index < text.length() && isWordChar(text.charAt(index));
+        return outsideIsWord != isWordChar(inside);
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static String stringValue(String name, Map<String, Object> schema, String prompt, String text) {
+        if (schema.get("description") instanceof String description) {
+            Matcher example = EXAMPLE.matcher(description);
+            if (example.find()) {
+                return example.group(1);
+            }
+            // descriptions such as "Priority: LOW, MEDIUM, HIGH, or CRITICAL" stand in for an enum
+            List<String> constants = CONSTANT.matcher(description).results().map(MatchResult::group).toList();
+            if (constants.size() > 1) {
+                return (String) enumValue(constants, prompt);
+            }
+        }
+        String format = schema.get("format") instanceof String value ? value : "";
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        if (format.equals("date-time") || lowerName.endsWith("datetime")) {
+            return "2025-01-01T09:00:00Z";
+        }
+        if (format.equals("date") || lowerName.endsWith("date")) {
+            return "2025-01-01";
+        }
+        if (format.equals("email") || lowerName.contains("email")) {
+            return "user@example.com";
+        }
+        if (lowerName.contains("timezone") || lowerName.equals("zone")) {
+            return "UTC";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.supportassistant.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records what drives the cost and latency of {@code ChatClient} calls, as the outermost advisor so
+ * the measurements include all other advisors.
+ * <p>
+ * Records {@code assistant.ai.tokens} tagged with {@code type} (prompt, completion), {@code model}
+ * and {@code mode} (call, stream), and for streams the {@code assistant.ai.stream.first-token}
+ * and {@code assistant.ai.stream.inter-token} histograms tagged with {@code model}. Meters are
+ * created once per model and reused, so recording allocates nothing but the per-stream timing state.
+ * Streams only report token usage when the model is asked for it, for OpenAI with
+ * {@code spring.ai.openai.chat.options.stream-usage=true}; a stream that fails or is cancelled
+ * records the usage reported until then.
+ */
+public class AiMetricsAdvisor implements CallAdvisor, StreamAdvisor {
+
+    public static final int DEFAULT_ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ModelMeters> callMeters = new ConcurrentHashMap<>();
+    private final Map<String, ModelMeters> streamMeters = new ConcurrentHashMap<>();
+
+    public AiMetricsAdvisor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        ChatClientResponse response = chain.nextCall(request);
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse != null) {
+            meters(callMeters, "call", chatResponse.getMetadata()).recordUsage(chatResponse.getMetadata().getUsage());
+        }
+        return response;
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> {
+            StreamTiming timing = new StreamTiming(System.nanoTime());
+            // unlike doFinally, these run before the subscriber sees the stream end
+            return chain.nextStream(request)
+                .doOnNext(timing::onChunk)
+                .doOnTerminate(timing::onEnd)
+                .doOnCancel(timing::onEnd);
+        });
+    }
+
+    @Override
+    public String getName() {
+        return AiMetricsAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    private ModelMeters meters(Map<String, ModelMeters> meters, String mode, ChatResponseMetadata metadata) {
+        String model = metadata != null && StringUtils.hasText(metadata.getModel()) ? metadata.getModel() : UNKNOWN_MODEL;
+        ModelMeters existing = meters.get(model);
+        return existing != null ? existing : meters.computeIfAbsent(model, name -> new ModelMeters(name, mode));
+    }
+
+    /**
+     * Timing of one stream. Chunks of a stream are delivered one after another, so no synchronization
+     * is needed.
+     */
+    private final class StreamTiming {
+
+        private final long start;
+        private long last;
+        private ModelMeters meters;
+        private Usage usage;
+
+        StreamTiming(long start) {
+            this.start = start;
+        }
+
+        void onChunk(ChatClientResponse response) {
+            ChatResponse chatResponse = response.chatResponse();
+            if (chatResponse == null) {
+                return;
+            }
+            if (meters == null) {
+                meters = meters(streamMeters, "stream", chatResponse.getMetadata());
+            }
+            // the usage may be repeated on several chunks, so only the last one is recorded
+            Usage chunkUsage = chatResponse.getMetadata().getUsage();
+            if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                usage = chunkUsage;
+            }
+            if (chatResponse.getResult() == null) {
+                return;
+            }
+            String text = chatResponse.getResult().getOutput().getText();
+            if (text == null || text.isEmpty()) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (last == 0) {
+                meters.firstToken.record(now - start, TimeUnit.NANOSECONDS);
+            } else {
+                meters.interToken.record(now - last, TimeUnit.NANOSECONDS);
+            }
+            last = now;
+        }
+
+        /**
+         * Records the usage when the stream completes, fails or is cancelled, since the tokens
+         * reported until then are billed all the same.
+         */
+        void onEnd() {
+            if (meters != null) {
+                meters.recordUsage(usage);
+            }
+        }
+    }
+
+    private final class ModelMeters {
+
+        private final Counter promptTokens;
+        private final Counter completionTokens;
+        private final Timer firstToken;
+        private final Timer interToken;
+
+        ModelMeters(String model, String mode) {
+            this.promptTokens = tokens("prompt", model, mode);
+            this.completionTokens = tokens("completion", model, mode);
+            this.firstToken = Timer.builder("assistant.ai.stream.first-token")
+                .description("Time from sending a streaming request until the first content token arrives")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            this.interToken = Timer.builder("assistant.ai.stream.inter-token")
+                .description("Time between consecutive content tokens of a stream")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+
+        private Counter tokens(String type, String model, String mode) {
+            return Counter.builder("assistant.ai.tokens")
+                .description("Tokens billed by the chat model")
+                .tag("type", type)
+                .tag("model", model)
+                .tag("mode", mode)
+                .register(meterRegistry);
+        }
+
+        void recordUsage(Usage usage) {
+            if (usage == null) {
+                return;
+            }
+            if (usage.getPromptTokens() != null) {
+                promptTokens.increment(usage.getPromptTokens());
+            }
+            if (usage.getCompletionTokens() != null) {
+                completionTokens.increment(usage.getCompletionTokens());
+            }
+        }
+    }
+}
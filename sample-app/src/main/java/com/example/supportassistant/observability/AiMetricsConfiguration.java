@@ -0,0 +1,32 @@
+package com.example.supportassistant.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the AI metrics: the {@link AiMetricsAdvisor} on the {@code ChatClient.Builder} used by the
+ * application's {@code chatClient} bean and the {@link AiObservationMetricsHandler}, which Spring Boot
+ * adds to the observation registry. Enabled with {@code support-assistant.ai-metrics.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.ai-metrics", name = "enabled", havingValue = "true")
+public class AiMetricsConfiguration {
+
+    @Bean
+    public AiMetricsAdvisor aiMetricsAdvisor(MeterRegistry meterRegistry) {
+        return new AiMetricsAdvisor(meterRegistry);
+    }
+
+    @Bean
+    public ChatClientCustomizer aiMetricsChatClientCustomizer(AiMetricsAdvisor aiMetricsAdvisor) {
+        return builder -> builder.defaultAdvisors(aiMetricsAdvisor);
+    }
+
+    @Bean
+    public AiObservationMetricsHandler aiObservationMetricsHandler(MeterRegistry meterRegistry) {
+        return new AiObservationMetricsHandler(meterRegistry);
+    }
+}
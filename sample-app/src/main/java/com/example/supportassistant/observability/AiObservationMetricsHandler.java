@@ -0,0 +1,152 @@
+package com.example.supportassistant.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.ai.chat.client.advisor.observation.AdvisorObservationContext;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.embedding.observation.EmbeddingModelObservationContext;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns the observations Spring AI already makes of advisors, embedding models and vector stores
+ * into low-cardinality meters.
+ * <p>
+ * Records:
+ * <ul>
+ *     <li>{@code assistant.ai.advisor}: time spent in each advisor, tagged with {@code advisor}.
+ *     Advisors are nested, so the time of the next advisor in the chain is subtracted and only the
+ *     advisor's own time remains; the innermost advisor's time is the model call.</li>
+ *     <li>{@code assistant.ai.embedding.batch.size}: texts per embedding request, tagged with {@code model}.</li>
+ *     <li>{@code assistant.vector.search} and {@code assistant.vector.search.top-k}: latency and
+ *     requested top-k of similarity searches, tagged with {@code store}.</li>
+ * </ul>
+ * Timers publish histograms, which carry trace exemplars when tracing is active.
+ */
+public class AiObservationMetricsHandler implements ObservationHandler<Observation.Context> {
+
+    private static final String QUERY_OPERATION = "query";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> advisorTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> embeddingBatchSizes = new ConcurrentHashMap<>();
+    private final Map<String, SearchMeters> searchMeters = new ConcurrentHashMap<>();
+
+    public AiObservationMetricsHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof AdvisorObservationContext
+            || context instanceof EmbeddingModelObservationContext
+            || (context instanceof VectorStoreObservationContext vectorStore
+                && QUERY_OPERATION.equals(vectorStore.getOperationName()));
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(Timing.class, new Timing(System.nanoTime()));
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Timing timing = context.get(Timing.class);
+        if (timing == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - timing.start;
+        switch (context) {
+            case AdvisorObservationContext advisor -> {
+                if (advisor.getParentObservation() != null
+                    && advisor.getParentObservation().getContextView() instanceof AdvisorObservationContext parent
+                    && parent.get(Timing.class) instanceof Timing parentTiming) {
+                    parentTiming.nestedNanos += elapsed;
+                }
+                timer(advisor.getAdvisorName()).record(Math.max(0, elapsed - timing.nestedNanos), TimeUnit.NANOSECONDS);
+            }
+            case EmbeddingModelObservationContext embedding ->
+                batchSize(embeddingModel(embedding)).record(embedding.getRequest().getInstructions().size());
+            case VectorStoreObservationContext vectorStore -> {
+                SearchMeters meters = searchMeters(StringUtils.hasText(vectorStore.getDatabaseSystem()) ? vectorStore.getDatabaseSystem() : "unknown");
+                meters.latency.record(elapsed, TimeUnit.NANOSECONDS);
+                if (vectorStore.getQueryRequest() != null) {
+                    meters.topK.record(vectorStore.getQueryRequest().getTopK());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static String embeddingModel(EmbeddingModelObservationContext context) {
+        EmbeddingResponse response = context.getResponse();
+        if (response != null && StringUtils.hasText(response.getMetadata().getModel())) {
+            return response.getMetadata().getModel();
+        }
+        EmbeddingOptions options = context.getRequest().getOptions();
+        return options != null && StringUtils.hasText(options.getModel()) ? options.getModel() : "unknown";
+    }
+
+    private Timer timer(String advisor) {
+        Timer timer = advisorTimers.get(advisor);
+        return timer != null ? timer : advisorTimers.computeIfAbsent(advisor, name -> Timer.builder("assistant.ai.advisor")
+            .description("Time spent in an advisor, excluding the advisors after it in the chain")
+            .tag("advisor", name)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    private DistributionSummary batchSize(String model) {
+        DistributionSummary summary = embeddingBatchSizes.get(model);
+        return summary != null ? summary : embeddingBatchSizes.computeIfAbsent(model,
+            name -> DistributionSummary.builder("assistant.ai.embedding.batch.size")
+                .description("Texts per embedding request")
+                .tag("model", name)
+                .register(meterRegistry));
+    }
+
+    private SearchMeters searchMeters(String store) {
+        SearchMeters meters = searchMeters.get(store);
+        return meters != null ? meters : searchMeters.computeIfAbsent(store, SearchMeters::new);
+    }
+
+    /**
+     * Start of an observation and the time spent in observations nested in it.
+     */
+    private static final class Timing {
+
+        private final long start;
+        private long nestedNanos;
+
+        Timing(long start) {
+            this.start = start;
+        }
+    }
+
+    private final class SearchMeters {
+
+        private final Timer latency;
+        private final DistributionSummary topK;
+
+        SearchMeters(String store) {
+            this.latency = Timer.builder("assistant.vector.search")
+                .description("Latency of vector store similarity searches")
+                .tag("store", store)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+            this.topK = DistributionSummary.builder("assistant.vector.search.top-k")
+                .description("Documents requested per similarity search")
+                .tag("store", store)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.supportassistant.prompt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.document.Document;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fits the prompt into a token budget after chat memory and RAG advisors have assembled it.
+ * <p>
+ * The system prompt and the question are always kept. The documents a {@code QuestionAnswerAdvisor}
+ * stuffed into the question are re-selected with maximal marginal relevance: each step picks the
+ * document with the best balance of retrieval score and dissimilarity to the documents already
+ * picked, skipping near-duplicates such as overlapping chunks and documents that no longer fit the
+ * context budget. Retrieving more documents than needed, for example {@code topK(12)}, lets the
+ * packer choose. Chat history fills the remaining budget, newest first.
+ * <p>
+ * The outcome is put into the request context as a {@link Report} under {@link #REPORT}.
+ */
+public class ContextPackingAdvisor implements CallAdvisor, StreamAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextPackingAdvisor.class);
+
+    /**
+     * Runs after chat memory and RAG advisors, but before the response cache so cached answers are
+     * keyed on the packed prompt.
+     */
+    public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 2000;
+
+    /**
+     * Context key of the {@link Report}.
+     */
+    public static final String REPORT = "context_packing_report";
+
+    /**
+     * Context keys under which {@code QuestionAnswerAdvisor} and {@code RetrievalAugmentationAdvisor}
+     * publish the documents they retrieved.
+     */
+    private static final List<String> RETRIEVED_DOCUMENTS = List.of("qa_retrieved_documents", "rag_document_context");
+
+    private static final int SHINGLE_SIZE = 3;
+
+    private final ContextPackingProperties properties;
+    private final TokenCounter tokenCounter;
+
+    public ContextPackingAdvisor(ContextPackingProperties properties, TokenCounter tokenCounter) {
+        this.properties = properties;
+        this.tokenCounter = tokenCounter;
+    }
+
+    @Override
+    public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+        return chain.nextCall(pack(request));
+    }
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> chain.nextStream(pack(request)));
+    }
+
+    @Override
+    public String getName() {
+        return ContextPackingAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    private ChatClientRequest pack(ChatClientRequest request) {
+        List<Message> messages = request.prompt().getInstructions();
+        int question = lastUserMessage(messages);
+        if (question < 0) {
+            return request;
+        }
+
+        UserMessage user = (UserMessage) messages.get(question);
+        String userText = user.getText();
+        Map<String, Object> context = new LinkedHashMap<>(request.context());
+
+        // Re-select the documents stuffed into the question, if they can be found there
+        int retrieved = 0;
+        int duplicates = 0;
+        List<Document> packed = null;
+        String documentsKey = null;
+        List<Document> documents = List.of();
+        for (String key : RETRIEVED_DOCUMENTS) {
+            if (request.context().get(key) instanceof List<?> list && !list.isEmpty() && list.getFirst() instanceof Document) {
+                documentsKey = key;
+                documents = list.stream().map(Document.class::cast).toList();
+                break;
+            }
+        }
+        String stuffed = join(documents);
+        int stuffedAt = stuffed.isEmpty() ? -1 : userText.indexOf(stuffed);
+        if (stuffedAt >= 0) {
+            String questionOnly = userText.substring(0, stuffedAt) + userText.substring(stuffedAt + stuffed.length());
+            int fixed = tokenCounter.count(mandatory(messages, question, questionOnly));
+            int budget = Math.min(properties.maxContextTokens(), properties.maxPromptTokens() - fixed);
+            Selection selection = select(documents, budget);
+            packed = selection.documents();
+            retrieved = documents.size();
+            duplicates = selection.duplicates();
+            userText = userText.substring(0, stuffedAt) + join(packed) + userText.substring(stuffedAt + stuffed.length());
+            context.put(documentsKey, packed);
+        }
+
+        // Keep system messages and the question, then fill the rest with the newest history
+        UserMessage packedUser = user.mutate().text(userText).build();
+        List<Message> mandatory = mandatory(messages, question, userText);
+        int remaining = properties.maxPromptTokens() - tokenCounter.count(mandatory);
+        BitSet kept = new BitSet(question);
+        boolean full = false;
+        for (int i = question - 1; i >= 0; i--) {
+            Message message = messages.get(i);
+            if (message.getMessageType() == MessageType.SYSTEM) {
+                kept.set(i);
+            } else if (!full) {
+                int tokens = tokenCounter.count(message);
+                full = tokens > remaining;
+                if (!full) {
+                    remaining -= tokens;
+                    kept.set(i);
+                }
+            }
+        }
+        // a tool result without the assistant message requesting it is rejected by the API
+        for (int i = 0; i < question; i++) {
+            if (kept.get(i) && messages.get(i).getMessageType() == MessageType.TOOL
+                && (i == 0 || !kept.get(i - 1) || messages.get(i - 1).getMessageType() == MessageType.SYSTEM)) {
+                kept.clear(i);
+            }
+        }
+
+        List<Message> packedMessages = new ArrayList<>(messages.size());
+        int droppedHistory = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            if (i == question) {
+                packedMessages.add(packedUser);
+            } else if (i > question || kept.get(i)) {
+                packedMessages.add(messages.get(i));
+            } else {
+                droppedHistory++;
+            }
+        }
+
+        Report report = new Report(tokenCounter.count(messages), tokenCounter.count(packedMessages),
+            retrieved, packed != null ? packed.size() : 0, duplicates, droppedHistory);
+        context.put(REPORT, report);
+        log.debug("Packed prompt: {}", report);
+
+        return request.mutate()
+            .prompt(request.prompt().mutate().messages(packedMessages).build())
+            .context(context)
+            .build();
+    }
+
+    private static int lastUserMessage(List<Message> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The messages that are never dropped: system messages, the question with the given text and
+     * anything after it.
+     */
+    private static List<Message> mandatory(List<Message> messages, int question, String questionText) {
+        List<Message> mandatory = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (i == question) {
+                mandatory.add(new UserMessage(questionText));
+            } else if (i > question || messages.get(i).getMessageType() == MessageType.SYSTEM) {
+                mandatory.add(messages.get(i));
+            }
+        }
+        return mandatory;
+    }
+
+    /**
+     * Documents are joined like {@code QuestionAnswerAdvisor} joins them, so they can be found and
+     * replaced in the question.
+     */
+    private static String join(List<Document> documents) {
+        return documents.stream().map(Document::getText).collect(Collectors.joining(System.lineSeparator()));
+    }
+
+    private Selection select(List<Document> documents, int budget) {
+        int count = documents.size();
+        double[] relevance = new double[count];
+        List<Set<Long>> shingles = new ArrayList<>(count);
+        int[] tokens = new int[count];
+        for (int i = 0; i < count; i++) {
+            Double score = documents.get(i).getScore();
+            // without scores, the retrieval order stands in for relevance
+            relevance[i] = score != null ? score : 1.0 - (double) i / count;
+            shingles.add(shingles(documents.get(i).getText()));
+            tokens[i] = tokenCounter.count(documents.get(i).getText()) + 1;
+        }
+
+        double lambda = properties.mmrLambda();
+        double[] maxSimilarity = new double[count];
+        BitSet open = new BitSet(count);
+        open.set(0, count);
+        List<Document> selected = new ArrayList<>();
+        int duplicates = 0;
+        int remaining = budget;
+        while (!open.isEmpty()) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+                double score = lambda * relevance[i] - (1 - lambda) * maxSimilarity[i];
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            open.clear(best);
+            if (maxSimilarity[best] >= properties.duplicateSimilarity()) {
+                duplicates++;
+                continue;
+            }
+            if (tokens[best] > remaining) {
+                continue;
+            }
+            remaining -= tokens[best];
+            selected.add(documents.get(best));
+            for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+                maxSimilarity[i] = Math.max(maxSimilarity[i], overlap(shingles.get(i), shingles.get(best)));
+            }
+        }
+        return new Selection(selected, duplicates);
+    }
+
+    /**
+     * Hashes of the overlapping word triples of the text, which overlapping chunks share.
+     */
+    private static Set<Long> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("\\W+");
+        Set<Long> shingles = new HashSet<>();
+        for (int i = 0; i + SHINGLE_SIZE <= words.length; i++) {
+            long hash = 1;
+            for (int j = i; j < i + SHINGLE_SIZE; j++) {
+                hash = 31 * hash + words[j].hashCode();
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    /**
+     * Share of the smaller set contained in the other, so a chunk repeated inside a larger one is
+     * as similar to it as an exact copy.
+     */
+    private static double overlap(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<Long> smaller = a.size() <= b.size() ? a : b;
+        Set<Long> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (Long shingle : smaller) {
+            if (larger.contains(shingle)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / smaller.size();
+    }
+
+    private record Selection(List<Document> documents, int duplicates) {}
+
+    /**
+     * Outcome of packing one prompt.
+     *
+     * @param tokensBefore       prompt tokens as assembled by the preceding advisors
+     * @param tokensAfter        prompt tokens sent to the model
+     * @param documentsRetrieved documents stuffed into the question by the RAG advisor
+     * @param documentsPacked    documents kept
+     * @param duplicatesDropped  documents dropped as near-duplicates of kept ones
+     * @param historyDropped     history messages dropped
+     */
+    public record Report(int tokensBefore, int tokensAfter, int documentsRetrieved, int documentsPacked,
+                         int duplicatesDropped, int historyDropped) {}
+}
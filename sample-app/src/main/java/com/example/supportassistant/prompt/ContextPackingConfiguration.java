@@ -0,0 +1,27 @@
+package com.example.supportassistant.prompt;
+
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds the {@link ContextPackingAdvisor} to the {@code ChatClient.Builder} used by the application's
+ * {@code chatClient} bean. Enabled with {@code support-assistant.context-packing.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.context-packing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ContextPackingProperties.class)
+public class ContextPackingConfiguration {
+
+    @Bean
+    public ContextPackingAdvisor contextPackingAdvisor(ContextPackingProperties properties, TokenCounter tokenCounter) {
+        return new ContextPackingAdvisor(properties, tokenCounter);
+    }
+
+    @Bean
+    public ChatClientCustomizer contextPackingChatClientCustomizer(ContextPackingAdvisor contextPackingAdvisor) {
+        return builder -> builder.defaultAdvisors(contextPackingAdvisor);
+    }
+}
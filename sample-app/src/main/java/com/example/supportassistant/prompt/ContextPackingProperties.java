@@ -0,0 +1,23 @@
+package com.example.supportassistant.prompt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the context packing advisor.
+ *
+ * @param enabled             whether {@link ContextPackingAdvisor} is added to the {@code ChatClient}
+ * @param maxPromptTokens     tokens the whole prompt may take: system prompt, history, question and context
+ * @param maxContextTokens    tokens the retrieved documents may take within the prompt
+ * @param mmrLambda           trade-off of maximal marginal relevance between relevance (1) and diversity (0)
+ * @param duplicateSimilarity share of a document's word triples found in a selected document above which it
+ *                            counts as a duplicate
+ */
+@ConfigurationProperties("support-assistant.context-packing")
+public record ContextPackingProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("4000") int maxPromptTokens,
+    @DefaultValue("2000") int maxContextTokens,
+    @DefaultValue("0.7") double mmrLambda,
+    @DefaultValue("0.8") double duplicateSimilarity
+) {}
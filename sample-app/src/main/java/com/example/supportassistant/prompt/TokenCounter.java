@@ -0,0 +1,66 @@
+package com.example.supportassistant.prompt;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Counts tokens offline with the {@code cl100k_base} encoding of the GPT-4 family.
+ * <p>
+ * Chat messages are counted like the OpenAI API bills them: every message costs a few tokens of
+ * framing on top of its role and content, and every reply is primed with a few more. Special tokens
+ * in the text are counted as ordinary text rather than rejected.
+ */
+@Component
+public class TokenCounter {
+
+    /**
+     * Tokens framing each message of a chat completion request.
+     */
+    public static final int MESSAGE_OVERHEAD = 3;
+
+    /**
+     * Tokens priming the assistant's reply in every chat completion request.
+     */
+    public static final int REPLY_PRIMING = 3;
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Tokens of one message including its framing, tool calls and tool results.
+     */
+    public int count(Message message) {
+        int tokens = MESSAGE_OVERHEAD + count(message.getMessageType().getValue()) + count(message.getText());
+        if (message instanceof AssistantMessage assistant && assistant.hasToolCalls()) {
+            for (AssistantMessage.ToolCall toolCall : assistant.getToolCalls()) {
+                tokens += count(toolCall.name()) + count(toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage toolResponse) {
+            for (ToolResponseMessage.ToolResponse response : toolResponse.getResponses()) {
+                tokens += MESSAGE_OVERHEAD + count(response.responseData());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokens of a chat completion request with the given messages.
+     */
+    public int count(List<? extends Message> messages) {
+        int tokens = REPLY_PRIMING;
+        for (Message message : messages) {
+            tokens += count(message);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.supportassistant.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the latency of the requests it admits, in the style of the
+ * gradient and AIMD limits of Netflix's concurrency-limits.
+ * <p>
+ * Each latency sample updates a short-term (the last few requests) and a long-term average. While the
+ * short-term latency stays within {@code rttTolerance} of the long-term one, the limit grows by about
+ * its square root per sample, so it probes for more capacity; when queueing at the provider pushes the
+ * short-term latency up, the gradient between the two shrinks the limit proportionally. Requests that
+ * fail with an overload error, such as a 429 or a 503, cut the limit multiplicatively. The limit only
+ * grows while it is actually used, so an idle endpoint does not accumulate an unfounded limit.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final ClientResilienceProperties.Limit properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    AdaptiveConcurrencyLimit(ClientResilienceProperties.Limit properties) {
+        this.properties = properties;
+        this.limit = properties.initialLimit();
+    }
+
+    /**
+     * Admit a request if fewer than the limit are in flight; it must be {@link #release() released}.
+     */
+    boolean tryAcquire() {
+        int limit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Update the limit with the latency of a completed request, or cut it if the request was dropped
+     * because the endpoint is overloaded.
+     */
+    synchronized void onSample(long rttNanos, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(properties.minLimit(), limit * properties.backoffRatio());
+            return;
+        }
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) / LONG_WINDOW;
+        // after a lasting latency increase the long-term average catches up faster, so the limit recovers
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlight.get() < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, properties.rttTolerance() * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(properties.minLimit(), Math.min(properties.maxLimit(),
+            limit * (1 - properties.smoothing()) + estimate * properties.smoothing()));
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
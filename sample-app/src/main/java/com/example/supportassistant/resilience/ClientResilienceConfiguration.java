@@ -0,0 +1,49 @@
+package com.example.supportassistant.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes the chat completion requests of the OpenAI client through the {@link EndpointRouter}: the
+ * {@code RestClient} used for blocking calls gets a {@link RoutingRequestInterceptor}, the
+ * {@code WebClient} used for streaming a {@link RoutingExchangeFilter}. Both builders are the
+ * auto-configured ones the OpenAI auto-configuration picks up.
+ * Enabled with {@code support-assistant.client-resilience.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.client-resilience", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ClientResilienceProperties.class)
+public class ClientResilienceConfiguration {
+
+    @Bean
+    public EndpointRouter endpointRouter(ClientResilienceProperties properties, MeterRegistry meterRegistry,
+                                         @Value("${spring.ai.openai.base-url:https://api.openai.com}") String baseUrl) {
+        return new EndpointRouter(baseUrl, properties, meterRegistry);
+    }
+
+    @Bean
+    public RestClientCustomizer endpointRoutingRestClientCustomizer(EndpointRouter endpointRouter,
+                                                                    ObjectProvider<ClientHttpRequestFactoryBuilder<?>> requestFactoryBuilder,
+                                                                    ObjectProvider<ClientHttpRequestFactorySettings> requestFactorySettings) {
+        // routed requests are sent with a request factory of their own, built like the auto-configured one
+        RoutingRequestInterceptor interceptor = new RoutingRequestInterceptor(endpointRouter,
+            requestFactoryBuilder.getIfAvailable(ClientHttpRequestFactoryBuilder::detect)
+                .build(requestFactorySettings.getIfAvailable(ClientHttpRequestFactorySettings::defaults)));
+        return builder -> builder.requestInterceptor(interceptor);
+    }
+
+    @Bean
+    public WebClientCustomizer endpointRoutingWebClientCustomizer(EndpointRouter endpointRouter) {
+        RoutingExchangeFilter filter = new RoutingExchangeFilter(endpointRouter);
+        return builder -> builder.filter(filter);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.supportassistant.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of the chat model client's concurrency limiting, hedging and endpoint routing.
+ *
+ * @param enabled   whether chat completion requests go through the {@link EndpointRouter}
+ * @param endpoints OpenAI-compatible endpoints to route to, {@code spring.ai.openai.base-url} alone if empty
+ * @param limit     adaptive concurrency limit of each endpoint
+ * @param hedging   second requests sent when the first one is slow
+ * @param ejection  removal of failing endpoints from the rotation
+ */
+@ConfigurationProperties("support-assistant.client-resilience")
+public record ClientResilienceProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue List<Endpoint> endpoints,
+    @DefaultValue Limit limit,
+    @DefaultValue Hedging hedging,
+    @DefaultValue Ejection ejection
+) {
+
+    /**
+     * @param name    name of the endpoint in metrics
+     * @param baseUrl base URL, replacing {@code spring.ai.openai.base-url} in requests routed here
+     * @param weight  share of requests routed here, relative to the other endpoints
+     * @param apiKey  API key of the endpoint, {@code spring.ai.openai.api-key} if unset
+     */
+    public record Endpoint(
+        String name,
+        URI baseUrl,
+        @DefaultValue("1") int weight,
+        String apiKey
+    ) {}
+
+    /**
+     * @param initialLimit  requests in flight allowed before any latency was measured
+     * @param minLimit      lower bound of the limit
+     * @param maxLimit      upper bound of the limit
+     * @param rttTolerance  ratio of the recent to the long-term latency tolerated before the limit shrinks
+     * @param smoothing     weight of a new limit estimate against the current limit
+     * @param backoffRatio  factor the limit is multiplied by when a request fails with an overload error
+     */
+    public record Limit(
+        @DefaultValue("20") int initialLimit,
+        @DefaultValue("2") int minLimit,
+        @DefaultValue("200") int maxLimit,
+        @DefaultValue("1.5") double rttTolerance,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("0.9") double backoffRatio
+    ) {}
+
+    /**
+     * @param enabled    whether a second request is sent to another endpoint when the first one is slow
+     * @param percentile latency percentile of the first request's endpoint after which the second is sent
+     * @param minDelay   lower bound of the hedging delay
+     * @param minSamples latencies an endpoint must have measured in a window before its requests are hedged
+     * @param window     how long latencies are collected before the hedging delay is recomputed
+     * @param budget     hedged requests allowed per request, so hedging cannot multiply an overload
+     */
+    public record Hedging(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("95") double percentile,
+        @DefaultValue("50ms") Duration minDelay,
+        @DefaultValue("20") int minSamples,
+        @DefaultValue("10s") Duration window,
+        @DefaultValue("0.1") double budget
+    ) {}
+
+    /**
+     * @param consecutiveFailures failed requests in a row after which an endpoint is ejected
+     * @param baseTime            time of the first ejection, multiplied by the number of ejections in a row
+     * @param maxTime             upper bound of the ejection time
+     * @param maxPercent          share of the endpoints that may be ejected at once
+     */
+    public record Ejection(
+        @DefaultValue("5") int consecutiveFailures,
+        @DefaultValue("30s") Duration baseTime,
+        @DefaultValue("5m") Duration maxTime,
+        @DefaultValue("50") int maxPercent
+    ) {}
+}
@@ -0,0 +1,12 @@
+package com.example.supportassistant.resilience;
+
+/**
+ * Thrown when a chat model request is rejected because no endpoint has room under its concurrency limit.
+ * It is not retried, since a retry would add to the overload the limit protects against.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.supportassistant.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Routes chat completion requests across OpenAI-compatible endpoints.
+ * <p>
+ * A request goes to one of the endpoints that are not ejected and have room under their concurrency
+ * limit, picked at random by weight. An endpoint failing {@code ejection.consecutive-failures} requests
+ * in a row is ejected for a time growing with each ejection in a row, unless that would eject more
+ * than {@code ejection.max-percent} of the endpoints. Requests that no endpoint has room for are
+ * rejected at once rather than queued, so request threads do not pile up behind a slow provider.
+ * <p>
+ * Hedged requests are paid for from a budget that every request adds {@code hedging.budget} to, so at
+ * most that share of the requests is sent twice, however slow the endpoints get.
+ */
+public class EndpointRouter {
+
+    static final String METRIC_REJECTED = "assistant.client.rejected";
+    static final String METRIC_HEDGES = "assistant.client.hedges";
+
+    private static final double MAX_HEDGE_BUDGET = 10;
+
+    private final String sourceBaseUrl;
+    private final List<ModelEndpoint> endpoints;
+    private final ClientResilienceProperties properties;
+    private final Counter rejected;
+    private final Counter hedgesWon;
+    private final Counter hedgesLost;
+    private double hedgeBudget;
+
+    public EndpointRouter(String sourceBaseUrl, ClientResilienceProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.sourceBaseUrl = stripTrailingSlash(sourceBaseUrl);
+        this.properties = properties;
+        List<ModelEndpoint> endpoints = new ArrayList<>();
+        if (properties.endpoints().isEmpty()) {
+            endpoints.add(new ModelEndpoint("default", URI.create(this.sourceBaseUrl), 1, null, properties,
+                meterRegistry));
+        }
+        for (ClientResilienceProperties.Endpoint endpoint : properties.endpoints()) {
+            endpoints.add(new ModelEndpoint(endpoint.name(), URI.create(stripTrailingSlash(endpoint.baseUrl().toString())),
+                endpoint.weight(), endpoint.apiKey(), properties, meterRegistry));
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.rejected = Counter.builder(METRIC_REJECTED)
+            .description("Chat model requests rejected because no endpoint had room under its concurrency limit")
+            .register(meterRegistry);
+        this.hedgesWon = hedges(meterRegistry, "won");
+        this.hedgesLost = hedges(meterRegistry, "lost");
+    }
+
+    private static Counter hedges(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRIC_HEDGES)
+            .description("Hedged chat model requests, by whether their response was used")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether the request is a chat completion request to the configured OpenAI base URL. Other
+     * requests, such as embedding requests, pass unchanged, since the vector store needs the embeddings
+     * of a single model.
+     */
+    boolean handles(URI uri) {
+        String url = uri.toString();
+        return url.startsWith(sourceBaseUrl) && uri.getPath() != null && uri.getPath().endsWith("/chat/completions");
+    }
+
+    /**
+     * The URI of the request when sent to the given endpoint.
+     */
+    URI route(URI uri, ModelEndpoint endpoint) {
+        return URI.create(endpoint.baseUrl() + uri.toString().substring(sourceBaseUrl.length()));
+    }
+
+    /**
+     * Admit a request to an endpoint other than {@code excluded}.
+     *
+     * @return the lease of the endpoint, or {@code null} if none has room
+     */
+    Lease acquire(ModelEndpoint.Mode mode, ModelEndpoint excluded) {
+        long now = System.nanoTime();
+        List<ModelEndpoint> candidates = new ArrayList<>(endpoints.size());
+        for (ModelEndpoint endpoint : endpoints) {
+            if (endpoint != excluded && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        while (!candidates.isEmpty()) {
+            ModelEndpoint endpoint = pickByWeight(candidates);
+            if (endpoint.tryAcquire()) {
+                return new Lease(endpoint, mode, now);
+            }
+            candidates.remove(endpoint);
+        }
+        return null;
+    }
+
+    /**
+     * Admit a request, or count it as rejected.
+     */
+    Lease acquireOrReject(ModelEndpoint.Mode mode) {
+        synchronized (this) {
+            hedgeBudget = Math.min(MAX_HEDGE_BUDGET, hedgeBudget + properties.hedging().budget());
+        }
+        Lease lease = acquire(mode, null);
+        if (lease == null) {
+            rejected.increment();
+            throw new ConcurrencyLimitExceededException(
+                "No chat model endpoint has room for another request, " + endpoints.size() + " endpoints at their limit or ejected");
+        }
+        return lease;
+    }
+
+    /**
+     * Admit a hedged request for the given one, if hedging is enabled, the budget allows it and
+     * another endpoint has room.
+     */
+    Lease acquireHedge(Lease primary) {
+        if (!properties.hedging().enabled() || endpoints.size() < 2) {
+            return null;
+        }
+        synchronized (this) {
+            if (hedgeBudget < 1) {
+                return null;
+            }
+            hedgeBudget--;
+        }
+        return acquire(primary.mode(), primary.endpoint());
+    }
+
+    /**
+     * Time after which the request is hedged, or {@code null} if it is not.
+     */
+    Duration hedgeDelay(Lease lease) {
+        return properties.hedging().enabled() && endpoints.size() > 1 ? lease.endpoint().hedgeDelay(lease.mode()) : null;
+    }
+
+    void onHedgeResult(boolean won) {
+        (won ? hedgesWon : hedgesLost).increment();
+    }
+
+    private boolean mayEject() {
+        long now = System.nanoTime();
+        long ejected = endpoints.stream().filter(endpoint -> endpoint.isEjected(now)).count();
+        return (ejected + 1) * 100 <= (long) properties.ejection().maxPercent() * endpoints.size();
+    }
+
+    private static ModelEndpoint pickByWeight(List<ModelEndpoint> candidates) {
+        int total = candidates.stream().mapToInt(ModelEndpoint::weight).sum();
+        int pick = ThreadLocalRandom.current().nextInt(Math.max(1, total));
+        for (ModelEndpoint endpoint : candidates) {
+            pick -= endpoint.weight();
+            if (pick < 0) {
+                return endpoint;
+            }
+        }
+        return candidates.getLast();
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * A request admitted to an endpoint. Its response is reported once it starts, and the lease is
+     * released once the response is fully read, so a streamed response holds its slot while it streams.
+     */
+    final class Lease {
+
+        private final ModelEndpoint endpoint;
+        private final ModelEndpoint.Mode mode;
+        private final long startNanos;
+        private boolean responded;
+        private boolean released;
+
+        private Lease(ModelEndpoint endpoint, ModelEndpoint.Mode mode, long startNanos) {
+            this.endpoint = endpoint;
+            this.mode = mode;
+            this.startNanos = startNanos;
+        }
+
+        ModelEndpoint endpoint() {
+            return endpoint;
+        }
+
+        ModelEndpoint.Mode mode() {
+            return mode;
+        }
+
+        /**
+         * Report how the request ended or its response started; later reports are ignored.
+         */
+        synchronized void onResponse(ModelEndpoint.Outcome outcome) {
+            if (responded) {
+                return;
+            }
+            responded = true;
+            endpoint.onResponse(mode, System.nanoTime() - startNanos, outcome, outcome != ModelEndpoint.Outcome.SUCCESS && mayEject());
+        }
+
+        /**
+         * Give the slot back. A request released before its response was reported was cancelled: the
+         * time it ran is recorded as a censored latency.
+         */
+        synchronized void release() {
+            if (!released) {
+                released = true;
+                if (!responded) {
+                    responded = true;
+                    endpoint.onCancelled(mode, System.nanoTime() - startNanos);
+                }
+                endpoint.release();
+            }
+        }
+    }
+}
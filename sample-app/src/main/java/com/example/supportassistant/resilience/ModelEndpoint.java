@@ -0,0 +1,216 @@
+package com.example.supportassistant.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An OpenAI-compatible endpoint the chat model client routes to, with its concurrency limit, its
+ * recent latencies and its ejection state.
+ */
+final class ModelEndpoint {
+
+    static final String METRIC_LATENCY = "assistant.client.endpoint.latency";
+    static final String METRIC_LIMIT = "assistant.client.endpoint.limit";
+    static final String METRIC_IN_FLIGHT = "assistant.client.endpoint.in.flight";
+    static final String METRIC_EJECTED = "assistant.client.endpoint.ejected";
+    static final String METRIC_EJECTIONS = "assistant.client.endpoint.ejections";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    /**
+     * Whether the response is awaited as a whole or streamed; their latencies are tracked apart, since
+     * a streamed response starts long before a whole one is complete.
+     */
+    enum Mode {
+        CALL, STREAM;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * How a request to the endpoint ended. Failures count towards ejection; overloads also cut the
+     * concurrency limit.
+     */
+    enum Outcome {
+        SUCCESS, FAILURE, OVERLOAD
+    }
+
+    private final String name;
+    private final URI baseUrl;
+    private final int weight;
+    private final String apiKey;
+    private final AdaptiveConcurrencyLimit limit;
+    private final ClientResilienceProperties properties;
+    private final Map<Mode, LatencyWindow> latencies = new EnumMap<>(Mode.class);
+    private final Map<Mode, Map<Outcome, Timer>> timers = new EnumMap<>(Mode.class);
+    private final Counter ejections;
+    private int consecutiveFailures;
+    private int ejectionsInRow;
+    private volatile long ejectedUntil;
+
+    ModelEndpoint(String name, URI baseUrl, int weight, String apiKey, ClientResilienceProperties properties,
+                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.weight = weight;
+        this.apiKey = apiKey;
+        this.properties = properties;
+        this.limit = new AdaptiveConcurrencyLimit(properties.limit());
+        for (Mode mode : Mode.values()) {
+            latencies.put(mode, new LatencyWindow());
+            Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder(METRIC_LATENCY)
+                    .description("Latency of chat model requests until the response starts, by endpoint")
+                    .tag("endpoint", name)
+                    .tag("mode", mode.tag())
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            }
+            timers.put(mode, byOutcome);
+        }
+        Gauge.builder(METRIC_LIMIT, limit, AdaptiveConcurrencyLimit::limit)
+            .description("Adaptive concurrency limit of the endpoint")
+            .tag("endpoint", name)
+            .register(meterRegistry);
+        Gauge.builder(METRIC_IN_FLIGHT, limit, AdaptiveConcurrencyLimit::inFlight)
+            .description("Requests in flight to the endpoint")
+            .tag("endpoint", name)
+            .register(meterRegistry);
+        Gauge.builder(METRIC_EJECTED, this, endpoint -> endpoint.isEjected(System.nanoTime()) ? 1 : 0)
+            .description("Whether the endpoint is ejected from the rotation")
+            .tag("endpoint", name)
+            .register(meterRegistry);
+        this.ejections = Counter.builder(METRIC_EJECTIONS)
+            .description("Times the endpoint was ejected after consecutive failures")
+            .tag("endpoint", name)
+            .register(meterRegistry);
+    }
+
+    String name() {
+        return name;
+    }
+
+    URI baseUrl() {
+        return baseUrl;
+    }
+
+    int weight() {
+        return weight;
+    }
+
+    /**
+     * API key replacing the client's, or {@code null} to keep the client's.
+     */
+    String apiKey() {
+        return apiKey;
+    }
+
+    boolean tryAcquire() {
+        return limit.tryAcquire();
+    }
+
+    void release() {
+        limit.release();
+    }
+
+    boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    /**
+     * Record the latency until the response of a request started, or until it failed.
+     *
+     * @return whether this request got the endpoint ejected
+     */
+    boolean onResponse(Mode mode, long latencyNanos, Outcome outcome, boolean mayEject) {
+        timers.get(mode).get(outcome).record(latencyNanos, TimeUnit.NANOSECONDS);
+        limit.onSample(latencyNanos, outcome == Outcome.OVERLOAD);
+        if (outcome == Outcome.SUCCESS) {
+            latencies.get(mode).record(latencyNanos);
+        }
+        synchronized (this) {
+            if (outcome == Outcome.SUCCESS) {
+                consecutiveFailures = 0;
+                ejectionsInRow = 0;
+                return false;
+            }
+            if (++consecutiveFailures < properties.ejection().consecutiveFailures() || !mayEject) {
+                return false;
+            }
+            consecutiveFailures = 0;
+            ejectionsInRow++;
+            long ejectionNanos = Math.min(properties.ejection().maxTime().toNanos(),
+                properties.ejection().baseTime().toNanos() * ejectionsInRow);
+            ejectedUntil = System.nanoTime() + ejectionNanos;
+        }
+        ejections.increment();
+        return true;
+    }
+
+    /**
+     * Record a request cancelled before its response started, typically the losing attempt of a
+     * hedge. Its latency is at least the time it ran, which is recorded as a censored sample, so the
+     * slow requests that got hedged still count towards the hedging delay.
+     */
+    void onCancelled(Mode mode, long elapsedNanos) {
+        latencies.get(mode).record(elapsedNanos);
+    }
+
+    /**
+     * Time after which a request in the given mode is hedged: the configured percentile of the
+     * latencies of the last window, or {@code null} while too few were measured.
+     */
+    Duration hedgeDelay(Mode mode) {
+        long nanos = latencies.get(mode).percentile(System.nanoTime());
+        return nanos > 0 ? Duration.ofNanos(Math.max(nanos, properties.hedging().minDelay().toNanos())) : null;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + baseUrl + ")";
+    }
+
+    /**
+     * Latencies of successful requests, and the time cancelled ones ran as a lower bound of theirs,
+     * collected in windows of {@code hedging.window}. The percentile of a window is used during the
+     * next one, so a change in latency shows within two windows.
+     */
+    private final class LatencyWindow {
+
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+        private Histogram interval;
+        private long windowEnd = System.nanoTime() + properties.hedging().window().toNanos();
+        private long percentileNanos;
+
+        void record(long nanos) {
+            recorder.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        }
+
+        synchronized long percentile(long now) {
+            if (now - windowEnd >= 0) {
+                interval = recorder.getIntervalHistogram(interval);
+                if (interval.getTotalCount() >= properties.hedging().minSamples()) {
+                    percentileNanos = TimeUnit.MICROSECONDS.toNanos(
+                        interval.getValueAtPercentile(properties.hedging().percentile()));
+                }
+                windowEnd = now + properties.hedging().window().toNanos();
+            }
+            return percentileNanos;
+        }
+    }
+}
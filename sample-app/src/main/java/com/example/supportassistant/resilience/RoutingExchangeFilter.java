@@ -0,0 +1,225 @@
+package com.example.supportassistant.resilience;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+
+/**
+ * Sends the streamed chat completion requests of the {@code WebClient} through the {@link EndpointRouter}.
+ * <p>
+ * The request is routed to the endpoint the router picks and holds its slot until the streamed body
+ * ends. If the response did not start within the endpoint's hedging delay, the same request is sent
+ * to another endpoint, and the first successful response wins; the other request is cancelled, or its
+ * body released if it completed meanwhile. If the first request fails before a hedge was sent, it is
+ * sent to another endpoint once, since the chat model does not retry streamed requests. If both fail,
+ * the first request's failure is returned.
+ */
+class RoutingExchangeFilter implements ExchangeFilterFunction {
+
+    private final EndpointRouter router;
+
+    RoutingExchangeFilter(EndpointRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!router.handles(request.url())) {
+            return next.exchange(request);
+        }
+        return Mono.create(sink -> new Race(sink, request, next).start());
+    }
+
+    private Mono<ClientResponse> exchange(EndpointRouter.Lease lease, ClientRequest request, ExchangeFunction next) {
+        ClientRequest.Builder routed = ClientRequest.from(request).url(router.route(request.url(), lease.endpoint()));
+        if (lease.endpoint().apiKey() != null) {
+            routed.headers(headers -> headers.setBearerAuth(lease.endpoint().apiKey()));
+        }
+        return next.exchange(routed.build())
+            .map(response -> {
+                lease.onResponse(RoutingRequestInterceptor.outcome(response.statusCode()));
+                return response.mutate()
+                    .body(body -> body.doFinally(signal -> lease.release()))
+                    .build();
+            })
+            .doOnError(error -> {
+                lease.onResponse(ModelEndpoint.Outcome.FAILURE);
+                lease.release();
+            })
+            .doOnCancel(lease::release);
+    }
+
+    /**
+     * The requests sent for one streamed request, and which of them is used.
+     */
+    private final class Race {
+
+        private final MonoSink<ClientResponse> sink;
+        private final ClientRequest request;
+        private final ExchangeFunction next;
+        private EndpointRouter.Lease primaryLease;
+        private Disposable primary;
+        private Disposable hedge;
+        private boolean failover;
+        private Disposable hedgeTimer;
+        private ClientResponse primaryFailure;
+        private Throwable primaryError;
+        private int running;
+        private boolean done;
+
+        Race(MonoSink<ClientResponse> sink, ClientRequest request, ExchangeFunction next) {
+            this.sink = sink;
+            this.request = request;
+            this.next = next;
+        }
+
+        void start() {
+            try {
+                primaryLease = router.acquireOrReject(ModelEndpoint.Mode.STREAM);
+            } catch (ConcurrencyLimitExceededException e) {
+                sink.error(e);
+                return;
+            }
+            sink.onCancel(this::cancel);
+            synchronized (this) {
+                running = 1;
+                primary = send(primaryLease, false);
+                Duration hedgeDelay = router.hedgeDelay(primaryLease);
+                if (hedgeDelay != null && !done) {
+                    hedgeTimer = Mono.delay(hedgeDelay).subscribe(tick -> sendHedge());
+                }
+            }
+        }
+
+        private Disposable send(EndpointRouter.Lease lease, boolean hedged) {
+            return exchange(lease, request, next).subscribe(
+                response -> onResponse(response, hedged),
+                error -> onError(error, hedged));
+        }
+
+        private synchronized void sendHedge() {
+            if (done || hedge != null) {
+                return;
+            }
+            EndpointRouter.Lease lease = router.acquireHedge(primaryLease);
+            if (lease != null) {
+                running++;
+                hedge = send(lease, true);
+            }
+        }
+
+        private void onResponse(ClientResponse response, boolean hedged) {
+            boolean success = RoutingRequestInterceptor.outcome(response.statusCode()) == ModelEndpoint.Outcome.SUCCESS;
+            ClientResponse discarded = null;
+            synchronized (this) {
+                running--;
+                if (done) {
+                    discarded = response;
+                } else if (success) {
+                    finish();
+                    if (hedge != null && !failover) {
+                        router.onHedgeResult(hedged);
+                    }
+                    dispose(hedged ? primary : hedge);
+                    discarded = primaryFailure;
+                    sink.success(response);
+                } else if (!hedged) {
+                    if (running > 0 || failOver()) {
+                        primaryFailure = response;
+                    } else {
+                        finish();
+                        sink.success(response);
+                    }
+                } else {
+                    discarded = response;
+                    if (running == 0) {
+                        failWithPrimary();
+                    }
+                }
+            }
+            release(discarded);
+        }
+
+        private synchronized void onError(Throwable error, boolean hedged) {
+            running--;
+            if (done) {
+                return;
+            }
+            if (!hedged) {
+                primaryError = error;
+            }
+            if (running == 0 && (hedged || !failOver())) {
+                failWithPrimary();
+            }
+        }
+
+        /**
+         * The first request failed before a hedge was sent: send it to another endpoint instead.
+         *
+         * @return whether another endpoint had room for it
+         */
+        private boolean failOver() {
+            if (hedge != null) {
+                return false;
+            }
+            EndpointRouter.Lease lease = router.acquire(ModelEndpoint.Mode.STREAM, primaryLease.endpoint());
+            if (lease == null) {
+                return false;
+            }
+            dispose(hedgeTimer);
+            failover = true;
+            running++;
+            hedge = send(lease, true);
+            return true;
+        }
+
+        /**
+         * Both requests failed: return the failure of the first one.
+         */
+        private void failWithPrimary() {
+            finish();
+            if (primaryFailure != null) {
+                sink.success(primaryFailure);
+            } else {
+                sink.error(primaryError);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            dispose(hedgeTimer);
+        }
+
+        private void cancel() {
+            ClientResponse discarded;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                finish();
+                dispose(primary);
+                dispose(hedge);
+                discarded = primaryFailure;
+            }
+            release(discarded);
+        }
+
+        private static void dispose(Disposable disposable) {
+            if (disposable != null) {
+                disposable.dispose();
+            }
+        }
+
+        private static void release(ClientResponse response) {
+            if (response != null) {
+                response.releaseBody().subscribe();
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.supportassistant.resilience;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the blocking chat completion requests of the {@code RestClient} through the {@link EndpointRouter}.
+ * <p>
+ * The request is sent to the endpoint the router picks, with a request factory of its own, on a
+ * virtual thread. If no response arrived after the endpoint's hedging delay, the same request is sent
+ * to another endpoint, and the first successful response wins; the other request is cancelled, which
+ * aborts it, or closed if it completed meanwhile. If the first request fails before a hedge was sent,
+ * it is sent to another endpoint once. If both fail, the first request's failure is returned.
+ */
+class RoutingRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final EndpointRouter router;
+    private final ClientHttpRequestFactory requestFactory;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    RoutingRequestInterceptor(EndpointRouter router, ClientHttpRequestFactory requestFactory) {
+        this.router = router;
+        this.requestFactory = requestFactory;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!router.handles(request.getURI())) {
+            return execution.execute(request, body);
+        }
+        BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+        Attempt primary = new Attempt(router.acquireOrReject(ModelEndpoint.Mode.CALL), request, body, completed);
+        Attempt hedge = null;
+        try {
+            Duration hedgeDelay = router.hedgeDelay(primary.lease);
+            Attempt first = hedgeDelay != null ? completed.poll(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS) : completed.take();
+            if (first == null) {
+                EndpointRouter.Lease lease = router.acquireHedge(primary.lease);
+                if (lease != null) {
+                    hedge = new Attempt(lease, request, body, completed);
+                }
+                first = completed.take();
+            }
+            Attempt winner = first;
+            if (winner.failed() && hedge != null) {
+                winner = completed.take();
+                if (winner.failed()) {
+                    winner = primary;
+                }
+            }
+            if (hedge != null) {
+                router.onHedgeResult(winner == hedge);
+                (winner == hedge ? primary : hedge).discard();
+            } else if (winner.failed()) {
+                EndpointRouter.Lease lease = router.acquire(ModelEndpoint.Mode.CALL, primary.lease.endpoint());
+                if (lease != null) {
+                    Attempt failover = new Attempt(lease, request, body, completed);
+                    if (!failover.failed()) {
+                        primary.discard();
+                        return failover.response();
+                    }
+                    failover.discard();
+                }
+            }
+            return winner.response();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.discard();
+            if (hedge != null) {
+                hedge.discard();
+            }
+            throw new InterruptedIOException("Interrupted while waiting for the chat model response");
+        }
+    }
+
+    /**
+     * The request sent to one endpoint.
+     */
+    private final class Attempt {
+
+        private final EndpointRouter.Lease lease;
+        private final Future<ClientHttpResponse> future;
+        private ClientHttpResponse delivered;
+        private boolean discarded;
+
+        Attempt(EndpointRouter.Lease lease, HttpRequest request, byte[] body, BlockingQueue<Attempt> completed) {
+            this.lease = lease;
+            FutureTask<ClientHttpResponse> task = new FutureTask<>(() -> send(request, body)) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        lease.release();
+                    }
+                    completed.add(Attempt.this);
+                }
+            };
+            this.future = task;
+            executor.execute(task);
+        }
+
+        private ClientHttpResponse send(HttpRequest request, byte[] body) throws IOException {
+            ClientHttpResponse response;
+            try {
+                URI uri = router.route(request.getURI(), lease.endpoint());
+                ClientHttpRequest routed = requestFactory.createRequest(uri, request.getMethod());
+                routed.getHeaders().putAll(request.getHeaders());
+                if (lease.endpoint().apiKey() != null) {
+                    routed.getHeaders().setBearerAuth(lease.endpoint().apiKey());
+                }
+                routed.getBody().write(body);
+                response = new LeasedResponse(routed.execute(), lease);
+                lease.onResponse(outcome(response.getStatusCode()));
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    if (!discarded) {
+                        lease.onResponse(ModelEndpoint.Outcome.FAILURE);
+                    }
+                }
+                lease.release();
+                throw e;
+            }
+            synchronized (this) {
+                if (discarded) {
+                    response.close();
+                } else {
+                    delivered = response;
+                }
+            }
+            return response;
+        }
+
+        boolean failed() {
+            try {
+                ClientHttpResponse response = future.get();
+                return outcome(response.getStatusCode()) != ModelEndpoint.Outcome.SUCCESS;
+            } catch (ExecutionException | IOException e) {
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+        }
+
+        ClientHttpResponse response() throws IOException {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the chat model response");
+            }
+        }
+
+        /**
+         * Abort the request if it is still running, or close its response if it completed.
+         */
+        void discard() {
+            synchronized (this) {
+                discarded = true;
+                if (delivered != null) {
+                    delivered.close();
+                }
+            }
+            future.cancel(true);
+        }
+    }
+
+    static ModelEndpoint.Outcome outcome(HttpStatusCode status) {
+        if (status.value() == 429 || status.value() == 503) {
+            return ModelEndpoint.Outcome.OVERLOAD;
+        }
+        return status.is5xxServerError() ? ModelEndpoint.Outcome.FAILURE : ModelEndpoint.Outcome.SUCCESS;
+    }
+
+    /**
+     * A response that releases its endpoint's slot when closed.
+     */
+    private record LeasedResponse(ClientHttpResponse response, EndpointRouter.Lease lease) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                lease.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.supportassistant.startup;
+
+import com.example.supportassistant.ingestion.IngestionPipeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the time to first answer: once the application is ready, it waits for the knowledge base
+ * ingestion, if any, retrieves documents for a question, has the {@code chatClient} answer it with
+ * them and logs the time since the JVM was started, then optionally exits. The startup benchmark
+ * parses this log line.
+ * <p>
+ * The probe is registered unconditionally and checks {@code support-assistant.startup-probe.enabled}
+ * when it runs, so it can be switched on for an AOT-processed application, whose conditions are
+ * evaluated at build time.
+ */
+@Component
+@EnableConfigurationProperties(StartupProbeProperties.class)
+public class StartupProbe implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupProbe.class);
+
+    static final String FIRST_ANSWER_MESSAGE = "Startup probe: first answer";
+
+    private final StartupProbeProperties properties;
+    private final ChatClient chatClient;
+    private final ObjectProvider<VectorStore> vectorStore;
+    private final ObjectProvider<IngestionPipeline> ingestionPipeline;
+    private final ConfigurableApplicationContext context;
+
+    public StartupProbe(StartupProbeProperties properties, ChatClient chatClient, ObjectProvider<VectorStore> vectorStore,
+                        ObjectProvider<IngestionPipeline> ingestionPipeline, ConfigurableApplicationContext context) {
+        this.properties = properties;
+        this.chatClient = chatClient;
+        this.vectorStore = vectorStore;
+        this.ingestionPipeline = ingestionPipeline;
+        this.context = context;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!properties.enabled()) {
+            return;
+        }
+        Thread.ofVirtual().name("startup-probe").start(() -> {
+            int exitCode = 0;
+            try {
+                probe();
+            } catch (RuntimeException e) {
+                logger.error("Startup probe failed", e);
+                exitCode = 1;
+            }
+            if (properties.exitOnCompletion()) {
+                int code = exitCode;
+                System.exit(SpringApplication.exit(context, () -> code));
+            }
+        });
+    }
+
+    private void probe() {
+        // the ingestion started on startup holds the pipeline's lock, so this returns once it is done
+        ingestionPipeline.ifAvailable(IngestionPipeline::ingestAll);
+
+        VectorStore store = vectorStore.getIfAvailable();
+        List<Document> documents = store != null
+            ? store.similaritySearch(SearchRequest.builder().query(properties.question()).topK(properties.topK()).build())
+            : List.of();
+        String context = documents.stream().map(Document::getText).collect(Collectors.joining(System.lineSeparator()));
+        String answer = chatClient.prompt()
+            .user(properties.question() + System.lineSeparator() + System.lineSeparator() + "Context:"
+                + System.lineSeparator() + context)
+            .call()
+            .content();
+
+        Instant jvmStart = ProcessHandle.current().info().startInstant().orElseThrow();
+        logger.info("{} after {} ms, {} documents retrieved, {} characters answered", FIRST_ANSWER_MESSAGE,
+            Duration.between(jvmStart, Instant.now()).toMillis(), documents.size(), answer != null ? answer.length() : 0);
+    }
+}
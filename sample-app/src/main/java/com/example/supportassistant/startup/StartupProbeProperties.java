@@ -0,0 +1,20 @@
+package com.example.supportassistant.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the startup probe.
+ *
+ * @param enabled          whether the probe answers a question once the application is ready
+ * @param question         question answered with the knowledge base
+ * @param topK             documents retrieved for the answer
+ * @param exitOnCompletion whether to shut the application down after the answer
+ */
+@ConfigurationProperties("support-assistant.startup-probe")
+public record StartupProbeProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("How do I upgrade my application with the Application Advisor?") String question,
+    @DefaultValue("4") int topK,
+    @DefaultValue("true") boolean exitOnCompletion
+) {}
@@ -0,0 +1,15 @@
+package com.example.supportassistant.structured;
+
+import java.util.List;
+
+/**
+ * A structured output as far as it has been streamed.
+ *
+ * @param value           the object bound from the fields completed so far, with the other fields
+ *                        left unset; arrays hold their completed elements
+ * @param completedFields the top-level fields completed so far, in the order they closed
+ * @param complete        whether the whole JSON value has been received, the last partial of a stream
+ * @param <T>             the type of the structured output
+ */
+public record PartialOutput<T>(T value, List<String> completedFields, boolean complete) {
+}
@@ -0,0 +1,292 @@
+package com.example.supportassistant.structured;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.util.JacksonUtils;
+import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts a streamed structured output into typed objects while it is generated, instead of
+ * buffering the whole completion for {@link BeanOutputConverter}.
+ * <p>
+ * The text deltas are fed into a non-blocking JSON parser as they arrive, which builds the JSON tree
+ * token by token. Whenever a top-level field, or an element of a top-level array, closes, the tree
+ * received so far is bound to the requested type and emitted as a {@link PartialOutput}; the last one
+ * is {@link PartialOutput#complete() complete}. Text around the JSON value, such as a markdown code
+ * fence, is skipped, and the upstream is cancelled once the value has closed.
+ * <p>
+ * The stream is checked against the JSON schema of the type as it is parsed and fails with a
+ * {@link StructuredOutputException} at the first violation, which cancels the model call: a field the
+ * schema does not allow, a value that cannot be bound to its field, a required field missing from the
+ * closed object, malformed JSON or a stream that ends before the value is complete.
+ *
+ * @param <T> the type of the structured output
+ */
+public class StreamingOutputConverter<T> {
+
+    private final BeanOutputConverter<T> beanOutputConverter;
+    private final Map<String, Object> schema;
+    private final ObjectReader reader;
+    private final JsonMapper mapper;
+
+    public StreamingOutputConverter(Class<T> type) {
+        this(new BeanOutputConverter<>(type), JsonMapper.builder().build().constructType(type));
+    }
+
+    public StreamingOutputConverter(ParameterizedTypeReference<T> type) {
+        this(new BeanOutputConverter<>(type), JsonMapper.builder().build().constructType(type.getType()));
+    }
+
+    private StreamingOutputConverter(BeanOutputConverter<T> beanOutputConverter, JavaType type) {
+        this.beanOutputConverter = beanOutputConverter;
+        this.schema = beanOutputConverter.getJsonSchemaMap();
+        this.mapper = JsonMapper.builder()
+            .addModules(JacksonUtils.instantiateAvailableModules())
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+        this.reader = mapper.readerFor(type);
+    }
+
+    /**
+     * The format instructions to append to the prompt, the same as {@link BeanOutputConverter}'s.
+     */
+    public String getFormat() {
+        return beanOutputConverter.getFormat();
+    }
+
+    /**
+     * Stream the request with the format instructions, which the {@link StructuredOutputAdvisor}
+     * appends to the user message, and convert the response.
+     */
+    public Flux<PartialOutput<T>> stream(ChatClient.ChatClientRequestSpec request) {
+        return convert(request
+            .advisors(advisor -> advisor.param(ChatClientAttributes.OUTPUT_FORMAT.getKey(), getFormat()))
+            .stream()
+            .content());
+    }
+
+    /**
+     * Convert the text deltas of a response, such as {@code stream().content()}, into partial outputs.
+     */
+    public Flux<PartialOutput<T>> convert(Flux<String> deltas) {
+        return Flux.defer(() -> {
+            IncrementalParse parse = new IncrementalParse();
+            return deltas.concatMapIterable(parse::feed)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(parse.finish())))
+                .takeUntil(PartialOutput::complete);
+        });
+    }
+
+    /**
+     * An open object or array, with the part of the schema it must follow.
+     */
+    private static final class Frame {
+
+        private final ContainerNode<?> node;
+        private final Map<String, Object> schema;
+        private String field;
+
+        Frame(ContainerNode<?> node, Map<String, Object> schema) {
+            this.node = node;
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * The state of converting one response.
+     */
+    private final class IncrementalParse {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final JsonNodeFactory nodes = mapper.getNodeFactory();
+        private final Deque<Frame> open = new ArrayDeque<>();
+        private final List<String> completedFields = new ArrayList<>();
+        private final char start = "array".equals(schema.get("type")) ? '[' : '{';
+        private boolean started;
+        private boolean complete;
+        private ContainerNode<?> root;
+
+        IncrementalParse() {
+            try {
+                parser = mapper.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<PartialOutput<T>> feed(String delta) {
+            if (complete) {
+                return List.of();
+            }
+            if (!started) {
+                int index = delta.indexOf(start);
+                if (index < 0) {
+                    return List.of();
+                }
+                started = true;
+                delta = delta.substring(index);
+            }
+            byte[] bytes = delta.getBytes(StandardCharsets.UTF_8);
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                return parse();
+            } catch (JsonProcessingException e) {
+                throw new StructuredOutputException("Structured output is not valid JSON: " + e.getOriginalMessage(), e);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        List<PartialOutput<T>> finish() {
+            if (complete) {
+                return List.of();
+            }
+            throw new StructuredOutputException(started
+                ? "Structured output ended before the JSON value was complete"
+                : "Structured output contains no JSON value");
+        }
+
+        private List<PartialOutput<T>> parse() throws IOException {
+            List<PartialOutput<T>> partials = new ArrayList<>();
+            JsonToken token;
+            while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                switch (token) {
+                    case START_OBJECT -> open(nodes.objectNode());
+                    case START_ARRAY -> open(nodes.arrayNode());
+                    case FIELD_NAME -> field(parser.currentName());
+                    case END_OBJECT, END_ARRAY -> {
+                        Frame closed = open.pop();
+                        if (closed.node instanceof ObjectNode object) {
+                            checkRequired(object, closed.schema);
+                        }
+                        closed(closed.node, partials);
+                    }
+                    default -> {
+                        JsonNode value = scalar(token);
+                        attach(value);
+                        closed(value, partials);
+                    }
+                }
+            }
+            return partials;
+        }
+
+        private void open(ContainerNode<?> node) {
+            Map<String, Object> nodeSchema = open.isEmpty() ? schema : childSchema(open.peek());
+            if (open.isEmpty()) {
+                root = node;
+            } else {
+                // attached right away, so a top-level array shows the elements completed so far
+                attach(node);
+            }
+            open.push(new Frame(node, nodeSchema));
+        }
+
+        private void field(String name) {
+            Frame frame = open.peek();
+            if (Boolean.FALSE.equals(frame.schema.get("additionalProperties"))
+                && frame.schema.get("properties") instanceof Map<?, ?> properties
+                && !properties.containsKey(name)) {
+                throw new StructuredOutputException("Structured output has a field '" + name + "' the schema does not allow");
+            }
+            frame.field = name;
+        }
+
+        private void attach(JsonNode value) {
+            Frame parent = open.peek();
+            if (parent.node instanceof ObjectNode object) {
+                object.set(parent.field, value);
+            } else {
+                ((ArrayNode) parent.node).add(value);
+            }
+        }
+
+        /**
+         * Emit a partial when a value directly inside the root, or inside a top-level array, closed.
+         */
+        private void closed(JsonNode value, List<PartialOutput<T>> partials) {
+            if (open.isEmpty()) {
+                complete = true;
+                partials.add(new PartialOutput<>(bind(), List.copyOf(completedFields), true));
+                return;
+            }
+            Frame parent = open.peek();
+            if (open.size() == 1) {
+                if (parent.node instanceof ObjectNode) {
+                    completedFields.add(parent.field);
+                }
+                partials.add(new PartialOutput<>(bind(), List.copyOf(completedFields), false));
+            } else if (open.size() == 2 && parent.node instanceof ArrayNode && root instanceof ObjectNode) {
+                partials.add(new PartialOutput<>(bind(), List.copyOf(completedFields), false));
+            }
+        }
+
+        private T bind() {
+            try {
+                return reader.readValue(root);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new StructuredOutputException("Structured output does not match the schema: " + e.getMessage(), e);
+            }
+        }
+
+        private JsonNode scalar(JsonToken token) throws IOException {
+            return switch (token) {
+                case VALUE_STRING -> nodes.textNode(parser.getText());
+                case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                    case INT -> nodes.numberNode(parser.getIntValue());
+                    case LONG -> nodes.numberNode(parser.getLongValue());
+                    default -> nodes.numberNode(parser.getBigIntegerValue());
+                };
+                case VALUE_NUMBER_FLOAT -> nodes.numberNode(parser.getDoubleValue());
+                case VALUE_TRUE -> nodes.booleanNode(true);
+                case VALUE_FALSE -> nodes.booleanNode(false);
+                case VALUE_NULL -> nodes.nullNode();
+                default -> throw new StructuredOutputException("Unexpected token " + token + " in structured output");
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object> childSchema(Frame parent) {
+            Object child = parent.node instanceof ObjectNode
+                ? parent.schema.get("properties") instanceof Map<?, ?> properties ? properties.get(parent.field) : null
+                : parent.schema.get("items");
+            // no checks below fields the schema does not describe inline, such as references
+            return child instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+        }
+
+        private static void checkRequired(ObjectNode object, Map<String, Object> schema) {
+            if (schema.get("required") instanceof List<?> required) {
+                for (Object name : required) {
+                    if (!object.has((String) name)) {
+                        throw new StructuredOutputException("Structured output is missing the required field '" + name + "'");
+                    }
+                }
+            }
+        }
+    }
+}
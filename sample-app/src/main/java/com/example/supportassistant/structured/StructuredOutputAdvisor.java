@@ -0,0 +1,53 @@
+package com.example.supportassistant.structured;
+
+import org.springframework.ai.chat.client.ChatClientAttributes;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Flux;
+
+/**
+ * Appends the format instructions of a streamed structured output request to the user message.
+ * <p>
+ * {@code ChatClient} adds the instructions for {@code call().entity(...)} just before the model call,
+ * but not for streams. This does the same for streams that carry the instructions under the
+ * {@link ChatClientAttributes#OUTPUT_FORMAT} advisor parameter, as
+ * {@link StreamingOutputConverter#stream} does. Requests without it pass through unchanged.
+ */
+public class StructuredOutputAdvisor implements StreamAdvisor {
+
+    /**
+     * Runs after chat memory, so the history keeps the plain question, and before context packing and
+     * the response cache, so the instructions count against the token budget and are part of the key.
+     */
+    public static final int DEFAULT_ORDER = Ordered.LOWEST_PRECEDENCE - 2500;
+
+    @Override
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        return Flux.defer(() -> chain.nextStream(withFormatInstructions(request)));
+    }
+
+    @Override
+    public String getName() {
+        return StructuredOutputAdvisor.class.getSimpleName();
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    private static ChatClientRequest withFormatInstructions(ChatClientRequest request) {
+        if (!(request.context().get(ChatClientAttributes.OUTPUT_FORMAT.getKey()) instanceof String format)
+            || format.isBlank()) {
+            return request;
+        }
+        return request.mutate()
+            .prompt(request.prompt().augmentUserMessage(user -> user.mutate()
+                .text(user.getText() + System.lineSeparator() + format)
+                .build()))
+            .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.supportassistant.structured;
+
+import org.springframework.ai.chat.client.ChatClientCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the {@link StructuredOutputAdvisor} on the {@code ChatClient.Builder} used by the
+ * application's {@code chatClient} bean, which {@link StreamingOutputConverter#stream} relies on.
+ * Disabled with {@code support-assistant.structured-output.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.structured-output", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StructuredOutputConfiguration {
+
+    @Bean
+    public StructuredOutputAdvisor structuredOutputAdvisor() {
+        return new StructuredOutputAdvisor();
+    }
+
+    @Bean
+    public ChatClientCustomizer structuredOutputChatClientCustomizer(StructuredOutputAdvisor structuredOutputAdvisor) {
+        return builder -> builder.defaultAdvisors(structuredOutputAdvisor);
+    }
+}
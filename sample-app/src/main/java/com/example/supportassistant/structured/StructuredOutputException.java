@@ -0,0 +1,15 @@
+package com.example.supportassistant.structured;
+
+/**
+ * The streamed output is not JSON, is cut off or does not match the schema of the requested type.
+ */
+public class StructuredOutputException extends RuntimeException {
+
+    public StructuredOutputException(String message) {
+        super(message);
+    }
+
+    public StructuredOutputException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
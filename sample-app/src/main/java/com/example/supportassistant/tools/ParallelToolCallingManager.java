@@ -0,0 +1,295 @@
+package com.example.supportassistant.tools;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.observation.DefaultToolCallingObservationConvention;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+import org.springframework.ai.tool.observation.ToolCallingObservationConvention;
+import org.springframework.ai.tool.observation.ToolCallingObservationDocumentation;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ToolCallingManager} that executes the tool calls of one model turn concurrently.
+ * <p>
+ * The model only returns several tool calls in one turn when they do not depend on each other, so
+ * each call runs on its own virtual thread and the turn takes as long as its slowest call rather
+ * than their sum. Each call is observed as a {@code spring.ai.tool} observation, a child of the
+ * observation current when the turn's calls were submitted. Every tool has a bulkhead limiting its
+ * concurrent calls across requests and a timeout. A call that is rejected, or an idempotent call
+ * that times out, is cancelled and reported to the model through the
+ * {@link ToolExecutionExceptionProcessor} like any other tool failure. Any other tool may already have
+ * taken effect, a ticket been created, when it times out, so it keeps running and the model is told
+ * that its outcome is unknown rather than that it failed, which would invite a retry. Results of tools
+ * configured with a cache TTL are reused for identical arguments. Resolving tool definitions is
+ * delegated to the default manager.
+ */
+public class ParallelToolCallingManager implements ToolCallingManager, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelToolCallingManager.class);
+
+    private static final String METRIC_CALLS = "assistant.tool.calls";
+
+    private static final ToolCallingObservationConvention OBSERVATION_CONVENTION =
+        new DefaultToolCallingObservationConvention();
+
+    private final ToolCallingManager delegate;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final ToolExecutionProperties properties;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tool-", 0).factory());
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final Cache<CallKey, CachedResult> results;
+
+    public ParallelToolCallingManager(ToolCallingManager delegate, ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor exceptionProcessor,
+                                      ToolExecutionProperties properties, ObservationRegistry observationRegistry,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.exceptionProcessor = exceptionProcessor;
+        this.properties = properties;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.results = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfter(Expiry.writing((CallKey key, CachedResult result) -> result.ttl()))
+            .build();
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+            .map(Generation::getOutput)
+            .filter(AssistantMessage::hasToolCalls)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+        history.add(assistantMessage);
+        ToolContext toolContext = toolContext(prompt, history);
+        List<ToolCallback> toolCallbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+            ? options.getToolCallbacks()
+            : List.of();
+
+        Observation parent = observationRegistry.getCurrentObservation();
+        List<PendingCall> pending = new ArrayList<>();
+        for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+            ToolCallback callback = resolve(toolCall.name(), toolCallbacks);
+            String arguments = StringUtils.hasText(toolCall.arguments()) ? toolCall.arguments() : "{}";
+            pending.add(submit(toolCall, callback, arguments, toolContext, parent));
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(pending.size());
+        boolean returnDirect = true;
+        try {
+            for (PendingCall call : pending) {
+                responses.add(new ToolResponseMessage.ToolResponse(call.toolCall().id(), call.toolCall().name(), await(call)));
+                returnDirect &= call.callback().getToolMetadata().returnDirect();
+            }
+        } catch (RuntimeException e) {
+            // the turn fails as a whole, so idempotent calls still running are of no use
+            pending.stream()
+                .filter(call -> call.future() != null && properties.idempotent(call.toolCall().name()))
+                .forEach(call -> call.future().cancel(true));
+            throw e;
+        }
+
+        history.add(ToolResponseMessage.builder().responses(responses).build());
+        return ToolExecutionResult.builder()
+            .conversationHistory(history)
+            .returnDirect(returnDirect)
+            .build();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private ToolCallback resolve(String toolName, List<ToolCallback> toolCallbacks) {
+        ToolCallback callback = toolCallbacks.stream()
+            .filter(candidate -> toolName.equals(candidate.getToolDefinition().name()))
+            .findFirst()
+            .orElseGet(() -> toolCallbackResolver.resolve(toolName));
+        if (callback == null) {
+            throw new IllegalStateException("No ToolCallback found for tool name: " + toolName);
+        }
+        return callback;
+    }
+
+    private static ToolContext toolContext(Prompt prompt, List<Message> history) {
+        Map<String, Object> context = new HashMap<>();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+            && !CollectionUtils.isEmpty(options.getToolContext())) {
+            context.putAll(options.getToolContext());
+            context.put(ToolContext.TOOL_CALL_HISTORY, List.copyOf(history));
+        }
+        return new ToolContext(context);
+    }
+
+    private PendingCall submit(AssistantMessage.ToolCall toolCall, ToolCallback callback, String arguments,
+                               ToolContext toolContext, Observation parent) {
+        String toolName = toolCall.name();
+        Duration timeout = properties.timeout(toolName);
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        Duration cacheTtl = properties.cacheTtl(toolName);
+        CallKey key = new CallKey(toolName, arguments);
+        if (cacheTtl != null) {
+            CachedResult cached = results.getIfPresent(key);
+            if (cached != null) {
+                return new PendingCall(toolCall, callback, deadline, System.nanoTime(), null, cached.result());
+            }
+        }
+
+        Semaphore bulkhead = bulkheads.computeIfAbsent(toolName,
+            name -> new Semaphore(properties.maxConcurrentCalls(name)));
+        Future<String> future = executor.submit(() -> {
+            if (!bulkhead.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Too many concurrent calls of tool " + toolName);
+            }
+            try {
+                String result = call(callback, arguments, toolContext, parent);
+                if (cacheTtl != null) {
+                    results.put(key, new CachedResult(result, cacheTtl));
+                }
+                return result;
+            } finally {
+                bulkhead.release();
+            }
+        });
+        return new PendingCall(toolCall, callback, deadline, System.nanoTime(), future, null);
+    }
+
+    private String call(ToolCallback callback, String arguments, ToolContext toolContext, Observation parent) {
+        ToolCallingObservationContext context = ToolCallingObservationContext.builder()
+            .toolDefinition(callback.getToolDefinition())
+            .toolMetadata(callback.getToolMetadata())
+            .toolCallArguments(arguments)
+            .build();
+        return ToolCallingObservationDocumentation.TOOL_CALL
+            .observation(null, OBSERVATION_CONVENTION, () -> context, observationRegistry)
+            .parentObservation(parent)
+            .observe(() -> {
+                String result = callback.call(arguments, toolContext);
+                context.setToolCallResult(result);
+                return result;
+            });
+    }
+
+    private String await(PendingCall call) {
+        ToolDefinition definition = call.callback().getToolDefinition();
+        String outcome = call.future() == null ? "cached" : "success";
+        try {
+            if (call.future() == null) {
+                return call.cachedResult();
+            }
+            return call.future().get(Math.max(0, call.deadline() - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            Duration timeout = properties.timeout(definition.name());
+            if (!properties.idempotent(definition.name())) {
+                outcome = "unknown";
+                log.warn("Tool {} did not complete within {}, leaving it running", definition.name(), timeout);
+                return "The outcome of tool " + definition.name() + " is unknown: it did not complete within "
+                    + timeout.toMillis() + " ms and may still take effect. Do not call it again for the same "
+                    + "request; tell the user the outcome could not be confirmed.";
+            }
+            outcome = "timeout";
+            call.future().cancel(true);
+            log.warn("Tool {} timed out after {}", definition.name(), timeout);
+            // the default processor rethrows checked causes, so report the timeout as an unchecked one
+            return exceptionProcessor.process(new ToolExecutionException(definition,
+                new IllegalStateException("Tool " + definition.name() + " did not complete within " + timeout)));
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case RejectedExecutionException rejected -> {
+                    outcome = "rejected";
+                    return exceptionProcessor.process(new ToolExecutionException(definition, rejected));
+                }
+                case ToolExecutionException failed -> {
+                    outcome = "error";
+                    return exceptionProcessor.process(failed);
+                }
+                case RuntimeException failed -> {
+                    outcome = "error";
+                    throw failed;
+                }
+                default -> {
+                    outcome = "error";
+                    throw new ToolExecutionException(definition, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            outcome = "interrupted";
+            if (properties.idempotent(definition.name())) {
+                call.future().cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new ToolExecutionException(definition, e);
+        } finally {
+            timer(definition.name(), outcome).record(System.nanoTime() - call.startNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String toolName, String outcome) {
+        return timers.computeIfAbsent(toolName + '|' + outcome, key -> Timer.builder(METRIC_CALLS)
+            .description("Tool call latency, including queueing for the tool's bulkhead")
+            .tag("tool", toolName)
+            .tag("result", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    private record CallKey(String toolName, String arguments) {}
+
+    private record CachedResult(String result, Duration ttl) {}
+
+    private record PendingCall(AssistantMessage.ToolCall toolCall, ToolCallback callback, long deadline,
+                               long startNanos, Future<String> future, String cachedResult) {}
+}
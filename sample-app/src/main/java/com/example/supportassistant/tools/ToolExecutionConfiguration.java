@@ -0,0 +1,40 @@
+package com.example.supportassistant.tools;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the auto-configured tool calling manager, which the OpenAI chat model uses to run the
+ * tool-calling loop, with {@link ParallelToolCallingManager}.
+ * Enabled with {@code support-assistant.tool-execution.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "support-assistant.tool-execution", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ToolExecutionProperties.class)
+public class ToolExecutionConfiguration {
+
+    @Bean
+    public ToolCallingManager parallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                         ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                         ObjectProvider<ObservationRegistry> observationRegistry,
+                                                         ToolExecutionProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        ObservationRegistry registry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+        ToolCallingManager definitions = DefaultToolCallingManager.builder()
+            .observationRegistry(registry)
+            .toolCallbackResolver(toolCallbackResolver)
+            .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+            .build();
+        return new ParallelToolCallingManager(definitions, toolCallbackResolver, toolExecutionExceptionProcessor,
+            properties, registry, meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.supportassistant.tools;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration of parallel tool execution.
+ *
+ * @param enabled            whether {@link ParallelToolCallingManager} replaces the default tool calling manager
+ * @param timeout            time a tool call may take, including waiting for its bulkhead; only calls of
+ *                           idempotent tools are cancelled when it elapses
+ * @param maxConcurrentCalls calls of one tool running at once across all requests
+ * @param tools              overrides per tool name
+ */
+@ConfigurationProperties("support-assistant.tool-execution")
+public record ToolExecutionProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10s") Duration timeout,
+    @DefaultValue("32") int maxConcurrentCalls,
+    @DefaultValue Map<String, Tool> tools
+) {
+
+    /**
+     * @param timeout            time the tool may take, the global timeout if unset
+     * @param maxConcurrentCalls calls of the tool running at once, the global limit if unset
+     * @param cacheTtl           how long results are reused for identical arguments; set only for
+     *                           idempotent tools such as time lookups
+     * @param idempotent         whether calling the tool twice has the same effect as once, so a call
+     *                           that times out can be cancelled and reported as failed; false if unset
+     *                           unless a cache TTL is set
+     */
+    public record Tool(
+        Duration timeout,
+        Integer maxConcurrentCalls,
+        Duration cacheTtl,
+        Boolean idempotent
+    ) {}
+
+    Duration timeout(String toolName) {
+        Tool tool = tools.get(toolName);
+        return tool != null && tool.timeout() != null ? tool.timeout() : timeout;
+    }
+
+    int maxConcurrentCalls(String toolName) {
+        Tool tool = tools.get(toolName);
+        return tool != null && tool.maxConcurrentCalls() != null ? tool.maxConcurrentCalls() : maxConcurrentCalls;
+    }
+
+    boolean idempotent(String toolName) {
+        Tool tool = tools.get(toolName);
+        if (tool == null) {
+            return false;
+        }
+        return tool.idempotent() != null ? tool.idempotent() : tool.cacheTtl() != null;
+    }
+
+    Duration cacheTtl(String toolName) {
+        Tool tool = tools.get(toolName);
+        return tool != null ? tool.cacheTtl() : null;
+    }
+}
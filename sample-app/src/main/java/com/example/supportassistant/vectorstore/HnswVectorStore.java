@@ -0,0 +1,523 @@
+package com.example.supportassistant.vectorstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory {@link org.springframework.ai.vectorstore.VectorStore} that answers similarity searches
+ * approximately from a Hierarchical Navigable Small World graph instead of scanning every vector.
+ * <p>
+ * Each document is a node on layer 0 and, with exponentially decreasing probability, on higher layers.
+ * A search descends greedily from the sparse top layer and then explores the {@code efSearch} most
+ * similar nodes of layer 0, so its cost grows roughly logarithmically with the number of documents.
+ * {@code m} bounds the links per node (twice that on layer 0) and {@code efConstruction} the candidates
+ * considered when linking a new node; larger values trade insert time and memory for recall.
+ * <p>
+ * Searches take no locks. Inserts lock only the nodes whose links they change and publish each link
+ * list as a new immutable array, so searches and any number of inserts run concurrently. Deleted
+ * documents stay in the graph as tombstones to keep it navigable and are skipped in results, so
+ * searches explore that many more candidates. Once tombstones outnumber the live documents, the delete
+ * rebuilds the graph from the live ones; inserts wait for the rebuild, searches use the old graph.
+ * <p>
+ * Filter expressions are evaluated like {@code SimpleVectorStore} does, on the nodes a search visits,
+ * and on all documents by {@link #delete(Filter.Expression)}. If fewer than {@code topK} matches remain
+ * among the visited nodes, the search falls back to an exact scan of all documents. A search visits
+ * about {@code max(efSearch, topK)} nodes, so a filter that matches less than roughly
+ * {@code topK / efSearch} of the documents, 6% for the defaults and a {@code topK} of 10, makes every
+ * search exact; such fallbacks are logged at debug level.
+ */
+public class HnswVectorStore extends AbstractObservationVectorStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+    private final SimpleVectorStoreFilterExpressionConverter filterExpressionConverter =
+        new SimpleVectorStoreFilterExpressionConverter();
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    /**
+     * Held shared by inserts and deletes and exclusively while the graph is rebuilt.
+     */
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+    private volatile Graph graph = new Graph();
+
+    protected HnswVectorStore(Builder builder) {
+        super(builder);
+        this.m = builder.m;
+        this.efConstruction = builder.efConstruction;
+        this.efSearch = builder.efSearch;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    /**
+     * Number of live documents in the store.
+     */
+    public int size() {
+        return graph.nodesById.size();
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy);
+        compactionLock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            for (int i = 0; i < documents.size(); i++) {
+                insert(graph, documents.get(i), VectorMath.normalize(embeddings.get(i)));
+            }
+        }
+        finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void doDelete(List<String> ids) {
+        compactionLock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            for (String id : ids) {
+                Node node = graph.nodesById.get(id);
+                if (node != null) {
+                    graph.remove(node);
+                }
+            }
+        }
+        finally {
+            compactionLock.readLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        Predicate<Node> filter = filter(filterExpression);
+        compactionLock.readLock().lock();
+        try {
+            Graph graph = this.graph;
+            for (Node node : graph.nodesById.values()) {
+                if (filter.test(node)) {
+                    graph.remove(node);
+                }
+            }
+        }
+        finally {
+            compactionLock.readLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        Graph graph = this.graph;
+        Node entry = graph.entryPoint.get();
+        if (entry == null || request.getTopK() <= 0) {
+            return List.of();
+        }
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Predicate<Node> filter = request.hasFilterExpression() ? filter(request.getFilterExpression()) : node -> true;
+        int topK = request.getTopK();
+
+        // Tombstones take up candidate slots, explore that many more so topK live nodes remain
+        int ef = Math.max(efSearch, topK) + graph.tombstones.get();
+        List<Scored> results = search(query, entry, ef, filter);
+        if (results.size() < topK && results.size() < graph.nodesById.size()) {
+            log.debug("{} of {} visited nodes match, searching all {} documents exactly", results.size(), ef,
+                graph.nodesById.size());
+            results = exactSearch(graph, query, topK, filter);
+        }
+
+        List<Document> documents = new ArrayList<>(Math.min(topK, results.size()));
+        for (Scored result : results) {
+            if (documents.size() == topK || result.score() < request.getSimilarityThreshold()) {
+                break;
+            }
+            documents.add(toDocument(result));
+        }
+        return documents;
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        Node entry = graph.entryPoint.get();
+        return VectorStoreObservationContext.builder("hnsw", operationName)
+            .dimensions(entry != null ? entry.vector.length : null)
+            .collectionName("in-memory-graph")
+            .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    /**
+     * Rebuild the graph from the live documents once tombstones outnumber them.
+     */
+    private void compactIfNeeded() {
+        if (graph.tombstones.get() <= graph.nodesById.size()) {
+            return;
+        }
+        compactionLock.writeLock().lock();
+        try {
+            Graph graph = this.graph;
+            if (graph.tombstones.get() <= graph.nodesById.size()) {
+                return;
+            }
+            Graph compacted = new Graph();
+            for (Node node : graph.nodesById.values()) {
+                insert(compacted, node.document, node.vector);
+            }
+            this.graph = compacted;
+        }
+        finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    private void insert(Graph graph, Document document, float[] vector) {
+        int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+        Node node = new Node(graph.ordinals.getAndIncrement(), document, vector, level);
+        Node previous = graph.nodesById.put(document.getId(), node);
+        if (previous != null) {
+            previous.deleted = true;
+            graph.tombstones.incrementAndGet();
+        }
+        AtomicReference<Node> entryPoint = graph.entryPoint;
+        if (entryPoint.compareAndSet(null, node)) {
+            return;
+        }
+
+        Node entry = entryPoint.get();
+        Node current = entry;
+        for (int layer = entry.level; layer > level; layer--) {
+            current = greedySearch(vector, current, layer);
+        }
+        List<Scored> entries = List.of(new Scored(current, VectorMath.dot(vector, current.vector)));
+        for (int layer = Math.min(level, entry.level); layer >= 0; layer--) {
+            List<Scored> candidates = searchLayer(vector, entries, efConstruction, layer);
+            int maxLinks = maxLinks(layer);
+            Node[] neighbours = selectNeighbours(candidates, maxLinks);
+            // Concurrent inserts that already reached the node may have linked it, so merge rather than replace
+            link(node, neighbours, layer, maxLinks);
+            Node[] added = {node};
+            for (Node neighbour : neighbours) {
+                link(neighbour, added, layer, maxLinks);
+            }
+            entries = candidates;
+        }
+
+        // Raise the entry point if the new node reaches higher, unless another insert raised it further
+        while (level > entry.level && !entryPoint.compareAndSet(entry, node)) {
+            entry = entryPoint.get();
+        }
+    }
+
+    /**
+     * Add {@code nodes} to the links of {@code target}, pruning them to {@code maxLinks} if needed.
+     */
+    private static void link(Node target, Node[] nodes, int layer, int maxLinks) {
+        synchronized (target) {
+            Node[] current = target.neighbours(layer);
+            List<Node> linked = new ArrayList<>(current.length + nodes.length);
+            linked.addAll(List.of(current));
+            for (Node node : nodes) {
+                if (!linked.contains(node)) {
+                    linked.add(node);
+                }
+            }
+            if (linked.size() > maxLinks) {
+                List<Scored> candidates = new ArrayList<>(linked.size());
+                for (Node candidate : linked) {
+                    candidates.add(new Scored(candidate, VectorMath.dot(target.vector, candidate.vector)));
+                }
+                candidates.sort(Scored.BY_SCORE_DESCENDING);
+                target.setNeighbours(layer, selectNeighbours(candidates, maxLinks));
+            }
+            else {
+                target.setNeighbours(layer, linked.toArray(Node[]::new));
+            }
+        }
+    }
+
+    /**
+     * The neighbour selection heuristic of the HNSW paper: a candidate is linked only if it is more
+     * similar to the new node than to any neighbour already selected, which keeps links pointing in
+     * diverse directions. Remaining slots are filled with the most similar pruned candidates.
+     *
+     * @param candidates candidates ordered by descending similarity
+     */
+    private static Node[] selectNeighbours(List<Scored> candidates, int maxLinks) {
+        List<Node> selected = new ArrayList<>(maxLinks);
+        List<Node> pruned = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() == maxLinks) {
+                break;
+            }
+            boolean diverse = true;
+            for (Node other : selected) {
+                if (VectorMath.dot(candidate.node().vector, other.vector) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate.node());
+        }
+        for (int i = 0; selected.size() < maxLinks && i < pruned.size(); i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected.toArray(Node[]::new);
+    }
+
+    private List<Scored> search(float[] query, Node entry, int ef, Predicate<Node> filter) {
+        Node current = entry;
+        for (int layer = entry.level; layer > 0; layer--) {
+            current = greedySearch(query, current, layer);
+        }
+        List<Scored> candidates = searchLayer(query,
+            List.of(new Scored(current, VectorMath.dot(query, current.vector))), ef, 0);
+        List<Scored> results = new ArrayList<>(candidates.size());
+        for (Scored candidate : candidates) {
+            if (!candidate.node().deleted && filter.test(candidate.node())) {
+                results.add(candidate);
+            }
+        }
+        return results;
+    }
+
+    private static List<Scored> exactSearch(Graph graph, float[] query, int topK, Predicate<Node> filter) {
+        PriorityQueue<Scored> best = new PriorityQueue<>(Scored.BY_SCORE);
+        for (Node node : graph.nodesById.values()) {
+            if (filter.test(node)) {
+                best.add(new Scored(node, VectorMath.dot(query, node.vector)));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+        }
+        List<Scored> results = new ArrayList<>(best);
+        results.sort(Scored.BY_SCORE_DESCENDING);
+        return results;
+    }
+
+    private static Node greedySearch(float[] query, Node entry, int layer) {
+        Node current = entry;
+        float currentScore = VectorMath.dot(query, current.vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (Node neighbour : current.neighbours(layer)) {
+                float score = VectorMath.dot(query, neighbour.vector);
+                if (score > currentScore) {
+                    current = neighbour;
+                    currentScore = score;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returning up to {@code ef} nodes ordered by descending similarity.
+     * Tombstoned nodes are traversed and returned like live ones.
+     */
+    private static List<Scored> searchLayer(float[] query, List<Scored> entries, int ef, int layer) {
+        BitSet visited = new BitSet();
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Scored.BY_SCORE_DESCENDING);
+        PriorityQueue<Scored> results = new PriorityQueue<>(Scored.BY_SCORE);
+        for (Scored entry : entries) {
+            visited.set(entry.node().ordinal);
+            candidates.add(entry);
+            results.add(entry);
+        }
+        while (results.size() > ef) {
+            results.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+            for (Node neighbour : candidate.node().neighbours(layer)) {
+                if (visited.get(neighbour.ordinal)) {
+                    continue;
+                }
+                visited.set(neighbour.ordinal);
+                float score = VectorMath.dot(query, neighbour.vector);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.add(scored);
+                    results.add(scored);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> ordered = new ArrayList<>(results);
+        ordered.sort(Scored.BY_SCORE_DESCENDING);
+        return ordered;
+    }
+
+    private Predicate<Node> filter(Filter.Expression filterExpression) {
+        Expression expression = expressionParser.parseExpression(
+            filterExpressionConverter.convertExpression(filterExpression));
+        return node -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", node.document.getMetadata());
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private int maxLinks(int layer) {
+        return layer == 0 ? 2 * m : m;
+    }
+
+    private static Document toDocument(Scored result) {
+        Document document = result.node().document;
+        Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+        metadata.put(DocumentMetadata.DISTANCE.value(), 1 - result.score());
+        return Document.builder()
+            .id(document.getId())
+            .text(document.getText())
+            .media(document.getMedia())
+            .metadata(metadata)
+            .score((double) result.score())
+            .build();
+    }
+
+    /**
+     * The documents and their links. Compaction replaces it as a whole.
+     */
+    private static final class Graph {
+
+        final Map<String, Node> nodesById = new ConcurrentHashMap<>();
+        final AtomicInteger ordinals = new AtomicInteger();
+        final AtomicReference<Node> entryPoint = new AtomicReference<>();
+        final AtomicInteger tombstones = new AtomicInteger();
+
+        void remove(Node node) {
+            if (nodesById.remove(node.document.getId(), node)) {
+                node.deleted = true;
+                tombstones.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_NEIGHBOURS = new Node[0];
+
+        final int ordinal;
+        final Document document;
+        final float[] vector;
+        final int level;
+        final AtomicReferenceArray<Node[]> neighbours;
+        volatile boolean deleted;
+
+        Node(int ordinal, Document document, float[] vector, int level) {
+            this.ordinal = ordinal;
+            this.document = document;
+            this.vector = vector;
+            this.level = level;
+            this.neighbours = new AtomicReferenceArray<>(level + 1);
+            for (int layer = 0; layer <= level; layer++) {
+                neighbours.set(layer, NO_NEIGHBOURS);
+            }
+        }
+
+        Node[] neighbours(int layer) {
+            return neighbours.get(layer);
+        }
+
+        void setNeighbours(int layer, Node[] nodes) {
+            neighbours.set(layer, nodes);
+        }
+    }
+
+    private record Scored(Node node, float score) {
+
+        static final Comparator<Scored> BY_SCORE = Comparator.comparingDouble(Scored::score);
+        static final Comparator<Scored> BY_SCORE_DESCENDING = BY_SCORE.reversed();
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 160;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        /**
+         * Maximum links per node on the upper layers, twice that on layer 0. Defaults to 16.
+         */
+        public Builder m(int m) {
+            Assert.isTrue(m >= 2, "m must be at least 2");
+            this.m = m;
+            return this;
+        }
+
+        /**
+         * Number of candidates considered when linking a new node. Defaults to 200.
+         */
+        public Builder efConstruction(int efConstruction) {
+            Assert.isTrue(efConstruction > 0, "efConstruction must be positive");
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /**
+         * Number of candidates explored per search, at least {@code topK}. Defaults to 160, about 0.95 recall@10.
+         */
+        public Builder efSearch(int efSearch) {
+            Assert.isTrue(efSearch > 0, "efSearch must be positive");
+            this.efSearch = efSearch;
+            return this;
+        }
+
+        @Override
+        public HnswVectorStore build() {
+            return new HnswVectorStore(this);
+        }
+    }
+}
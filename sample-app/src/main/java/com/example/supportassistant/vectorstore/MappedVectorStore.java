@@ -0,0 +1,769 @@
+package com.example.supportassistant.vectorstore;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link org.springframework.ai.vectorstore.VectorStore} that keeps its vectors in a memory-mapped file,
+ * as a drop-in replacement for {@code SimpleVectorStore}:
+ * <pre>
+ * return MappedVectorStore.builder(embeddingModel).directory(Path.of("target/vector-store")).build();
+ * </pre>
+ * The directory holds two files. {@code vectors.bin} starts with a 64-byte header followed by fixed-size
+ * rows, each holding the content hash, id hash and location of a document followed by its unit-length
+ * embedding. {@code documents.bin} holds the documents themselves as JSON records. Opening the store
+ * only reads the header, so restarts take milliseconds regardless of the number of documents, and
+ * neither vectors nor documents are copied onto the heap.
+ * <p>
+ * Documents are identified by id: adding a document that is already stored under its id with the same
+ * text and metadata is a no-op, and adding it with other content replaces the stored version. Embeddings
+ * are deduplicated by content: a document whose text and metadata are already stored, under any id,
+ * reuses the stored vector instead of being embedded again. Use {@link #sync(List)} to also drop
+ * documents that are no longer part of the source set.
+ * <p>
+ * Searches scan the mapped rows with SIMD dot products (see {@link VectorMath}) and only read the
+ * documents that make it into the top k. Filter expressions are evaluated like {@code SimpleVectorStore}
+ * does, and so are the filter expressions of {@link #delete(Filter.Expression)}. Searches run
+ * concurrently; writes are exclusive. Deleted and replaced rows are tombstoned, not reclaimed.
+ * <p>
+ * The files belong to one embedding model: if they were written with a different
+ * {@link Builder#embeddingModelId(String) embedding model id}, they are discarded on open.
+ * <p>
+ * {@link #writeSnapshot(Path)} copies the live part of the files, for example to package an embedded
+ * knowledge base into the application at build time. A store opened on an empty directory with a
+ * {@link Builder#snapshot(Resource) snapshot} starts from a copy of it instead of embedding everything.
+ */
+public class MappedVectorStore extends AbstractObservationVectorStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedVectorStore.class);
+
+    static final String VECTORS_FILE = "vectors.bin";
+    static final String DOCUMENTS_FILE = "documents.bin";
+
+    private static final int MAGIC = 0x53415653; // "SAVS"
+    private static final int VERSION = 1;
+
+    // Header layout
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_DIMENSIONS = 8;
+    private static final int HEADER_COUNT = 16;
+    private static final int HEADER_FINGERPRINT = 24;
+    private static final int HEADER_DOCUMENTS_LENGTH = 32;
+
+    // Row layout
+    private static final int ROW_HEADER_SIZE = 32;
+    private static final int ROW_CONTENT_HASH = 0;
+    private static final int ROW_ID_HASH = 8;
+    private static final int ROW_DOCUMENT_OFFSET = 16;
+    private static final int ROW_DOCUMENT_LENGTH = 24;
+    private static final int ROW_FLAGS = 28;
+    private static final int FLAG_DELETED = 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SCAN_BLOCK_ROWS = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SpelExpressionParser expressionParser = new SpelExpressionParser();
+    private final SimpleVectorStoreFilterExpressionConverter filterExpressionConverter =
+        new SimpleVectorStoreFilterExpressionConverter();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Path directory;
+    private final long fingerprint;
+    private final FileChannel vectorChannel;
+    private final FileChannel documentChannel;
+
+    private MappedByteBuffer mapped;
+    private FloatBuffer floats;
+    private int dimensions;
+    private int rowSize;
+    private int count;
+    private long documentsLength;
+
+    /**
+     * Row indexes of live documents by content hash and id hash, built from the mapped rows on the first write.
+     */
+    private Map<Long, List<Integer>> rowsByContentHash;
+    private Map<Long, List<Integer>> rowsByIdHash;
+
+    protected MappedVectorStore(Builder builder) {
+        super(builder);
+        this.directory = builder.directory;
+        this.fingerprint = fingerprint(builder.embeddingModelId != null
+            ? builder.embeddingModelId : builder.getEmbeddingModel().getClass().getName());
+        try {
+            Files.createDirectories(directory);
+            if (builder.snapshot != null) {
+                restoreSnapshot(builder.snapshot);
+            }
+            this.vectorChannel = FileChannel.open(directory.resolve(VECTORS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.documentChannel = FileChannel.open(directory.resolve(DOCUMENTS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open vector store in " + directory, e);
+        }
+    }
+
+    public static Builder builder(EmbeddingModel embeddingModel) {
+        return new Builder(embeddingModel);
+    }
+
+    /**
+     * Number of live documents in the store.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (int row = 0; row < count; row++) {
+                if (!isDeleted(row)) {
+                    live++;
+                }
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Make the store contain exactly the given documents: new and changed documents are embedded and
+     * added, unchanged ones are kept as they are, and all others are deleted.
+     */
+    public void sync(List<Document> documents) {
+        add(documents);
+        Set<RowKey> current = new HashSet<>();
+        documents.forEach(document -> current.add(new RowKey(idHash(document.getId()), contentHash(document))));
+
+        lock.writeLock().lock();
+        try {
+            ensureIndexes();
+            List<Integer> stale = new ArrayList<>();
+            for (int row = 0; row < count; row++) {
+                int offset = rowOffset(row);
+                if (!isDeleted(row) && !current.contains(
+                        new RowKey(mapped.getLong(offset + ROW_ID_HASH), mapped.getLong(offset + ROW_CONTENT_HASH)))) {
+                    stale.add(row);
+                }
+            }
+            stale.forEach(this::tombstone);
+            if (!stale.isEmpty()) {
+                commit();
+                log.info("Removed {} stale documents from vector store", stale.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copy the committed rows and documents into {@code target}, without the capacity reserved for
+     * further rows, so that a store can be started from them with {@link Builder#snapshot(Resource)}.
+     */
+    public void writeSnapshot(Path target) {
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(target);
+            try (FileChannel vectors = FileChannel.open(target.resolve(VECTORS_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 FileChannel documents = FileChannel.open(target.resolve(DOCUMENTS_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long vectorsLength = count > 0 ? rowOffset((long) count) : HEADER_SIZE;
+                transferFully(vectorChannel, vectorsLength, vectors);
+                transferFully(documentChannel, documentsLength, documents);
+            }
+            log.info("Wrote snapshot of {} rows to {}", count, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write vector store snapshot to " + target, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void doAdd(List<Document> documents) {
+        // Embed outside the write lock so searches are not blocked by slow embedding calls
+        Map<Long, Document> pending = new LinkedHashMap<>();
+        lock.writeLock().lock();
+        try {
+            ensureIndexes();
+            for (Document document : documents) {
+                long hash = contentHash(document);
+                if (!rowsByContentHash.containsKey(hash)) {
+                    pending.putIfAbsent(hash, document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, float[]> embedded = new HashMap<>();
+        if (!pending.isEmpty()) {
+            List<float[]> embeddings = embeddingModel.embed(new ArrayList<>(pending.values()),
+                EmbeddingOptions.builder().build(), batchingStrategy);
+            int index = 0;
+            for (long hash : pending.keySet()) {
+                embedded.put(hash, embeddings.get(index++));
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            int added = 0;
+            int replaced = 0;
+            for (Document document : documents) {
+                long hash = contentHash(document);
+                if (isStored(document.getId(), hash)) {
+                    continue;
+                }
+                float[] embedding = embedded.get(hash);
+                if (embedding == null) {
+                    embedding = storedEmbedding(hash);
+                }
+                if (embedding == null) {
+                    // the row whose vector was to be reused was deleted meanwhile
+                    embedding = embeddingModel.embed(document);
+                }
+                replaced += tombstoneOtherVersions(document.getId(), hash);
+                append(hash, document, embedding);
+                added++;
+            }
+            if (added > 0 || replaced > 0) {
+                commit();
+            }
+            log.debug("Added {} of {} documents, embedded {}, {} were unchanged, {} replaced", added, documents.size(),
+                embedded.size(), documents.size() - added, replaced);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Whether a live row holds the document under this id with this content.
+     */
+    private boolean isStored(String id, long contentHash) {
+        List<Integer> rows = rowsByIdHash.get(idHash(id));
+        if (rows == null) {
+            return false;
+        }
+        for (int row : rows) {
+            if (mapped.getLong(rowOffset(row) + ROW_CONTENT_HASH) == contentHash && id.equals(readRecord(row).id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The unit-length vector of a live row with this content, or {@code null} if there is none.
+     */
+    private float[] storedEmbedding(long contentHash) {
+        List<Integer> rows = rowsByContentHash.get(contentHash);
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+        float[] embedding = new float[dimensions];
+        floats.get((rowOffset(rows.getFirst()) + ROW_HEADER_SIZE) / Float.BYTES, embedding);
+        return embedding;
+    }
+
+    /**
+     * Tombstone the rows stored under the id with content other than {@code contentHash}.
+     *
+     * @return the number of rows tombstoned
+     */
+    private int tombstoneOtherVersions(String id, long contentHash) {
+        List<Integer> rows = rowsByIdHash.get(idHash(id));
+        if (rows == null) {
+            return 0;
+        }
+        int tombstoned = 0;
+        for (int row : List.copyOf(rows)) {
+            if (mapped.getLong(rowOffset(row) + ROW_CONTENT_HASH) != contentHash && id.equals(readRecord(row).id())) {
+                tombstone(row);
+                tombstoned++;
+            }
+        }
+        return tombstoned;
+    }
+
+    @Override
+    public void doDelete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            ensureIndexes();
+            boolean changed = false;
+            for (String id : ids) {
+                List<Integer> rows = rowsByIdHash.get(idHash(id));
+                if (rows == null) {
+                    continue;
+                }
+                for (int row : List.copyOf(rows)) {
+                    if (id.equals(readRecord(row).id())) {
+                        tombstone(row);
+                        changed = true;
+                    }
+                }
+            }
+            if (changed) {
+                commit();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void doDelete(Filter.Expression filterExpression) {
+        Expression filter = expressionParser.parseExpression(filterExpressionConverter.convertExpression(filterExpression));
+        lock.writeLock().lock();
+        try {
+            ensureIndexes();
+            int deleted = 0;
+            for (int row = 0; row < count; row++) {
+                if (!isDeleted(row) && matches(filter, readRecord(row))) {
+                    tombstone(row);
+                    deleted++;
+                }
+            }
+            if (deleted > 0) {
+                commit();
+                log.debug("Deleted {} documents matching {}", deleted, filterExpression);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> doSimilaritySearch(SearchRequest request) {
+        if (isEmpty() || request.getTopK() <= 0) {
+            return List.of();
+        }
+        float[] query = VectorMath.normalize(embeddingModel.embed(request.getQuery()));
+        Expression filter = request.hasFilterExpression()
+            ? expressionParser.parseExpression(filterExpressionConverter.convertExpression(request.getFilterExpression()))
+            : null;
+        lock.readLock().lock();
+        try {
+            if (query.length != dimensions) {
+                throw new IllegalStateException("Query embedding has " + query.length
+                    + " dimensions, but the vector store in " + directory + " holds " + dimensions);
+            }
+            return search(query, request.getTopK(), request.getSimilarityThreshold(), filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return count == 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Document> search(float[] query, int topK, double threshold, Expression filter) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        int rowFloats = rowSize / Float.BYTES;
+        int vectorStart = ROW_HEADER_SIZE / Float.BYTES;
+        float[] block = new float[SCAN_BLOCK_ROWS * rowFloats];
+
+        for (int first = 0; first < count; first += SCAN_BLOCK_ROWS) {
+            int rows = Math.min(SCAN_BLOCK_ROWS, count - first);
+            floats.get((HEADER_SIZE + first * rowSize) / Float.BYTES, block, 0, rows * rowFloats);
+            for (int i = 0; i < rows; i++) {
+                int row = first + i;
+                float score = VectorMath.dot(query, block, i * rowFloats + vectorStart, dimensions);
+                if (score < threshold || (best.size() == topK && score <= best.peek().score()) || isDeleted(row)) {
+                    continue;
+                }
+                DocumentRecord record = null;
+                if (filter != null) {
+                    record = readRecord(row);
+                    if (!matches(filter, record)) {
+                        continue;
+                    }
+                }
+                best.add(new Candidate(row, score, record));
+                if (best.size() > topK) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Document> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Candidate candidate = best.poll();
+            DocumentRecord record = candidate.record() != null ? candidate.record() : readRecord(candidate.row());
+            Map<String, Object> metadata = new HashMap<>(record.metadata());
+            metadata.put(DocumentMetadata.DISTANCE.value(), 1 - candidate.score());
+            results.add(Document.builder()
+                .id(record.id())
+                .text(record.text())
+                .metadata(metadata)
+                .score((double) candidate.score())
+                .build());
+        }
+        return results.reversed();
+    }
+
+    private static boolean matches(Expression filter, DocumentRecord record) {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable("metadata", record.metadata());
+        return Boolean.TRUE.equals(filter.getValue(context, Boolean.class));
+    }
+
+    @Override
+    public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+        return VectorStoreObservationContext.builder("mapped-file", operationName)
+            .dimensions(dimensions)
+            .collectionName(directory.toString())
+            .similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            vectorChannel.close();
+            documentChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start an empty store from the snapshot. A store with content is kept, even if the snapshot is newer.
+     */
+    private void restoreSnapshot(Resource snapshot) throws IOException {
+        Path vectors = directory.resolve(VECTORS_FILE);
+        if (Files.exists(vectors) && Files.size(vectors) > 0) {
+            return;
+        }
+        Resource snapshotVectors = snapshot.createRelative(VECTORS_FILE);
+        Resource snapshotDocuments = snapshot.createRelative(DOCUMENTS_FILE);
+        if (!snapshotVectors.exists() || !snapshotDocuments.exists()) {
+            log.warn("No vector store snapshot found at {}, starting empty", snapshot);
+            return;
+        }
+        // documents first, so an interrupted copy leaves no vectors file pointing into missing documents
+        try (InputStream in = snapshotDocuments.getInputStream()) {
+            Files.copy(in, directory.resolve(DOCUMENTS_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (InputStream in = snapshotVectors.getInputStream()) {
+            Files.copy(in, vectors, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("Restored vector store in {} from snapshot {}", directory, snapshot);
+    }
+
+    private static void transferFully(FileChannel source, long length, FileChannel target) throws IOException {
+        long position = 0;
+        while (position < length) {
+            position += source.transferTo(position, length - position, target);
+        }
+    }
+
+    private void open() throws IOException {
+        long size = vectorChannel.size();
+        if (size >= HEADER_SIZE) {
+            map(size);
+            if (mapped.getInt(HEADER_MAGIC) == MAGIC && mapped.getInt(HEADER_VERSION) == VERSION
+                    && mapped.getLong(HEADER_FINGERPRINT) == fingerprint) {
+                dimensions = mapped.getInt(HEADER_DIMENSIONS);
+                rowSize = rowSize(dimensions);
+                count = (int) mapped.getLong(HEADER_COUNT);
+                documentsLength = mapped.getLong(HEADER_DOCUMENTS_LENGTH);
+                // Discard documents appended by a write that did not commit
+                documentChannel.truncate(documentsLength);
+                log.info("Opened vector store in {} with {} rows", directory, count);
+                return;
+            }
+            log.warn("Vector store in {} was written by a different embedding model or version, discarding it", directory);
+        }
+        vectorChannel.truncate(0);
+        documentChannel.truncate(0);
+        map(HEADER_SIZE);
+        mapped.putInt(HEADER_MAGIC, MAGIC);
+        mapped.putInt(HEADER_VERSION, VERSION);
+        mapped.putLong(HEADER_FINGERPRINT, fingerprint);
+        mapped.force();
+    }
+
+    private void map(long size) throws IOException {
+        mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        floats = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    private void append(long contentHash, Document document, float[] embedding) {
+        if (dimensions == 0) {
+            dimensions = embedding.length;
+            rowSize = rowSize(dimensions);
+            mapped.putInt(HEADER_DIMENSIONS, dimensions);
+        } else if (embedding.length != dimensions) {
+            throw new IllegalStateException("Embedding has " + embedding.length + " dimensions, but the vector store in "
+                + directory + " holds " + dimensions + "; delete it to switch embedding models");
+        }
+        ensureCapacity(count + 1);
+
+        byte[] record = writeRecord(document);
+        writeFully(ByteBuffer.wrap(record), documentsLength);
+
+        int row = count;
+        int offset = rowOffset(row);
+        long idHash = idHash(document.getId());
+        mapped.putLong(offset + ROW_CONTENT_HASH, contentHash);
+        mapped.putLong(offset + ROW_ID_HASH, idHash);
+        mapped.putLong(offset + ROW_DOCUMENT_OFFSET, documentsLength);
+        mapped.putInt(offset + ROW_DOCUMENT_LENGTH, record.length);
+        mapped.putInt(offset + ROW_FLAGS, 0);
+        floats.put((offset + ROW_HEADER_SIZE) / Float.BYTES, VectorMath.normalize(embedding));
+
+        documentsLength += record.length;
+        count++;
+        rowsByContentHash.computeIfAbsent(contentHash, hash -> new ArrayList<>(1)).add(row);
+        rowsByIdHash.computeIfAbsent(idHash, hash -> new ArrayList<>(1)).add(row);
+    }
+
+    private void tombstone(int row) {
+        int offset = rowOffset(row);
+        mapped.putInt(offset + ROW_FLAGS, mapped.getInt(offset + ROW_FLAGS) | FLAG_DELETED);
+        removeRow(rowsByContentHash, mapped.getLong(offset + ROW_CONTENT_HASH), row);
+        removeRow(rowsByIdHash, mapped.getLong(offset + ROW_ID_HASH), row);
+    }
+
+    private static void removeRow(Map<Long, List<Integer>> index, long hash, int row) {
+        List<Integer> rows = index.get(hash);
+        if (rows != null) {
+            rows.remove(Integer.valueOf(row));
+            if (rows.isEmpty()) {
+                index.remove(hash);
+            }
+        }
+    }
+
+    /**
+     * Make appended rows and documents durable, then publish them by updating the header.
+     */
+    private void commit() {
+        try {
+            documentChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        mapped.force();
+        mapped.putLong(HEADER_COUNT, count);
+        mapped.putLong(HEADER_DOCUMENTS_LENGTH, documentsLength);
+        mapped.force(0, HEADER_SIZE);
+    }
+
+    private void ensureCapacity(int rows) {
+        long required = rowOffset((long) rows);
+        if (required <= mapped.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Vector store in " + directory + " exceeds 2 GB");
+        }
+        long grown = Math.max(required, Math.max(rowOffset((long) INITIAL_CAPACITY), 2L * mapped.capacity()));
+        try {
+            map(Math.min(grown, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensureIndexes() {
+        if (rowsByContentHash != null) {
+            return;
+        }
+        rowsByContentHash = new HashMap<>();
+        rowsByIdHash = new HashMap<>();
+        for (int row = 0; row < count; row++) {
+            if (!isDeleted(row)) {
+                int offset = rowOffset(row);
+                rowsByContentHash.computeIfAbsent(mapped.getLong(offset + ROW_CONTENT_HASH), hash -> new ArrayList<>(1))
+                    .add(row);
+                rowsByIdHash.computeIfAbsent(mapped.getLong(offset + ROW_ID_HASH), hash -> new ArrayList<>(1)).add(row);
+            }
+        }
+    }
+
+    private boolean isDeleted(int row) {
+        return (mapped.getInt(rowOffset(row) + ROW_FLAGS) & FLAG_DELETED) != 0;
+    }
+
+    private int rowOffset(int row) {
+        return HEADER_SIZE + row * rowSize;
+    }
+
+    private long rowOffset(long row) {
+        return HEADER_SIZE + row * rowSize;
+    }
+
+    private static int rowSize(int dimensions) {
+        return ROW_HEADER_SIZE + dimensions * Float.BYTES;
+    }
+
+    private byte[] writeRecord(Document document) {
+        try {
+            return objectMapper.writeValueAsBytes(
+                new DocumentRecord(document.getId(), document.getText(), document.getMetadata()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize document " + document.getId(), e);
+        }
+    }
+
+    private DocumentRecord readRecord(int row) {
+        int offset = rowOffset(row);
+        ByteBuffer buffer = ByteBuffer.allocate(mapped.getInt(offset + ROW_DOCUMENT_LENGTH));
+        long position = mapped.getLong(offset + ROW_DOCUMENT_OFFSET);
+        try {
+            while (buffer.hasRemaining()) {
+                if (documentChannel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + DOCUMENTS_FILE);
+                }
+            }
+            return objectMapper.readValue(buffer.array(), DocumentRecord.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read document of row " + row + " in " + directory, e);
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) {
+        try {
+            while (buffer.hasRemaining()) {
+                documentChannel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long contentHash(Document document) {
+        String text = document.getText() != null ? document.getText() : "";
+        return hash(text + '\u0000' + new TreeMap<>(document.getMetadata()));
+    }
+
+    private static long idHash(String id) {
+        return hash(id);
+    }
+
+    private static long fingerprint(String embeddingModelId) {
+        return hash(embeddingModelId);
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Candidate(int row, float score, DocumentRecord record) {}
+
+    private record RowKey(long idHash, long contentHash) {}
+
+    record DocumentRecord(String id, String text, Map<String, Object> metadata) {
+
+        DocumentRecord {
+            metadata = metadata != null ? metadata : Map.of();
+        }
+    }
+
+    public static class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+        private Path directory = Path.of("target", "vector-store");
+        private String embeddingModelId;
+        private Resource snapshot;
+
+        private Builder(EmbeddingModel embeddingModel) {
+            super(embeddingModel);
+        }
+
+        /**
+         * Directory holding the store's files, created if missing. Defaults to {@code target/vector-store}.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Identifies the embedding model, for example {@code openai:text-embedding-3-small}. Files written
+         * with a different id are discarded on open. Defaults to the embedding model's class name.
+         */
+        public Builder embeddingModelId(String embeddingModelId) {
+            this.embeddingModelId = embeddingModelId;
+            return this;
+        }
+
+        /**
+         * Location of a snapshot written by {@link MappedVectorStore#writeSnapshot(Path)}, for example
+         * {@code classpath:knowledge-snapshot/}, to start from when the directory holds no store yet.
+         */
+        public Builder snapshot(Resource snapshot) {
+            this.snapshot = snapshot;
+            return this;
+        }
+
+        @Override
+        public MappedVectorStore build() {
+            return new MappedVectorStore(this);
+        }
+    }
+
+}
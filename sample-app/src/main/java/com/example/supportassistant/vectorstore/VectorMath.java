@@ -0,0 +1,84 @@
+package com.example.supportassistant.vectorstore;
+
+/**
+ * Dot products over {@code float} vectors.
+ * <p>
+ * Uses the incubating Vector API when the application was built with the {@code simd} Maven profile
+ * and the JVM started with {@code --add-modules jdk.incubator.vector} (the profile does this for
+ * {@code spring-boot:run}, tests and benchmarks), so each step multiplies as many floats as the CPU's
+ * widest SIMD register holds. Otherwise falls back to a scalar loop with independent accumulators,
+ * which the JIT can pipeline but not vectorize because float addition is not associative. The default
+ * build leaves the incubator module out, so it neither warns about it nor needs it to run.
+ */
+final class VectorMath {
+
+    private static final DotProduct SIMD = loadSimd();
+
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of {@code a} and {@code length} elements of {@code b} starting at {@code bOffset}.
+     */
+    static float dot(float[] a, float[] b, int bOffset, int length) {
+        if (SIMD != null) {
+            return SIMD.dot(a, b, bOffset, length);
+        }
+        return scalarDot(a, b, bOffset, length);
+    }
+
+    static float dot(float[] a, float[] b) {
+        return dot(a, b, 0, Math.min(a.length, b.length));
+    }
+
+    static float scalarDot(float[] a, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int bound = length & ~3; i < bound; i += 4) {
+            s0 += a[i] * b[bOffset + i];
+            s1 += a[i + 1] * b[bOffset + i + 1];
+            s2 += a[i + 2] * b[bOffset + i + 2];
+            s3 += a[i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Return a unit-length copy of the vector, so cosine similarity reduces to a dot product.
+     * The zero vector is returned unchanged.
+     */
+    static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = vector.clone();
+        if (norm > 0) {
+            for (int i = 0; i < normalized.length; i++) {
+                normalized[i] = (float) (normalized[i] / norm);
+            }
+        }
+        return normalized;
+    }
+
+    private static DotProduct loadSimd() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (DotProduct) Class.forName(VectorMath.class.getPackageName() + ".SimdVectorMath")
+                .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // built without the simd profile
+            return null;
+        }
+    }
+
+    /**
+     * Dot product kernel, implemented with the Vector API by {@code SimdVectorMath}.
+     */
+    interface DotProduct {
+
+        float dot(float[] a, float[] b, int bOffset, int length);
+    }
+}
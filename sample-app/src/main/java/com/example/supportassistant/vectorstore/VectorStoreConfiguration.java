@@ -0,0 +1,46 @@
+package com.example.supportassistant.vectorstore;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Registers the vector store selected by {@code support-assistant.vector-store.type}. It is primary,
+ * so it takes precedence over a {@code SimpleVectorStore} bean declared elsewhere.
+ */
+@Configuration
+@EnableConfigurationProperties(VectorStoreProperties.class)
+public class VectorStoreConfiguration {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "support-assistant.vector-store", name = "type", havingValue = "mapped")
+    public VectorStore mappedVectorStore(VectorStoreProperties properties, EmbeddingModel embeddingModel,
+                                         ObjectProvider<ObservationRegistry> observationRegistry) {
+        return MappedVectorStore.builder(embeddingModel)
+            .directory(properties.directory())
+            .embeddingModelId(properties.embeddingModelId())
+            .snapshot(properties.snapshot())
+            .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+            .build();
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "support-assistant.vector-store", name = "type", havingValue = "hnsw")
+    public VectorStore hnswVectorStore(VectorStoreProperties properties, EmbeddingModel embeddingModel,
+                                       ObjectProvider<ObservationRegistry> observationRegistry) {
+        return HnswVectorStore.builder(embeddingModel)
+            .m(properties.hnsw().m())
+            .efConstruction(properties.hnsw().efConstruction())
+            .efSearch(properties.hnsw().efSearch())
+            .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+            .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.supportassistant.vectorstore;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the knowledge base vector store.
+ *
+ * @param type             vector store to register, none if unset
+ * @param directory        directory of the store's files
+ * @param embeddingModelId identifies the embedding model, so stored vectors are discarded when it changes
+ * @param snapshot         snapshot the {@code mapped} store starts from when its directory is empty, see
+ *                         {@link MappedVectorStore#writeSnapshot(Path)}
+ * @param hnsw             graph parameters of the {@code hnsw} store
+ */
+@ConfigurationProperties("support-assistant.vector-store")
+public record VectorStoreProperties(
+    StoreType type,
+    @DefaultValue("target/vector-store") Path directory,
+    String embeddingModelId,
+    Resource snapshot,
+    @DefaultValue Hnsw hnsw
+) {
+
+    public enum StoreType {
+        /**
+         * {@link MappedVectorStore}: exact search over a memory-mapped file that survives restarts.
+         */
+        MAPPED,
+        /**
+         * {@link HnswVectorStore}: approximate in-memory search that scales to large knowledge bases.
+         */
+        HNSW
+    }
+
+    /**
+     * @param m              maximum links per node on the upper layers, twice that on layer 0
+     * @param efConstruction candidates considered when linking a new node
+     * @param efSearch       candidates explored per search
+     */
+    public record Hnsw(
+        @DefaultValue("16") int m,
+        @DefaultValue("200") int efConstruction,
+        @DefaultValue("160") int efSearch
+    ) {}
+}
@@ -0,0 +1,92 @@
+package com.example.supportassistant;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Helpers shared by the tests: concurrent requests, waiting for asynchronous effects, and ports for
+ * application contexts that serve the mock OpenAI service.
+ */
+public final class TestSupport {
+
+    private TestSupport() {
+    }
+
+    /**
+     * Run {@code count} requests at once, each on a virtual thread of its own, and return their
+     * results in request order.
+     */
+    public static <T> List<T> concurrently(int count, IntFunction<T> request) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return submit(executor, count, request);
+        }
+    }
+
+    /**
+     * Run {@code count} requests on {@code parallelism} virtual threads and return their results in
+     * request order.
+     */
+    public static <T> List<T> concurrently(int count, int parallelism, IntFunction<T> request) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+            return submit(executor, count, request);
+        }
+    }
+
+    private static <T> List<T> submit(ExecutorService executor, int count, IntFunction<T> request) throws Exception {
+        List<Future<T>> futures = IntStream.range(0, count)
+            .mapToObj(i -> executor.submit(() -> request.apply(i)))
+            .toList();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    public static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A port that was free a moment ago. The base URL of the mock service must be known before the
+     * context starts, so {@code RANDOM_PORT} does not do; a reserved port keeps contexts of
+     * different test classes, and parallel builds, from colliding on a fixed one.
+     */
+    public static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Serve the application on {@code port} and point the OpenAI client at its mock service.
+     */
+    public static void serveMockOn(int port, DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> port);
+        registry.add("spring.ai.openai.base-url", () -> mockBaseUrl(port));
+    }
+
+    public static String mockBaseUrl(int port) {
+        return "http://localhost:" + port + "/mock";
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.supportassistant.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends prompts through a {@link ResponseCacheAdvisor} to a stub chat model that numbers its answers,
+ * with a stub embedding model that maps each question to a fixed vector.
+ */
+class ResponseCacheAdvisorTest {
+
+    private static final String RESET = "How do I reset my password?";
+    /**
+     * Cosine similarity 0.98 to {@link #RESET}.
+     */
+    private static final String RESET_PARAPHRASE = "How can I reset my password?";
+    /**
+     * Cosine similarity 0.6 to {@link #RESET}.
+     */
+    private static final String DELETE = "How do I delete my account?";
+
+    private static final Map<String, float[]> VECTORS = Map.of(
+        "how do i reset my password?", new float[] {1, 0, 0},
+        "how can i reset my password?", new float[] {0.98f, 0.199f, 0},
+        "how do i delete my account?", new float[] {0.6f, 0.8f, 0});
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubChatModel chatModel = new StubChatModel();
+
+    @Test
+    void repeatedPromptIsAnsweredFromTheExactTier() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), false);
+
+        String first = call(advisor, RESET, null);
+        // case and whitespace do not matter
+        String second = call(advisor, "  how do I   RESET my password?", null);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(chatModel.calls).hasValue(1);
+        assertThat(requests("hit", "exact", "call")).isEqualTo(1);
+        assertThat(requests("miss", "none", "call")).isEqualTo(1);
+    }
+
+    @Test
+    void differentSystemPromptOrOptionsMissTheCache() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), true);
+
+        call(advisor, RESET, null);
+        call(advisor, RESET, ChatOptions.builder().temperature(0.9).build());
+        call(advisor, ChatClientRequest.builder()
+            .prompt(new Prompt(List.of(new SystemMessage("Answer in French."), new UserMessage(RESET))))
+            .build());
+
+        assertThat(chatModel.calls).hasValue(3);
+    }
+
+    @Test
+    void similarQuestionIsAnsweredFromTheSemanticTier() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), true);
+
+        String first = call(advisor, RESET, null);
+        String paraphrase = call(advisor, RESET_PARAPHRASE, null);
+
+        assertThat(paraphrase).isEqualTo(first);
+        assertThat(chatModel.calls).hasValue(1);
+        assertThat(requests("hit", "semantic", "call")).isEqualTo(1);
+    }
+
+    @Test
+    void questionBelowTheSimilarityThresholdCallsTheModel() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), true);
+
+        String first = call(advisor, RESET, null);
+        String other = call(advisor, DELETE, null);
+
+        assertThat(other).isNotEqualTo(first);
+        assertThat(chatModel.calls).hasValue(2);
+        assertThat(requests("hit", "semantic", "call")).isZero();
+        assertThat(requests("miss", "none", "call")).isEqualTo(2);
+    }
+
+    @Test
+    void expiredAnswerIsNotReturned() throws Exception {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMillis(100), true);
+
+        call(advisor, RESET, null);
+        Thread.sleep(200);
+        call(advisor, RESET, null);
+        call(advisor, RESET_PARAPHRASE, null);
+
+        assertThat(chatModel.calls).hasValue(2);
+        assertThat(requests("hit", "exact", "call")).isZero();
+        // the paraphrase matches the second answer, not the expired first one
+        assertThat(requests("hit", "semantic", "call")).isEqualTo(1);
+    }
+
+    @Test
+    void streamedAnswerIsCachedAndReplayedTokenByToken() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), false);
+
+        List<String> streamed = stream(advisor, RESET);
+        List<String> replayed = stream(advisor, RESET);
+
+        assertThat(streamed).containsExactly("Answer ", "number ", "1.");
+        assertThat(replayed).containsExactly("Answer ", "number ", "1.");
+        assertThat(call(advisor, RESET, null)).isEqualTo("Answer number 1.");
+        assertThat(chatModel.calls).hasValue(1);
+        assertThat(requests("hit", "exact", "stream")).isEqualTo(1);
+    }
+
+    @Test
+    void promptsOfferingToolsBypassTheCache() {
+        ResponseCacheAdvisor advisor = advisor(Duration.ofMinutes(1), true);
+        ChatOptions tools = ToolCallingChatOptions.builder().toolNames("createTicket").build();
+
+        call(advisor, RESET, tools);
+        call(advisor, RESET, tools);
+
+        assertThat(chatModel.calls).hasValue(2);
+        assertThat(requests("bypass", "none", "call")).isEqualTo(2);
+        assertThat(meterRegistry.get("assistant.response.cache.size").gauge().value()).isZero();
+    }
+
+    private ResponseCacheAdvisor advisor(Duration ttl, boolean semantic) {
+        return new ResponseCacheAdvisor(
+            new ResponseCacheProperties(true, ttl, 100, new ResponseCacheProperties.Semantic(semantic, 0.95, 16)),
+            semantic ? new StubEmbeddingModel() : null, meterRegistry);
+    }
+
+    private String call(ResponseCacheAdvisor advisor, String question, ChatOptions options) {
+        return call(advisor, ChatClientRequest.builder().prompt(new Prompt(new UserMessage(question), options)).build());
+    }
+
+    private String call(ResponseCacheAdvisor advisor, ChatClientRequest request) {
+        return advisor.adviseCall(request, chatModel).chatResponse().getResult().getOutput().getText();
+    }
+
+    private List<String> stream(ResponseCacheAdvisor advisor, String question) {
+        return advisor.adviseStream(ChatClientRequest.builder().prompt(new Prompt(question)).build(), chatModel)
+            .map(response -> response.chatResponse().getResult().getOutput().getText())
+            .collectList()
+            .block();
+    }
+
+    private double requests(String result, String tier, String mode) {
+        return meterRegistry.get("assistant.response.cache.requests")
+            .tags("result", result, "tier", tier, "mode", mode)
+            .counter()
+            .count();
+    }
+
+    /**
+     * Answers every request with {@code Answer number <n>.}, streamed in three chunks.
+     */
+    private static final class StubChatModel implements CallAdvisorChain, StreamAdvisorChain {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public ChatClientResponse nextCall(ChatClientRequest request) {
+            return response("Answer number " + calls.incrementAndGet() + ".", "STOP", request);
+        }
+
+        @Override
+        public Flux<ChatClientResponse> nextStream(ChatClientRequest request) {
+            return Flux.defer(() -> {
+                int number = calls.incrementAndGet();
+                return Flux.just(response("Answer ", null, request), response("number ", null, request),
+                    response(number + ".", "STOP", request));
+            });
+        }
+
+        @Override
+        public List<CallAdvisor> getCallAdvisors() {
+            return List.of();
+        }
+
+        @Override
+        public List<StreamAdvisor> getStreamAdvisors() {
+            return List.of();
+        }
+
+        @Override
+        public CallAdvisorChain copy(CallAdvisor after) {
+            return this;
+        }
+
+        private static ChatClientResponse response(String text, String finishReason, ChatClientRequest request) {
+            return ChatClientResponse.builder()
+                .chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage(text),
+                    ChatGenerationMetadata.builder().finishReason(finishReason).build()))))
+                .context(request.context())
+                .build();
+        }
+    }
+
+    private static final class StubEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(VECTORS.get(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return 3;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.supportassistant.coalescing;
+
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import com.example.supportassistant.TestSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends concurrent identical requests through the {@code ChatClient} and the {@code EmbeddingModel}
+ * to the mock OpenAI endpoints, slowed down so the requests overlap, and counts the upstream calls
+ * the mock served.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+    "support-assistant.coalescing.enabled=true",
+    "mock.simulation.enabled=true",
+    "mock.simulation.time-to-first-token=500ms",
+    "mock.simulation.tokens-per-second=200"
+})
+class RequestCoalescingTest {
+
+    private static final int CONCURRENT_REQUESTS = 16;
+
+    private static final int PORT = TestSupport.freePort();
+
+    @DynamicPropertySource
+    static void mockService(DynamicPropertyRegistry registry) {
+        TestSupport.serveMockOn(PORT, registry);
+    }
+
+    @Autowired
+    private ChatClient chatClient;
+
+    @Autowired
+    private EmbeddingModel embeddingModel;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentIdenticalCallsShareOneModelCall() throws Exception {
+        double promptTokens = promptTokensOf("How do I reset my password?");
+        double upstreamBefore = upstreamPromptTokens();
+        double joinedBefore = coalesced("call", "joined");
+
+        List<String> answers = concurrently(i -> chatClient.prompt()
+            .user("How do I reset my password?")
+            .call()
+            .content());
+
+        assertThat(answers).hasSize(CONCURRENT_REQUESTS).doesNotContainNull().containsOnly(answers.getFirst());
+        assertThat(upstreamPromptTokens() - upstreamBefore).isEqualTo(promptTokens);
+        assertThat(coalesced("call", "joined") - joinedBefore).isEqualTo(CONCURRENT_REQUESTS - 1);
+    }
+
+    @Test
+    void differentOptionsAreNotMerged() throws Exception {
+        double promptTokens = promptTokensOf("What is Tanzu Spring?");
+        double upstreamBefore = upstreamPromptTokens();
+
+        List<String> answers = concurrently(i -> chatClient.prompt()
+            .user("What is Tanzu Spring?")
+            .options(OpenAiChatOptions.builder().temperature(i % 2 == 0 ? 0.0 : 1.0).build())
+            .call()
+            .content());
+
+        assertThat(answers).doesNotContainNull();
+        assertThat(upstreamPromptTokens() - upstreamBefore).isEqualTo(2 * promptTokens);
+    }
+
+    @Test
+    void promptsOfferingToolsAreNotMerged() throws Exception {
+        ToolCallback lookup = FunctionToolCallback.builder("lookupAccount", (String account) -> "active")
+            .description("Looks up the status of an account")
+            .inputType(String.class)
+            .build();
+        double joinedBefore = coalesced("call", "joined");
+        double bypassedBefore = coalesced("call", "bypass");
+
+        List<String> answers = concurrently(i -> chatClient.prompt()
+            .user("How do I reset my password?")
+            .toolCallbacks(lookup)
+            .call()
+            .content());
+
+        assertThat(answers).doesNotContainNull();
+        assertThat(coalesced("call", "bypass") - bypassedBefore).isEqualTo(CONCURRENT_REQUESTS);
+        assertThat(coalesced("call", "joined") - joinedBefore).isZero();
+    }
+
+    @Test
+    void lateJoinerOfAStreamReceivesTheWholeAnswer() {
+        double promptTokens = promptTokensOf("Are there any open CVE patches?");
+        double upstreamBefore = upstreamPromptTokens();
+        double joinedBefore = coalesced("stream", "joined");
+
+        var first = chatClient.prompt().user("Are there any open CVE patches?").stream().content()
+            .collectList()
+            .toFuture();
+        // joins after the first chunks have been emitted
+        List<String> late = chatClient.prompt().user("Are there any open CVE patches?").stream().content()
+            .delaySubscription(Duration.ofMillis(700))
+            .collectList()
+            .block();
+
+        assertThat(late).isEqualTo(first.join()).hasSizeGreaterThan(1);
+        assertThat(upstreamPromptTokens() - upstreamBefore).isEqualTo(promptTokens);
+        assertThat(coalesced("stream", "joined") - joinedBefore).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentEmbeddingsOfTheSameTextsShareOneCall() throws Exception {
+        long upstreamBefore = upstreamEmbeddingRequests();
+        List<String> texts = List.of("Reset a password", "Rotate an API key", "Reset a password");
+
+        List<List<float[]>> embeddings = concurrently(i -> embeddingModel.embed(texts));
+
+        assertThat(embeddings).allSatisfy(vectors -> {
+            assertThat(vectors).hasSize(texts.size());
+            assertThat(vectors.get(2)).isEqualTo(vectors.get(0));
+            assertThat(vectors.get(0)).isEqualTo(embeddings.getFirst().get(0));
+        });
+        // texts are only batched with those not in flight, so at most one request per distinct text
+        assertThat(upstreamEmbeddingRequests() - upstreamBefore).isBetween(1L, 2L);
+    }
+
+    private static <T> List<T> concurrently(IntFunction<T> request) throws Exception {
+        return TestSupport.concurrently(CONCURRENT_REQUESTS, request);
+    }
+
+    /**
+     * The prompt tokens the mock bills for one request with the given question, measured with a
+     * request of its own.
+     */
+    private double promptTokensOf(String question) {
+        double before = upstreamPromptTokens();
+        chatClient.prompt().user(question).call().content();
+        return upstreamPromptTokens() - before;
+    }
+
+    /**
+     * The mock bills the prompt tokens of every chat completion request when it arrives, so the
+     * tokens billed count the requests that reached it.
+     */
+    private double upstreamPromptTokens() {
+        return meterRegistry.get("mock.openai.tokens").tag("type", "prompt").counter().count();
+    }
+
+    private long upstreamEmbeddingRequests() {
+        return meterRegistry.get("mock.openai.embedding.batch.size").summary().count();
+    }
+
+    private double coalesced(String kind, String result) {
+        return meterRegistry.get("assistant.coalescing.requests").tag("kind", kind).tag("result", result).counter().count();
+    }
+}
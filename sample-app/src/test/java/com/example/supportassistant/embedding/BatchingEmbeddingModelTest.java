@@ -0,0 +1,120 @@
+package com.example.supportassistant.embedding;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.openai.OpenAiEmbeddingOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.example.supportassistant.TestSupport.concurrently;
+
+/**
+ * Sends concurrent single-text requests through {@link BatchingEmbeddingModel} to a stub model that
+ * records the requests it receives and embeds each text as its length and index.
+ */
+class BatchingEmbeddingModelTest {
+
+    private static final int MAX_BATCH_SIZE = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<EmbeddingRequest> requests = new CopyOnWriteArrayList<>();
+    private final EmbeddingModel delegate = new RecordingEmbeddingModel();
+
+    private BatchingEmbeddingModel model;
+
+    @AfterEach
+    void close() {
+        model.close();
+    }
+
+    @Test
+    void concurrentTextsAreSentInFullBatchesAndSplitPerCaller() throws Exception {
+        model = model(Duration.ofSeconds(10));
+
+        List<float[]> vectors = concurrently(2 * MAX_BATCH_SIZE, i -> model.embed(text(i)));
+
+        assertThat(requests).hasSize(2)
+            .allSatisfy(request -> assertThat(request.getInstructions()).hasSize(MAX_BATCH_SIZE));
+        for (int i = 0; i < vectors.size(); i++) {
+            assertThat(vectors.get(i)[0]).isEqualTo(text(i).length());
+        }
+        assertThat(meterRegistry.get("assistant.embedding.batching.size").tag("trigger", "full").summary().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    void partialBatchIsSentAfterTheLinger() throws Exception {
+        Duration linger = Duration.ofMillis(200);
+        model = model(linger);
+
+        long start = System.nanoTime();
+        List<float[]> vectors = concurrently(MAX_BATCH_SIZE - 1, i -> model.embed(text(i)));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(linger);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.getFirst().getInstructions()).hasSize(MAX_BATCH_SIZE - 1);
+        assertThat(vectors).extracting(vector -> vector[0]).containsExactly(
+            (float) text(0).length(), (float) text(1).length(), (float) text(2).length());
+        assertThat(meterRegistry.get("assistant.embedding.batching.size").tag("trigger", "linger").summary().max())
+            .isEqualTo(MAX_BATCH_SIZE - 1);
+    }
+
+    @Test
+    void textsWithDifferentOptionsAreSentWithTheirOwn() throws Exception {
+        model = model(Duration.ofMillis(200));
+
+        concurrently(2, i -> model.call(new EmbeddingRequest(List.of(text(i)),
+            OpenAiEmbeddingOptions.builder().model("text-embedding-3-small").user("user-" + i).build())));
+
+        assertThat(requests).hasSize(2).allSatisfy(request -> {
+            OpenAiEmbeddingOptions options = (OpenAiEmbeddingOptions) request.getOptions();
+            assertThat(request.getInstructions()).containsExactly(text(Integer.parseInt(options.getUser().substring(5))));
+        });
+    }
+
+    private BatchingEmbeddingModel model(Duration linger) {
+        return new BatchingEmbeddingModel(delegate, new EmbeddingBatchingProperties(true, MAX_BATCH_SIZE, linger),
+            meterRegistry);
+    }
+
+    /**
+     * Texts of different lengths, so the stub's vectors tell them apart.
+     */
+    private static String text(int index) {
+        return "text " + "x".repeat(index);
+    }
+
+    private final class RecordingEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            requests.add(request);
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(new float[] {text.length(), embeddings.size()}, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.supportassistant.evaluation;
+
+import com.example.supportassistant.ingestion.IngestionPipeline;
+import com.example.supportassistant.ingestion.IngestionProperties;
+import com.example.supportassistant.vectorstore.VectorStoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs evaluations of a two-question dataset over a two-file knowledge base, ingested into an
+ * in-memory vector store that retrieves documents sharing words with the question, and answered and
+ * judged by a stub chat model that records the questions it is asked about.
+ */
+class EvaluationRunnerTest {
+
+    private static final String PASSWORD_QUESTION = "How do I reset my password?";
+    private static final String INVOICE_QUESTION = "Where can I download my invoices?";
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final KeywordVectorStore vectorStore = new KeywordVectorStore();
+    private final StubChatModel chatModel = new StubChatModel();
+
+    private IngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(directory.resolve("docs"));
+        write("docs/password.md", "To reset your password, open Settings and choose Reset password.");
+        write("docs/invoice.md", "Invoices can be downloaded from the Billing page.");
+        write("golden-questions.jsonl", """
+            {"id": "password", "question": "%s"}
+            {"id": "invoice", "question": "%s"}
+            """.formatted(PASSWORD_QUESTION, INVOICE_QUESTION));
+        write("rag-prompt.st", "{question}\n\nContext:\n{context}\n");
+        pipeline = new IngestionPipeline(vectorStore, new IngestionProperties(true, directory.resolve("docs"),
+            List.of("md"), 800, 1, 8, 8000, 1, 4, false, Duration.ofMillis(500)), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void close() {
+        pipeline.close();
+    }
+
+    @Test
+    void secondRunTakesEveryCaseFromTheCache() throws Exception {
+        JsonNode first = run();
+        chatModel.questions.clear();
+        JsonNode second = run();
+
+        assertThat(first.get("evaluated").asInt()).isEqualTo(2);
+        assertThat(first.get("passed").asInt()).isEqualTo(2);
+        assertThat(second.get("evaluated").asInt()).isZero();
+        assertThat(second.get("cached").asInt()).isEqualTo(2);
+        assertThat(second.get("passed").asInt()).isEqualTo(2);
+        assertThat(chatModel.questions).isEmpty();
+        // cached cases spend no tokens
+        assertThat(second.get("tokens").get("answerPrompt").asLong()).isZero();
+    }
+
+    @Test
+    void changedDocumentReEvaluatesOnlyTheCasesRetrievingIt() throws Exception {
+        run();
+        chatModel.questions.clear();
+
+        write("docs/invoice.md", "Invoices can be downloaded as PDF from the Billing page.");
+        JsonNode report = run();
+
+        assertThat(report.get("evaluated").asInt()).isEqualTo(1);
+        assertThat(report.get("cached").asInt()).isEqualTo(1);
+        // the answer and the judge's verdict of the invoice question only
+        assertThat(chatModel.questions).containsExactly(INVOICE_QUESTION, INVOICE_QUESTION);
+        assertThat(result(report, "password").get("cached").asBoolean()).isTrue();
+        assertThat(result(report, "invoice").get("cached").asBoolean()).isFalse();
+    }
+
+    @Test
+    void changedPromptReEvaluatesEveryCase() throws Exception {
+        run();
+        chatModel.questions.clear();
+
+        write("rag-prompt.st", "{question}\n\nAnswer from this context only:\n{context}\n");
+        JsonNode report = run();
+
+        assertThat(report.get("evaluated").asInt()).isEqualTo(2);
+        assertThat(chatModel.questions).containsExactlyInAnyOrder(
+            PASSWORD_QUESTION, PASSWORD_QUESTION, INVOICE_QUESTION, INVOICE_QUESTION);
+    }
+
+    private JsonNode run() throws Exception {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("vectorStore", vectorStore);
+        beans.registerSingleton("ingestionPipeline", pipeline);
+        EvaluationProperties properties = new EvaluationProperties(
+            new FileSystemResource(directory.resolve("golden-questions.jsonl")), 2, 2,
+            new FileSystemResource(directory.resolve("rag-prompt.st")), null, "stub",
+            directory.resolve("cache"), directory.resolve("report"), 0.8, false);
+        new EvaluationRunner(properties, ChatClient.builder(chatModel).build(), ChatClient.builder(chatModel),
+            beans.getBeanProvider(VectorStore.class), beans.getBeanProvider(IngestionPipeline.class),
+            new VectorStoreProperties(null, directory.resolve("store"), "stub", null,
+                new VectorStoreProperties.Hnsw(16, 200, 160)),
+            objectMapper, null).run();
+        return objectMapper.readTree(directory.resolve("report/evaluation-report.json").toFile());
+    }
+
+    private static JsonNode result(JsonNode report, String id) {
+        for (JsonNode result : report.get("results")) {
+            if (result.get("id").asText().equals(id)) {
+                return result;
+            }
+        }
+        throw new AssertionError("No result for case " + id);
+    }
+
+    private void write(String fileName, String content) throws Exception {
+        Files.writeString(directory.resolve(fileName), content);
+    }
+
+    private static Set<String> words(String text) {
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}]+"))
+            .filter(word -> word.length() >= 5)
+            .map(word -> word.substring(0, 5))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Answers with the first line of the answer prompt, the question, and judges every answer relevant.
+     */
+    private static final class StubChatModel implements ChatModel {
+
+        private final List<String> questions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            String text = prompt.getUserMessage().getText();
+            boolean judge = text.contains("in line with the context information");
+            String question = judge
+                ? (text.contains(PASSWORD_QUESTION) ? PASSWORD_QUESTION : INVOICE_QUESTION)
+                : text.lines().findFirst().orElseThrow();
+            questions.add(question);
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(judge ? "YES" : "About: " + question))));
+        }
+    }
+
+    /**
+     * Retrieves the documents sharing word stems of five letters with the question.
+     */
+    private static final class KeywordVectorStore implements VectorStore {
+
+        private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+        @Override
+        public void add(List<Document> batch) {
+            batch.forEach(document -> documents.put(document.getId(), document));
+        }
+
+        @Override
+        public void delete(List<String> ids) {
+            ids.forEach(documents::remove);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            Set<String> query = words(request.getQuery());
+            return documents.values().stream()
+                .filter(document -> words(document.getText()).stream().anyMatch(query::contains))
+                .sorted(Comparator.comparing(Document::getId))
+                .limit(request.getTopK())
+                .toList();
+        }
+    }
+}
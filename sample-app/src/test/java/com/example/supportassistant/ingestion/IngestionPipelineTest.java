@@ -0,0 +1,168 @@
+package com.example.supportassistant.ingestion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Ingests files of a temporary directory into an in-memory vector store that can be told to fail
+ * batches, with one chunk per batch and room for one split file between splitting and batching.
+ */
+class IngestionPipelineTest {
+
+    @TempDir
+    private Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryVectorStore vectorStore = new InMemoryVectorStore();
+
+    private IngestionPipeline pipeline;
+
+    @AfterEach
+    void close() {
+        pipeline.close();
+    }
+
+    @Test
+    void reRunIngestsOnlyChangedFiles() throws Exception {
+        pipeline = pipeline();
+        write("a.md", "How to reset a password.");
+        write("b.md", "How to download an invoice.");
+        assertThat(pipeline.ingestAll().ingested()).isEqualTo(2);
+
+        write("b.md", "How to download an invoice as PDF.");
+        IngestionPipeline.IngestionReport report = pipeline.ingestAll();
+
+        assertThat(report.ingested()).isEqualTo(1);
+        assertThat(report.unchanged()).isEqualTo(1);
+        assertThat(vectorStore.texts()).containsExactlyInAnyOrder(
+            "How to reset a password.", "How to download an invoice as PDF.");
+    }
+
+    @Test
+    void chunksOfDeletedFilesAreDeleted() throws Exception {
+        pipeline = pipeline();
+        write("a.md", "How to reset a password.");
+        write("b.md", "How to download an invoice.");
+        pipeline.ingestAll();
+
+        Files.delete(directory.resolve("b.md"));
+        IngestionPipeline.IngestionReport report = pipeline.ingestAll();
+
+        assertThat(report.deleted()).isEqualTo(1);
+        assertThat(vectorStore.texts()).containsExactly("How to reset a password.");
+        assertThat(vectorStore.filterDeletes).hasSize(1);
+    }
+
+    @Test
+    void emptyDirectoryDeletesNothingByFilter() {
+        pipeline = pipeline();
+
+        assertThat(pipeline.ingestAll().ingested()).isZero();
+        assertThat(vectorStore.filterDeletes).isEmpty();
+    }
+
+    @Test
+    void fileOfAFailedBatchIsIngestedAgainOnTheNextRun() throws Exception {
+        pipeline = pipeline();
+        write("a.md", "How to reset a password.");
+        write("b.md", "How to download an invoice.");
+        vectorStore.failing = batch -> batch.stream()
+            .anyMatch(document -> "b.md".equals(document.getMetadata().get(IngestionPipeline.SOURCE_METADATA)));
+
+        IngestionPipeline.IngestionReport failed = pipeline.ingestAll();
+
+        assertThat(failed.ingested()).isEqualTo(1);
+        assertThat(failed.failed()).isEqualTo(1);
+        assertThat(vectorStore.texts()).containsExactly("How to reset a password.");
+
+        vectorStore.failing = batch -> false;
+        IngestionPipeline.IngestionReport retried = pipeline.ingestAll();
+
+        assertThat(retried.ingested()).isEqualTo(1);
+        assertThat(retried.unchanged()).isEqualTo(1);
+        assertThat(vectorStore.texts()).hasSize(2);
+    }
+
+    @Test
+    void failedBatchingReleasesTheSplitter() throws Exception {
+        pipeline = pipeline();
+        for (int i = 0; i < 8; i++) {
+            write("file-" + i + ".md", "Question number " + i + " of the knowledge base.");
+        }
+
+        // batching fails on its first take, while the splitter fills the queue
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> pipeline.ingestAll()).hasMessageContaining("Interrupted");
+        assertThat(Thread.interrupted()).as("interrupt restored").isTrue();
+        assertThat(meterRegistry.get("assistant.ingestion.files.pending").gauge().value()).isZero();
+
+        IngestionPipeline.IngestionReport report = assertTimeoutPreemptively(Duration.ofSeconds(10),
+            () -> pipeline.ingestAll());
+
+        assertThat(report.ingested()).isEqualTo(8);
+        assertThat(vectorStore.texts()).hasSize(8);
+    }
+
+    private IngestionPipeline pipeline() {
+        return new IngestionPipeline(vectorStore, new IngestionProperties(true, directory, List.of("md"), 800, 1, 1,
+            8000, 2, 1, false, Duration.ofMillis(500)), meterRegistry);
+    }
+
+    private void write(String fileName, String content) throws Exception {
+        Files.writeString(directory.resolve(fileName), content);
+    }
+
+    private static final class InMemoryVectorStore implements VectorStore {
+
+        private final Map<String, Document> documents = new ConcurrentHashMap<>();
+        private final List<Filter.Expression> filterDeletes = new CopyOnWriteArrayList<>();
+        private volatile Predicate<List<Document>> failing = batch -> false;
+
+        List<String> texts() {
+            return documents.values().stream().map(Document::getText).toList();
+        }
+
+        @Override
+        public void add(List<Document> batch) {
+            if (failing.test(batch)) {
+                throw new IllegalStateException("Embedding failed");
+            }
+            batch.forEach(document -> documents.put(document.getId(), document));
+        }
+
+        @Override
+        public void delete(List<String> ids) {
+            ids.forEach(documents::remove);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            filterDeletes.add(filterExpression);
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.supportassistant.mcp;
+
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import com.example.supportassistant.TestSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static com.example.supportassistant.TestSupport.await;
+
+/**
+ * Opens MCP sessions against the application's own MCP server with a small session limit and a short
+ * idle timeout, using the MCP SDK's Streamable-HTTP client.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+    "support-assistant.mcp-server.enabled=true",
+    "support-assistant.mcp-server.max-sessions=" + McpSessionManagerTest.MAX_SESSIONS,
+    "support-assistant.mcp-server.idle-timeout=1s",
+    "support-assistant.mcp-server.reap-interval=100ms"
+})
+class McpSessionManagerTest {
+
+    static final int MAX_SESSIONS = 3;
+
+    private static final int PORT = TestSupport.freePort();
+
+    @DynamicPropertySource
+    static void mockService(DynamicPropertyRegistry registry) {
+        TestSupport.serveMockOn(PORT, registry);
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private McpServerMode mcpServerMode;
+
+    @Test
+    void burstOfInitializeRequestsOpensNoMoreThanMaxSessions() throws Exception {
+        double rejectedBefore = meterRegistry.get("assistant.mcp.sessions.rejected").counter().count();
+        List<McpSyncClient> clients = new ArrayList<>();
+        for (int i = 0; i < 4 * MAX_SESSIONS; i++) {
+            clients.add(client(i));
+        }
+
+        List<Boolean> opened = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> futures = clients.stream().map(client -> executor.submit(() -> {
+                start.await();
+                try {
+                    client.initialize();
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            })).toList();
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                opened.add(future.get());
+            }
+        }
+
+        try {
+            assertThat(opened).filteredOn(Boolean::booleanValue).hasSize(MAX_SESSIONS);
+            assertThat(sessions()).isEqualTo(MAX_SESSIONS);
+            assertThat(meterRegistry.get("assistant.mcp.sessions.rejected").counter().count() - rejectedBefore)
+                .isEqualTo(clients.size() - MAX_SESSIONS);
+        } finally {
+            clients.forEach(McpSyncClient::closeGracefully);
+        }
+        await(() -> sessions() == 0);
+    }
+
+    @Test
+    void idleSessionsAreClosedAndTheirSlotsReleased() throws Exception {
+        double idleBefore = closed("idle");
+        McpSyncClient idle = client(0);
+        idle.initialize();
+
+        await(() -> closed("idle") - idleBefore == 1 && sessions() == 0);
+        assertThat(transportSessions()).isEmpty();
+
+        List<McpSyncClient> clients = new ArrayList<>();
+        try {
+            for (int i = 1; i <= MAX_SESSIONS; i++) {
+                McpSyncClient client = client(i);
+                clients.add(client);
+                assertThat(client.initialize()).isNotNull();
+            }
+        } finally {
+            clients.forEach(McpSyncClient::closeGracefully);
+        }
+        await(() -> sessions() == 0);
+
+        // the closed session is answered with 404, the call fails and the client starts a new session
+        try {
+            assertThatThrownBy(idle::listTools).hasMessageContaining("terminated");
+            assertThat(idle.listTools().tools()).isNotNull();
+            assertThat(sessions()).isEqualTo(1);
+        } finally {
+            idle.closeGracefully();
+        }
+    }
+
+    private static McpSyncClient client(int number) {
+        return McpClient.sync(HttpClientStreamableHttpTransport.builder("http://localhost:" + PORT).endpoint("/mcp").build())
+            .requestTimeout(Duration.ofSeconds(10))
+            .clientInfo(new McpSchema.Implementation("mcp-session-test-" + number, "1.0.0"))
+            .build();
+    }
+
+    /**
+     * The sessions the transport holds, which it forgets only when it handles a {@code DELETE} request.
+     */
+    private Map<?, ?> transportSessions() {
+        Object transport = ReflectionTestUtils.getField(mcpServerMode, "transport");
+        return (Map<?, ?>) ReflectionTestUtils.getField(transport, "sessions");
+    }
+
+    private double sessions() {
+        return meterRegistry.get("assistant.mcp.sessions").gauge().value();
+    }
+
+    private double closed(String reason) {
+        return meterRegistry.get("assistant.mcp.sessions.closed").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.supportassistant.memory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.example.supportassistant.TestSupport.await;
+
+/**
+ * Drives {@link CompactingChatMemory} with a stub summarizer and small token limits, so compaction and
+ * eviction set in after a few messages.
+ */
+class CompactingChatMemoryTest {
+
+    private static final int TOKEN_BUDGET = 100;
+    private static final int COMPACTION_THRESHOLD = 200;
+
+    @TempDir
+    private Path spillDirectory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger summaries = new AtomicInteger();
+    private final ConversationSummarizer summarizer = (previousSummary, messages) ->
+        "summary " + summaries.incrementAndGet() + " of " + messages.size() + " messages";
+
+    @Test
+    void oldTurnsAreFoldedIntoASummaryWithinTheTokenBudget() throws Exception {
+        try (CompactingChatMemory memory = memory(1_000_000, false)) {
+            List<Message> turns = IntStream.range(0, 10).<Message>mapToObj(CompactingChatMemoryTest::turn).toList();
+            memory.add("conversation", turns);
+
+            await(() -> count("assistant.chat.memory.summarizations", "result", "success") == 1);
+            List<Message> window = memory.get("conversation");
+
+            assertThat(window.getFirst()).isInstanceOf(SystemMessage.class);
+            assertThat(window.getFirst().getText()).startsWith("Summary of the earlier conversation: summary 1 of ");
+            assertThat(window.getLast()).isSameAs(turns.getLast());
+            assertThat(window.subList(1, window.size())).isEqualTo(turns.subList(turns.size() - window.size() + 1, turns.size()));
+            assertThat(window).hasSizeLessThan(turns.size());
+        }
+    }
+
+    @Test
+    void evictedConversationsAreSpilledAndRestored() throws Exception {
+        int conversations = 20;
+        int maxResidentTokens = 200;
+        try (CompactingChatMemory memory = memory(maxResidentTokens, true)) {
+            for (int i = 0; i < conversations; i++) {
+                memory.add("conversation-" + i, List.of(turn(i), new AssistantMessage("answer " + i)));
+            }
+
+            // Once eviction has caught up, every conversation is either resident or in a spill file. The
+            // resident tokens are only updated by the cache's asynchronous maintenance, so wait for a spill.
+            await(() -> count("assistant.chat.memory.spills", "operation", "write") > 0
+                && gauge("assistant.chat.memory.resident.tokens") <= maxResidentTokens
+                && gauge("cache.size") + count("assistant.chat.memory.spills", "operation", "write") == conversations);
+            assertThat(spillFiles()).isNotEmpty();
+
+            for (int i = 0; i < conversations; i++) {
+                assertThat(memory.get("conversation-" + i)).extracting(Message::getText)
+                    .containsExactly(turn(i).getText(), "answer " + i);
+            }
+            assertThat(count("assistant.chat.memory.spills", "operation", "read")).isPositive();
+        }
+    }
+
+    @Test
+    void conversationsReadWhileTheirSpillIsPendingAreNotLost() throws Exception {
+        int conversations = 20;
+        try (CompactingChatMemory memory = memory(200, true)) {
+            for (int i = 0; i < conversations; i++) {
+                memory.add("conversation-" + i, List.of(turn(i), new AssistantMessage("answer " + i)));
+                // right after the eviction, before the removal listener wrote the spill file
+                for (int j = 0; j <= i; j++) {
+                    assertThat(memory.get("conversation-" + j)).extracting(Message::getText)
+                        .containsExactly(turn(j).getText(), "answer " + j);
+                }
+            }
+        }
+    }
+
+    @Test
+    void conversationsSpilledOnCloseAreRestoredAndAppendedTo() throws Exception {
+        try (CompactingChatMemory memory = memory(1_000_000, true)) {
+            memory.add("conversation", List.of(turn(1), new AssistantMessage("answer 1")));
+        }
+        assertThat(spillFiles()).hasSize(1);
+
+        try (CompactingChatMemory memory = memory(1_000_000, true)) {
+            memory.add("conversation", List.of(turn(2)));
+
+            assertThat(memory.get("conversation")).extracting(Message::getText)
+                .containsExactly(turn(1).getText(), "answer 1", turn(2).getText());
+            assertThat(spillFiles()).isEmpty();
+            assertThat(count("assistant.chat.memory.spills", "operation", "read")).isEqualTo(1);
+        }
+    }
+
+    private CompactingChatMemory memory(long maxResidentTokens, boolean spill) {
+        return new CompactingChatMemory(summarizer, new ChatMemoryProperties(true, TOKEN_BUDGET, COMPACTION_THRESHOLD,
+            1, Duration.ofMinutes(30), maxResidentTokens, new ChatMemoryProperties.Spill(spill, spillDirectory)),
+            meterRegistry);
+    }
+
+    /**
+     * A user message of about 30 tokens.
+     */
+    private static UserMessage turn(int index) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 28; i++) {
+            words.add("upgrade");
+        }
+        return new UserMessage("Question " + index + ": " + String.join(" ", words));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private double count(String name, String tagKey, String tagValue) {
+        return meterRegistry.get(name).tag(tagKey, tagValue).counter().count();
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Embeds texts through a cache of two vectors in front of an engine that records what it generates.
+ */
+class CachingEmbeddingEngineTest {
+
+    private final List<String> generated = new CopyOnWriteArrayList<>();
+    private final HashEmbeddingEngine delegate = new HashEmbeddingEngine();
+    private final CachingEmbeddingEngine engine = new CachingEmbeddingEngine((text, dimensions) -> {
+        generated.add(text + "/" + dimensions);
+        return delegate.embed(text, dimensions);
+    }, 2);
+
+    @Test
+    void repeatedTextIsServedFromTheCache() {
+        float[] first = engine.embed("reset password", 16);
+
+        assertThat(engine.embed("reset password", 16)).isSameAs(first);
+        assertThat(first).containsExactly(delegate.embed("reset password", 16));
+        assertThat(generated).containsExactly("reset password/16");
+    }
+
+    @Test
+    void vectorsAreCachedPerDimensions() {
+        engine.embed("reset password", 16);
+        engine.embed("reset password", 32);
+
+        assertThat(engine.embed("reset password", 32)).hasSize(32);
+        assertThat(generated).containsExactly("reset password/16", "reset password/32");
+    }
+
+    @Test
+    void leastRecentlyUsedVectorIsEvicted() {
+        engine.embed("a", 16);
+        engine.embed("b", 16);
+        // a is now more recently used than b
+        engine.embed("a", 16);
+        engine.embed("c", 16);
+
+        engine.embed("a", 16);
+        engine.embed("b", 16);
+
+        assertThat(generated).containsExactly("a/16", "b/16", "c/16", "b/16");
+    }
+
+    @Test
+    void sizeMustBePositive() {
+        assertThatThrownBy(() -> new CachingEmbeddingEngine(delegate, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
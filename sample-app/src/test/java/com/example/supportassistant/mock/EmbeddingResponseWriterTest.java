@@ -0,0 +1,70 @@
+package com.example.supportassistant.mock;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.openai.api.OpenAiApi;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the streamed embedding JSON parses into the same values with Spring AI's OpenAI client types.
+ */
+class EmbeddingResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockResponseRegistry responseRegistry = new MockResponseRegistry(new HashEmbeddingEngine(), 1536);
+
+    @Test
+    void embeddingListIsParsedBySpringAiOpenAiClient() throws Exception {
+        List<String> inputs = List.of("What is Tanzu Spring?", "CVE patches", "");
+
+        OpenAiApi.EmbeddingList<OpenAiApi.Embedding> list = parse(inputs, responseRegistry::generateEmbedding);
+
+        assertThat(list.object()).isEqualTo("list");
+        assertThat(list.model()).isEqualTo("mock-text-embedding-ada-002");
+        assertThat(list.usage().promptTokens()).isEqualTo(32 / 4);
+        assertThat(list.usage().totalTokens()).isEqualTo(32 / 4);
+        assertThat(list.data()).hasSize(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            OpenAiApi.Embedding embedding = list.data().get(i);
+            assertThat(embedding.index()).isEqualTo(i);
+            assertThat(embedding.object()).isEqualTo("embedding");
+            assertThat(embedding.embedding()).containsExactly(responseRegistry.generateEmbedding(inputs.get(i)));
+        }
+    }
+
+    @Test
+    void floatsRoundTripExactly() throws Exception {
+        Random random = new Random(42);
+        float[] values = new float[10_000];
+        float[] special = {0f, -0f, 1f, -1f, 0.5f, 0.1f, 100f, 1e7f, 9999999f, 1e-3f, 9.9999e-4f, 1.17549435E-38f,
+            Float.MIN_VALUE, Float.MAX_VALUE, 123456.78f, -3.4e-12f};
+        System.arraycopy(special, 0, values, 0, special.length);
+        for (int i = special.length; i < values.length; i++) {
+            values[i] = i % 2 == 0
+                ? random.nextFloat() * 2 - 1
+                : Float.intBitsToFloat(random.nextInt() & 0x7f7fffff);
+        }
+
+        OpenAiApi.EmbeddingList<OpenAiApi.Embedding> list = parse(List.of("values"), input -> values);
+
+        float[] parsed = list.data().get(0).embedding();
+        assertThat(parsed).hasSize(values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(Float.floatToIntBits(parsed[i])).as("value %s", values[i]).isEqualTo(Float.floatToIntBits(values[i]));
+        }
+    }
+
+    private OpenAiApi.EmbeddingList<OpenAiApi.Embedding> parse(
+            List<String> inputs, Function<String, float[]> embeddings) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EmbeddingResponseWriter.write(out, "mock-text-embedding-ada-002", inputs, embeddings);
+        return objectMapper.readValue(out.toByteArray(), new TypeReference<>() {});
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Compares the embeddings of support questions, some of which ask the same in other words.
+ */
+class FeatureHashingEmbeddingEngineTest {
+
+    private static final int DIMENSIONS = 384;
+
+    private final FeatureHashingEmbeddingEngine engine = new FeatureHashingEmbeddingEngine();
+
+    @Test
+    void paraphrasesAreCloserThanUnrelatedTexts() {
+        String question = "How do I reset my password?";
+
+        double paraphrase = similarity(question, "Resetting your forgotten passwords");
+        double unrelated = similarity(question, "Where can I download the invoices of last month?");
+
+        assertThat(paraphrase).isGreaterThan(0.4);
+        assertThat(unrelated).isLessThan(0.2);
+        assertThat(similarity("Which Java version does Spring Boot 3.5 require?",
+            "Required Java versions for Spring Boot 3.5")).isGreaterThan(similarity(
+            "Which Java version does Spring Boot 3.5 require?", "How do I upgrade the Tanzu Application Advisor?"));
+    }
+
+    @Test
+    void stopWordsOfAnyLengthAreIgnored() {
+        assertThat(engine.embed("Which of the patches are for your platform?", DIMENSIONS))
+            .containsExactly(engine.embed("patches platform", DIMENSIONS));
+    }
+
+    @Test
+    void embeddingsAreDeterministicUnitVectors() {
+        float[] embedding = engine.embed("Spring Boot upgrades", DIMENSIONS);
+
+        assertThat(embedding).containsExactly(engine.embed("spring boot UPGRADES", DIMENSIONS));
+        assertThat(dot(embedding, embedding)).isCloseTo(1, offset(1e-5));
+        // texts without features still get a unit vector
+        assertThat(dot(engine.embed("", DIMENSIONS), engine.embed("the", DIMENSIONS))).isEqualTo(1);
+    }
+
+    private double similarity(String a, String b) {
+        return dot(engine.embed(a, DIMENSIONS), engine.embed(b, DIMENSIONS));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Generates vectors for short texts and compares them.
+ */
+class HashEmbeddingEngineTest {
+
+    private final HashEmbeddingEngine engine = new HashEmbeddingEngine();
+
+    @Test
+    void sameTextGivesTheSameUnitVector() {
+        float[] embedding = engine.embed("How do I reset my password?", 1536);
+
+        assertThat(embedding).hasSize(1536).containsExactly(engine.embed("How do I reset my password?", 1536));
+        assertThat(dot(embedding, embedding)).isCloseTo(1, offset(1e-4));
+    }
+
+    @Test
+    void distinctTextsAreRoughlyOrthogonal() {
+        float[] password = engine.embed("How do I reset my password?", 1536);
+
+        // one changed character is a different seed, not a nearby vector
+        assertThat(dot(password, engine.embed("How do I reset my password!", 1536))).isBetween(-0.1, 0.1);
+        assertThat(dot(password, engine.embed("", 1536))).isBetween(-0.1, 0.1);
+    }
+
+    @Test
+    void smallerDimensionsArePrefixesBeforeNormalization() {
+        float[] full = engine.embed("Spring Boot", 8);
+        float[] truncated = engine.embed("Spring Boot", 4);
+
+        // components depend on the text and their index only
+        for (int i = 0; i < 4; i++) {
+            assertThat(Math.signum(truncated[i])).isEqualTo(Math.signum(full[i]));
+            assertThat(truncated[i] / truncated[0]).isCloseTo(full[i] / full[0], offset(1e-4f));
+        }
+    }
+
+    @Test
+    void dimensionsMustBePositive() {
+        assertThatThrownBy(() -> engine.embed("text", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void contentHashCoversBothBytesOfEveryCharacter() {
+        assertThat(HashEmbeddingEngine.contentHash("Ā")).isNotEqualTo(HashEmbeddingEngine.contentHash("\u0001"));
+        assertThat(HashEmbeddingEngine.contentHash("ab")).isNotEqualTo(HashEmbeddingEngine.contentHash("ba"));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
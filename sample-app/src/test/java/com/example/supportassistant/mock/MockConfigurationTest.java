@@ -0,0 +1,41 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the mock profile's configuration with different {@code mock.embedding} properties.
+ */
+class MockConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withInitializer(context -> context.getEnvironment().setActiveProfiles("mock"))
+        .withUserConfiguration(MockConfiguration.class);
+
+    @Test
+    void randomEngineIsTheDefault() {
+        contextRunner.run(context -> assertThat(context).getBean(MockEmbeddingEngine.class)
+            .isInstanceOf(HashEmbeddingEngine.class));
+    }
+
+    @Test
+    void modeSelectsTheEngineAndCacheSizeWrapsIt() {
+        contextRunner.withPropertyValues("mock.embedding.mode=semantic")
+            .run(context -> assertThat(context).getBean(MockEmbeddingEngine.class)
+                .isInstanceOf(FeatureHashingEmbeddingEngine.class));
+        contextRunner.withPropertyValues("mock.embedding.mode=semantic", "mock.embedding.cache-size=16")
+            .run(context -> assertThat(context).getBean(MockEmbeddingEngine.class)
+                .isInstanceOf(CachingEmbeddingEngine.class));
+    }
+
+    @Test
+    void customModeLeavesTheEngineToTheApplication() {
+        MockEmbeddingEngine custom = (text, dimensions) -> new float[dimensions];
+
+        contextRunner.withPropertyValues("mock.embedding.mode=custom")
+            .withBean(MockEmbeddingEngine.class, () -> custom)
+            .run(context -> assertThat(context).getBean(MockEmbeddingEngine.class).isSameAs(custom));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.evaluation.FactCheckingEvaluator;
+import org.springframework.ai.chat.evaluation.RelevancyEvaluator;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.evaluation.EvaluationRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Judges answers with Spring AI's evaluators, whose prompts are answered by a chat model that
+ * delegates to the {@link MockJudge}.
+ */
+class MockJudgeTest {
+
+    private static final String QUESTION = "How do I reset my password?";
+    private static final List<Document> CONTEXT = List.of(
+        new Document("To reset your password, open Settings, choose Security and follow the instructions."));
+
+    private final MockJudge judge = new MockJudge();
+    private final ChatModel judgeModel = prompt -> new ChatResponse(List.of(new Generation(
+        new AssistantMessage(judge.verdict(prompt.getUserMessage().getText()).orElseThrow()))));
+
+    @Test
+    void answerBuiltFromTheContextIsRelevant() {
+        assertThat(relevancy("Open Settings, choose Security and follow the instructions to reset your password."))
+            .isTrue();
+    }
+
+    @Test
+    void answerUnrelatedToTheContextIsNotRelevant() {
+        assertThat(relevancy("Invoices are downloaded from the Billing page as monthly statements.")).isFalse();
+        // short words do not count, so an answer of only short words is never supported
+        assertThat(relevancy("I do not know.")).isFalse();
+    }
+
+    @Test
+    void claimsAreCheckedAgainstTheDocument() {
+        FactCheckingEvaluator evaluator = FactCheckingEvaluator.builder(ChatClient.builder(judgeModel)).build();
+
+        assertThat(evaluator.evaluate(new EvaluationRequest(CONTEXT, "Passwords are reset under Settings, Security."))
+            .isPass()).isTrue();
+        assertThat(evaluator.evaluate(new EvaluationRequest(CONTEXT, "Accounts are deleted by emailing support."))
+            .isPass()).isFalse();
+    }
+
+    @Test
+    void otherPromptsGetNoVerdict() {
+        assertThat(judge.verdict(QUESTION)).isEmpty();
+        assertThat(judge.verdict("Is the following claim true? Document: Paris is in France. Claim: It is.")).isEmpty();
+    }
+
+    private boolean relevancy(String answer) {
+        return RelevancyEvaluator.builder().chatClientBuilder(ChatClient.builder(judgeModel)).build()
+            .evaluate(new EvaluationRequest(QUESTION, CONTEXT, answer))
+            .isPass();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.supportassistant.mock;
+
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import com.example.supportassistant.TestSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.ai.tool.function.FunctionToolCallback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static com.example.supportassistant.TestSupport.await;
+
+/**
+ * Drives the {@code ChatClient}'s tool-calling loop against the mock OpenAI endpoint with a prompt
+ * asking for two tools, offered under names of their own.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class MockToolCallingTest {
+
+    private static final String PROMPT = "What time is it in London? Please also open a ticket with high priority";
+
+    private static final int PORT = TestSupport.freePort();
+
+    @DynamicPropertySource
+    static void mockService(DynamicPropertyRegistry registry) {
+        TestSupport.serveMockOn(PORT, registry);
+    }
+
+    @Autowired
+    private ChatClient chatClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Object> calls = new CopyOnWriteArrayList<>();
+
+    @Test
+    void blockingCallRunsEveryRequestedToolAndAnswersWithTheirResults() throws Exception {
+        long requestsBefore = chatRequests();
+
+        String answer = chatClient.prompt()
+            .user(PROMPT)
+            .toolCallbacks(tools())
+            .call()
+            .content();
+
+        assertThat(calls).containsExactlyInAnyOrder(
+            new TimeRequest("Europe/London"), new TicketRequest(PROMPT, Priority.HIGH));
+        assertThat(answer).contains("**getCurrentDateTime**", "2025-01-01T09:00:00Z", "**createTicket**", "TSE-1");
+        // both calls in one response, then the answer
+        await(() -> chatRequests() - requestsBefore == 2);
+    }
+
+    @Test
+    void withoutParallelToolCallsEachToolTakesARoundTrip() throws Exception {
+        long requestsBefore = chatRequests();
+
+        String answer = chatClient.prompt()
+            .user(PROMPT)
+            .toolCallbacks(tools())
+            .options(OpenAiChatOptions.builder().parallelToolCalls(false).build())
+            .call()
+            .content();
+
+        // in the order the prompt's rules list them
+        assertThat(calls).containsExactly(new TimeRequest("Europe/London"), new TicketRequest(PROMPT, Priority.HIGH));
+        assertThat(answer).contains("**getCurrentDateTime**", "**createTicket**");
+        await(() -> chatRequests() - requestsBefore == 3);
+    }
+
+    @Test
+    void streamedToolCallsAreAssembledFromTheirDeltas() {
+        String answer = String.join("", chatClient.prompt()
+            .user(PROMPT)
+            .toolCallbacks(tools())
+            .stream()
+            .content()
+            .collectList()
+            .block());
+
+        assertThat(calls).containsExactlyInAnyOrder(
+            new TimeRequest("Europe/London"), new TicketRequest(PROMPT, Priority.HIGH));
+        assertThat(answer).contains("**getCurrentDateTime**", "2025-01-01T09:00:00Z", "**createTicket**", "TSE-1");
+    }
+
+    private long chatRequests() {
+        return meterRegistry.find("http.server.requests").tag("uri", "/mock/v1/chat/completions").timers().stream()
+            .mapToLong(Timer::count)
+            .sum();
+    }
+
+    private ToolCallback[] tools() {
+        return new ToolCallback[] {
+            FunctionToolCallback.builder("getCurrentDateTime", (TimeRequest request) -> {
+                    calls.add(request);
+                    return "2025-01-01T09:00:00Z";
+                })
+                .description("Returns the current date and time")
+                .inputType(TimeRequest.class)
+                .build(),
+            FunctionToolCallback.builder("createTicket", (TicketRequest request) -> {
+                    calls.add(request);
+                    return "TSE-1";
+                })
+                .description("Opens a support ticket")
+                .inputType(TicketRequest.class)
+                .build()
+        };
+    }
+
+    record TimeRequest(@ToolParam(description = "Time zone id, e.g., 'Europe/London'") String zone) {}
+
+    record TicketRequest(String title, Priority priority) {}
+
+    enum Priority { LOW, MEDIUM, HIGH }
+}
@@ -0,0 +1,127 @@
+package com.example.supportassistant.mock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classifies a table of prompts with the {@link MockResponseRegistry} and with the regular expressions
+ * its keyword rules replaced, kept here in the registry's order, each with a line of the response it selects.
+ */
+class PromptMatcherTest {
+
+    private static final List<FormerPattern> FORMER_PATTERNS = List.of(
+        new FormerPattern("(?i).*(what is|about|tell me).*tanzu.*spring.*(enterprise|runtime).*",
+            "Tanzu Spring is Broadcom's commercial offering"),
+        new FormerPattern("(?i).*(support|help|assistance).*tanzu.*spring.*", "Tanzu Spring support includes:"),
+        new FormerPattern("(?i).*(billing|invoice|payment|cost|price|subscription).*",
+            "I understand you have a billing-related question."),
+        new FormerPattern("(?i).*(cve|security|vulnerabilit|patch).*",
+            "Tanzu Spring provides comprehensive CVE"),
+        new FormerPattern("(?i).*(latest|current|version|release).*spring.*boot.*",
+            "Here are the current Spring Boot versions:"),
+        new FormerPattern("(?i).*spring.*cloud.*", "Spring Cloud provides tools"),
+        new FormerPattern("(?i)^(hi|hello|hey|greetings).*|.*(who are you|introduce yourself).*",
+            "Hello! I'm the Support Assistant"),
+        new FormerPattern("(?i).*(weather|temperature|forecast).*", "TOOL_CALL:get_weather"),
+        new FormerPattern("(?i).*(what time|current time|what's the time|time is it).*",
+            "TOOL_CALL:get_current_time"),
+        new FormerPattern("(?i).*(create|open|submit|file).*(ticket|case|issue).*", "TOOL_CALL:create_ticket"),
+        new FormerPattern("(?i).*(search|look up|find|latest news|recent).*", "TOOL_CALL:web_search"));
+
+    private static final List<String> PROMPTS = List.of(
+        // one rule each, in any case
+        "Tell me about Tanzu Spring Runtime",
+        "WHAT IS TANZU SPRING ENTERPRISE?",
+        "I need help with tanzu spring",
+        "How do I download my invoice?",
+        "Is there a patch for the latest CVE?",
+        "Which version of Spring Boot should I use?",
+        "How does Spring Cloud Gateway route requests?",
+        "Hello there",
+        "Who are you?",
+        "What's the weather in Paris?",
+        "What TiMe is it in Tokyo?",
+        "Please submit a support case",
+        "Look up the release notes",
+        // several rules match, the first one wins
+        "Can I get assistance with Tanzu Spring pricing?",
+        "Tell me about the Tanzu Spring Runtime subscription cost",
+        "Hi, what is the current time?",
+        "Find recent security advisories",
+        "What time is it? Please also open a ticket with high priority",
+        "Latest news about Spring Boot releases",
+        "current spring boot time",
+        // keywords within other keywords and words
+        "what is the time is it",
+        "The price is pricey",
+        "Reopen the showcase",
+        "Known vulnerabilities in Spring Cloud Config",
+        "hiking boots",
+        "they said hey",
+        // keywords out of order or split across lines
+        "cloud spring",
+        "spring boot latest",
+        "The issue is that I cannot file it",
+        "Tell me about Tanzu\nSpring Runtime",
+        "Ok\nhello",
+        "Hello\nwhat's the weather",
+        "Café menu",
+        "");
+
+    private final MockResponseRegistry registry = new MockResponseRegistry(new HashEmbeddingEngine(), 1536);
+
+    @Test
+    void firstMatchingRuleAgreesWithTheFormerRegularExpressions() {
+        BitSet winners = new BitSet(FORMER_PATTERNS.size());
+        for (String prompt : PROMPTS) {
+            int expected = firstMatch(prompt);
+            String response = registry.match(prompt).response();
+
+            if (expected < 0) {
+                assertThat(response).as(prompt).isEqualTo(registry.getDefaultResponse());
+            } else {
+                assertThat(response).as(prompt).startsWith(FORMER_PATTERNS.get(expected).responseStart());
+                winners.set(expected);
+            }
+        }
+        // every rule is selected by at least one prompt of the table
+        assertThat(winners.cardinality()).isEqualTo(FORMER_PATTERNS.size());
+    }
+
+    @Test
+    void requestedToolsAgreeWithTheFormerRegularExpressions() {
+        for (String prompt : PROMPTS) {
+            List<String> expected = FORMER_PATTERNS.stream()
+                .filter(pattern -> pattern.regex().matcher(prompt).find())
+                .map(FormerPattern::responseStart)
+                .filter(response -> response.startsWith("TOOL_CALL:"))
+                .map(response -> response.substring("TOOL_CALL:".length()))
+                .toList();
+
+            assertThat(registry.matchToolCalls(prompt)).as(prompt).isEqualTo(expected);
+        }
+        assertThat(registry.matchToolCalls("What time is it? Please also open a ticket with high priority"))
+            .containsExactly("get_current_time", "create_ticket");
+    }
+
+    private static int firstMatch(String prompt) {
+        for (int i = 0; i < FORMER_PATTERNS.size(); i++) {
+            if (FORMER_PATTERNS.get(i).regex().matcher(prompt).find()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private record FormerPattern(Pattern regex, String responseStart) {
+
+        FormerPattern(String regex, String responseStart) {
+            this(Pattern.compile(regex), responseStart);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.supportassistant.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Generates tool call arguments for parameter schemas like those Spring AI derives from tool methods.
+ */
+class ToolArgumentGeneratorTest {
+
+    private final ToolArgumentGenerator generator = new ToolArgumentGenerator();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void enumTakesTheValueMentionedInThePrompt() throws Exception {
+        Map<String, Object> schema = object(Map.of("priority", Map.of("type", "string",
+            "enum", List.of("LOW", "MEDIUM", "HIGH"))));
+
+        assertThat(arguments(schema, "Open a ticket with high priority")).containsEntry("priority", "HIGH");
+        // only whole words count: "slow" does not mention LOW
+        assertThat(arguments(schema, "The dashboard is slow")).containsEntry("priority", "LOW");
+    }
+
+    @Test
+    void stringTakesTheExampleOfItsDescription() throws Exception {
+        Map<String, Object> schema = object(Map.of("zone", Map.of("type", "string",
+            "description", "Time zone id, e.g., 'Europe/London'")));
+
+        assertThat(arguments(schema, "What time is it?")).containsEntry("zone", "Europe/London");
+    }
+
+    @Test
+    void constantsListedInTheDescriptionStandInForAnEnum() throws Exception {
+        Map<String, Object> schema = object(Map.of("severity", Map.of("type", "string",
+            "description", "Severity: LOW, MEDIUM, HIGH, or CRITICAL")));
+
+        assertThat(arguments(schema, "Production is down, this is critical")).containsEntry("severity", "CRITICAL");
+        assertThat(arguments(schema, "Please open a ticket")).containsEntry("severity", "LOW");
+    }
+
+    @Test
+    void otherValuesFollowTypeFormatAndName() throws Exception {
+        Map<String, Object> schema = object(Map.of(
+            "title", Map.of("type", "string"),
+            "contactEmail", Map.of("type", "string"),
+            "dueDate", Map.of("type", "string", "format", "date"),
+            "count", Map.of("type", "integer", "minimum", 3),
+            "tags", Map.of("type", "array", "items", Map.of("type", "string")),
+            "urgent", Map.of("type", List.of("boolean", "null"))));
+
+        assertThat(arguments(schema, "  Login fails after upgrade  "))
+            .containsEntry("title", "Login fails after upgrade")
+            .containsEntry("contactEmail", "user@example.com")
+            .containsEntry("dueDate", "2025-01-01")
+            .containsEntry("count", 3)
+            .containsEntry("tags", List.of("Login fails after upgrade"))
+            .containsEntry("urgent", true);
+    }
+
+    @Test
+    void toolWithoutParametersGetsAnEmptyObject() {
+        assertThat(generator.generate(null, "What time is it?")).isEqualTo("{}");
+    }
+
+    private Map<String, Object> arguments(Map<String, Object> schema, String prompt) throws Exception {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> arguments = objectMapper.readValue(generator.generate(schema, prompt), Map.class);
+        return arguments;
+    }
+
+    private static Map<String, Object> object(Map<String, Object> properties) {
+        return Map.of("type", "object", "properties", properties);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.supportassistant.observability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Passes requests through an {@link AiMetricsAdvisor} to a stub chain that returns a canned response,
+ * or streams canned chunks 50 ms apart.
+ */
+class AiMetricsAdvisorTest {
+
+    private static final Duration CHUNK_DELAY = Duration.ofMillis(50);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AiMetricsAdvisor advisor = new AiMetricsAdvisor(meterRegistry);
+    private final ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("Hello")).build();
+
+    @Test
+    void callRecordsTokensByType() {
+        advisor.adviseCall(request, new StubChain(Flux.empty(), chunk("Hi there", new DefaultUsage(12, 3))));
+
+        assertThat(tokens("prompt", "call")).isEqualTo(12);
+        assertThat(tokens("completion", "call")).isEqualTo(3);
+        assertThat(tokens("prompt", "stream")).isZero();
+    }
+
+    @Test
+    void streamRecordsTimeToFirstTokenInterTokenTimesAndTokens() {
+        // the usage is repeated on the final chunk without content, and counted once
+        Flux<ChatClientResponse> chunks = Flux.concat(
+                Flux.just(chunk("Hi", null), chunk(" there", null), chunk("!", new DefaultUsage(12, 3)))
+                    .delayElements(CHUNK_DELAY),
+                Flux.just(chunk("", new DefaultUsage(12, 3))));
+
+        List<ChatClientResponse> streamed = advisor.adviseStream(request, new StubChain(chunks, null)).collectList().block();
+
+        assertThat(streamed).hasSize(4);
+        Timer firstToken = meterRegistry.get("assistant.ai.stream.first-token").tag("model", "stub-model").timer();
+        Timer interToken = meterRegistry.get("assistant.ai.stream.inter-token").tag("model", "stub-model").timer();
+        assertThat(firstToken.count()).isEqualTo(1);
+        assertThat(firstToken.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(CHUNK_DELAY.toMillis());
+        assertThat(interToken.count()).isEqualTo(2);
+        assertThat(interToken.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(2 * CHUNK_DELAY.toMillis());
+        assertThat(tokens("prompt", "stream")).isEqualTo(12);
+        assertThat(tokens("completion", "stream")).isEqualTo(3);
+        assertThat(tokens("prompt", "call")).isZero();
+    }
+
+    @Test
+    void failedStreamRecordsTheUsageReportedBeforeTheError() {
+        Flux<ChatClientResponse> chunks = Flux.concat(Flux.just(chunk("Hi", new DefaultUsage(12, 1))),
+            Flux.error(new IllegalStateException("connection reset")));
+
+        assertThatThrownBy(() -> advisor.adviseStream(request, new StubChain(chunks, null)).blockLast())
+            .hasMessageContaining("connection reset");
+
+        assertThat(tokens("prompt", "stream")).isEqualTo(12);
+        assertThat(tokens("completion", "stream")).isEqualTo(1);
+        assertThat(meterRegistry.get("assistant.ai.stream.first-token").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledStreamRecordsTheUsageReportedBeforeTheCancellation() {
+        Flux<ChatClientResponse> chunks = Flux.concat(Flux.just(chunk("Hi", new DefaultUsage(12, 1))), Flux.never());
+
+        advisor.adviseStream(request, new StubChain(chunks, null)).take(1).blockLast();
+
+        assertThat(tokens("prompt", "stream")).isEqualTo(12);
+    }
+
+    private double tokens(String type, String mode) {
+        Counter counter = meterRegistry.find("assistant.ai.tokens").tags("type", type, "mode", mode).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static ChatClientResponse chunk(String text, DefaultUsage usage) {
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().model("stub-model");
+        if (usage != null) {
+            metadata.usage(usage);
+        }
+        return ChatClientResponse.builder()
+            .chatResponse(new ChatResponse(List.of(new Generation(new AssistantMessage(text))), metadata.build()))
+            .build();
+    }
+
+    private record StubChain(Flux<ChatClientResponse> stream, ChatClientResponse response)
+            implements CallAdvisorChain, StreamAdvisorChain {
+
+        @Override
+        public ChatClientResponse nextCall(ChatClientRequest request) {
+            return response;
+        }
+
+        @Override
+        public Flux<ChatClientResponse> nextStream(ChatClientRequest request) {
+            return stream;
+        }
+
+        @Override
+        public List<CallAdvisor> getCallAdvisors() {
+            return List.of();
+        }
+
+        @Override
+        public List<StreamAdvisor> getStreamAdvisors() {
+            return List.of();
+        }
+
+        @Override
+        public CallAdvisorChain copy(CallAdvisor after) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.supportassistant.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.advisor.observation.AdvisorObservationContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.observation.EmbeddingModelObservationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Makes observations like those Spring AI makes of advisor chains and embedding models, on an
+ * observation registry with the {@link AiObservationMetricsHandler}.
+ */
+class AiObservationMetricsHandlerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final ChatClientRequest request = ChatClientRequest.builder().prompt(new Prompt("Hello")).build();
+
+    AiObservationMetricsHandlerTest() {
+        observationRegistry.observationConfig().observationHandler(new AiObservationMetricsHandler(meterRegistry));
+    }
+
+    @Test
+    void nestedAdvisorTimeIsSubtractedFromTheOuterAdvisor() throws Exception {
+        Observation outer = advisor("outer", null).start();
+        Thread.sleep(50);
+        Observation first = advisor("inner", outer).start();
+        Thread.sleep(150);
+        first.stop();
+        Observation second = advisor("inner", outer).start();
+        Thread.sleep(150);
+        second.stop();
+        Thread.sleep(50);
+        outer.stop();
+
+        double outerMillis = advisorMillis("outer");
+        double innerMillis = advisorMillis("inner");
+        // 100 ms of its own, not the 400 ms the outer observation took
+        assertThat(outerMillis).isBetween(100.0, 250.0);
+        assertThat(innerMillis).isGreaterThanOrEqualTo(300);
+        assertThat(meterRegistry.get("assistant.ai.advisor").tag("advisor", "inner").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void embeddingBatchSizeIsRecordedByModel() {
+        EmbeddingModelObservationContext context = EmbeddingModelObservationContext.builder()
+            .embeddingRequest(new EmbeddingRequest(List.of("a", "b", "c"), null))
+            .provider("stub")
+            .build();
+
+        Observation.createNotStarted("embedding", () -> context, observationRegistry).observe(() -> { });
+
+        assertThat(meterRegistry.get("assistant.ai.embedding.batch.size").tag("model", "unknown").summary()
+            .totalAmount()).isEqualTo(3);
+    }
+
+    private Observation advisor(String name, Observation parent) {
+        AdvisorObservationContext context = AdvisorObservationContext.builder()
+            .advisorName(name)
+            .chatClientRequest(request)
+            .order(0)
+            .build();
+        return Observation.createNotStarted("advisor", () -> context, observationRegistry).parentObservation(parent);
+    }
+
+    private double advisorMillis(String advisor) {
+        return meterRegistry.get("assistant.ai.advisor").tag("advisor", advisor).timer().totalTime(TimeUnit.MILLISECONDS);
+    }
+}
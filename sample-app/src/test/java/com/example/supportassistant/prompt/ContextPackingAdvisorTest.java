@@ -0,0 +1,154 @@
+package com.example.supportassistant.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Packs prompts assembled like {@code QuestionAnswerAdvisor} does, with the retrieved documents
+ * stuffed into the question and published in the request context, and inspects what reaches the model.
+ */
+class ContextPackingAdvisorTest {
+
+    private static final String DOCUMENTS = "qa_retrieved_documents";
+
+    private final TokenCounter tokenCounter = new TokenCounter();
+
+    private static final Document UPGRADE = document("upgrade", 0.9,
+        "Spring Boot 3.5 upgrades require Java 17 and bring new observability features for applications");
+    private static final Document UPGRADE_COPY = document("upgrade-copy", 0.89,
+        "Spring Boot 3.5 upgrades require Java 17 and bring new observability features for applications and more");
+    private static final Document ADVISOR = document("advisor", 0.8,
+        "Tanzu Application Advisor scans repositories and proposes upgrade recipes for outdated dependencies");
+    private static final Document SUPPORT = document("support", 0.85,
+        "Spring Boot 3.5 upgrades require Java 17 while the commercial support window covers older releases for longer");
+
+    @Test
+    void documentsAreReselectedByMaximalMarginalRelevance() {
+        ContextPackingAdvisor advisor = advisor(4000, 2000);
+
+        ChatClientRequest packed = pack(advisor, List.of(new UserMessage(question(UPGRADE, UPGRADE_COPY, SUPPORT, ADVISOR))),
+            UPGRADE, UPGRADE_COPY, SUPPORT, ADVISOR);
+
+        // SUPPORT is more relevant than ADVISOR but repeats half of UPGRADE, the copy repeats all of it
+        assertThat(packed.context().get(DOCUMENTS)).isEqualTo(List.of(UPGRADE, ADVISOR, SUPPORT));
+        assertThat(packed.prompt().getUserMessage().getText()).isEqualTo(question(UPGRADE, ADVISOR, SUPPORT));
+        ContextPackingAdvisor.Report report = report(packed);
+        assertThat(report.documentsRetrieved()).isEqualTo(4);
+        assertThat(report.documentsPacked()).isEqualTo(3);
+        assertThat(report.duplicatesDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void promptIsPackedWithinTheTokenBudgets() {
+        int maxPromptTokens = 150;
+        int maxContextTokens = 40;
+        ContextPackingAdvisor advisor = advisor(maxPromptTokens, maxContextTokens);
+        List<Message> messages = new ArrayList<>();
+        messages.add(new SystemMessage("You are a support assistant for Tanzu Spring."));
+        for (int i = 0; i < 10; i++) {
+            messages.add(new UserMessage("Earlier question number " + i + " about Spring Boot upgrades?"));
+            messages.add(new AssistantMessage("Earlier answer number " + i + " about Spring Boot upgrades."));
+        }
+        UserMessage question = new UserMessage(question(UPGRADE, ADVISOR, SUPPORT));
+        messages.add(question);
+
+        ChatClientRequest packed = pack(advisor, messages, UPGRADE, ADVISOR, SUPPORT);
+
+        List<Message> sent = packed.prompt().getInstructions();
+        @SuppressWarnings("unchecked")
+        List<Document> documents = (List<Document>) packed.context().get(DOCUMENTS);
+        assertThat(documents).isNotEmpty().hasSizeLessThan(3)
+            .allSatisfy(document -> assertThat(document.getId()).isIn("upgrade", "advisor", "support"));
+        assertThat(documents.stream().mapToInt(document -> tokenCounter.count(document.getText()) + 1).sum())
+            .isLessThanOrEqualTo(maxContextTokens);
+        assertThat(tokenCounter.count(sent)).isLessThanOrEqualTo(maxPromptTokens);
+        assertThat(sent.getFirst()).isSameAs(messages.getFirst());
+        assertThat(sent.get(sent.size() - 2)).isSameAs(messages.get(messages.size() - 2));
+        assertThat(sent).doesNotContain(messages.get(1));
+        assertThat(sent.getLast().getText()).isEqualTo(question(documents.toArray(Document[]::new)));
+
+        ContextPackingAdvisor.Report report = report(packed);
+        assertThat(report.tokensBefore()).isEqualTo(tokenCounter.count(messages));
+        assertThat(report.tokensAfter()).isEqualTo(tokenCounter.count(sent));
+        assertThat(report.historyDropped()).isEqualTo(messages.size() - sent.size());
+    }
+
+    @Test
+    void messagesAreCountedWithTheirFraming() {
+        UserMessage message = new UserMessage("hello world");
+
+        assertThat(tokenCounter.count("hello world")).isEqualTo(2);
+        assertThat(tokenCounter.count(message)).isEqualTo(TokenCounter.MESSAGE_OVERHEAD + tokenCounter.count("user") + 2);
+        assertThat(tokenCounter.count(List.of(message, message)))
+            .isEqualTo(TokenCounter.REPLY_PRIMING + 2 * tokenCounter.count(message));
+    }
+
+    private ContextPackingAdvisor advisor(int maxPromptTokens, int maxContextTokens) {
+        return new ContextPackingAdvisor(
+            new ContextPackingProperties(true, maxPromptTokens, maxContextTokens, 0.5, 0.8), tokenCounter);
+    }
+
+    private static ChatClientRequest pack(ContextPackingAdvisor advisor, List<Message> messages, Document... documents) {
+        ChatClientRequest request = ChatClientRequest.builder()
+            .prompt(new Prompt(messages))
+            .context(Map.of(DOCUMENTS, List.of(documents)))
+            .build();
+        CapturingChain chain = new CapturingChain();
+        advisor.adviseCall(request, chain);
+        return chain.request;
+    }
+
+    /**
+     * The question followed by the documents, joined like {@code QuestionAnswerAdvisor} joins them.
+     */
+    private static String question(Document... documents) {
+        return "How do I upgrade to Spring Boot 3.5?\n\nContext information is below.\n---------------------\n"
+            + List.of(documents).stream().map(Document::getText).collect(Collectors.joining(System.lineSeparator()))
+            + "\n---------------------\n";
+    }
+
+    private static ContextPackingAdvisor.Report report(ChatClientRequest request) {
+        return (ContextPackingAdvisor.Report) request.context().get(ContextPackingAdvisor.REPORT);
+    }
+
+    private static Document document(String id, double score, String text) {
+        return Document.builder().id(id).text(text).score(score).build();
+    }
+
+    private static final class CapturingChain implements CallAdvisorChain {
+
+        private ChatClientRequest request;
+
+        @Override
+        public ChatClientResponse nextCall(ChatClientRequest request) {
+            this.request = request;
+            return ChatClientResponse.builder().build();
+        }
+
+        @Override
+        public List<CallAdvisor> getCallAdvisors() {
+            return List.of();
+        }
+
+        @Override
+        public CallAdvisorChain copy(CallAdvisor after) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.supportassistant.resilience;
+
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import com.example.supportassistant.TestSupport;
+import com.example.supportassistant.SupportAssistantApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes the {@code ChatClient} across three mock OpenAI services: the test application's own, one
+ * that stalls some requests for seconds and one that fails every request. The latter two run in
+ * application contexts of their own on other ports.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT, properties = {
+    "spring.ai.retry.backoff.initial-interval=10ms",
+    "spring.ai.retry.backoff.max-interval=50ms",
+    "mock.simulation.enabled=true",
+    "mock.simulation.tokens-per-second=10000",
+    "support-assistant.client-resilience.enabled=true",
+    "support-assistant.client-resilience.hedging.percentile=50",
+    "support-assistant.client-resilience.hedging.window=500ms",
+    "support-assistant.client-resilience.hedging.min-samples=5",
+    "support-assistant.client-resilience.hedging.budget=1",
+    "support-assistant.client-resilience.ejection.consecutive-failures=3",
+    "support-assistant.client-resilience.ejection.base-time=2m"
+})
+class ClientResilienceTest {
+
+    private static final int REQUESTS = 60;
+    private static final int CONCURRENCY = 4;
+
+    private static final int PORT = TestSupport.freePort();
+    private static final int STALLING_PORT = TestSupport.freePort();
+    private static final int FAILING_PORT = TestSupport.freePort();
+
+    private static final List<ConfigurableApplicationContext> providers = new ArrayList<>();
+
+    /**
+     * A list is bound from a single property source, so the endpoints' names are registered along
+     * with their URLs.
+     */
+    @DynamicPropertySource
+    static void endpoints(DynamicPropertyRegistry registry) {
+        TestSupport.serveMockOn(PORT, registry);
+        endpoint(registry, 0, "local", PORT);
+        endpoint(registry, 1, "stalling", STALLING_PORT);
+        endpoint(registry, 2, "failing", FAILING_PORT);
+    }
+
+    private static void endpoint(DynamicPropertyRegistry registry, int index, String name, int port) {
+        String prefix = "support-assistant.client-resilience.endpoints[" + index + "].";
+        registry.add(prefix + "name", () -> name);
+        registry.add(prefix + "base-url", () -> TestSupport.mockBaseUrl(port));
+    }
+
+    @Autowired
+    private ChatClient chatClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void startProviders() {
+        providers.add(provider(STALLING_PORT,
+            "mock.simulation.time-to-first-token=100ms",
+            "mock.simulation.stall-rate=0.3",
+            "mock.simulation.stall-duration=3s"));
+        providers.add(provider(FAILING_PORT,
+            "mock.simulation.server-error-rate=1",
+            "mock.simulation.server-error-status=500"));
+    }
+
+    @AfterAll
+    static void stopProviders() {
+        providers.forEach(ConfigurableApplicationContext::close);
+    }
+
+    private static ConfigurableApplicationContext provider(int port, String... simulation) {
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=" + port, "--mock.simulation.enabled=true", "--mock.simulation.tokens-per-second=10000"));
+        for (String setting : simulation) {
+            args.add("--" + setting);
+        }
+        return new SpringApplicationBuilder(SupportAssistantApplication.class)
+            .profiles("mock")
+            .run(args.toArray(String[]::new));
+    }
+
+    @Test
+    void callsSurviveAFailingEndpointAndStallsAreHedged() throws Exception {
+        List<String> answers = concurrently(i -> chatClient.prompt()
+            .user("What is Tanzu Spring?")
+            .call()
+            .content());
+
+        assertThat(answers).hasSize(REQUESTS).allSatisfy(answer -> assertThat(answer).isNotBlank());
+        assertThat(gauge(ModelEndpoint.METRIC_EJECTED, "failing")).isEqualTo(1);
+        assertThat(gauge(ModelEndpoint.METRIC_EJECTED, "stalling")).isZero();
+        assertThat(meterRegistry.get(EndpointRouter.METRIC_HEDGES).tag("result", "won").counter().count()).isPositive();
+        assertThat(requests("local", "call")).isPositive();
+        assertThat(requests("stalling", "call")).isPositive();
+    }
+
+    @Test
+    void streamsAreRoutedAcrossEndpoints() throws Exception {
+        List<List<String>> streams = concurrently(i -> chatClient.prompt()
+            .user("What is Tanzu Spring?")
+            .stream()
+            .content()
+            .collectList()
+            .block());
+
+        assertThat(streams).hasSize(REQUESTS).allSatisfy(chunks -> assertThat(chunks).hasSizeGreaterThan(1));
+        assertThat(requests("local", "stream") + requests("stalling", "stream")).isGreaterThanOrEqualTo(REQUESTS);
+        assertThat(gauge(ModelEndpoint.METRIC_IN_FLIGHT, "local")).isZero();
+        assertThat(gauge(ModelEndpoint.METRIC_IN_FLIGHT, "stalling")).isZero();
+    }
+
+    private static <T> List<T> concurrently(IntFunction<T> request) throws Exception {
+        return TestSupport.concurrently(REQUESTS, CONCURRENCY, request);
+    }
+
+    private double gauge(String name, String endpoint) {
+        return meterRegistry.get(name).tag("endpoint", endpoint).gauge().value();
+    }
+
+    private long requests(String endpoint, String mode) {
+        return meterRegistry.get(ModelEndpoint.METRIC_LATENCY).tag("endpoint", endpoint).tag("mode", mode)
+            .timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+}
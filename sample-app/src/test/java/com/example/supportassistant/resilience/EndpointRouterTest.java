@@ -0,0 +1,47 @@
+package com.example.supportassistant.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Leases requests from an {@link EndpointRouter} with a single endpoint and reports them as a client
+ * would, to inspect the hedging delay derived from their latencies.
+ */
+class EndpointRouterTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(100);
+    private static final Duration SLOW = Duration.ofMillis(300);
+
+    private final EndpointRouter router = new EndpointRouter("http://localhost/mock", new ClientResilienceProperties(true,
+        List.of(),
+        new ClientResilienceProperties.Limit(20, 2, 200, 1.5, 0.2, 0.9),
+        new ClientResilienceProperties.Hedging(true, 90, Duration.ofMillis(1), 10, WINDOW, 0.1),
+        new ClientResilienceProperties.Ejection(5, Duration.ofSeconds(30), Duration.ofMinutes(5), 50)),
+        new SimpleMeterRegistry());
+
+    @Test
+    void cancelledRequestsCountTowardsTheHedgingDelay() throws Exception {
+        ModelEndpoint endpoint = null;
+        for (int i = 0; i < 8; i++) {
+            EndpointRouter.Lease lease = router.acquireOrReject(ModelEndpoint.Mode.STREAM);
+            lease.onResponse(ModelEndpoint.Outcome.SUCCESS);
+            lease.release();
+            endpoint = lease.endpoint();
+        }
+        // slow requests that lost to their hedge are cancelled before responding
+        List<EndpointRouter.Lease> slow = List.of(
+            router.acquireOrReject(ModelEndpoint.Mode.STREAM), router.acquireOrReject(ModelEndpoint.Mode.STREAM));
+        Thread.sleep(SLOW);
+        slow.forEach(EndpointRouter.Lease::release);
+        Thread.sleep(WINDOW);
+
+        // of 10 samples, the 90th percentile is the ninth: one of the cancelled requests, not a fast one
+        assertThat(endpoint.hedgeDelay(ModelEndpoint.Mode.STREAM)).isGreaterThanOrEqualTo(SLOW);
+        assertThat(endpoint.hedgeDelay(ModelEndpoint.Mode.CALL)).isNull();
+    }
+}
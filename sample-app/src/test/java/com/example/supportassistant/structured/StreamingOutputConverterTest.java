@@ -0,0 +1,99 @@
+package com.example.supportassistant.structured;
+
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import com.example.supportassistant.TestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Streams structured output from the mock OpenAI endpoint, which answers format instructions with
+ * JSON, and feeds hand-written deltas to the converter for the failure cases.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+class StreamingOutputConverterTest {
+
+    private static final int PORT = TestSupport.freePort();
+
+    @DynamicPropertySource
+    static void mockService(DynamicPropertyRegistry registry) {
+        TestSupport.serveMockOn(PORT, registry);
+    }
+
+    enum Category { ACCOUNT, BILLING, TECHNICAL }
+
+    record Answer(Category category, String answer, List<String> nextSteps) {}
+
+    private final StreamingOutputConverter<Answer> converter = new StreamingOutputConverter<>(Answer.class);
+
+    @Autowired
+    private ChatClient chatClient;
+
+    @Test
+    void emitsEachFieldAsItCloses() {
+        List<PartialOutput<Answer>> partials = converter.stream(chatClient.prompt().user("How do I reset my password? BILLING"))
+            .collectList()
+            .block();
+
+        assertThat(partials).hasSizeGreaterThan(1);
+        assertThat(partials.getFirst().completedFields()).hasSize(1);
+        assertThat(partials.getFirst().complete()).isFalse();
+        PartialOutput<Answer> last = partials.getLast();
+        assertThat(last.complete()).isTrue();
+        assertThat(last.completedFields()).containsExactlyInAnyOrder("category", "answer", "nextSteps");
+        assertThat(last.value().category()).isEqualTo(Category.BILLING);
+        assertThat(last.value().answer()).isNotBlank();
+        assertThat(last.value().nextSteps()).isNotEmpty();
+    }
+
+    @Test
+    void skipsTextAroundTheJson() {
+        List<PartialOutput<Answer>> partials = converter.convert(
+                Flux.just("```json\n{\"category\": \"ACC", "OUNT\", \"answer\": \"Reset it\"", ", \"nextSteps\": []}\n```"))
+            .collectList()
+            .block();
+
+        assertThat(partials).extracting(PartialOutput::completedFields)
+            .containsExactly(List.of("category"), List.of("category", "answer"),
+                List.of("category", "answer", "nextSteps"), List.of("category", "answer", "nextSteps"));
+        assertThat(partials.getLast().complete()).isTrue();
+        assertThat(partials.getLast().value()).isEqualTo(new Answer(Category.ACCOUNT, "Reset it", List.of()));
+    }
+
+    @Test
+    void abortsAtAFieldTheSchemaDoesNotAllow() {
+        List<PartialOutput<Answer>> partials = new ArrayList<>();
+        Flux<PartialOutput<Answer>> stream = converter.convert(Flux.just("{\"category\": \"ACCOUNT\", ", "\"priority\": ", "\"HIGH\"}"))
+            .doOnNext(partials::add);
+
+        assertThatThrownBy(stream::blockLast)
+            .isInstanceOf(StructuredOutputException.class)
+            .hasMessageContaining("priority");
+        assertThat(partials).hasSize(1);
+    }
+
+    @Test
+    void abortsAtAValueOfTheWrongType() {
+        Flux<PartialOutput<Answer>> stream = converter.convert(Flux.just("{\"category\": \"SHIPPING\", ", "\"answer\": \"...\"}"));
+
+        assertThatThrownBy(stream::blockLast).isInstanceOf(StructuredOutputException.class);
+    }
+
+    @Test
+    void failsWhenTheStreamEndsEarly() {
+        Flux<PartialOutput<Answer>> stream = converter.convert(Flux.just("{\"category\": \"ACCOUNT\", ", "\"answer\": \"Reset"));
+
+        assertThatThrownBy(stream::blockLast)
+            .isInstanceOf(StructuredOutputException.class)
+            .hasMessageContaining("ended");
+    }
+}
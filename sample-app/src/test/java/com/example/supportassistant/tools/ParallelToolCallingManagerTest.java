@@ -0,0 +1,162 @@
+package com.example.supportassistant.tools;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.observation.ToolCallingObservationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the tool calls of one model turn through {@link ParallelToolCallingManager} with tools that
+ * sleep, so overlapping calls and timeouts show in the elapsed time and the results.
+ */
+class ParallelToolCallingManagerTest {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ToolCallingObservationContext> observations = new CopyOnWriteArrayList<>();
+    private final ParallelToolCallingManager manager = new ParallelToolCallingManager(
+        DefaultToolCallingManager.builder().build(),
+        toolName -> null,
+        DefaultToolExecutionExceptionProcessor.builder().build(),
+        new ToolExecutionProperties(true, TIMEOUT, 32, Map.of(
+            "lookup", new ToolExecutionProperties.Tool(null, null, null, true),
+            "createTicket", new ToolExecutionProperties.Tool(null, null, null, false))),
+        observationRegistry(),
+        meterRegistry);
+
+    @AfterEach
+    void close() {
+        manager.close();
+    }
+
+    @Test
+    void callsOfOneTurnRunConcurrentlyAndAreObserved() {
+        SleepingTool lookup = new SleepingTool("lookup", Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        ToolExecutionResult result = manager.executeToolCalls(prompt(lookup), response("lookup", "lookup", "lookup"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isLessThan(3 * 200);
+        assertThat(responses(result)).extracting(ToolResponseMessage.ToolResponse::id).containsExactly("0", "1", "2");
+        assertThat(responses(result)).extracting(ToolResponseMessage.ToolResponse::responseData)
+            .containsOnly("lookup done");
+        assertThat(observations).hasSize(3)
+            .allSatisfy(context -> assertThat(context.getToolCallResult()).isEqualTo("lookup done"));
+        assertThat(meterRegistry.get("assistant.tool.calls").tag("tool", "lookup").tag("result", "success")
+            .timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void idempotentCallsAreCancelledOnTimeout() throws Exception {
+        SleepingTool lookup = new SleepingTool("lookup", Duration.ofSeconds(5));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt(lookup), response("lookup"));
+
+        assertThat(responses(result).getFirst().responseData()).contains("did not complete within");
+        assertThat(lookup.interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("assistant.tool.calls").tag("result", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherCallsKeepRunningAndAreReportedAsUnknownOnTimeout() throws Exception {
+        SleepingTool createTicket = new SleepingTool("createTicket", TIMEOUT.multipliedBy(2));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt(createTicket), response("createTicket"));
+
+        assertThat(responses(result).getFirst().responseData()).contains("outcome of tool createTicket is unknown");
+        assertThat(createTicket.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(createTicket.interrupted.getCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("assistant.tool.calls").tag("result", "unknown").timer().count()).isEqualTo(1);
+    }
+
+    private ObservationRegistry observationRegistry() {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<ToolCallingObservationContext>() {
+            @Override
+            public void onStop(ToolCallingObservationContext context) {
+                observations.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return context instanceof ToolCallingObservationContext;
+            }
+        });
+        return registry;
+    }
+
+    private static Prompt prompt(ToolCallback... tools) {
+        return new Prompt(List.of(new UserMessage("Help me")), ToolCallingChatOptions.builder().toolCallbacks(tools).build());
+    }
+
+    private static ChatResponse response(String... toolNames) {
+        List<AssistantMessage.ToolCall> toolCalls = new ArrayList<>();
+        for (int i = 0; i < toolNames.length; i++) {
+            toolCalls.add(new AssistantMessage.ToolCall(String.valueOf(i), "function", toolNames[i], "{}"));
+        }
+        return new ChatResponse(List.of(new Generation(AssistantMessage.builder().content("").toolCalls(toolCalls).build())));
+    }
+
+    private static List<ToolResponseMessage.ToolResponse> responses(ToolExecutionResult result) {
+        return ((ToolResponseMessage) result.conversationHistory().getLast()).getResponses();
+    }
+
+    private static final class SleepingTool implements ToolCallback {
+
+        private final ToolDefinition definition;
+        private final Duration duration;
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        SleepingTool(String name, Duration duration) {
+            this.definition = ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+            this.duration = duration;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return definition;
+        }
+
+        @Override
+        public String call(String toolInput) {
+            try {
+                Thread.sleep(duration);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            completed.countDown();
+            return definition.name() + " done";
+        }
+    }
+}
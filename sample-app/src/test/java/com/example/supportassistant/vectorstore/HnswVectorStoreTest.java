@@ -0,0 +1,237 @@
+package com.example.supportassistant.vectorstore;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adds, searches and deletes documents in a {@link HnswVectorStore} with a stub embedding model that maps
+ * each text to a random unit vector seeded by the text, in the positive orthant so that every document
+ * scores above the default similarity threshold, and checks its results against an exact scan of
+ * the same vectors.
+ */
+class HnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int DOCUMENTS = 1000;
+
+    private final EmbeddingModel embeddingModel = new RandomEmbeddingModel();
+    private final HnswVectorStore store = HnswVectorStore.builder(embeddingModel).build();
+
+    @Test
+    void recallMatchesExactSearchOnAFixture() {
+        store.add(documents(0, DOCUMENTS));
+
+        double recall = 0;
+        for (int i = 0; i < 50; i++) {
+            String query = "query-" + i;
+            Set<String> exact = exactTopK(query, 10, IntStream.range(0, DOCUMENTS));
+            List<String> approximate = ids(search(query, 10));
+            assertThat(approximate).hasSize(10);
+            recall += approximate.stream().filter(exact::contains).count() / 10.0;
+        }
+
+        assertThat(recall / 50).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void concurrentInsertsAndSearchesLeaveEveryDocumentFindable() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        AtomicBoolean inserting = new AtomicBoolean(true);
+        AtomicInteger searches = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int first = writer * DOCUMENTS / 4;
+                writers.add(executor.submit(() -> {
+                    for (int batch = first; batch < first + DOCUMENTS / 4; batch += 25) {
+                        store.add(documents(batch, batch + 25));
+                    }
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 2; reader++) {
+                readers.add(executor.submit(() -> {
+                    while (inserting.get()) {
+                        assertThat(search("query-" + searches.incrementAndGet() % 50, 10)).hasSizeLessThanOrEqualTo(10);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            inserting.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(searches.get()).isPositive();
+        assertThat(store.size()).isEqualTo(DOCUMENTS);
+        assertThat(selfHits(IntStream.range(0, DOCUMENTS))).isGreaterThanOrEqualTo(DOCUMENTS * 99 / 100);
+    }
+
+    @Test
+    void deletedDocumentsAreNoLongerFound() {
+        store.add(documents(0, 200));
+
+        store.delete(List.of("doc-7", "doc-8", "unknown"));
+
+        assertThat(store.size()).isEqualTo(198);
+        assertThat(ids(search("doc-7", 200))).doesNotContain("doc-7", "doc-8").hasSize(198);
+    }
+
+    @Test
+    void documentsAreDeletedByFilter() {
+        store.add(documents(0, 200));
+
+        store.delete("parity == 'odd'");
+
+        assertThat(store.size()).isEqualTo(100);
+        assertThat(search("query-1", 20)).hasSize(20)
+            .allSatisfy(document -> assertThat(document.getMetadata()).containsEntry("parity", "even"));
+    }
+
+    @Test
+    void graphIsRebuiltOnceTombstonesOutnumberTheLiveDocuments() {
+        store.add(documents(0, 400));
+
+        store.delete(IntStream.range(0, 200).mapToObj(i -> "doc-" + i).toList());
+        assertThat(tombstones()).isEqualTo(200);
+
+        store.delete(List.of("doc-200"));
+
+        assertThat(tombstones()).isZero();
+        assertThat(store.size()).isEqualTo(199);
+        assertThat(selfHits(IntStream.range(201, 400))).isGreaterThanOrEqualTo(197);
+        assertThat(ids(search("query-3", 10))).containsExactlyInAnyOrderElementsOf(
+            exactTopK("query-3", 10, IntStream.range(201, 400)));
+    }
+
+    @Test
+    void selectiveFilterFallsBackToAnExactScan() {
+        store.add(documents(0, DOCUMENTS));
+
+        List<Document> results = store.similaritySearch(SearchRequest.builder()
+            .query("query-1")
+            .topK(5)
+            .filterExpression("bucket == 'rare'")
+            .build());
+
+        // only three documents match, too few for the nodes a search visits to contain them
+        assertThat(ids(results)).containsExactlyInAnyOrder("doc-0", "doc-500", "doc-999");
+    }
+
+    private List<Document> search(String query, int topK) {
+        return store.similaritySearch(SearchRequest.builder().query(query).topK(topK).build());
+    }
+
+    private int selfHits(IntStream documents) {
+        return (int) documents.filter(i -> {
+            List<Document> results = search("doc-" + i, 1);
+            return !results.isEmpty() && results.get(0).getId().equals("doc-" + i);
+        }).count();
+    }
+
+    private int tombstones() {
+        Object graph = ReflectionTestUtils.getField(store, "graph");
+        return ((AtomicInteger) ReflectionTestUtils.getField(graph, "tombstones")).get();
+    }
+
+    private Set<String> exactTopK(String query, int topK, IntStream documents) {
+        float[] vector = embeddingModel.embed(query);
+        return new HashSet<>(documents.boxed()
+            .sorted(Comparator.comparingDouble(i -> -dot(vector, embeddingModel.embed("doc-" + i))))
+            .limit(topK)
+            .map(i -> "doc-" + i)
+            .toList());
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    private static List<Document> documents(int from, int to) {
+        return IntStream.range(from, to)
+            .mapToObj(i -> Document.builder()
+                .id("doc-" + i)
+                .text("doc-" + i)
+                .metadata(Map.of("parity", i % 2 == 0 ? "even" : "odd",
+                    "bucket", i == 0 || i == 500 || i == 999 ? "rare" : "common"))
+                .build())
+            .toList();
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class RandomEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return vector(text);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+
+        private static float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSIONS];
+            double norm = 0;
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) Math.abs(random.nextGaussian());
+                norm += vector[i] * vector[i];
+            }
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] /= (float) Math.sqrt(norm);
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.supportassistant.vectorstore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adds, replaces and deletes documents in a {@link MappedVectorStore} in a temporary directory, with a
+ * stub embedding model that records the texts it embeds and maps each text to a vector of its letter counts.
+ */
+class MappedVectorStoreTest {
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    private Path directory;
+
+    private final List<String> embedded = new CopyOnWriteArrayList<>();
+    private final EmbeddingModel embeddingModel = new LetterCountEmbeddingModel();
+
+    private MappedVectorStore store;
+
+    @BeforeEach
+    void open() {
+        store = store(directory);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        store.close();
+    }
+
+    @Test
+    void addedDocumentsAreFoundBySimilarity() {
+        store.add(List.of(document("a", "reset your password"), document("b", "billing invoices"),
+            document("c", "delete your account")));
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(search("billing invoices")).extracting(Document::getId).first().isEqualTo("b");
+        assertThat(embedded).hasSize(3);
+    }
+
+    @Test
+    void addingAStoredDocumentAgainIsANoOp() {
+        store.add(List.of(document("a", "reset your password")));
+        store.add(List.of(document("a", "reset your password")));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(embedded).containsExactly("reset your password");
+    }
+
+    @Test
+    void addingADocumentUnderAStoredIdReplacesIt() {
+        store.add(List.of(document("a", "reset your password")));
+        store.add(List.of(document("a", "change your email address")));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(search("reset your password")).isEmpty();
+        assertThat(search("change your email address")).extracting(Document::getId).containsExactly("a");
+    }
+
+    @Test
+    void identicalContentUnderTwoIdsIsEmbeddedOnceAndStoredUnderBoth() {
+        store.add(List.of(document("x", "reset your password"), document("y", "billing invoices")));
+        store.add(List.of(document("x", "billing invoices")));
+
+        assertThat(embedded).containsExactly("reset your password", "billing invoices");
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(search("billing invoices")).extracting(Document::getId).containsExactlyInAnyOrder("x", "y");
+
+        store.delete(List.of("x"));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(search("billing invoices")).extracting(Document::getId).containsExactly("y");
+    }
+
+    @Test
+    void identicalContentInOneBatchIsEmbeddedOnce() {
+        store.add(List.of(document("x", "billing invoices"), document("y", "billing invoices")));
+
+        assertThat(embedded).containsExactly("billing invoices");
+        assertThat(search("billing invoices")).extracting(Document::getId).containsExactlyInAnyOrder("x", "y");
+    }
+
+    @Test
+    void documentsAreDeletedByIdAndByFilter() {
+        store.add(List.of(document("a", "reset your password", "faq"), document("b", "billing invoices", "faq"),
+            document("c", "delete your account", "manual")));
+
+        store.delete(List.of("a", "unknown"));
+        assertThat(store.size()).isEqualTo(2);
+
+        store.delete("source == 'faq'");
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(search("delete your account")).extracting(Document::getId).containsExactly("c");
+    }
+
+    @Test
+    void syncDropsDocumentsMissingFromTheSourceSet() {
+        store.add(List.of(document("a", "reset your password"), document("b", "billing invoices")));
+
+        store.sync(List.of(document("b", "billing invoices"), document("c", "reset your password")));
+
+        assertThat(embedded).hasSize(2);
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(search("reset your password")).extracting(Document::getId).containsExactly("c");
+    }
+
+    @Test
+    void reopenedStoreKeepsItsDocumentsWithoutEmbeddingThemAgain() throws Exception {
+        store.add(List.of(document("a", "reset your password"), document("b", "billing invoices")));
+        store.delete(List.of("b"));
+        store.close();
+
+        store = store(directory);
+        store.add(List.of(document("a", "reset your password")));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(search("reset your password")).extracting(Document::getId).containsExactly("a");
+        assertThat(embedded).hasSize(2);
+    }
+
+    @Test
+    void storeOnAnEmptyDirectoryStartsFromASnapshot(@TempDir Path other) throws Exception {
+        store.add(List.of(document("a", "reset your password"), document("b", "billing invoices")));
+        Path snapshot = other.resolve("snapshot");
+        store.writeSnapshot(snapshot);
+
+        try (MappedVectorStore restored = MappedVectorStore.builder(embeddingModel)
+                .directory(other.resolve("store"))
+                .snapshot(new FileSystemResource(snapshot + "/"))
+                .build()) {
+            restored.add(List.of(document("b", "billing invoices")));
+
+            assertThat(restored.size()).isEqualTo(2);
+            assertThat(restored.similaritySearch(SearchRequest.builder().query("billing invoices").topK(1).build()))
+                .extracting(Document::getId).containsExactly("b");
+        }
+        assertThat(embedded).hasSize(2);
+    }
+
+    private MappedVectorStore store(Path directory) {
+        return MappedVectorStore.builder(embeddingModel).directory(directory).build();
+    }
+
+    private List<Document> search(String query) {
+        return store.similaritySearch(SearchRequest.builder().query(query).topK(10).similarityThreshold(0.99).build());
+    }
+
+    private static Document document(String id, String text) {
+        return document(id, text, "faq");
+    }
+
+    private static Document document(String id, String text, String source) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", source)).build();
+    }
+
+    private final class LetterCountEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embedded.add(text);
+                embeddings.add(new Embedding(letterCounts(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            // queries are embedded without recording, to count only the documents
+            return letterCounts(text);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return ALPHABET.length();
+        }
+
+        private static float[] letterCounts(String text) {
+            float[] vector = new float[ALPHABET.length()];
+            for (char c : text.toCharArray()) {
+                int index = ALPHABET.indexOf(c);
+                if (index >= 0) {
+                    vector[index]++;
+                }
+            }
+            return vector;
+        }
+    }
+}